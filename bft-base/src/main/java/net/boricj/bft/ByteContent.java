@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Byte payload backed either by a heap array or by a read-only view over a {@link ByteSource}.
+ * <p>
+ * A view is materialized into a heap array the first time {@link #getBytes()} is called. From then on the
+ * array is the authoritative content and callers may mutate it in place. This class is not thread-safe.
+ */
+public final class ByteContent implements StreamWritable {
+	private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
+	private byte[] bytes;
+	private ByteBuffer buffer;
+
+	private ByteContent(byte[] bytes, ByteBuffer buffer) {
+		this.bytes = bytes;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Creates a content backed by a heap array, without copying it.
+	 *
+	 * @param bytes the content bytes
+	 * @return the content
+	 */
+	public static ByteContent of(byte[] bytes) {
+		Objects.requireNonNull(bytes);
+
+		return new ByteContent(bytes, null);
+	}
+
+	/**
+	 * Creates a content backed by a view over the remaining bytes of a buffer, without copying them.
+	 *
+	 * @param buffer the content buffer
+	 * @return the content
+	 */
+	public static ByteContent view(ByteBuffer buffer) {
+		Objects.requireNonNull(buffer);
+
+		return new ByteContent(null, buffer.slice().asReadOnlyBuffer());
+	}
+
+	/**
+	 * Returns whether the content has been materialized into a heap array.
+	 *
+	 * @return true if the content is backed by a heap array
+	 */
+	public boolean isMaterialized() {
+		return bytes != null;
+	}
+
+	/**
+	 * Returns the content as a heap array, materializing it if needed.
+	 * <p>
+	 * The returned array is not a copy: changes made to it are reflected in this content.
+	 *
+	 * @return the content bytes
+	 */
+	public byte[] getBytes() {
+		if (bytes == null) {
+			bytes = new byte[buffer.remaining()];
+			buffer.get(0, bytes);
+			buffer = null;
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Returns a read-only view over the content, without materializing it.
+	 *
+	 * @return a read-only buffer positioned at the start of the content
+	 */
+	public ByteBuffer getBuffer() {
+		if (bytes != null) {
+			return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+		}
+
+		return buffer.duplicate();
+	}
+
+	@Override
+	public long getLength() {
+		return bytes != null ? bytes.length : buffer.remaining();
+	}
+
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		if (bytes != null) {
+			outputStream.write(bytes);
+			return;
+		}
+
+		byte[] chunk = new byte[Math.min(WRITE_CHUNK_SIZE, buffer.remaining())];
+		for (int position = 0; position < buffer.remaining(); position += chunk.length) {
+			int length = Math.min(chunk.length, buffer.remaining() - position);
+			buffer.get(position, chunk, 0, length);
+			outputStream.write(chunk, 0, length);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Read-only, random-access source of bytes for parsers.
+ * <p>
+ * A source is backed by a single {@link ByteBuffer}, typically a read-only {@link java.nio.MappedByteBuffer}
+ * over a file. All reads are positional: they never share or move a file position, so any number of streams
+ * and slices may be opened over the same source at once.
+ */
+public final class ByteSource {
+	private final ByteBuffer buffer;
+
+	private ByteSource(ByteBuffer buffer) {
+		this.buffer = buffer.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Maps a whole file into memory.
+	 *
+	 * @param path the file to map
+	 * @return a source backed by the mapped file
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public static ByteSource map(Path path) throws IOException {
+		Objects.requireNonNull(path);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return map(channel);
+		}
+	}
+
+	/**
+	 * Maps the whole content of a file channel into memory.
+	 * <p>
+	 * The mapping stays valid after the channel is closed.
+	 *
+	 * @param channel the file channel to map
+	 * @return a source backed by the mapped file
+	 * @throws IOException if the channel cannot be mapped
+	 */
+	public static ByteSource map(FileChannel channel) throws IOException {
+		Objects.requireNonNull(channel);
+
+		return map(channel, 0, channel.size());
+	}
+
+	/**
+	 * Maps a region of a file channel into memory.
+	 *
+	 * @param channel the file channel to map
+	 * @param offset the offset of the region within the file
+	 * @param length the length of the region
+	 * @return a source backed by the mapped region
+	 * @throws IOException if the channel cannot be mapped
+	 * @throws IllegalArgumentException if the region is larger than 2 GiB
+	 */
+	public static ByteSource map(FileChannel channel, long offset, long length) throws IOException {
+		Objects.requireNonNull(channel);
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("region too large to map: " + length);
+		}
+
+		return new ByteSource(channel.map(MapMode.READ_ONLY, offset, length));
+	}
+
+	/**
+	 * Wraps a byte array without copying it.
+	 *
+	 * @param bytes the byte array
+	 * @return a source backed by the byte array
+	 */
+	public static ByteSource wrap(byte[] bytes) {
+		Objects.requireNonNull(bytes);
+
+		return new ByteSource(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Wraps the remaining content of a byte buffer without copying it.
+	 *
+	 * @param buffer the byte buffer
+	 * @return a source backed by the byte buffer
+	 */
+	public static ByteSource wrap(ByteBuffer buffer) {
+		Objects.requireNonNull(buffer);
+
+		return new ByteSource(buffer);
+	}
+
+	/**
+	 * Returns the number of bytes in this source.
+	 *
+	 * @return the source length
+	 */
+	public long length() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * Returns a read-only view over a region of this source, without copying.
+	 *
+	 * @param offset the offset of the region
+	 * @param length the length of the region
+	 * @return a read-only buffer positioned at the start of the region
+	 * @throws IndexOutOfBoundsException if the region lies outside of this source
+	 */
+	public ByteBuffer slice(long offset, long length) {
+		checkRegion(offset, length);
+
+		return buffer.slice((int) offset, (int) length);
+	}
+
+	/**
+	 * Copies a region of this source into a new byte array.
+	 *
+	 * @param offset the offset of the region
+	 * @param length the length of the region
+	 * @return the region bytes
+	 * @throws IndexOutOfBoundsException if the region lies outside of this source
+	 */
+	public byte[] read(long offset, int length) {
+		checkRegion(offset, length);
+
+		byte[] bytes = new byte[length];
+		buffer.get((int) offset, bytes);
+		return bytes;
+	}
+
+	/**
+	 * Opens an input stream reading from an offset up to the end of this source.
+	 *
+	 * @param offset the offset to start reading from
+	 * @return an input stream over the source
+	 * @throws IndexOutOfBoundsException if the offset lies outside of this source
+	 */
+	public InputStream openStream(long offset) {
+		return openStream(offset, length() - offset);
+	}
+
+	/**
+	 * Opens an input stream reading a region of this source.
+	 *
+	 * @param offset the offset of the region
+	 * @param length the length of the region
+	 * @return an input stream over the region
+	 * @throws IndexOutOfBoundsException if the region lies outside of this source
+	 */
+	public InputStream openStream(long offset, long length) {
+		return new ByteBufferInputStream(slice(offset, length));
+	}
+
+	private void checkRegion(long offset, long length) {
+		if (offset < 0 || length < 0 || offset > length() - length) {
+			throw new IndexOutOfBoundsException(String.format(
+					"region [0x%x, 0x%x) out of bounds (length 0x%x)", offset, offset + length, length()));
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+
+			return Byte.toUnsignedInt(buffer.get());
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			Objects.checkFromIndexSize(off, len, b.length);
+			if (len == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Object file formats, as identified from their first bytes.
+ * <p>
+ * Detection only looks at a handful of header bytes and never parses the file. COFF object files carry no magic
+ * bytes, so they are recognized from a known machine type followed by a plausible file header.
+ */
+public enum FileFormat {
+	/** Executable and Linkable Format. */
+	ELF,
+	/** Common Object File Format, as used by Microsoft toolchains. */
+	COFF,
+	/** Intel Object Module Format. */
+	OMF,
+	/** Library of Intel Object Module Format modules. */
+	OMF_LIBRARY,
+	/** Unrecognized format. */
+	UNKNOWN;
+
+	private static final short[] COFF_MACHINES = {
+		(short) 0x014c, // IMAGE_FILE_MACHINE_I386
+		(short) 0x8664, // IMAGE_FILE_MACHINE_AMD64
+		(short) 0x01c0, // IMAGE_FILE_MACHINE_ARM
+		(short) 0x01c4, // IMAGE_FILE_MACHINE_ARMNT
+		(short) 0xaa64, // IMAGE_FILE_MACHINE_ARM64
+		(short) 0x0200, // IMAGE_FILE_MACHINE_IA64
+	};
+
+	/**
+	 * Identifies the format of an object file.
+	 *
+	 * @param source the source holding an object file at offset 0
+	 * @return the detected format, or {@link #UNKNOWN}
+	 */
+	public static FileFormat detect(ByteSource source) {
+		Objects.requireNonNull(source);
+
+		long length = source.length();
+		ByteBuffer header = source.slice(0, Math.min(length, 20)).order(ByteOrder.LITTLE_ENDIAN);
+
+		if (length >= 16
+				&& header.get(0) == 0x7f
+				&& header.get(1) == 'E'
+				&& header.get(2) == 'L'
+				&& header.get(3) == 'F') {
+			return ELF;
+		}
+
+		if (length >= 5 && Byte.toUnsignedInt(header.get(0)) == 0x80) {
+			// THEADR record, holding exactly one length-prefixed module name.
+			int recordLength = Short.toUnsignedInt(header.getShort(1));
+			int nameLength = Byte.toUnsignedInt(header.get(3));
+			if (recordLength == nameLength + 2 && 3 + recordLength <= length) {
+				return OMF;
+			}
+		}
+
+		if (length >= 10 && Byte.toUnsignedInt(header.get(0)) == 0xF0) {
+			// LIBHDR record, whose length sets the page size of the library.
+			int pageSize = Short.toUnsignedInt(header.getShort(1)) + 3;
+			if (pageSize >= 16 && Integer.bitCount(pageSize) == 1 && pageSize <= length) {
+				return OMF_LIBRARY;
+			}
+		}
+
+		if (length >= 20) {
+			short machine = header.getShort(0);
+			int numberOfSections = Short.toUnsignedInt(header.getShort(2));
+			long pointerToSymbolTable = Integer.toUnsignedLong(header.getInt(8));
+			long numberOfSymbols = Integer.toUnsignedLong(header.getInt(12));
+			int sizeOfOptionalHeader = Short.toUnsignedInt(header.getShort(16));
+
+			boolean knownMachine = false;
+			for (short coffMachine : COFF_MACHINES) {
+				knownMachine |= machine == coffMachine;
+			}
+
+			long sectionHeadersEnd = 20L + sizeOfOptionalHeader + 40L * numberOfSections;
+			boolean symbolsFit = pointerToSymbolTable == 0
+					? numberOfSymbols == 0
+					: pointerToSymbolTable + 18 * numberOfSymbols <= length;
+			if (knownMachine && sectionHeadersEnd <= length && symbolsFit) {
+				return COFF;
+			}
+		}
+
+		return UNKNOWN;
+	}
+}
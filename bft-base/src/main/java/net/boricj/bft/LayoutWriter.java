@@ -0,0 +1,372 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes a collection of writables at their offsets, producing a file layout.
+ * <p>
+ * Writables are written in offset order and the gaps between them are filled with a padding byte. Empty writables
+ * are skipped. Writables must not overlap and must write exactly as many bytes as their length.
+ * <p>
+ * When writing to a {@link FileChannel}, each writable is written with positional writes at its offset, without
+ * relying on or moving the channel position. The channel is sized to the layout length up front. Gaps are filled
+ * in bulk, or left as holes when sparse output is enabled. Since writables occupy disjoint regions, they can also
+ * be encoded concurrently, producing the same bytes as a sequential write.
+ */
+public final class LayoutWriter {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final List<Writable> writables;
+	private int padding = 0x00;
+	private boolean sparse = false;
+	private boolean parallel = false;
+
+	private record Placement(Writable writable, long offset, long length) {}
+
+	/**
+	 * Creates a layout writer.
+	 *
+	 * @param writables collection of objects to write
+	 */
+	public LayoutWriter(Collection<? extends Writable> writables) {
+		Objects.requireNonNull(writables);
+
+		this.writables = List.copyOf(writables);
+	}
+
+	/**
+	 * Returns the byte value used to fill gaps between writables.
+	 *
+	 * @return the padding byte value
+	 */
+	public int getPadding() {
+		return padding;
+	}
+
+	/**
+	 * Sets the byte value used to fill gaps between writables.
+	 *
+	 * @param padding the padding byte value
+	 * @return this layout writer
+	 */
+	public LayoutWriter setPadding(int padding) {
+		this.padding = padding;
+		return this;
+	}
+
+	/**
+	 * Returns whether gaps are left as holes when writing to a file channel.
+	 *
+	 * @return true if sparse output is enabled
+	 */
+	public boolean isSparse() {
+		return sparse;
+	}
+
+	/**
+	 * Enables or disables sparse output when writing to a file channel.
+	 * <p>
+	 * Gaps between writables are then not written at all. They read back as zero bytes only if the channel held
+	 * no data there beforehand, like a newly created file. Sparse output requires zero padding.
+	 *
+	 * @param sparse true to leave gaps as holes
+	 * @return this layout writer
+	 */
+	public LayoutWriter setSparse(boolean sparse) {
+		this.sparse = sparse;
+		return this;
+	}
+
+	/**
+	 * Returns whether writables are encoded concurrently when writing to a file channel.
+	 *
+	 * @return true if parallel output is enabled
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Enables or disables parallel output when writing to a file channel.
+	 * <p>
+	 * Each writable is then encoded on its own virtual thread. Writables must support being written concurrently
+	 * with each other.
+	 *
+	 * @param parallel true to encode writables concurrently
+	 * @return this layout writer
+	 */
+	public LayoutWriter setParallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * Returns the length of the layout, up to the end of the last writable.
+	 *
+	 * @return the layout length in bytes
+	 */
+	public long getLength() {
+		long length = 0;
+		for (Placement placement : layout()) {
+			length = Math.max(length, placement.offset() + placement.length());
+		}
+		return length;
+	}
+
+	/**
+	 * Writes the layout sequentially to an output stream.
+	 *
+	 * @param outputStream stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void write(OutputStream outputStream) throws IOException {
+		Objects.requireNonNull(outputStream);
+
+		List<Placement> placements = layout();
+
+		MeteredOutputStream mos = new MeteredOutputStream(outputStream);
+		byte[] fill = null;
+		for (Placement placement : placements) {
+			long gap = placement.offset() - mos.getCount();
+			if (gap > 0) {
+				if (fill == null) {
+					fill = new byte[BUFFER_SIZE];
+					Arrays.fill(fill, (byte) padding);
+				}
+
+				for (; gap > 0; gap -= fill.length) {
+					mos.write(fill, 0, (int) Math.min(gap, fill.length));
+				}
+			}
+
+			long offset = mos.getCount();
+			placement.writable().write(mos);
+			checkLength(placement, mos.getCount() - offset);
+		}
+	}
+
+	/**
+	 * Writes the layout to a file channel, which is truncated or extended to the layout length.
+	 * <p>
+	 * Offsets are relative to the start of the channel.
+	 *
+	 * @param channel file channel to write to
+	 * @throws IOException if writing fails
+	 * @throws IllegalStateException if sparse output is enabled with a non-zero padding
+	 */
+	public void write(FileChannel channel) throws IOException {
+		Objects.requireNonNull(channel);
+		if (sparse && padding != 0x00) {
+			throw new IllegalStateException("sparse output requires zero padding");
+		}
+
+		List<Placement> placements = layout();
+		if (placements.isEmpty()) {
+			channel.truncate(0);
+			return;
+		}
+
+		Placement last = placements.get(placements.size() - 1);
+		long length = last.offset() + last.length();
+		if (channel.size() > length) {
+			channel.truncate(length);
+		} else if (channel.size() < length) {
+			// Extend the file once, the last writable overwrites this byte.
+			channel.write(ByteBuffer.allocate(1), length - 1);
+		}
+
+		if (!sparse) {
+			fill(channel, placements);
+		}
+
+		if (parallel) {
+			writeParallel(channel, placements);
+		} else {
+			for (Placement placement : placements) {
+				write(channel, placement);
+			}
+		}
+	}
+
+	private void fill(FileChannel channel, List<Placement> placements) throws IOException {
+		ByteBuffer fill = null;
+		long position = 0;
+		for (Placement placement : placements) {
+			if (placement.offset() > position) {
+				if (fill == null) {
+					byte[] bytes = new byte[BUFFER_SIZE];
+					Arrays.fill(bytes, (byte) padding);
+					fill = ByteBuffer.wrap(bytes);
+				}
+
+				fill(channel, fill, position, placement.offset());
+			}
+
+			position = placement.offset() + placement.length();
+		}
+	}
+
+	private static void writeParallel(FileChannel channel, List<Placement> placements) throws IOException {
+		List<Future<Void>> futures = new ArrayList<>(placements.size());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (Placement placement : placements) {
+				futures.add(executor.submit(() -> {
+					write(channel, placement);
+					return null;
+				}));
+			}
+		}
+
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while writing", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException ioException) {
+					throw ioException;
+				} else if (cause instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				} else if (cause instanceof Error error) {
+					throw error;
+				}
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	private static void write(FileChannel channel, Placement placement) throws IOException {
+		ChannelOutputStream outputStream = new ChannelOutputStream(channel, placement.offset());
+		placement.writable().write(outputStream);
+		outputStream.flush();
+		checkLength(placement, outputStream.getPosition() - placement.offset());
+	}
+
+	private static void fill(FileChannel channel, ByteBuffer fill, long start, long end) throws IOException {
+		for (long position = start; position < end; ) {
+			fill.clear().limit((int) Math.min(end - position, fill.capacity()));
+			while (fill.hasRemaining()) {
+				position += channel.write(fill, position);
+			}
+		}
+	}
+
+	private List<Placement> layout() {
+		List<Placement> placements = new ArrayList<>(writables.size());
+		for (Writable writable : writables) {
+			long length = writable.getLength();
+			if (length > 0) {
+				placements.add(new Placement(writable, writable.getOffset(), length));
+			}
+		}
+		placements.sort(Comparator.comparingLong(Placement::offset));
+
+		Placement previous = null;
+		for (Placement placement : placements) {
+			if (previous != null && previous.offset() + previous.length() > placement.offset()) {
+				String fmt = "%s (offset: %d, length: %d) overlaps with %s (offset: %d, length %d)";
+				String msg = String.format(
+						fmt,
+						previous.writable(),
+						previous.offset(),
+						previous.length(),
+						placement.writable(),
+						placement.offset(),
+						placement.length());
+				throw new RuntimeException(msg);
+			}
+
+			previous = placement;
+		}
+
+		return placements;
+	}
+
+	private static void checkLength(Placement placement, long bytesWritten) {
+		if (bytesWritten != placement.length()) {
+			String fmt = "%s has length %d bytes, wrote %d bytes";
+			String msg = String.format(fmt, placement.writable(), placement.length(), bytesWritten);
+			throw new RuntimeException(msg);
+		}
+	}
+
+	// Buffered output stream performing positional writes into a file channel.
+	private static class ChannelOutputStream extends OutputStream {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		private long position;
+
+		private ChannelOutputStream(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		private long getPosition() {
+			return position + buffer.position();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+
+			buffer.put((byte) b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			Objects.checkFromIndexSize(off, len, b.length);
+
+			if (len > buffer.remaining()) {
+				flush();
+			}
+			if (len >= buffer.capacity()) {
+				write(ByteBuffer.wrap(b, off, len));
+			} else {
+				buffer.put(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			buffer.flip();
+			write(buffer);
+			buffer.clear();
+		}
+
+		private void write(ByteBuffer source) throws IOException {
+			while (source.hasRemaining()) {
+				position += channel.write(source, position);
+			}
+		}
+	}
+}
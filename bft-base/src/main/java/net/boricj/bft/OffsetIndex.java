@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Immutable index of items sorted by offset, for range queries.
+ * <p>
+ * This is meant for entries such as relocations, which are stored in file order and located by the offset they
+ * apply to. Offsets are kept in a primitive array and compared as unsigned numbers. Items sharing an offset keep
+ * their original order.
+ *
+ * @param <T> type of the indexed items
+ */
+public final class OffsetIndex<T> {
+	private final long[] offsets;
+	private final Object[] items;
+
+	private OffsetIndex(long[] offsets, Object[] items) {
+		this.offsets = offsets;
+		this.items = items;
+	}
+
+	/**
+	 * Indexes items by offset.
+	 *
+	 * @param <T> type of the indexed items
+	 * @param items items to index
+	 * @param offsetFunction function returning the offset of an item
+	 * @return the index
+	 */
+	public static <T> OffsetIndex<T> of(List<? extends T> items, ToLongFunction<? super T> offsetFunction) {
+		Objects.requireNonNull(items);
+		Objects.requireNonNull(offsetFunction);
+
+		Object[] array = items.toArray();
+		long[] offsets = new long[array.length];
+		boolean sorted = true;
+		for (int i = 0; i < array.length; i++) {
+			@SuppressWarnings("unchecked")
+			T item = (T) array[i];
+			offsets[i] = offsetFunction.applyAsLong(item);
+			if (i > 0 && Long.compareUnsigned(offsets[i - 1], offsets[i]) > 0) {
+				sorted = false;
+			}
+		}
+
+		if (sorted) {
+			return new OffsetIndex<>(offsets, array);
+		}
+
+		int[] order = sortOrder(offsets);
+		long[] sortedOffsets = new long[array.length];
+		Object[] sortedItems = new Object[array.length];
+		for (int i = 0; i < order.length; i++) {
+			sortedOffsets[i] = offsets[order[i]];
+			sortedItems[i] = array[order[i]];
+		}
+
+		return new OffsetIndex<>(sortedOffsets, sortedItems);
+	}
+
+	// Stable bottom-up merge sort of item positions by offset, on primitive arrays to avoid boxing.
+	private static int[] sortOrder(long[] offsets) {
+		int[] order = new int[offsets.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		int[] buffer = new int[offsets.length];
+		for (long width = 1; width < order.length; width *= 2) {
+			for (long start = 0; start < order.length; start += 2 * width) {
+				int low = (int) start;
+				int middle = (int) Math.min(start + width, order.length);
+				int high = (int) Math.min(start + 2 * width, order.length);
+
+				int i = low;
+				int j = middle;
+				for (int k = low; k < high; k++) {
+					if (j == high || (i < middle && Long.compareUnsigned(offsets[order[i]], offsets[order[j]]) <= 0)) {
+						buffer[k] = order[i++];
+					} else {
+						buffer[k] = order[j++];
+					}
+				}
+			}
+
+			int[] swap = order;
+			order = buffer;
+			buffer = swap;
+		}
+
+		return order;
+	}
+
+	/**
+	 * Merges indexes into one, for instance the indexes of all relocation tables applying to the same section.
+	 * <p>
+	 * Items sharing an offset are ordered after the order of the merged indexes.
+	 *
+	 * @param <T> type of the indexed items
+	 * @param indexes indexes to merge
+	 * @return the merged index
+	 */
+	public static <T> OffsetIndex<T> merge(Collection<? extends OffsetIndex<? extends T>> indexes) {
+		Objects.requireNonNull(indexes);
+
+		List<OffsetIndex<? extends T>> pending = new ArrayList<>(indexes);
+		if (pending.isEmpty()) {
+			return new OffsetIndex<>(new long[0], new Object[0]);
+		}
+
+		// Merge pairwise, so that each item is copied a logarithmic number of times.
+		while (pending.size() > 1) {
+			List<OffsetIndex<? extends T>> merged = new ArrayList<>((pending.size() + 1) / 2);
+			for (int i = 0; i < pending.size(); i += 2) {
+				merged.add(i + 1 < pending.size() ? merge(pending.get(i), pending.get(i + 1)) : pending.get(i));
+			}
+			pending = merged;
+		}
+
+		OffsetIndex<? extends T> index = pending.get(0);
+		return new OffsetIndex<>(index.offsets, index.items);
+	}
+
+	private static <T> OffsetIndex<T> merge(OffsetIndex<? extends T> first, OffsetIndex<? extends T> second) {
+		int length = first.offsets.length + second.offsets.length;
+		long[] offsets = new long[length];
+		Object[] items = new Object[length];
+
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < length; k++) {
+			if (j == second.offsets.length
+					|| (i < first.offsets.length && Long.compareUnsigned(first.offsets[i], second.offsets[j]) <= 0)) {
+				offsets[k] = first.offsets[i];
+				items[k] = first.items[i++];
+			} else {
+				offsets[k] = second.offsets[j];
+				items[k] = second.items[j++];
+			}
+		}
+
+		return new OffsetIndex<>(offsets, items);
+	}
+
+	/**
+	 * Returns the number of indexed items.
+	 *
+	 * @return the item count
+	 */
+	public int size() {
+		return items.length;
+	}
+
+	/**
+	 * Returns all indexed items, sorted by offset.
+	 *
+	 * @return a read-only view over the items
+	 */
+	public List<T> getElements() {
+		return view(0, items.length);
+	}
+
+	/**
+	 * Finds the items whose offset lies within a range.
+	 *
+	 * @param start start of the range, inclusive
+	 * @param end end of the range, exclusive
+	 * @return a read-only view over the matching items, sorted by offset
+	 */
+	public List<T> find(long start, long end) {
+		if (Long.compareUnsigned(start, end) >= 0) {
+			return List.of();
+		}
+
+		return view(lowerBound(start), lowerBound(end));
+	}
+
+	/**
+	 * Finds the items spanning a fixed width that overlap a range, such as relocations patching the bytes
+	 * {@code [start, end)} of a section.
+	 *
+	 * @param start start of the range, inclusive
+	 * @param end end of the range, exclusive
+	 * @param width number of bytes spanned by each item from its offset, at least 1
+	 * @return a read-only view over the matching items, sorted by offset
+	 * @throws IllegalArgumentException if the width is less than 1
+	 */
+	public List<T> findOverlapping(long start, long end, long width) {
+		if (width < 1) {
+			throw new IllegalArgumentException("width must be at least 1");
+		}
+
+		long first = Long.compareUnsigned(start, width - 1) < 0 ? 0 : start - (width - 1);
+		return find(first, end);
+	}
+
+	private int lowerBound(long offset) {
+		int low = 0;
+		int high = offsets.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (Long.compareUnsigned(offsets[middle], offset) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	private List<T> view(int from, int to) {
+		return new AbstractList<>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public T get(int index) {
+				Objects.checkIndex(index, to - from);
+
+				return (T) items[from + index];
+			}
+
+			@Override
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+}
@@ -38,6 +38,9 @@ public interface StreamWritable {
 
 	/**
 	 * Returns the length in bytes of this object's serialized form.
+	 * <p>
+	 * The default implementation serializes this object into a null sink to count its bytes. Implementations
+	 * should override it with a computation from their fields when possible.
 	 *
 	 * @return the serialized length in bytes
 	 */
@@ -0,0 +1,411 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Null-terminated strings packed into a single contiguous byte buffer.
+ * <p>
+ * This is the storage behind the string tables of object file formats. Strings are referenced by their offset,
+ * counted from a base offset where the first string starts. Any offset inside a string designates one of its
+ * suffixes. Strings are only decoded when looked up by offset, and decoded strings are cached.
+ * <p>
+ * When looking up the offset of a string, strings added to or loaded into the pool take precedence over
+ * suffixes decoded by {@link #get(int)}. Among them, the last occurrence of a string wins.
+ * <p>
+ * Lookups and serialization, which update internal caches, may be performed concurrently, for instance when
+ * sections are written in parallel. Modifications must not happen concurrently with any other access.
+ * <p>
+ * With suffix merging enabled, the pool is laid out anew when it is serialized: strings are sorted by their
+ * reversed bytes and each string that ends another one shares its storage, the way linkers optimize string
+ * tables. The empty string, if present, stays first. {@link #get(int)} and {@link #iterator()} keep addressing
+ * the strings as they were loaded and added, while {@link #find(String)}, {@link #getSize()} and
+ * {@link #write(OutputStream)} address the merged layout.
+ */
+public final class StringPool implements Iterable<Integer> {
+	private final Charset charset;
+	private final int base;
+
+	private byte[] bytes = new byte[0];
+	private int size = 0;
+	private int[] starts = new int[0];
+	private int count = 0;
+	private int indexed = 0;
+
+	private final Map<String, Integer> lookup = new HashMap<>();
+	private final Map<String, Integer> suffixes = new HashMap<>();
+	private final Map<Integer, String> decoded = new HashMap<>();
+
+	private boolean suffixMerging = false;
+	// Merged layout, null until needed and whenever the pool changes.
+	private byte[] mergedBytes;
+	private Map<String, Integer> mergedLookup;
+
+	/**
+	 * Creates an empty string pool.
+	 *
+	 * @param charset character encoding of the strings
+	 * @param base offset of the first string
+	 */
+	public StringPool(Charset charset, int base) {
+		Objects.requireNonNull(charset);
+
+		this.charset = charset;
+		this.base = base;
+	}
+
+	/**
+	 * Appends raw null-terminated strings to the pool, without decoding them.
+	 * <p>
+	 * Trailing bytes without a null terminator form a last string, which gets terminated.
+	 *
+	 * @param bytes the raw strings
+	 */
+	public void load(byte[] bytes) {
+		Objects.requireNonNull(bytes);
+
+		invalidate();
+		if (size + bytes.length + 1 > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes, size + bytes.length + 1);
+		}
+
+		int start = 0;
+		for (int index = 0; index < bytes.length; index++) {
+			if (bytes[index] == 0x00) {
+				append(bytes, start, index - start);
+				start = index + 1;
+			}
+		}
+		if (start < bytes.length) {
+			append(bytes, start, bytes.length - start);
+		}
+	}
+
+	/**
+	 * Returns the character encoding of the strings.
+	 *
+	 * @return the charset
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Returns whether suffix merging is enabled.
+	 *
+	 * @return true if the pool is laid out with shared suffixes when serialized
+	 */
+	public boolean isSuffixMerging() {
+		return suffixMerging;
+	}
+
+	/**
+	 * Enables or disables suffix merging.
+	 *
+	 * @param suffixMerging true to lay out the pool with shared suffixes when serialized
+	 */
+	public void setSuffixMerging(boolean suffixMerging) {
+		this.suffixMerging = suffixMerging;
+		invalidate();
+	}
+
+	/**
+	 * Returns whether the pool holds no strings.
+	 *
+	 * @return true if the pool is empty
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Returns the number of bytes held by the pool, null terminators included.
+	 *
+	 * @return the pool size in bytes
+	 */
+	public synchronized int getSize() {
+		if (suffixMerging) {
+			return merge().length;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Appends a string to the pool.
+	 *
+	 * @param string the string to add
+	 * @return offset of the string
+	 * @throws IllegalArgumentException if the encoded string contains a null byte
+	 */
+	public int add(String string) {
+		Objects.requireNonNull(string);
+
+		// Check that the string doesn't contain a null byte, since that would break the string table format.
+		byte[] encoded = string.getBytes(charset);
+		for (byte b : encoded) {
+			if (b == 0x00) {
+				String fmt = "string %s encoded using charset %s produced a null byte";
+				String msg = String.format(fmt, string, charset.name());
+				throw new IllegalArgumentException(msg);
+			}
+		}
+
+		index();
+		invalidate();
+		int offset = append(encoded, 0, encoded.length);
+		indexed = count;
+		lookup.put(string, offset);
+		decoded.put(offset, string);
+		return offset;
+	}
+
+	/**
+	 * Registers a string as an alias sharing storage with the end of another string.
+	 *
+	 * @param alias alias string to register
+	 * @param target string in the pool that ends with the alias
+	 * @return offset of the alias
+	 * @throws IllegalArgumentException if the alias isn't a suffix of the target or the target isn't in the pool
+	 */
+	public int add(String alias, String target) {
+		Objects.requireNonNull(alias);
+		Objects.requireNonNull(target);
+
+		if (!target.endsWith(alias)) {
+			throw new IllegalArgumentException("alias string doesn't end with target string");
+		}
+
+		index();
+		Integer targetOffset = lookup.get(target);
+		if (targetOffset == null) {
+			throw new IllegalArgumentException("target string isn't part of the string table");
+		}
+
+		int offset = targetOffset + target.getBytes(charset).length - alias.getBytes(charset).length;
+		invalidate();
+		lookup.put(alias, offset);
+		return offset;
+	}
+
+	/**
+	 * Returns the string at an offset.
+	 *
+	 * @param offset offset of the string
+	 * @return the string, up to the next null terminator
+	 * @throws IndexOutOfBoundsException if the offset lies outside of the pool
+	 */
+	public synchronized String get(int offset) {
+		return decode(offset);
+	}
+
+	/**
+	 * Finds the offset of a string.
+	 *
+	 * @param string string to find
+	 * @return offset of the string
+	 * @throws NoSuchElementException if the string is not in the pool
+	 */
+	public synchronized int find(String string) {
+		index();
+
+		Integer offset = lookup.get(string);
+		if (offset == null) {
+			offset = suffixes.get(string);
+		}
+		if (offset == null) {
+			throw new NoSuchElementException();
+		}
+
+		if (suffixMerging) {
+			merge();
+
+			Integer mergedOffset = mergedLookup.get(string);
+			if (mergedOffset == null) {
+				// Suffix decoded by get(), locate it within the merged layout of its string.
+				int start = Arrays.binarySearch(starts, 0, count, offset - base);
+				if (start < 0) {
+					start = -start - 2;
+				}
+				String container = decode(base + starts[start]);
+				mergedOffset = mergedLookup.get(container) + (offset - base - starts[start]);
+			}
+
+			return mergedOffset;
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Returns an iterator over the offsets of the strings in the pool, in order.
+	 *
+	 * @return an iterator over string offsets
+	 */
+	@Override
+	public Iterator<Integer> iterator() {
+		return Arrays.stream(starts, 0, count).map(start -> base + start).iterator();
+	}
+
+	/**
+	 * Writes the raw strings of the pool.
+	 *
+	 * @param outputStream the output stream to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public synchronized void write(OutputStream outputStream) throws IOException {
+		if (suffixMerging) {
+			outputStream.write(merge());
+			return;
+		}
+
+		outputStream.write(bytes, 0, size);
+	}
+
+	private String decode(int offset) {
+		String string = decoded.get(offset);
+		if (string != null) {
+			return string;
+		}
+
+		if (offset < base || offset - base >= size) {
+			throw new IndexOutOfBoundsException(offset);
+		}
+
+		int start = offset - base;
+		int end = start;
+		while (bytes[end] != 0x00) {
+			end++;
+		}
+
+		string = new String(bytes, start, end - start, charset);
+		decoded.put(offset, string);
+		suffixes.putIfAbsent(string, offset);
+		return string;
+	}
+
+	private int append(byte[] string, int offset, int length) {
+		if (size + length + 1 > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(size + length + 1, bytes.length * 2));
+		}
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, Math.max(16, count * 2));
+		}
+
+		int start = size;
+		System.arraycopy(string, offset, bytes, start, length);
+		bytes[start + length] = 0x00;
+		size += length + 1;
+		starts[count++] = start;
+
+		return base + start;
+	}
+
+	// Strings loaded from raw bytes are only indexed by content once an offset must be found or assigned.
+	private void index() {
+		for (; indexed < count; indexed++) {
+			int offset = base + starts[indexed];
+			lookup.put(decode(offset), offset);
+		}
+	}
+
+	private void invalidate() {
+		mergedBytes = null;
+		mergedLookup = null;
+	}
+
+	private byte[] merge() {
+		if (mergedBytes != null) {
+			return mergedBytes;
+		}
+
+		index();
+
+		List<String> strings = new ArrayList<>(lookup.keySet());
+		Map<String, byte[]> encoded = new HashMap<>();
+		for (String string : strings) {
+			encoded.put(string, string.getBytes(charset));
+		}
+		strings.sort((a, b) -> compareReversed(encoded.get(b), encoded.get(a)));
+
+		byte[] merged = new byte[size];
+		Map<String, Integer> offsets = new HashMap<>();
+		int length = 0;
+		if (lookup.containsKey("")) {
+			offsets.put("", base);
+			length = 1;
+		}
+
+		byte[] previous = null;
+		int previousOffset = 0;
+		for (String string : strings) {
+			byte[] current = encoded.get(string);
+			if (current.length == 0) {
+				continue;
+			}
+
+			if (previous != null && endsWith(previous, current)) {
+				offsets.put(string, previousOffset + previous.length - current.length);
+			} else {
+				merged = ensureCapacity(merged, length + current.length + 1);
+				System.arraycopy(current, 0, merged, length, current.length);
+				offsets.put(string, base + length);
+
+				previous = current;
+				previousOffset = base + length;
+				length += current.length + 1;
+			}
+		}
+
+		mergedBytes = Arrays.copyOf(merged, length);
+		mergedLookup = offsets;
+		return mergedBytes;
+	}
+
+	private static byte[] ensureCapacity(byte[] array, int capacity) {
+		if (capacity > array.length) {
+			return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+		}
+
+		return array;
+	}
+
+	// Compares two byte strings from their last byte backwards.
+	private static int compareReversed(byte[] a, byte[] b) {
+		for (int i = a.length - 1, j = b.length - 1; i >= 0 && j >= 0; i--, j--) {
+			int result = Byte.compareUnsigned(a[i], b[j]);
+			if (result != 0) {
+				return result;
+			}
+		}
+
+		return Integer.compare(a.length, b.length);
+	}
+
+	private static boolean endsWith(byte[] string, byte[] suffix) {
+		return string.length >= suffix.length
+				&& Arrays.equals(string, string.length - suffix.length, string.length, suffix, 0, suffix.length);
+	}
+}
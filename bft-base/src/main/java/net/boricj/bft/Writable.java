@@ -15,10 +15,8 @@ package net.boricj.bft;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /** Interface for objects that can be written to an output stream at a specific offset. */
 public interface Writable extends StreamWritable {
@@ -68,46 +66,18 @@ public interface Writable extends StreamWritable {
 	 */
 	public static void write(Collection<Writable> writables, OutputStream outputStream, int padding)
 			throws IOException {
-		List<Writable> sortedWritables = writables.stream()
-				.filter(w -> w.getLength() > 0)
-				.sorted(Comparator.comparingLong(w -> w.getOffset()))
-				.collect(Collectors.toList());
-
-		Writable previousWritable = null;
-		long previousOffset = 0;
-		long previousLength = 0;
-		for (Writable writable : sortedWritables) {
-			long offset = writable.getOffset();
-			long length = writable.getLength();
-
-			if (previousOffset + previousLength > offset) {
-				String fmt = "%s (offset: %d, length: %d) overlaps with %s (offset: %d, length %d)";
-				String msg =
-						String.format(fmt, previousWritable, previousOffset, previousLength, writable, offset, length);
-				throw new RuntimeException(msg);
-			}
-
-			previousWritable = writable;
-			previousOffset = offset;
-			previousLength = length;
-		}
-
-		MeteredOutputStream mos = new MeteredOutputStream(outputStream);
-		for (Writable writable : sortedWritables) {
-			for (long offset = mos.getCount(); offset < writable.getOffset(); offset++) {
-				mos.write(padding);
-			}
-
-			long offset = mos.getCount();
-			long length = writable.getLength();
-			writable.write(mos);
-			long bytesWritten = mos.getCount() - offset;
+		new LayoutWriter(writables).setPadding(padding).write(outputStream);
+	}
 
-			if (bytesWritten != length) {
-				String fmt = "%s has length %d bytes, wrote %d bytes";
-				String msg = String.format(fmt, writable, length, bytesWritten);
-				throw new RuntimeException(msg);
-			}
-		}
+	/**
+	 * Writes a collection of writables to a file channel at their offsets, filling gaps with zero bytes.
+	 *
+	 * @param writables collection of objects to write
+	 * @param channel file channel to write to
+	 * @throws IOException if writing fails
+	 * @see LayoutWriter#write(FileChannel)
+	 */
+	public static void write(Collection<Writable> writables, FileChannel channel) throws IOException {
+		new LayoutWriter(writables).write(channel);
 	}
 }
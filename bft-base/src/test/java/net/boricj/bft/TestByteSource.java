@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestByteSource {
+	private static final byte[] BYTES = {0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07};
+
+	@Test
+	public void testSliceIsReadOnlyView() {
+		ByteSource source = ByteSource.wrap(BYTES);
+		ByteBuffer slice = source.slice(2, 4);
+
+		assertTrue(slice.isReadOnly());
+		assertEquals(4, slice.remaining());
+		assertEquals(0x02, slice.get(0));
+		assertEquals(0x05, slice.get(3));
+	}
+
+	@Test
+	public void testStreamsAreIndependent() throws IOException {
+		ByteSource source = ByteSource.wrap(BYTES);
+		InputStream first = source.openStream(1);
+		InputStream second = source.openStream(4, 2);
+
+		assertEquals(0x01, first.read());
+		assertArrayEquals(new byte[] {0x04, 0x05}, second.readAllBytes());
+		assertEquals(-1, second.read());
+		assertEquals(0x02, first.read());
+		assertEquals(5, first.available());
+	}
+
+	@Test
+	public void testOutOfBounds() {
+		ByteSource source = ByteSource.wrap(BYTES);
+
+		assertThrows(IndexOutOfBoundsException.class, () -> source.slice(6, 4));
+		assertThrows(IndexOutOfBoundsException.class, () -> source.read(-1, 2));
+		assertThrows(IndexOutOfBoundsException.class, () -> source.openStream(9));
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestFileFormat {
+	@Test
+	public void testDetect() {
+		byte[] elf = new byte[64];
+		elf[0] = 0x7f;
+		elf[1] = 'E';
+		elf[2] = 'L';
+		elf[3] = 'F';
+		assertEquals(FileFormat.ELF, FileFormat.detect(ByteSource.wrap(elf)));
+
+		byte[] omf = {(byte) 0x80, 0x04, 0x00, 0x02, 'a', 'b', 0x00};
+		assertEquals(FileFormat.OMF, FileFormat.detect(ByteSource.wrap(omf)));
+
+		byte[] library = new byte[16];
+		library[0] = (byte) 0xF0;
+		library[1] = 0x0D;
+		assertEquals(FileFormat.OMF_LIBRARY, FileFormat.detect(ByteSource.wrap(library)));
+
+		byte[] coff = new byte[20 + 40];
+		coff[0] = 0x4c;
+		coff[1] = 0x01;
+		coff[2] = 0x01;
+		assertEquals(FileFormat.COFF, FileFormat.detect(ByteSource.wrap(coff)));
+	}
+
+	@Test
+	public void testDetectUnknown() {
+		assertEquals(FileFormat.UNKNOWN, FileFormat.detect(ByteSource.wrap(new byte[0])));
+		assertEquals(FileFormat.UNKNOWN, FileFormat.detect(ByteSource.wrap(new byte[64])));
+
+		// THEADR with a module name running past the end of the file.
+		byte[] omf = {(byte) 0x80, 0x10, 0x00, 0x0e, 'a', 'b', 0x00};
+		assertEquals(FileFormat.UNKNOWN, FileFormat.detect(ByteSource.wrap(omf)));
+
+		// i386 COFF header claiming more section headers than the file holds.
+		byte[] coff = new byte[20 + 40];
+		coff[0] = 0x4c;
+		coff[1] = 0x01;
+		coff[2] = 0x02;
+		assertEquals(FileFormat.UNKNOWN, FileFormat.detect(ByteSource.wrap(coff)));
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestLayoutWriter {
+	@TempDir
+	Path directory;
+
+	private static class BytesWritable implements Writable {
+		private final long offset;
+		private final long length;
+		private final byte[] bytes;
+
+		private BytesWritable(long offset, byte[] bytes) {
+			this(offset, bytes.length, bytes);
+		}
+
+		private BytesWritable(long offset, long length, byte[] bytes) {
+			this.offset = offset;
+			this.length = length;
+			this.bytes = bytes;
+		}
+
+		@Override
+		public long getOffset() {
+			return offset;
+		}
+
+		@Override
+		public long getLength() {
+			return length;
+		}
+
+		@Override
+		public void write(OutputStream outputStream) throws IOException {
+			outputStream.write(bytes);
+		}
+	}
+
+	private static byte[] filled(int length, int value) {
+		byte[] bytes = new byte[length];
+		Arrays.fill(bytes, (byte) value);
+		return bytes;
+	}
+
+	private static final List<Writable> WRITABLES = List.of(
+			new BytesWritable(0x30000, filled(0x20000, 0x33)),
+			new BytesWritable(0, new byte[] {0x01, 0x02}),
+			new BytesWritable(0x10, new byte[0]),
+			new BytesWritable(0x20, filled(0x100, 0x22)));
+
+	private static byte[] expected(int padding) {
+		byte[] bytes = filled(0x50000, padding);
+		bytes[0] = 0x01;
+		bytes[1] = 0x02;
+		Arrays.fill(bytes, 0x20, 0x120, (byte) 0x22);
+		Arrays.fill(bytes, 0x30000, 0x50000, (byte) 0x33);
+		return bytes;
+	}
+
+	private byte[] writeChannel(LayoutWriter writer) throws IOException {
+		Path path = directory.resolve("output.bin");
+		try (FileChannel channel = FileChannel.open(
+				path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writer.write(channel);
+		}
+		return Files.readAllBytes(path);
+	}
+
+	@Test
+	public void testWriteStream() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new LayoutWriter(WRITABLES).setPadding(0xCC).write(outputStream);
+
+		assertArrayEquals(expected(0xCC), outputStream.toByteArray());
+	}
+
+	@Test
+	public void testWriteChannel() throws IOException {
+		LayoutWriter writer = new LayoutWriter(WRITABLES).setPadding(0xCC);
+
+		assertEquals(0x50000, writer.getLength());
+		assertArrayEquals(expected(0xCC), writeChannel(writer));
+	}
+
+	@Test
+	public void testWriteChannelSparse() throws IOException {
+		assertArrayEquals(expected(0x00), writeChannel(new LayoutWriter(WRITABLES).setSparse(true)));
+		assertThrows(
+				IllegalStateException.class,
+				() -> writeChannel(new LayoutWriter(WRITABLES).setSparse(true).setPadding(0xCC)));
+	}
+
+	@Test
+	public void testWriteChannelParallel() throws IOException {
+		List<Writable> writables = new ArrayList<>();
+		for (int i = 0; i < 256; i++) {
+			writables.add(new BytesWritable(0x1000L * i + i, filled(0x800 + i, i)));
+		}
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new LayoutWriter(writables).write(outputStream);
+
+		assertArrayEquals(outputStream.toByteArray(), writeChannel(new LayoutWriter(writables).setParallel(true)));
+		assertArrayEquals(
+				expected(0xCC),
+				writeChannel(new LayoutWriter(WRITABLES).setParallel(true).setPadding(0xCC)));
+	}
+
+	@Test
+	public void testOverlap() {
+		LayoutWriter writer = new LayoutWriter(
+				List.of(new BytesWritable(0, new byte[0x10]), new BytesWritable(0x08, new byte[0x10])));
+
+		assertThrows(RuntimeException.class, () -> writer.write(new ByteArrayOutputStream()));
+		assertThrows(RuntimeException.class, () -> writeChannel(writer));
+	}
+
+	@Test
+	public void testLengthMismatch() {
+		LayoutWriter writer = new LayoutWriter(List.of(new BytesWritable(0, 0x10, new byte[0x08])));
+
+		assertThrows(RuntimeException.class, () -> writer.write(new ByteArrayOutputStream()));
+		assertThrows(RuntimeException.class, () -> writeChannel(writer));
+	}
+}
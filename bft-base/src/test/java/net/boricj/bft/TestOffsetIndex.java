@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestOffsetIndex {
+	private record Item(String name, long offset) {}
+
+	private static final Item A = new Item("a", 0x10);
+	private static final Item B = new Item("b", 0x4);
+	private static final Item C = new Item("c", 0x10);
+	private static final Item D = new Item("d", 0x20);
+	private static final Item E = new Item("e", 0xFFFFFFFF_00000000L);
+
+	@Test
+	public void testFind() {
+		OffsetIndex<Item> index = OffsetIndex.of(List.of(A, B, E, C, D), Item::offset);
+
+		assertEquals(List.of(B, A, C, D, E), index.getElements());
+		assertEquals(List.of(A, C), index.find(0x10, 0x11));
+		assertEquals(List.of(B, A, C), index.find(0, 0x20));
+		assertEquals(List.of(D, E), index.find(0x11, -1));
+		assertEquals(List.of(), index.find(0x5, 0x10));
+		assertEquals(List.of(), index.find(0x20, 0x10));
+	}
+
+	@Test
+	public void testSortIsStable() {
+		// Few distinct offsets, including ones above the signed range, so that most items share an offset.
+		Random random = new Random(0);
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			items.add(new Item(Integer.toString(i), random.nextInt(16) * 0x10_00000000_0000L));
+		}
+
+		List<Item> expected = new ArrayList<>(items);
+		expected.sort((a, b) -> Long.compareUnsigned(a.offset(), b.offset()));
+		assertEquals(expected, OffsetIndex.of(items, Item::offset).getElements());
+	}
+
+	@Test
+	public void testFindOverlapping() {
+		OffsetIndex<Item> index = OffsetIndex.of(List.of(A, B, C, D), Item::offset);
+
+		assertEquals(List.of(B), index.findOverlapping(0, 0x5, 4));
+		assertEquals(List.of(B), index.findOverlapping(0x7, 0x8, 4));
+		assertEquals(List.of(), index.findOverlapping(0x8, 0x10, 4));
+		assertEquals(List.of(A, C, D), index.findOverlapping(0x13, 0x21, 4));
+		assertThrows(IllegalArgumentException.class, () -> index.findOverlapping(0, 1, 0));
+	}
+
+	@Test
+	public void testMerge() {
+		OffsetIndex<Item> first = OffsetIndex.of(List.of(A, D), Item::offset);
+		OffsetIndex<Item> second = OffsetIndex.of(List.of(B, C), Item::offset);
+		OffsetIndex<Item> third = OffsetIndex.of(List.of(E), Item::offset);
+
+		OffsetIndex<Item> merged = OffsetIndex.merge(List.of(first, second, third));
+		assertEquals(5, merged.size());
+		assertEquals(List.of(B, A, C, D, E), merged.getElements());
+		assertEquals(List.of(A, C), merged.find(0x10, 0x20));
+		assertEquals(0, OffsetIndex.merge(List.<OffsetIndex<Item>>of()).size());
+	}
+}
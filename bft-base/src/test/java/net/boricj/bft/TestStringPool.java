@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestStringPool {
+	private static final byte[] BYTES = "\0foo\0barfoo\0foo\0".getBytes(StandardCharsets.US_ASCII);
+
+	@Test
+	public void testLoadedStrings() throws IOException {
+		StringPool pool = new StringPool(StandardCharsets.US_ASCII, 4);
+		pool.load(BYTES);
+
+		List<Integer> offsets = new ArrayList<>();
+		pool.forEach(offsets::add);
+		assertEquals(List.of(4, 5, 9, 16), offsets);
+		assertEquals(BYTES.length, pool.getSize());
+
+		assertEquals("barfoo", pool.get(9));
+		assertSame(pool.get(9), pool.get(9));
+		assertEquals("foo", pool.get(12));
+		assertEquals("", pool.get(19));
+		assertThrows(IndexOutOfBoundsException.class, () -> pool.get(3));
+		assertThrows(IndexOutOfBoundsException.class, () -> pool.get(4 + BYTES.length));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		pool.write(outputStream);
+		assertArrayEquals(BYTES, outputStream.toByteArray());
+	}
+
+	@Test
+	public void testFind() {
+		StringPool pool = new StringPool(StandardCharsets.US_ASCII, 0);
+		pool.load(BYTES);
+
+		assertEquals("foo", pool.get(8));
+		assertEquals("oo", pool.get(9));
+		assertEquals(12, pool.find("foo"));
+		assertEquals(9, pool.find("oo"));
+		assertEquals(5, pool.find("barfoo"));
+		assertThrows(NoSuchElementException.class, () -> pool.find("baz"));
+
+		assertEquals(16, pool.add("baz"));
+		assertEquals(16, pool.find("baz"));
+		assertEquals(17, pool.add("az", "baz"));
+		assertEquals(20, pool.getSize());
+	}
+
+	@Test
+	public void testSuffixMerging() throws IOException {
+		StringPool pool = new StringPool(StandardCharsets.US_ASCII, 0);
+		pool.add("");
+		pool.add("foo");
+		pool.add("barfoo");
+		pool.add("oo");
+		pool.add("baz");
+		assertEquals(19, pool.getSize());
+
+		pool.setSuffixMerging(true);
+		assertEquals(12, pool.getSize());
+		assertEquals(0, pool.find(""));
+		assertEquals(1, pool.find("baz"));
+		assertEquals(5, pool.find("barfoo"));
+		assertEquals(8, pool.find("foo"));
+		assertEquals(9, pool.find("oo"));
+		assertEquals("foo", pool.get(1));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		pool.write(outputStream);
+		assertArrayEquals("\0baz\0barfoo\0".getBytes(StandardCharsets.US_ASCII), outputStream.toByteArray());
+
+		pool.add("az");
+		assertEquals(2, pool.find("az"));
+		assertEquals(12, pool.getSize());
+	}
+}
@@ -0,0 +1,307 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.boricj.bft.Writable;
+import net.boricj.bft.coff.CoffFile;
+import net.boricj.bft.coff.CoffRelocationTable;
+import net.boricj.bft.coff.CoffSection;
+import net.boricj.bft.coff.CoffSymbolTable;
+import net.boricj.bft.coff.CoffSymbolTable.CoffSymbol;
+import net.boricj.bft.coff.constants.CoffMachine;
+import net.boricj.bft.coff.constants.CoffSectionFlags;
+import net.boricj.bft.coff.machines.amd64.CoffRelocationType_amd64;
+import net.boricj.bft.coff.sections.CoffBytes;
+import net.boricj.bft.elf.ElfFile;
+import net.boricj.bft.elf.ElfHeader;
+import net.boricj.bft.elf.ElfSection;
+import net.boricj.bft.elf.ElfSectionFlags;
+import net.boricj.bft.elf.ElfSectionTable;
+import net.boricj.bft.elf.constants.ElfMachine;
+import net.boricj.bft.elf.machines.amd64.ElfRelocationType_amd64;
+import net.boricj.bft.elf.sections.ElfNullSection;
+import net.boricj.bft.elf.sections.ElfProgBits;
+import net.boricj.bft.elf.sections.ElfRelaTable;
+import net.boricj.bft.elf.sections.ElfStringTable;
+import net.boricj.bft.elf.sections.ElfSymbolTable;
+import net.boricj.bft.elf.sections.ElfSymbolTable.ElfSymbol;
+import net.boricj.bft.omf.OmfFile;
+import net.boricj.bft.omf.records.OmfRecordFixupp;
+import net.boricj.bft.omf.records.OmfRecordFixupp.DisplacementType;
+import net.boricj.bft.omf.records.OmfRecordFixupp.FixupEntry;
+import net.boricj.bft.omf.records.OmfRecordFixupp.FrameMethod;
+import net.boricj.bft.omf.records.OmfRecordFixupp.TargetMethod;
+import net.boricj.bft.omf.records.OmfRecordLedata;
+import net.boricj.bft.omf.records.OmfRecordLnames;
+import net.boricj.bft.omf.records.OmfRecordModend;
+import net.boricj.bft.omf.records.OmfRecordPubdef;
+import net.boricj.bft.omf.records.OmfRecordPubdef.PublicSymbol;
+import net.boricj.bft.omf.records.OmfRecordSegdef;
+import net.boricj.bft.omf.records.OmfRecordTheadr;
+
+import static net.boricj.bft.elf.constants.ElfClass.ELFCLASS64;
+import static net.boricj.bft.elf.constants.ElfData.ELFDATA2LSB;
+import static net.boricj.bft.elf.constants.ElfOsAbi.ELFOSABI_NONE;
+import static net.boricj.bft.elf.constants.ElfSectionNames._RELA;
+import static net.boricj.bft.elf.constants.ElfSectionNames._SHSTRTAB;
+import static net.boricj.bft.elf.constants.ElfSectionNames._STRTAB;
+import static net.boricj.bft.elf.constants.ElfSectionNames._SYMTAB;
+import static net.boricj.bft.elf.constants.ElfSectionNames._TEXT;
+import static net.boricj.bft.elf.constants.ElfType.ET_REL;
+
+/**
+ * Inputs shared by the benchmarks: test fixtures and synthetic object files.
+ *
+ * <p>Synthetic object files contain a single code section with one undefined symbol and one 32-bit relocation
+ * per 4 bytes of code, so that symbol and relocation counts scale together.
+ */
+public final class BenchmarkInputs {
+	private static final int OMF_SYMBOLS_PER_PUBDEF = 32;
+	private static final int OMF_FIXUPS_PER_LEDATA = 64;
+
+	private BenchmarkInputs() {
+		// Utility class, no instances allowed
+	}
+
+	/**
+	 * Reads a test fixture from the classpath.
+	 *
+	 * @param name resource path of the fixture
+	 * @return the fixture bytes
+	 */
+	public static byte[] fixture(String name) {
+		try (InputStream inputStream = BenchmarkInputs.class.getResourceAsStream("/" + name)) {
+			if (inputStream == null) {
+				throw new IllegalArgumentException("fixture not found: " + name);
+			}
+
+			return inputStream.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the name of the n-th synthetic symbol.
+	 *
+	 * @param index index of the symbol
+	 * @return the symbol name
+	 */
+	public static String symbolName(int index) {
+		return "symbol_" + index;
+	}
+
+	/**
+	 * Serializes a collection of writables laid out at their offsets.
+	 *
+	 * @param writables the writables to serialize
+	 * @return the serialized bytes
+	 */
+	public static byte[] write(Collection<Writable> writables) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			Writable.write(writables, outputStream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Returns the writables making up an ELF file.
+	 *
+	 * @param elf the ELF file
+	 * @return the header, section table and sections
+	 */
+	public static List<Writable> writables(ElfFile elf) {
+		List<Writable> writables = new ArrayList<>();
+		writables.add(elf.getHeader());
+		writables.add(elf.getSections());
+		writables.addAll(elf.getSections());
+		return writables;
+	}
+
+	/**
+	 * Returns the writables making up a COFF file.
+	 *
+	 * @param coff the COFF file
+	 * @return the header, tables, sections and relocation tables
+	 */
+	public static List<Writable> writables(CoffFile coff) {
+		List<Writable> writables = new ArrayList<>();
+		writables.add(coff.getHeader());
+		writables.add(coff.getSections());
+		writables.add(coff.getSymbols());
+		writables.add(coff.getStrings());
+		for (CoffSection section : coff.getSections()) {
+			writables.add(section);
+			writables.add(section.getRelocations());
+		}
+		return writables;
+	}
+
+	/**
+	 * Builds a synthetic x86-64 ELF relocatable file.
+	 *
+	 * @param count number of symbols and relocations
+	 * @return the ELF file, laid out and ready to be written
+	 */
+	public static ElfFile syntheticElf(int count) {
+		ElfFile elf = new ElfFile.Builder(ELFCLASS64, ELFDATA2LSB, ELFOSABI_NONE, ET_REL, ElfMachine.EM_X86_64)
+				.setPhentsize((short) 0)
+				.build();
+		ElfHeader header = elf.getHeader();
+		ElfSectionTable sectionTable = elf.addSectionTable();
+
+		ElfSectionFlags flags = new ElfSectionFlags().alloc().execInstr();
+		ElfProgBits text = new ElfProgBits(elf, _TEXT, flags, 16, new byte[4 * count]);
+		ElfStringTable strtab = new ElfStringTable(elf, _STRTAB);
+		ElfSymbolTable symtab = new ElfSymbolTable(elf, _SYMTAB, strtab);
+		ElfRelaTable relaText = new ElfRelaTable(elf, _RELA + _TEXT, symtab, text);
+		ElfStringTable shstrtab = new ElfStringTable(elf, _SHSTRTAB);
+
+		sectionTable.add(new ElfNullSection(elf));
+		sectionTable.add(text);
+		sectionTable.add(relaText);
+		sectionTable.add(symtab);
+		sectionTable.add(strtab);
+		sectionTable.add(shstrtab);
+
+		symtab.addNull();
+		strtab.add("");
+		for (int i = 0; i < count; i++) {
+			String name = symbolName(i);
+			strtab.add(name);
+			ElfSymbol symbol = symtab.addUndefined(name);
+			relaText.add(4L * i, symbol, ElfRelocationType_amd64.R_X86_64_32, 0);
+		}
+
+		shstrtab.add("");
+		shstrtab.add(_SYMTAB);
+		shstrtab.add(_STRTAB);
+		shstrtab.add(_SHSTRTAB);
+		shstrtab.add(_RELA + _TEXT);
+		shstrtab.add(_TEXT, _RELA + _TEXT);
+		header.setShStr(shstrtab);
+
+		long offset = header.getLength();
+		for (ElfSection section : sectionTable) {
+			if (section instanceof ElfNullSection) {
+				continue;
+			}
+
+			offset = align(offset, 8);
+			section.setOffset(offset);
+			offset += section.getLength();
+		}
+		header.setShoff(align(offset, 8));
+
+		return elf;
+	}
+
+	/**
+	 * Builds a synthetic x86-64 COFF object file.
+	 *
+	 * @param count number of symbols and relocations
+	 * @return the COFF file, laid out and ready to be written
+	 */
+	public static CoffFile syntheticCoff(int count) {
+		CoffFile coff = new CoffFile.Builder(CoffMachine.IMAGE_FILE_MACHINE_AMD64).build();
+		CoffSymbolTable symbolTable = coff.getSymbols();
+
+		CoffSectionFlags characteristics =
+				new CoffSectionFlags().cntCode().alignBytes(16).memExecute().memRead();
+		CoffSection text = new CoffBytes(coff, ".text", characteristics, new byte[4 * count]);
+		coff.getSections().add(text);
+		symbolTable.addSection(text);
+
+		CoffRelocationTable relocations = text.getRelocations();
+		for (int i = 0; i < count; i++) {
+			String name = symbolName(i);
+			coff.getStrings().add(name);
+			CoffSymbol symbol = symbolTable.addUndefined(name);
+			relocations.add(4 * i, symbol, CoffRelocationType_amd64.IMAGE_REL_AMD64_ADDR32);
+		}
+
+		long offset = coff.getSections().getOffset() + coff.getSections().getLength();
+		text.setOffset((int) offset);
+		offset += text.getLength();
+		relocations.setOffset(offset);
+		offset += relocations.getLength();
+		symbolTable.setOffset(offset);
+
+		return coff;
+	}
+
+	/**
+	 * Builds a synthetic 32-bit OMF object module.
+	 *
+	 * @param count number of public symbols and fixups
+	 * @return the OMF file
+	 */
+	public static OmfFile syntheticOmf(int count) {
+		OmfFile omf = new OmfFile.Builder().build();
+
+		omf.add(new OmfRecordTheadr(omf, "synthetic.c"));
+		omf.add(new OmfRecordLnames(omf, List.of("", "_TEXT", "CODE")));
+		OmfRecordSegdef text =
+				new OmfRecordSegdef(omf, OmfRecordSegdef.Attributes.ofRaw(0xA9), 4L * count, "_TEXT", "CODE", "");
+		omf.add(text);
+
+		List<PublicSymbol> symbols = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			symbols.add(new PublicSymbol(symbolName(i), 4L * i, 0));
+			if (symbols.size() == OMF_SYMBOLS_PER_PUBDEF || i == count - 1) {
+				omf.add(new OmfRecordPubdef(omf, null, text, 0, symbols));
+				symbols.clear();
+			}
+		}
+
+		for (int start = 0; start < count; start += OMF_FIXUPS_PER_LEDATA) {
+			int fixups = Math.min(OMF_FIXUPS_PER_LEDATA, count - start);
+			omf.add(new OmfRecordLedata(omf, text, 4L * start, new byte[4 * fixups]));
+
+			List<FixupEntry> entries = new ArrayList<>(fixups);
+			for (int i = 0; i < fixups; i++) {
+				entries.add(new FixupEntry(
+						4 * i,
+						0x9,
+						true,
+						FrameMethod.SEGDEF_INDEX,
+						TargetMethod.SEGDEF_INDEX,
+						1,
+						1,
+						DisplacementType.D32));
+			}
+			omf.add(new OmfRecordFixupp(omf, entries, OmfRecordFixupp.SpecificType.FIXUPP_32));
+		}
+
+		omf.add(new OmfRecordModend(omf, false, false, new byte[0], OmfRecordModend.SpecificType.MODEND_32));
+
+		return omf;
+	}
+
+	private static long align(long offset, long alignment) {
+		return (offset + alignment - 1) / alignment * alignment;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.coff.CoffFile;
+import net.boricj.bft.coff.CoffRelocationTable;
+import net.boricj.bft.coff.CoffRelocationTable.CoffRel;
+import net.boricj.bft.coff.CoffSymbolTable.CoffSymbol;
+
+/**
+ * Benchmarks for parsing and writing COFF files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(
+		value = 1,
+		jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class CoffBenchmark {
+	/**
+	 * Test fixture, parsed once.
+	 */
+	@State(Scope.Benchmark)
+	public static class Fixture {
+		@Param({
+			"net/boricj/bft/coff/amd64/hello-world_amd64-pc-windows-msvc.obj",
+			"net/boricj/bft/coff/i386/hello-world_i686-pc-windows-msvc.obj",
+			"net/boricj/bft/coff/i386/extended-relocations_i686-pc-windows-msvc.obj"
+		})
+		public String name;
+
+		byte[] bytes;
+		CoffFile coff;
+
+		/**
+		 * Loads and parses the fixture.
+		 *
+		 * @throws IOException if parsing fails
+		 */
+		@Setup
+		public void setup() throws IOException {
+			bytes = BenchmarkInputs.fixture(name);
+			coff = parse(bytes);
+		}
+	}
+
+	/**
+	 * Synthetic file with as many symbols as relocations, parsed once.
+	 */
+	@State(Scope.Benchmark)
+	public static class Scaled {
+		// Larger counts don't fit the forked heap, run them with -p count=... -jvmArgs -Xmx...
+		@Param({"1000", "10000", "100000", "1000000"})
+		public int count;
+
+		byte[] bytes;
+		CoffFile coff;
+		CoffRelocationTable relocationTable;
+		String lookupName;
+
+		/**
+		 * Builds, serializes and parses the synthetic file.
+		 *
+		 * @throws IOException if parsing fails
+		 */
+		@Setup
+		public void setup() throws IOException {
+			bytes = BenchmarkInputs.write(BenchmarkInputs.writables(BenchmarkInputs.syntheticCoff(count)));
+			coff = parse(bytes);
+			relocationTable = coff.getSections().get(1).getRelocations();
+			lookupName = BenchmarkInputs.symbolName(count / 2);
+		}
+	}
+
+	@Benchmark
+	public CoffFile parseFixture(Fixture fixture) throws IOException {
+		return parse(fixture.bytes);
+	}
+
+	@Benchmark
+	public byte[] writeFixture(Fixture fixture) {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(fixture.coff));
+	}
+
+	@Benchmark
+	public byte[] roundTripFixture(Fixture fixture) throws IOException {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(parse(fixture.bytes)));
+	}
+
+	@Benchmark
+	public CoffFile parseScaled(Scaled scaled) throws IOException {
+		return parse(scaled.bytes);
+	}
+
+	@Benchmark
+	public byte[] writeScaled(Scaled scaled) {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(scaled.coff));
+	}
+
+	@Benchmark
+	public byte[] roundTripScaled(Scaled scaled) throws IOException {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(parse(scaled.bytes)));
+	}
+
+	@Benchmark
+	public CoffSymbol lookupSymbol(Scaled scaled) {
+		for (CoffSymbol symbol : scaled.coff.getSymbols()) {
+			if (scaled.lookupName.equals(symbol.getName())) {
+				return symbol;
+			}
+		}
+
+		return null;
+	}
+
+	@Benchmark
+	public void iterateRelocations(Scaled scaled, Blackhole blackhole) {
+		for (CoffRel relocation : scaled.relocationTable) {
+			blackhole.consume(relocation.getVirtualAddress());
+			blackhole.consume(relocation.getSymbolTableIndex());
+			blackhole.consume(relocation.getType());
+		}
+	}
+
+	private static CoffFile parse(byte[] bytes) throws IOException {
+		return new CoffFile.Parser(ByteSource.wrap(bytes)).parse();
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.elf.ElfFile;
+import net.boricj.bft.elf.ElfSection;
+import net.boricj.bft.elf.sections.ElfRelaTable;
+import net.boricj.bft.elf.sections.ElfRelaTable.ElfRela;
+import net.boricj.bft.elf.sections.ElfSymbolTable;
+import net.boricj.bft.elf.sections.ElfSymbolTable.ElfSymbol;
+
+/**
+ * Benchmarks for parsing and writing ELF files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(
+		value = 1,
+		jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ElfBenchmark {
+	/**
+	 * Test fixture, parsed once.
+	 */
+	@State(Scope.Benchmark)
+	public static class Fixture {
+		@Param({
+			"net/boricj/bft/elf/amd64/hello-world_x86_64-linux-gnu.o",
+			"net/boricj/bft/elf/i386/hello-world_i686-linux-gnu.o",
+			"net/boricj/bft/elf/mips/hello-world_mips-linux-gnu.o"
+		})
+		public String name;
+
+		byte[] bytes;
+		ElfFile elf;
+
+		/**
+		 * Loads and parses the fixture.
+		 *
+		 * @throws IOException if parsing fails
+		 */
+		@Setup
+		public void setup() throws IOException {
+			bytes = BenchmarkInputs.fixture(name);
+			elf = parse(bytes);
+		}
+	}
+
+	/**
+	 * Synthetic file with as many symbols as relocations, parsed once.
+	 */
+	@State(Scope.Benchmark)
+	public static class Scaled {
+		// Larger counts don't fit the forked heap, run them with -p count=... -jvmArgs -Xmx...
+		@Param({"1000", "10000", "100000", "1000000"})
+		public int count;
+
+		byte[] bytes;
+		ElfFile elf;
+		ElfSymbolTable symbolTable;
+		ElfRelaTable relocationTable;
+		String lookupName;
+
+		/**
+		 * Builds, serializes and parses the synthetic file.
+		 *
+		 * @throws IOException if parsing fails
+		 */
+		@Setup
+		public void setup() throws IOException {
+			bytes = BenchmarkInputs.write(BenchmarkInputs.writables(BenchmarkInputs.syntheticElf(count)));
+			elf = parse(bytes);
+			for (ElfSection section : elf.getSections()) {
+				if (section instanceof ElfSymbolTable table) {
+					symbolTable = table;
+				} else if (section instanceof ElfRelaTable table) {
+					relocationTable = table;
+				}
+			}
+			lookupName = BenchmarkInputs.symbolName(count / 2);
+		}
+	}
+
+	@Benchmark
+	public ElfFile parseFixture(Fixture fixture) throws IOException {
+		return parse(fixture.bytes);
+	}
+
+	@Benchmark
+	public byte[] writeFixture(Fixture fixture) {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(fixture.elf));
+	}
+
+	@Benchmark
+	public byte[] roundTripFixture(Fixture fixture) throws IOException {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(parse(fixture.bytes)));
+	}
+
+	@Benchmark
+	public ElfFile parseScaled(Scaled scaled) throws IOException {
+		return parse(scaled.bytes);
+	}
+
+	@Benchmark
+	public byte[] writeScaled(Scaled scaled) {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(scaled.elf));
+	}
+
+	@Benchmark
+	public byte[] roundTripScaled(Scaled scaled) throws IOException {
+		return BenchmarkInputs.write(BenchmarkInputs.writables(parse(scaled.bytes)));
+	}
+
+	@Benchmark
+	public ElfSymbol lookupSymbol(Scaled scaled) {
+		for (ElfSymbol symbol : scaled.symbolTable) {
+			if (scaled.lookupName.equals(symbol.getName())) {
+				return symbol;
+			}
+		}
+
+		return null;
+	}
+
+	@Benchmark
+	public ElfSymbol lookupSymbolIndexed(Scaled scaled) {
+		return scaled.symbolTable.getLookup().find(scaled.lookupName);
+	}
+
+	@Benchmark
+	public void iterateRelocations(Scaled scaled, Blackhole blackhole) {
+		for (ElfRela relocation : scaled.relocationTable) {
+			blackhole.consume(relocation.getOffset());
+			blackhole.consume(relocation.getSymbol());
+			blackhole.consume(relocation.getType());
+		}
+	}
+
+	private static ElfFile parse(byte[] bytes) throws IOException {
+		return new ElfFile.Parser(ByteSource.wrap(bytes)).parse();
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.omf.OmfFile;
+import net.boricj.bft.omf.OmfRecord;
+import net.boricj.bft.omf.records.OmfRecordFixupp;
+import net.boricj.bft.omf.records.OmfRecordFixupp.FixupEntry;
+import net.boricj.bft.omf.records.OmfRecordPubdef;
+import net.boricj.bft.omf.records.OmfRecordPubdef.PublicSymbol;
+
+/**
+ * Benchmarks for parsing and writing OMF files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(
+		value = 1,
+		jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class OmfBenchmark {
+	/**
+	 * Test fixture, parsed once.
+	 */
+	@State(Scope.Benchmark)
+	public static class Fixture {
+		@Param({
+			"net/boricj/bft/omf/hello-world_i386-pc-windows-omf.obj",
+			"net/boricj/bft/omf/ascii-table_i386-pc-windows-omf.obj"
+		})
+		public String name;
+
+		byte[] bytes;
+		OmfFile omf;
+
+		/**
+		 * Loads and parses the fixture.
+		 *
+		 * @throws IOException if parsing fails
+		 */
+		@Setup
+		public void setup() throws IOException {
+			bytes = BenchmarkInputs.fixture(name);
+			omf = parse(bytes);
+		}
+	}
+
+	/**
+	 * Synthetic module with as many public symbols as fixups, parsed once.
+	 */
+	@State(Scope.Benchmark)
+	public static class Scaled {
+		// Larger counts don't fit the forked heap, run them with -p count=... -jvmArgs -Xmx...
+		@Param({"1000", "10000", "100000", "1000000"})
+		public int count;
+
+		byte[] bytes;
+		OmfFile omf;
+		String lookupName;
+
+		/**
+		 * Builds, serializes and parses the synthetic module.
+		 *
+		 * @throws IOException if parsing fails
+		 */
+		@Setup
+		public void setup() throws IOException {
+			bytes = write(BenchmarkInputs.syntheticOmf(count));
+			omf = parse(bytes);
+			lookupName = BenchmarkInputs.symbolName(count / 2);
+		}
+	}
+
+	@Benchmark
+	public OmfFile parseFixture(Fixture fixture) throws IOException {
+		return parse(fixture.bytes);
+	}
+
+	@Benchmark
+	public byte[] writeFixture(Fixture fixture) throws IOException {
+		return write(fixture.omf);
+	}
+
+	@Benchmark
+	public byte[] roundTripFixture(Fixture fixture) throws IOException {
+		return write(parse(fixture.bytes));
+	}
+
+	@Benchmark
+	public OmfFile parseScaled(Scaled scaled) throws IOException {
+		return parse(scaled.bytes);
+	}
+
+	@Benchmark
+	public byte[] writeScaled(Scaled scaled) throws IOException {
+		return write(scaled.omf);
+	}
+
+	@Benchmark
+	public byte[] roundTripScaled(Scaled scaled) throws IOException {
+		return write(parse(scaled.bytes));
+	}
+
+	@Benchmark
+	public PublicSymbol lookupSymbol(Scaled scaled) {
+		for (OmfRecord record : scaled.omf) {
+			if (record instanceof OmfRecordPubdef pubdef) {
+				for (PublicSymbol symbol : pubdef.getSymbols()) {
+					if (scaled.lookupName.equals(symbol.name())) {
+						return symbol;
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	@Benchmark
+	public void iterateRelocations(Scaled scaled, Blackhole blackhole) {
+		for (OmfRecord record : scaled.omf) {
+			if (record instanceof OmfRecordFixupp fixupp) {
+				for (FixupEntry entry : fixupp.getFixupEntries()) {
+					blackhole.consume(entry.getDataRecordOffset());
+					blackhole.consume(entry.getTargetDatum());
+				}
+			}
+		}
+	}
+
+	private static OmfFile parse(byte[] bytes) throws IOException {
+		return new OmfFile.Parser(ByteSource.wrap(bytes)).parse();
+	}
+
+	private static byte[] write(OmfFile omf) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		omf.write(outputStream);
+		return outputStream.toByteArray();
+	}
+}
@@ -18,11 +18,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.coff.constants.CoffMachine;
+import net.boricj.bft.coff.constants.CoffStorageClass;
 
 /**
  * Represents a COFF (Common Object File Format) file.
@@ -44,6 +48,7 @@ public class CoffFile {
 		private int timeDateStamp;
 		private short characteristics;
 		private Charset charset = CoffStringTable.DEFAULT_CHARSET;
+		private boolean suffixMerging = false;
 
 		/**
 		 * Creates a new COFF file builder for the specified machine architecture.
@@ -129,6 +134,27 @@ public class CoffFile {
 			return this;
 		}
 
+		/**
+		 * Returns whether the COFF string table shares common suffixes between strings.
+		 *
+		 * @return true if suffix merging is enabled
+		 */
+		public boolean isSuffixMerging() {
+			return suffixMerging;
+		}
+
+		/**
+		 * Enables or disables suffix merging in the COFF string table.
+		 *
+		 * @param suffixMerging true to share common suffixes between strings when serializing
+		 * @return this builder
+		 * @see CoffStringTable#setSuffixMerging(boolean)
+		 */
+		public Builder setSuffixMerging(boolean suffixMerging) {
+			this.suffixMerging = suffixMerging;
+			return this;
+		}
+
 		/**
 		 * Builds a COFF file from this builder configuration.
 		 *
@@ -144,7 +170,10 @@ public class CoffFile {
 	 */
 	public static class Parser {
 		private final FileInputStream fis;
+		private ByteSource source;
 		private Charset charset = CoffStringTable.DEFAULT_CHARSET;
+		private boolean zeroCopy = false;
+		private final Map<Byte, CoffSymbolFactory> symbolFactories = new HashMap<>();
 
 		short numberOfSections;
 		int pointerToSymbolTable;
@@ -161,15 +190,43 @@ public class CoffFile {
 			this.fis = fis;
 		}
 
+		/**
+		 * Creates a new COFF file parser for the specified random-access source.
+		 *
+		 * @param source the source holding a COFF file at offset 0
+		 */
+		public Parser(ByteSource source) {
+			Objects.requireNonNull(source);
+
+			this.fis = null;
+			this.source = source;
+		}
+
 		/**
 		 * Returns the input stream used for parsing.
 		 *
-		 * @return parser input stream
+		 * @return parser input stream, or null when parsing from a source
 		 */
 		public FileInputStream getFileInputStream() {
 			return fis;
 		}
 
+		/**
+		 * Returns the random-access source used for parsing.
+		 * <p>
+		 * When the parser was created from a file input stream, its file is mapped into memory on first use.
+		 *
+		 * @return parser source
+		 * @throws IOException if the input file cannot be mapped
+		 */
+		public ByteSource getSource() throws IOException {
+			if (source == null) {
+				source = ByteSource.map(fis.getChannel());
+			}
+
+			return source;
+		}
+
 		/**
 		 * Returns the charset used for decoding strings in the COFF string table.
 		 *
@@ -192,6 +249,66 @@ public class CoffFile {
 			return this;
 		}
 
+		/**
+		 * Enables or disables zero-copy section contents.
+		 * <p>
+		 * When enabled, section contents are exposed as read-only views over the parser source and are only
+		 * copied onto the heap when their bytes are requested as an array.
+		 *
+		 * @param zeroCopy true to keep section contents as views over the source
+		 * @return this parser
+		 */
+		public Parser setZeroCopy(boolean zeroCopy) {
+			this.zeroCopy = zeroCopy;
+			return this;
+		}
+
+		/**
+		 * Returns whether section contents are kept as views over the parser source.
+		 *
+		 * @return true if zero-copy section contents are enabled
+		 */
+		public boolean isZeroCopy() {
+			return zeroCopy;
+		}
+
+		/**
+		 * Registers a custom symbol factory for a storage class.
+		 * <p>
+		 * The factory takes precedence over {@link CoffSymbolTable#parseSymbol}, which remains in use for other
+		 * storage classes.
+		 *
+		 * @param storageClass the storage class
+		 * @param factory the factory parsing symbols of this storage class
+		 * @return this parser
+		 */
+		public Parser setSymbolFactory(CoffStorageClass storageClass, CoffSymbolFactory factory) {
+			Objects.requireNonNull(storageClass);
+
+			return setSymbolFactory(storageClass.getValue(), factory);
+		}
+
+		/**
+		 * Registers a custom symbol factory for a raw storage class value.
+		 * <p>
+		 * Unlike {@link #setSymbolFactory(CoffStorageClass, CoffSymbolFactory)}, this also accepts storage classes
+		 * that have no {@link CoffStorageClass} constant, which would otherwise be rejected while parsing.
+		 *
+		 * @param storageClass the raw storage class value
+		 * @param factory the factory parsing symbols of this storage class
+		 * @return this parser
+		 */
+		public Parser setSymbolFactory(byte storageClass, CoffSymbolFactory factory) {
+			Objects.requireNonNull(factory);
+
+			symbolFactories.put(storageClass, factory);
+			return this;
+		}
+
+		CoffSymbolFactory getSymbolFactory(byte storageClass) {
+			return symbolFactories.getOrDefault(storageClass, CoffSymbolTable::parseDefaultSymbol);
+		}
+
 		/**
 		 * Parses and returns a COFF file from the configured input stream.
 		 *
@@ -15,7 +15,6 @@ package net.boricj.bft.coff;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -59,8 +58,7 @@ public class CoffHeader implements Writable {
 	protected CoffHeader(CoffFile coff, CoffFile.Parser parser) throws IOException {
 		this.coff = coff;
 
-		FileInputStream fis = parser.getFileInputStream();
-		DataInput dataInput = wrap(fis);
+		DataInput dataInput = wrap(parser.getSource().openStream(0));
 
 		this.machine = CoffMachine.valueFrom(dataInput.readShort());
 		parser.numberOfSections = dataInput.readShort();
@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.coff;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.coff.constants.CoffMachine;
+
+import static net.boricj.bft.coff.CoffRelocationTable.EXTENDED_RELOCATIONS_COUNT;
+import static net.boricj.bft.coff.constants.CoffSectionFlags.IMAGE_SCN_LNK_NRELOC_OVFL;
+
+/**
+ * Summary of a COFF object file, read from its headers only.
+ * <p>
+ * Probing reads the file header and optionally the section headers, without instantiating sections or symbols
+ * or touching their contents. Only sections with an overflowing relocation count have their first relocation
+ * record read. The machine value is kept raw, so that files for machines unknown to this library
+ * can still be classified.
+ */
+public final class CoffProbe {
+	private static final int HEADER_LENGTH = 20;
+	private static final int SECTION_HEADER_LENGTH = 40;
+
+	private final short machine;
+	private final int timeDateStamp;
+	private final int sectionCount;
+	private final int symbolCount;
+	private final short characteristics;
+	private final long relocationCount;
+
+	private CoffProbe(
+			short machine,
+			int timeDateStamp,
+			int sectionCount,
+			int symbolCount,
+			short characteristics,
+			long relocationCount) {
+		this.machine = machine;
+		this.timeDateStamp = timeDateStamp;
+		this.sectionCount = sectionCount;
+		this.symbolCount = symbolCount;
+		this.characteristics = characteristics;
+		this.relocationCount = relocationCount;
+	}
+
+	/**
+	 * Probes a COFF object file, including its section headers.
+	 *
+	 * @param source the source holding a COFF object file at offset 0
+	 * @return the summary of the file
+	 * @throws IndexOutOfBoundsException if the headers lie outside of the source
+	 */
+	public static CoffProbe probe(ByteSource source) {
+		return probe(source, true);
+	}
+
+	/**
+	 * Probes a COFF object file.
+	 * <p>
+	 * COFF object files carry no magic bytes, so any source long enough to hold the headers is accepted.
+	 *
+	 * @param source the source holding a COFF object file at offset 0
+	 * @param readSectionHeaders true to also read the section headers, which is needed to count relocations
+	 * @return the summary of the file
+	 * @throws IndexOutOfBoundsException if the headers lie outside of the source
+	 */
+	public static CoffProbe probe(ByteSource source, boolean readSectionHeaders) {
+		Objects.requireNonNull(source);
+
+		ByteBuffer header = source.slice(0, HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		short machine = header.getShort(0);
+		int numberOfSections = Short.toUnsignedInt(header.getShort(2));
+		int timeDateStamp = header.getInt(4);
+		int numberOfSymbols = header.getInt(12);
+		int sizeOfOptionalHeader = Short.toUnsignedInt(header.getShort(16));
+		short characteristics = header.getShort(18);
+
+		long relocationCount = -1;
+		if (readSectionHeaders) {
+			relocationCount = 0;
+			ByteBuffer sectionHeaders = source.slice(
+							HEADER_LENGTH + sizeOfOptionalHeader, (long) SECTION_HEADER_LENGTH * numberOfSections)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			for (int index = 0; index < numberOfSections; index++) {
+				int offset = index * SECTION_HEADER_LENGTH;
+				int numberOfRelocations = Short.toUnsignedInt(sectionHeaders.getShort(offset + 32));
+				int sectionCharacteristics = sectionHeaders.getInt(offset + 36);
+				if (numberOfRelocations == EXTENDED_RELOCATIONS_COUNT
+						&& (sectionCharacteristics & IMAGE_SCN_LNK_NRELOC_OVFL) != 0) {
+					// The actual count is stored in the first relocation record, the overflow marker included.
+					long pointerToRelocations = Integer.toUnsignedLong(sectionHeaders.getInt(offset + 24));
+					ByteBuffer relocation =
+							source.slice(pointerToRelocations, 4).order(ByteOrder.LITTLE_ENDIAN);
+					relocationCount += Integer.toUnsignedLong(relocation.getInt(0)) - 1;
+				} else {
+					relocationCount += numberOfRelocations;
+				}
+			}
+		}
+
+		return new CoffProbe(
+				machine, timeDateStamp, numberOfSections, numberOfSymbols, characteristics, relocationCount);
+	}
+
+	/**
+	 * Returns the raw machine type.
+	 *
+	 * @return the machine value
+	 */
+	public short getMachineValue() {
+		return machine;
+	}
+
+	/**
+	 * Returns the machine type.
+	 *
+	 * @return the machine type
+	 * @throws IllegalArgumentException if the machine is unknown
+	 */
+	public CoffMachine getMachine() {
+		return CoffMachine.valueFrom(machine);
+	}
+
+	/**
+	 * Returns the timestamp value stored in the header.
+	 *
+	 * @return the timestamp value
+	 */
+	public int getTimeDateStamp() {
+		return timeDateStamp;
+	}
+
+	/**
+	 * Returns the number of sections.
+	 *
+	 * @return the section count
+	 */
+	public int getSectionCount() {
+		return sectionCount;
+	}
+
+	/**
+	 * Returns the number of symbol table records, auxiliary records included.
+	 *
+	 * @return the symbol record count
+	 */
+	public int getSymbolCount() {
+		return symbolCount;
+	}
+
+	/**
+	 * Returns the characteristics flags stored in the header.
+	 *
+	 * @return the characteristics value
+	 */
+	public short getCharacteristics() {
+		return characteristics;
+	}
+
+	/**
+	 * Returns the total number of relocations across all sections.
+	 *
+	 * @return the relocation count, or -1 if the section headers weren't read
+	 */
+	public long getRelocationCount() {
+		return relocationCount;
+	}
+}
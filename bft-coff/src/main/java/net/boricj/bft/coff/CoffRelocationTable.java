@@ -15,16 +15,16 @@ package net.boricj.bft.coff;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntFunction;
 
 import net.boricj.bft.IndirectList;
+import net.boricj.bft.OffsetIndex;
 import net.boricj.bft.Writable;
 import net.boricj.bft.coff.CoffRelocationTable.CoffRel;
 import net.boricj.bft.coff.CoffSymbolTable.CoffSymbol;
@@ -112,6 +112,7 @@ public class CoffRelocationTable implements IndirectList<CoffRel>, Writable {
 	private final CoffFile coff;
 	private final CoffSection section;
 	private final List<CoffRel> relocations = new ArrayList<>();
+	private OffsetIndex<CoffRel> offsetIndex;
 	private int pointerToRelocations;
 
 	/**
@@ -152,13 +153,16 @@ public class CoffRelocationTable implements IndirectList<CoffRel>, Writable {
 		this.section = section;
 		this.pointerToRelocations = pointerToRelocations;
 
+		// Machines without relocation support may still carry empty relocation tables.
+		if (numberOfRelocations == 0) {
+			return;
+		}
+
 		CoffHeader header = coff.getHeader();
 		CoffMachine machine = header.getMachine();
-		Class<? extends CoffRelocationType> clazz = machine.getRelocationTypeClass();
+		IntFunction<? extends CoffRelocationType> relocationTypes = machine.getRelocationTypeDecoder();
 
-		FileInputStream fis = parser.getFileInputStream();
-		fis.getChannel().position(pointerToRelocations);
-		DataInput dataInput = coff.wrap(fis);
+		DataInput dataInput = coff.wrap(parser.getSource().openStream(pointerToRelocations));
 
 		for (int idx = 0; idx < numberOfRelocations; idx++) {
 			int virtualAddress = dataInput.readInt();
@@ -170,17 +174,7 @@ public class CoffRelocationTable implements IndirectList<CoffRel>, Writable {
 				continue;
 			}
 
-			CoffRelocationType type;
-
-			try {
-				type = (CoffRelocationType)
-						clazz.getMethod("valueFrom", Short.TYPE).invoke(null, typeValue);
-			} catch (IllegalAccessException
-					| InvocationTargetException
-					| NoSuchMethodException
-					| SecurityException ex) {
-				throw new RuntimeException(ex);
-			}
+			CoffRelocationType type = relocationTypes.apply(typeValue);
 
 			relocations.add(new CoffRel(virtualAddress, symbolTableIndex, type));
 		}
@@ -255,6 +249,22 @@ public class CoffRelocationTable implements IndirectList<CoffRel>, Writable {
 		}
 	}
 
+	/**
+	 * Returns an index of the relocations of this table sorted by virtual address, for range queries.
+	 * <p>
+	 * The index is built on first use and cached until relocations are added to this table.
+	 *
+	 * @return the relocation offset index
+	 */
+	public synchronized OffsetIndex<CoffRel> getOffsetIndex() {
+		if (offsetIndex == null || offsetIndex.size() != relocations.size()) {
+			offsetIndex =
+					OffsetIndex.of(relocations, relocation -> Integer.toUnsignedLong(relocation.getVirtualAddress()));
+		}
+
+		return offsetIndex;
+	}
+
 	@Override
 	public List<CoffRel> getElements() {
 		return Collections.unmodifiableList(relocations);
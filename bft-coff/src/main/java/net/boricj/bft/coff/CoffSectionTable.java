@@ -14,7 +14,6 @@
 package net.boricj.bft.coff;
 
 import java.io.DataInput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -121,10 +120,7 @@ public class CoffSectionTable implements IndirectList<CoffSection>, Writable {
 		CoffSection section = table.get(index);
 
 		if (section == null) {
-			FileInputStream fis = parser.getFileInputStream();
-
-			fis.getChannel().position(getOffset() + index * RECORD_LENGTH);
-			DataInput dataInput = coff.wrap(fis);
+			DataInput dataInput = coff.wrap(parser.getSource().openStream(getOffset() + index * RECORD_LENGTH));
 
 			byte[] nameBytes = new byte[8];
 			dataInput.readFully(nameBytes);
@@ -17,36 +17,32 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.NoSuchElementException;
-import java.util.Objects;
-import java.util.TreeMap;
 
 import net.boricj.bft.ByteInputStream;
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.StringPool;
 import net.boricj.bft.Writable;
 
 /**
  * COFF string table for storing symbol names that don't fit in the symbol table entry.
  * Long names are stored here and referenced by offset.
+ * <p>
+ * The table is kept as a single contiguous buffer. Strings are decoded on first lookup by offset and cached.
  */
 public class CoffStringTable implements Iterable<Integer>, Writable {
 	/** Default charset used to encode and decode string table entries. */
 	public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
 	private final CoffFile coff;
-	private final TreeMap<Integer, byte[]> strings = new TreeMap<>();
-	private final Map<String, Integer> lookup = new HashMap<>();
+	private final StringPool strings;
 	private final Charset charset;
 
 	/**
@@ -58,6 +54,8 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 	protected CoffStringTable(CoffFile coff, CoffFile.Builder builder) {
 		this.coff = coff;
 		this.charset = builder.getCharset();
+		this.strings = new StringPool(charset, 4);
+		strings.setSuffixMerging(builder.isSuffixMerging());
 	}
 
 	/**
@@ -70,25 +68,37 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 	protected CoffStringTable(CoffFile coff, CoffFile.Parser parser) throws IOException {
 		this.coff = coff;
 		this.charset = parser.getCharset();
+		this.strings = load(parser.getSource(), getOffset(parser), charset);
+	}
 
-		FileInputStream fis = parser.getFileInputStream();
-		fis.getChannel().position(getOffset(parser));
-		DataInput dataInput = coff.wrap(fis);
-
-		int length = dataInput.readInt();
-		byte[] bytes = new byte[(int) length - 4];
-		fis.readNBytes(bytes, 0, bytes.length);
-
-		int lastIndex = 0;
-		for (int index = 0; index < bytes.length; index++) {
-			if (bytes[index] == 0) {
-				ByteBuffer buffer = ByteBuffer.wrap(bytes, lastIndex, index - lastIndex);
-				String string = charset.decode(buffer).toString();
+	/**
+	 * Loads the strings of a string table straight from a source: a 32-bit length, which includes itself, then
+	 * the strings, counted from offset 4.
+	 *
+	 * @param source the source holding the string table
+	 * @param offset the offset of the string table within the source
+	 * @param charset the charset of the strings
+	 * @return the string pool holding the strings
+	 * @throws IllegalStateException if the length is malformed
+	 */
+	static StringPool load(ByteSource source, long offset, Charset charset) {
+		int length = source.slice(offset, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+		if (length < 4) {
+			throw new IllegalStateException(String.format(
+					"malformed string table at offset 0x%x: length %d doesn't cover its own size field",
+					offset, Integer.toUnsignedLong(length)));
+		}
+		byte[] bytes = source.read(offset + 4, length - 4);
 
-				add(string);
-				lastIndex = index + 1;
-			}
+		// Bytes past the last null terminator don't form a string.
+		int end = bytes.length;
+		while (end > 0 && bytes[end - 1] != 0x00) {
+			end--;
 		}
+
+		StringPool strings = new StringPool(charset, 4);
+		strings.load(end == bytes.length ? bytes : Arrays.copyOf(bytes, end));
+		return strings;
 	}
 
 	@Override
@@ -103,12 +113,7 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 
 	@Override
 	public long getLength() {
-		if (strings.isEmpty()) {
-			return 4;
-		}
-
-		Entry<Integer, byte[]> lastEntry = strings.lastEntry();
-		return lastEntry.getKey() + lastEntry.getValue().length + 1;
+		return 4 + strings.getSize();
 	}
 
 	@Override
@@ -116,10 +121,7 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 		DataOutput dataOutput = coff.wrap(outputStream);
 
 		dataOutput.writeInt((int) getLength());
-		for (Entry<Integer, byte[]> entry : strings.entrySet()) {
-			dataOutput.write(entry.getValue());
-			dataOutput.writeByte(0x00);
-		}
+		strings.write(outputStream);
 	}
 
 	/**
@@ -129,21 +131,7 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 	 * @return offset where the string was inserted
 	 */
 	public int add(String string) {
-		Objects.requireNonNull(string);
-
-		byte[] bytes = string.getBytes(charset);
-		for (byte b : bytes) {
-			if (b == 0x00) {
-				String fmt = "string %s encoded using charset %s produced a null byte";
-				String msg = String.format(fmt, string, charset.name());
-				throw new IllegalArgumentException(msg);
-			}
-		}
-
-		int nextKey = (int) getLength();
-		strings.put(nextKey, bytes);
-		lookup.put(string, nextKey);
-		return nextKey;
+		return strings.add(string);
 	}
 
 	/**
@@ -153,19 +141,7 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 	 * @return decoded string at {@code index}
 	 */
 	public String get(int index) {
-		Entry<Integer, byte[]> entry = strings.floorEntry(index);
-		if (entry == null || index < 0) {
-			throw new IndexOutOfBoundsException(index);
-		}
-
-		byte[] bytes = entry.getValue();
-		int offset = index - entry.getKey();
-		String string = charset.decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset))
-				.toString();
-		if (!lookup.containsKey(string)) {
-			lookup.put(string, index);
-		}
-		return string;
+		return strings.get(index);
 	}
 
 	/**
@@ -175,16 +151,34 @@ public class CoffStringTable implements Iterable<Integer>, Writable {
 	 * @return offset of {@code string}
 	 */
 	public int find(String string) {
-		Integer index = lookup.get(string);
-		if (index == null) {
-			throw new NoSuchElementException();
-		}
-		return index;
+		return strings.find(string);
+	}
+
+	/**
+	 * Returns whether strings share common suffixes when the table is serialized.
+	 *
+	 * @return true if suffix merging is enabled
+	 */
+	public boolean isSuffixMerging() {
+		return strings.isSuffixMerging();
+	}
+
+	/**
+	 * Enables or disables suffix merging.
+	 * <p>
+	 * When enabled, the table is laid out anew when serialized: each string that ends another one shares its
+	 * storage. Offsets returned by {@link #find(String)} then point into the merged table, while
+	 * {@link #get(int)} keeps decoding the table as it was parsed and built.
+	 *
+	 * @param suffixMerging true to share common suffixes between strings
+	 */
+	public void setSuffixMerging(boolean suffixMerging) {
+		strings.setSuffixMerging(suffixMerging);
 	}
 
 	@Override
 	public Iterator<Integer> iterator() {
-		return strings.keySet().iterator();
+		return strings.iterator();
 	}
 
 	/**
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.coff;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+import net.boricj.bft.coff.CoffSymbolTable.CoffSymbol;
+import net.boricj.bft.coff.constants.CoffStorageClass;
+
+/**
+ * Factory parsing a symbol table entry into a symbol.
+ * <p>
+ * Custom factories may be registered per raw storage class value on a {@link CoffFile.Parser} to parse auxiliary
+ * symbol records or storage classes unknown to this library.
+ */
+@FunctionalInterface
+public interface CoffSymbolFactory {
+	/**
+	 * Parses a symbol.
+	 *
+	 * @param symbolTable symbol table being parsed
+	 * @param name symbol name
+	 * @param value symbol value
+	 * @param sectionNumber section number
+	 * @param type symbol type
+	 * @param storageClass raw symbol storage class, which may not be a known {@link CoffStorageClass}
+	 * @param numberOfAuxSymbols number of auxiliary records
+	 * @param dataInput input stream positioned after the symbol header
+	 * @return the parsed symbol
+	 * @throws IOException if an I/O error occurs
+	 */
+	CoffSymbol create(
+			CoffSymbolTable symbolTable,
+			String name,
+			int value,
+			short sectionNumber,
+			short type,
+			byte storageClass,
+			byte numberOfAuxSymbols,
+			DataInput dataInput)
+			throws IOException;
+}
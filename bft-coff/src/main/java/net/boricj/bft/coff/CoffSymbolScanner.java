@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.coff;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.StringPool;
+
+import static net.boricj.bft.coff.CoffSymbolTable.RECORD_LENGTH;
+
+/**
+ * Streams the symbol table of a COFF object file to a {@link CoffSymbolVisitor}, without parsing the file.
+ * <p>
+ * Only the file header and the symbol records are read, straight from the source. No symbol or section objects
+ * are created, so memory use doesn't grow with the number of symbols. The string table is only loaded once a long
+ * name is requested through {@link #getName(long)}.
+ * <p>
+ * Scanners aren't thread-safe.
+ */
+public final class CoffSymbolScanner {
+	private final ByteSource source;
+	private final Charset charset;
+	private final long pointerToSymbolTable;
+	private final int numberOfSymbols;
+
+	private StringPool strings;
+
+	/**
+	 * Creates a scanner over a COFF object file, decoding names with the default charset.
+	 *
+	 * @param source the source holding a COFF object file at offset 0
+	 */
+	public CoffSymbolScanner(ByteSource source) {
+		this(source, CoffStringTable.DEFAULT_CHARSET);
+	}
+
+	/**
+	 * Creates a scanner over a COFF object file.
+	 *
+	 * @param source the source holding a COFF object file at offset 0
+	 * @param charset the charset of the symbol names
+	 */
+	public CoffSymbolScanner(ByteSource source, Charset charset) {
+		Objects.requireNonNull(source);
+		Objects.requireNonNull(charset);
+
+		ByteBuffer header = source.slice(0, 20).order(ByteOrder.LITTLE_ENDIAN);
+
+		this.source = source;
+		this.charset = charset;
+		this.pointerToSymbolTable = Integer.toUnsignedLong(header.getInt(8));
+		this.numberOfSymbols = header.getInt(12);
+	}
+
+	/**
+	 * Visits the symbol records of the file, in file order.
+	 *
+	 * @param visitor the visitor receiving the symbols
+	 * @throws IndexOutOfBoundsException if the symbol table lies outside of the source
+	 */
+	public void scan(CoffSymbolVisitor visitor) {
+		Objects.requireNonNull(visitor);
+
+		ByteBuffer records = source.slice(pointerToSymbolTable, (long) numberOfSymbols * RECORD_LENGTH)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		for (int index = 0; index < numberOfSymbols; index++) {
+			int record = index * RECORD_LENGTH;
+			byte numberOfAuxSymbols = records.get(record + 17);
+
+			visitor.visitSymbol(
+					index,
+					records.getLong(record),
+					records.getInt(record + 8),
+					records.getShort(record + 12),
+					records.getShort(record + 14),
+					records.get(record + 16),
+					numberOfAuxSymbols);
+
+			index += Byte.toUnsignedInt(numberOfAuxSymbols);
+		}
+	}
+
+	/**
+	 * Decodes a symbol name from its raw name field.
+	 * <p>
+	 * Short names are stored inline, long names are looked up in the string table, which is loaded on first use.
+	 *
+	 * @param name raw name field, as a little-endian 64-bit value
+	 * @return the symbol name
+	 * @throws IndexOutOfBoundsException if the name lies outside of the string table
+	 * @throws IllegalStateException if the string table length is malformed
+	 */
+	public String getName(long name) {
+		if ((int) name == 0) {
+			return getStrings().get((int) (name >>> 32));
+		}
+
+		byte[] bytes = new byte[8];
+		int length = 0;
+		for (; length < bytes.length && (name & 0xFF) != 0; length++, name >>>= 8) {
+			bytes[length] = (byte) name;
+		}
+
+		return new String(bytes, 0, length, charset);
+	}
+
+	private StringPool getStrings() {
+		if (strings == null) {
+			strings = CoffStringTable.load(
+					source, pointerToSymbolTable + (long) numberOfSymbols * RECORD_LENGTH, charset);
+		}
+
+		return strings;
+	}
+}
@@ -15,11 +15,8 @@ package net.boricj.bft.coff;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -65,6 +62,7 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 		private final short sectionNumber;
 		private final short type;
 		private final CoffStorageClass storageClass;
+		private final byte storageClassValue;
 
 		/**
 		 * Creates a COFF symbol.
@@ -84,6 +82,27 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 			this.sectionNumber = sectionNumber;
 			this.type = type;
 			this.storageClass = storageClass;
+			this.storageClassValue = storageClass.getValue();
+		}
+
+		/**
+		 * Creates a COFF symbol with a raw storage class value, which may not be a known {@link CoffStorageClass}.
+		 *
+		 * @param name symbol name
+		 * @param value symbol value
+		 * @param sectionNumber symbol section number
+		 * @param type symbol type
+		 * @param storageClass raw symbol storage class
+		 */
+		public CoffSymbol(String name, int value, short sectionNumber, short type, byte storageClass) {
+			Objects.requireNonNull(name);
+
+			this.name = name;
+			this.value = value;
+			this.sectionNumber = sectionNumber;
+			this.type = type;
+			this.storageClass = findStorageClass(storageClass);
+			this.storageClassValue = storageClass;
 		}
 
 		/**
@@ -154,12 +173,21 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 		/**
 		 * Returns the storage class of this symbol.
 		 *
-		 * @return storage class
+		 * @return storage class, or null if the raw value is not a known storage class
 		 */
 		public CoffStorageClass getStorageClass() {
 			return storageClass;
 		}
 
+		/**
+		 * Returns the raw storage class value of this symbol.
+		 *
+		 * @return raw storage class value
+		 */
+		public byte getStorageClassValue() {
+			return storageClassValue;
+		}
+
 		/**
 		 * Returns the number of auxiliary symbol records following this symbol.
 		 *
@@ -425,9 +453,7 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 		this.pointerToSymbolTable = parser.pointerToSymbolTable;
 
 		CoffStringTable stringTable = coff.getStrings();
-		FileInputStream fis = parser.getFileInputStream();
-		fis.getChannel().position(pointerToSymbolTable);
-		DataInput dataInput = coff.wrap(fis);
+		DataInput dataInput = coff.wrap(parser.getSource().openStream(pointerToSymbolTable));
 
 		for (int idx = 0; idx < parser.numberOfSymbols; idx++) {
 			byte[] nameBytes = new byte[8];
@@ -436,58 +462,12 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 			int value = dataInput.readInt();
 			short sectionNumber = dataInput.readShort();
 			short type = dataInput.readShort();
-			CoffStorageClass storageClass = CoffStorageClass.valueFrom(dataInput.readByte());
+			byte storageClass = dataInput.readByte();
 			byte numberOfAuxSymbols = dataInput.readByte();
 
-			Class<? extends CoffSymbol> symbolClass;
-			switch (storageClass) {
-				case IMAGE_SYM_CLASS_FILE:
-					symbolClass = CoffSymbolFile.class;
-					break;
-
-				case IMAGE_SYM_CLASS_EXTERNAL:
-					if (numberOfAuxSymbols == 1 && type == 0x20) {
-						symbolClass = CoffSymbolFunction.class;
-					} else {
-						symbolClass = CoffSymbol.class;
-					}
-					break;
-
-				case IMAGE_SYM_CLASS_STATIC:
-					if (numberOfAuxSymbols == 1) {
-						symbolClass = CoffSymbolSection.class;
-					} else {
-						symbolClass = CoffSymbol.class;
-					}
-					break;
-
-				default:
-					symbolClass = CoffSymbol.class;
-					break;
-			}
-
-			Constructor<? extends CoffSymbol> constructor;
-			CoffSymbol symbol;
-			try {
-				constructor = symbolClass.getConstructor(
-						CoffSymbolTable.class,
-						String.class,
-						Integer.TYPE,
-						Short.TYPE,
-						Short.TYPE,
-						CoffStorageClass.class,
-						Byte.TYPE,
-						DataInput.class);
-				symbol = constructor.newInstance(
-						this, name, value, sectionNumber, type, storageClass, numberOfAuxSymbols, dataInput);
-			} catch (NoSuchMethodException
-					| SecurityException
-					| InstantiationException
-					| IllegalAccessException
-					| IllegalArgumentException
-					| InvocationTargetException ex) {
-				throw new RuntimeException(ex);
-			}
+			CoffSymbolFactory factory = parser.getSymbolFactory(storageClass);
+			CoffSymbol symbol =
+					factory.create(this, name, value, sectionNumber, type, storageClass, numberOfAuxSymbols, dataInput);
 
 			Objects.requireNonNull(symbol);
 			idx = add(symbol, this);
@@ -495,6 +475,74 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 		}
 	}
 
+	CoffSymbol parseDefaultSymbol(
+			String name,
+			int value,
+			short sectionNumber,
+			short type,
+			byte storageClass,
+			byte numberOfAuxSymbols,
+			DataInput dataInput)
+			throws IOException {
+		CoffStorageClass knownStorageClass = findStorageClass(storageClass);
+		if (knownStorageClass == null) {
+			throw new IllegalArgumentException(
+					String.format("unknown storage class 0x%02x for symbol %s", storageClass & 0xFF, name));
+		}
+
+		return parseSymbol(name, value, sectionNumber, type, knownStorageClass, numberOfAuxSymbols, dataInput);
+	}
+
+	/**
+	 * Parses a symbol into the built-in symbol class matching its storage class and auxiliary records.
+	 * <p>
+	 * This is the default for all known storage classes without a registered {@link CoffSymbolFactory}.
+	 *
+	 * @param name symbol name
+	 * @param value symbol value
+	 * @param sectionNumber section number
+	 * @param type symbol type
+	 * @param storageClass symbol storage class
+	 * @param numberOfAuxSymbols number of auxiliary records
+	 * @param dataInput input stream positioned after the symbol header
+	 * @return the parsed symbol
+	 * @throws IOException if an I/O error occurs
+	 */
+	public CoffSymbol parseSymbol(
+			String name,
+			int value,
+			short sectionNumber,
+			short type,
+			CoffStorageClass storageClass,
+			byte numberOfAuxSymbols,
+			DataInput dataInput)
+			throws IOException {
+		switch (storageClass) {
+			case IMAGE_SYM_CLASS_FILE:
+				return new CoffSymbolFile(
+						name, value, sectionNumber, type, storageClass, numberOfAuxSymbols, dataInput);
+
+			case IMAGE_SYM_CLASS_EXTERNAL:
+				if (numberOfAuxSymbols == 1 && type == 0x20) {
+					return new CoffSymbolFunction(
+							name, value, sectionNumber, type, storageClass, numberOfAuxSymbols, dataInput);
+				}
+				break;
+
+			case IMAGE_SYM_CLASS_STATIC:
+				if (numberOfAuxSymbols == 1) {
+					return new CoffSymbolSection(
+							name, value, sectionNumber, type, storageClass, numberOfAuxSymbols, dataInput);
+				}
+				break;
+
+			default:
+				break;
+		}
+
+		return new CoffSymbol(name, value, sectionNumber, type, storageClass, numberOfAuxSymbols, dataInput);
+	}
+
 	@Override
 	public long getOffset() {
 		return pointerToSymbolTable;
@@ -530,7 +578,7 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 			dataOutput.writeInt(symbol.getValue());
 			dataOutput.writeShort(symbol.getSectionNumber());
 			dataOutput.writeShort(symbol.getType());
-			dataOutput.writeByte(symbol.getStorageClass().getValue());
+			dataOutput.writeByte(symbol.getStorageClassValue());
 			dataOutput.writeByte(symbol.getNumberOfAuxSymbols());
 			symbol.writeAuxiliarySymbolRecord(dataOutput);
 		}
@@ -541,6 +589,16 @@ public class CoffSymbolTable implements IndirectList<CoffSymbol>, Writable {
 		return Collections.unmodifiableList(symbols);
 	}
 
+	private static CoffStorageClass findStorageClass(byte value) {
+		for (CoffStorageClass storageClass : CoffStorageClass.values()) {
+			if (storageClass.getValue() == value) {
+				return storageClass;
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Adds a generic symbol.
 	 *
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.coff;
+
+/**
+ * Receiver of the raw symbol records streamed by a {@link CoffSymbolScanner}.
+ * <p>
+ * Symbols are handed over as primitive fields, exactly as stored in the file. Names are decoded on demand with
+ * {@link CoffSymbolScanner#getName(long)}. Auxiliary records are skipped, but still counted in symbol indexes.
+ */
+@FunctionalInterface
+public interface CoffSymbolVisitor {
+	/**
+	 * Called for each symbol record, in file order.
+	 *
+	 * @param index index of the symbol record within the symbol table
+	 * @param name raw name field, as a little-endian 64-bit value
+	 * @param value symbol value
+	 * @param sectionNumber section number
+	 * @param type symbol type
+	 * @param storageClass raw storage class
+	 * @param numberOfAuxSymbols number of auxiliary records following the symbol
+	 */
+	void visitSymbol(
+			int index,
+			long name,
+			int value,
+			short sectionNumber,
+			short type,
+			byte storageClass,
+			byte numberOfAuxSymbols);
+}
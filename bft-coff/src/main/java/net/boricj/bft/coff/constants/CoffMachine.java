@@ -13,6 +13,8 @@
  */
 package net.boricj.bft.coff.constants;
 
+import java.util.function.IntFunction;
+
 import net.boricj.bft.coff.machines.amd64.CoffRelocationType_amd64;
 import net.boricj.bft.coff.machines.i386.CoffRelocationType_i386;
 
@@ -21,19 +23,26 @@ import net.boricj.bft.coff.machines.i386.CoffRelocationType_i386;
  */
 public enum CoffMachine {
 	/** Unknown machine type. */
-	IMAGE_FILE_MACHINE_UNKNOWN((short) 0x0, null),
+	IMAGE_FILE_MACHINE_UNKNOWN((short) 0x0, null, null),
 	/** Intel i386 machine type. */
-	IMAGE_FILE_MACHINE_I386((short) 0x14c, CoffRelocationType_i386.class),
+	IMAGE_FILE_MACHINE_I386(
+			(short) 0x14c, CoffRelocationType_i386.class, value -> CoffRelocationType_i386.valueFrom((short) value)),
 	/** AMD64 machine type. */
-	IMAGE_FILE_MACHINE_AMD64((short) 0x8664, CoffRelocationType_amd64.class),
+	IMAGE_FILE_MACHINE_AMD64(
+			(short) 0x8664, CoffRelocationType_amd64.class, value -> CoffRelocationType_amd64.valueFrom((short) value)),
 	;
 
 	private final short value;
 	private final Class<? extends CoffRelocationType> relocationType;
+	private final IntFunction<? extends CoffRelocationType> relocationTypeDecoder;
 
-	CoffMachine(short value, Class<? extends CoffRelocationType> relocationType) {
+	CoffMachine(
+			short value,
+			Class<? extends CoffRelocationType> relocationType,
+			IntFunction<? extends CoffRelocationType> relocationTypeDecoder) {
 		this.value = value;
 		this.relocationType = relocationType;
+		this.relocationTypeDecoder = relocationTypeDecoder;
 	}
 
 	/**
@@ -54,6 +63,23 @@ public enum CoffMachine {
 		return relocationType;
 	}
 
+	/**
+	 * Gets the relocation type decoder associated with this machine.
+	 * <p>
+	 * The decoder resolves an encoded relocation type through a lookup table and throws
+	 * {@link IllegalArgumentException} for unknown values.
+	 *
+	 * @return relocation type decoder
+	 * @throws IllegalStateException if relocations are not supported for this machine
+	 */
+	public IntFunction<? extends CoffRelocationType> getRelocationTypeDecoder() {
+		if (relocationTypeDecoder == null) {
+			throw new IllegalStateException("relocations not supported for " + name());
+		}
+
+		return relocationTypeDecoder;
+	}
+
 	/**
 	 * Resolves a machine identifier from its encoded value.
 	 *
@@ -56,6 +56,20 @@ public enum CoffRelocationType_amd64 implements CoffRelocationType {
 	IMAGE_REL_AMD64_SSPAN32((short) 0x0010),
 	;
 
+	private static final CoffRelocationType_amd64[] TYPES;
+
+	static {
+		int length = 0;
+		for (CoffRelocationType_amd64 type : values()) {
+			length = Math.max(length, Short.toUnsignedInt(type.value) + 1);
+		}
+
+		TYPES = new CoffRelocationType_amd64[length];
+		for (CoffRelocationType_amd64 type : values()) {
+			TYPES[Short.toUnsignedInt(type.value)] = type;
+		}
+	}
+
 	private final short value;
 
 	CoffRelocationType_amd64(short value) {
@@ -89,12 +103,11 @@ public enum CoffRelocationType_amd64 implements CoffRelocationType {
 	 * @return matching relocation type
 	 */
 	public static CoffRelocationType_amd64 valueFrom(short value) {
-		for (CoffRelocationType_amd64 type : values()) {
-			if (type.getValue() == value) {
-				return type;
-			}
+		int index = Short.toUnsignedInt(value);
+		if (index >= TYPES.length || TYPES[index] == null) {
+			throw new IllegalArgumentException();
 		}
 
-		throw new IllegalArgumentException();
+		return TYPES[index];
 	}
 }
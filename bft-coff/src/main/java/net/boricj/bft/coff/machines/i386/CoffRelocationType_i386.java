@@ -44,6 +44,20 @@ public enum CoffRelocationType_i386 implements CoffRelocationType {
 	IMAGE_REL_I386_REL32((short) 0x0014),
 	;
 
+	private static final CoffRelocationType_i386[] TYPES;
+
+	static {
+		int length = 0;
+		for (CoffRelocationType_i386 type : values()) {
+			length = Math.max(length, Short.toUnsignedInt(type.value) + 1);
+		}
+
+		TYPES = new CoffRelocationType_i386[length];
+		for (CoffRelocationType_i386 type : values()) {
+			TYPES[Short.toUnsignedInt(type.value)] = type;
+		}
+	}
+
 	private final short value;
 
 	CoffRelocationType_i386(short value) {
@@ -77,12 +91,11 @@ public enum CoffRelocationType_i386 implements CoffRelocationType {
 	 * @return matching relocation type
 	 */
 	public static CoffRelocationType_i386 valueFrom(short value) {
-		for (CoffRelocationType_i386 type : values()) {
-			if (type.getValue() == value) {
-				return type;
-			}
+		int index = Short.toUnsignedInt(value);
+		if (index >= TYPES.length || TYPES[index] == null) {
+			throw new IllegalArgumentException();
 		}
 
-		throw new IllegalArgumentException();
+		return TYPES[index];
 	}
 }
@@ -13,11 +13,13 @@
  */
 package net.boricj.bft.coff.sections;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
+import net.boricj.bft.ByteContent;
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.coff.CoffFile;
 import net.boricj.bft.coff.CoffRelocationTable;
 import net.boricj.bft.coff.CoffSection;
@@ -28,7 +30,7 @@ import net.boricj.bft.coff.constants.CoffSectionFlags;
  * Represents sections with initialized data such as code or data segments.
  */
 public class CoffBytes extends CoffSection {
-	private final byte[] bytes;
+	private final ByteContent content;
 
 	/**
 	 * Creates a bytes section with in-memory data.
@@ -43,7 +45,7 @@ public class CoffBytes extends CoffSection {
 		Objects.requireNonNull(bytes);
 
 		this.relocationTable = new CoffRelocationTable(coff, this);
-		this.bytes = bytes;
+		this.content = ByteContent.of(bytes);
 	}
 
 	/**
@@ -79,31 +81,43 @@ public class CoffBytes extends CoffSection {
 			throws IOException {
 		super(coff, name, sizeOfRawData, physicalAddress, virtualAddress, pointerToRawData, characteristics);
 
-		this.bytes = new byte[(int) sizeOfRawData];
-
-		FileInputStream fis = parser.getFileInputStream();
-		fis.getChannel().position(pointerToRawData);
-		fis.readNBytes(bytes, 0, sizeOfRawData);
+		ByteSource source = parser.getSource();
+		if (parser.isZeroCopy()) {
+			this.content = ByteContent.view(source.slice(pointerToRawData, sizeOfRawData));
+		} else {
+			this.content = ByteContent.of(source.read(pointerToRawData, sizeOfRawData));
+		}
 
 		this.relocationTable = new CoffRelocationTable(coff, parser, this, pointerToRelocations, numberOfRelocations);
 	}
 
 	/**
 	 * Returns the raw byte data contained in this section.
+	 * <p>
+	 * Zero-copy contents are copied onto the heap on the first call.
 	 *
 	 * @return section data bytes
 	 */
 	public byte[] getBytes() {
-		return bytes;
+		return content.getBytes();
+	}
+
+	/**
+	 * Returns a read-only view over the data of this section, without copying it onto the heap.
+	 *
+	 * @return section data
+	 */
+	public ByteBuffer getBuffer() {
+		return content.getBuffer();
 	}
 
 	@Override
 	public long getLength() {
-		return bytes.length;
+		return content.getLength();
 	}
 
 	@Override
 	public void write(OutputStream outputStream) throws IOException {
-		outputStream.write(bytes);
+		content.write(outputStream);
 	}
 }
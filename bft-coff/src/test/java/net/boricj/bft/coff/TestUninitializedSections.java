@@ -28,6 +28,7 @@ import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.TestUtils;
 import net.boricj.bft.Writable;
 import net.boricj.bft.coff.constants.CoffMachine;
@@ -71,6 +72,28 @@ public class TestUninitializedSections {
 		TestUtils.assertArrayEquals(serialized, reparsedSerialized);
 	}
 
+	@Test
+	public void testSerializeAndParseUnknownMachine() throws IOException {
+		CoffFile coff = new CoffFile.Builder(CoffMachine.IMAGE_FILE_MACHINE_UNKNOWN).build();
+		CoffSectionTable sectionTable = coff.getSections();
+		CoffSymbolTable symbolTable = coff.getSymbols();
+
+		CoffSectionFlags characteristics = new CoffSectionFlags()
+				.cntUninitializedData()
+				.alignBytes(4)
+				.memRead()
+				.memWrite();
+		sectionTable.add(new CoffUninitialized(coff, ".bss", characteristics, 0x20));
+		symbolTable.setOffset(coff.getHeader().getLength() + sectionTable.getLength());
+
+		byte[] serialized = serialize(coff);
+
+		// Machines without relocation support still parse, as long as their relocation tables are empty.
+		CoffFile parsed = new CoffFile.Parser(ByteSource.wrap(serialized)).parse();
+		assertEquals(CoffMachine.IMAGE_FILE_MACHINE_UNKNOWN, parsed.getHeader().getMachine());
+		assertEquals(0, parsed.getSections().get(1).getRelocations().size());
+	}
+
 	@Test
 	public void testSectionSymbolAuxUsesVirtualSizeForUninitializedSection() throws IOException {
 		CoffFile coff = new CoffFile.Builder(CoffMachine.IMAGE_FILE_MACHINE_I386).build();
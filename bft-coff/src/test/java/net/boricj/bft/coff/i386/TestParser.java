@@ -13,10 +13,17 @@
  */
 package net.boricj.bft.coff.i386;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -27,13 +34,24 @@ import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.FileFormat;
 import net.boricj.bft.TestUtils;
 import net.boricj.bft.Writable;
 import net.boricj.bft.coff.CoffFile;
 import net.boricj.bft.coff.CoffHeader;
+import net.boricj.bft.coff.CoffProbe;
 import net.boricj.bft.coff.CoffSectionTable;
 import net.boricj.bft.coff.CoffStringTable;
+import net.boricj.bft.coff.CoffSymbolScanner;
 import net.boricj.bft.coff.CoffSymbolTable;
+import net.boricj.bft.coff.CoffSymbolTable.CoffSymbol;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestParser {
 	@Test
@@ -88,6 +106,118 @@ public class TestParser {
 		compareObjectFiles("extended-relocations_i686-pc-windows-msvc.obj");
 	}
 
+	@Test
+	public void test_extended_relocations_i686_pc_windows_msvc_probe() throws IOException, URISyntaxException {
+		for (String name : List.of(
+				"standard-relocations_i686-pc-windows-msvc.obj", "extended-relocations_i686-pc-windows-msvc.obj")) {
+			Path path = Path.of(getClass().getResource(name).toURI());
+			ByteSource source = ByteSource.map(path);
+			CoffFile coff = new CoffFile.Parser(source).parse();
+
+			assertEquals(FileFormat.COFF, FileFormat.detect(source));
+
+			CoffProbe probe = CoffProbe.probe(source);
+			assertEquals(coff.getHeader().getMachine(), probe.getMachine());
+			assertEquals(coff.getHeader().getTimeDateStamp(), probe.getTimeDateStamp());
+			assertEquals(coff.getSections().size(), probe.getSectionCount());
+			assertEquals(coff.getSymbols().getLength() / CoffSymbolTable.RECORD_LENGTH, probe.getSymbolCount());
+			assertEquals(
+					coff.getSections().stream()
+							.mapToLong(section -> section.getRelocations().size())
+							.sum(),
+					probe.getRelocationCount());
+
+			assertEquals(-1, CoffProbe.probe(source, false).getRelocationCount());
+		}
+	}
+
+	@Test
+	public void test_hello_world_i686_pc_windows_msvc_symbol_scanner() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-pc-windows-msvc.obj";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ByteSource source = ByteSource.map(path);
+		CoffSymbolTable symbols = new CoffFile.Parser(source).parse().getSymbols();
+
+		CoffSymbolScanner scanner = new CoffSymbolScanner(source);
+		List<CoffSymbol> expected = symbols.stream().toList();
+		List<String> names = new ArrayList<>();
+		scanner.scan((index, rawName, value, sectionNumber, type, storageClass, numberOfAuxSymbols) -> {
+			CoffSymbol symbol = expected.get(names.size());
+			assertEquals(symbol.getValue(), value);
+			assertEquals(symbol.getSectionNumber(), sectionNumber);
+			assertEquals(symbol.getType(), type);
+			assertEquals(symbol.getStorageClass().getValue(), storageClass);
+			assertEquals(symbol.getNumberOfAuxSymbols(), numberOfAuxSymbols);
+			names.add(scanner.getName(rawName));
+		});
+		assertEquals(expected.stream().map(CoffSymbol::getName).toList(), names);
+	}
+
+	@Test
+	public void test_hello_world_i686_pc_windows_msvc_malformed_string_table_length()
+			throws IOException, URISyntaxException {
+		String name = "hello-world_i686-pc-windows-msvc.obj";
+		byte[] bytes = Files.readAllBytes(Path.of(getClass().getResource(name).toURI()));
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int stringTableOffset = buffer.getInt(8) + buffer.getInt(12) * CoffSymbolTable.RECORD_LENGTH;
+		buffer.putInt(stringTableOffset, 2);
+
+		CoffSymbolScanner scanner = new CoffSymbolScanner(ByteSource.wrap(bytes));
+		assertThrows(IllegalStateException.class, () -> scanner.getName(4L << 32));
+		assertThrows(IllegalStateException.class, () -> new CoffFile.Parser(ByteSource.wrap(bytes)).parse());
+	}
+
+	@Test
+	public void test_hello_world_i686_pc_windows_msvc_unknown_storage_class_factory()
+			throws IOException, URISyntaxException {
+		String name = "hello-world_i686-pc-windows-msvc.obj";
+		byte[] bytes = Files.readAllBytes(Path.of(getClass().getResource(name).toURI()));
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int pointerToSymbolTable = buffer.getInt(8);
+		int numberOfSymbols = buffer.getInt(12);
+
+		// Patch the first symbol without auxiliary records to a storage class unknown to this library.
+		int index = 0;
+		while (bytes[pointerToSymbolTable + index * CoffSymbolTable.RECORD_LENGTH + 17] != 0) {
+			index += 1 + bytes[pointerToSymbolTable + index * CoffSymbolTable.RECORD_LENGTH + 17];
+		}
+		assertTrue(index < numberOfSymbols);
+		bytes[pointerToSymbolTable + index * CoffSymbolTable.RECORD_LENGTH + 16] = (byte) 0xC8;
+
+		assertThrows(IllegalArgumentException.class, () -> new CoffFile.Parser(ByteSource.wrap(bytes)).parse());
+
+		CoffFile coff = new CoffFile.Parser(ByteSource.wrap(bytes))
+				.setSymbolFactory(
+						(byte) 0xC8,
+						(table, symbolName, value, section, type, storageClass, aux, input) ->
+								table.new CoffSymbol(symbolName, value, section, type, storageClass))
+				.parse();
+		CoffSymbol symbol = coff.getSymbols().get(index);
+		assertNull(symbol.getStorageClass());
+		assertEquals((byte) 0xC8, symbol.getStorageClassValue());
+
+		// The unknown storage class is written back as-is.
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		coff.getSymbols().write(out);
+		int offset = index * CoffSymbolTable.RECORD_LENGTH;
+		assertArrayEquals(
+				Arrays.copyOfRange(
+						bytes,
+						pointerToSymbolTable + offset,
+						pointerToSymbolTable + offset + CoffSymbolTable.RECORD_LENGTH),
+				Arrays.copyOfRange(out.toByteArray(), offset, offset + CoffSymbolTable.RECORD_LENGTH));
+	}
+
+	@Test
+	public void test_extended_relocations_i686_pc_windows_msvc_zero_copy() throws IOException, URISyntaxException {
+		String name = "extended-relocations_i686-pc-windows-msvc.obj";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		CoffFile coff =
+				new CoffFile.Parser(ByteSource.map(path)).setZeroCopy(true).parse();
+
+		compareObjectFiles(name, coff, Collections.emptyMap());
+	}
+
 	private void compareObjectFiles(String name) throws IOException, URISyntaxException {
 		compareObjectFiles(name, Collections.emptyMap());
 	}
@@ -96,6 +226,11 @@ public class TestParser {
 		File file = new File(getClass().getResource(name).toURI());
 		CoffFile coff = new CoffFile.Parser(new FileInputStream(file)).parse();
 
+		compareObjectFiles(name, coff, patches);
+	}
+
+	private void compareObjectFiles(String name, CoffFile coff, Map<Integer, byte[]> patches) throws IOException {
+
 		CoffHeader header = coff.getHeader();
 		CoffSectionTable sectionTable = coff.getSections();
 		CoffSymbolTable symbolTable = coff.getSymbols();
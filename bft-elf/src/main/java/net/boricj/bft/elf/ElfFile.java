@@ -20,14 +20,18 @@ import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.elf.constants.ElfClass;
 import net.boricj.bft.elf.constants.ElfData;
 import net.boricj.bft.elf.constants.ElfMachine;
 import net.boricj.bft.elf.constants.ElfOsAbi;
+import net.boricj.bft.elf.constants.ElfSectionType;
 import net.boricj.bft.elf.constants.ElfType;
 import net.boricj.bft.elf.constants.ElfVersion;
 import net.boricj.bft.elf.sections.ElfStringTable;
@@ -220,8 +224,14 @@ public class ElfFile {
 	 */
 	public static class Parser {
 		private final FileInputStream fis;
+		private ByteSource source;
 		private Charset charset = ElfStringTable.DEFAULT_CHARSET;
 		boolean ignoreSectionErrors = false;
+		boolean lazy = false;
+		private boolean parallel = false;
+		private final Map<Integer, ElfSectionFactory> sectionFactories = new ConcurrentHashMap<>();
+		private boolean zeroCopy = false;
+		private boolean columnarSymbols = false;
 
 		final List<Integer> sh_names = new ArrayList<>();
 		short e_phnum;
@@ -239,15 +249,43 @@ public class ElfFile {
 			this.fis = fis;
 		}
 
+		/**
+		 * Creates a new ELF file parser for the given random-access source.
+		 *
+		 * @param source source holding an ELF file at offset 0
+		 */
+		public Parser(ByteSource source) {
+			Objects.requireNonNull(source);
+
+			this.fis = null;
+			this.source = source;
+		}
+
 		/**
 		 * Returns the input stream used for parsing.
 		 *
-		 * @return the file input stream
+		 * @return the file input stream, or null when parsing from a source
 		 */
 		public FileInputStream getFileInputStream() {
 			return fis;
 		}
 
+		/**
+		 * Returns the random-access source used for parsing.
+		 * <p>
+		 * When the parser was created from a file input stream, its file is mapped into memory on first use.
+		 *
+		 * @return the parser source
+		 * @throws IOException if the input file cannot be mapped
+		 */
+		public ByteSource getSource() throws IOException {
+			if (source == null) {
+				source = ByteSource.map(fis.getChannel());
+			}
+
+			return source;
+		}
+
 		/**
 		 * Returns the charset used for ELF string tables.
 		 *
@@ -281,6 +319,115 @@ public class ElfFile {
 			return this;
 		}
 
+		/**
+		 * Enables or disables lazy section instantiation.
+		 * <p>
+		 * When enabled, only the section header string table is parsed up front. Other sections, along with the
+		 * sections they depend on through {@code sh_link} and {@code sh_info}, are parsed and named on first
+		 * access through the section table.
+		 *
+		 * @param lazy true to instantiate sections on demand
+		 * @return this parser
+		 */
+		public Parser setLazy(boolean lazy) {
+			this.lazy = lazy;
+			return this;
+		}
+
+		/**
+		 * Enables or disables parallel section decoding.
+		 * <p>
+		 * When enabled, all section headers are read up front and sections are decoded concurrently, each one as
+		 * soon as the sections it depends on through {@code sh_link} and {@code sh_info} are. Lazy section
+		 * instantiation takes precedence over this setting.
+		 *
+		 * @param parallel true to decode sections concurrently
+		 * @return this parser
+		 */
+		public Parser setParallel(boolean parallel) {
+			this.parallel = parallel;
+			return this;
+		}
+
+		/**
+		 * Returns whether sections are decoded concurrently.
+		 *
+		 * @return true if parallel section decoding is enabled
+		 */
+		public boolean isParallel() {
+			return parallel;
+		}
+
+		/**
+		 * Registers a custom factory for a section type.
+		 * <p>
+		 * The factory takes precedence over the one of the matching {@link ElfSectionType}, and may also handle
+		 * section types unknown to this library.
+		 *
+		 * @param type the section type value
+		 * @param factory the factory parsing sections of this type
+		 * @return this parser
+		 */
+		public Parser setSectionFactory(int type, ElfSectionFactory factory) {
+			Objects.requireNonNull(factory);
+
+			sectionFactories.put(type, factory);
+			return this;
+		}
+
+		// Section types are resolved once, on their first occurrence.
+		ElfSectionFactory getSectionFactory(int type, ElfMachine machine) {
+			return sectionFactories.computeIfAbsent(
+					type, key -> ElfSectionType.valueFrom(key, machine).getSectionFactory());
+		}
+
+		/**
+		 * Enables or disables zero-copy section contents.
+		 * <p>
+		 * When enabled, section contents are exposed as read-only views over the parser source and are only
+		 * copied onto the heap when their bytes are requested as an array.
+		 *
+		 * @param zeroCopy true to keep section contents as views over the source
+		 * @return this parser
+		 */
+		public Parser setZeroCopy(boolean zeroCopy) {
+			this.zeroCopy = zeroCopy;
+			return this;
+		}
+
+		/**
+		 * Returns whether section contents are kept as views over the parser source.
+		 *
+		 * @return true if zero-copy section contents are enabled
+		 */
+		public boolean isZeroCopy() {
+			return zeroCopy;
+		}
+
+		/**
+		 * Enables or disables columnar symbol table storage.
+		 * <p>
+		 * When enabled, symbol tables keep their entries in parallel primitive arrays instead of one object per
+		 * symbol. Symbols are handed out as lightweight views created on access and their names are only decoded
+		 * from the string table when requested.
+		 *
+		 * @param columnarSymbols true to store symbol tables in columnar form
+		 * @return this parser
+		 */
+		public Parser setColumnarSymbols(boolean columnarSymbols) {
+			this.columnarSymbols = columnarSymbols;
+			return this;
+		}
+
+		/**
+		 * Returns whether symbol tables are stored in columnar form.
+		 *
+		 * @return true if columnar symbol table storage is enabled
+		 */
+		public boolean isColumnarSymbols() {
+			return columnarSymbols;
+		}
+
 		/**
 		 * Parses and returns an ELF file from the configured input stream.
 		 *
@@ -310,16 +457,28 @@ public class ElfFile {
 	protected ElfFile(Parser parser) throws IOException {
 		this.header = new ElfHeader(this, parser);
 
-		if (parser.e_shnum > 0) {
+		if (parser.e_shnum > 0 && parser.lazy) {
+			this.sections = new ElfSectionTable(this, parser);
+
+			if (parser.e_shstrndx != ElfSection.SHN_UNDEF) {
+				ElfStringTable shstr = (ElfStringTable) this.sections.get(parser.e_shstrndx, parser);
+				this.header.setShStr(shstr);
+				shstr.setName(shstr.get(parser.sh_names.get(parser.e_shstrndx)));
+			}
+		} else if (parser.e_shnum > 0) {
 			this.sections = new ElfSectionTable(this, parser);
 
 			// Ensure all sections are instanciated.
-			for (short idx = 0; idx < parser.e_shnum; idx++) {
-				try {
-					this.sections.get(idx, parser);
-				} catch (Exception ex) {
-					if (!parser.ignoreSectionErrors) {
-						throw ex;
+			if (parser.parallel) {
+				this.sections.parseParallel(parser);
+			} else {
+				for (short idx = 0; idx < parser.e_shnum; idx++) {
+					try {
+						this.sections.get(idx, parser);
+					} catch (Exception ex) {
+						if (!parser.ignoreSectionErrors) {
+							throw ex;
+						}
 					}
 				}
 			}
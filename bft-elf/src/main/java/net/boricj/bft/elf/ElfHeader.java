@@ -15,7 +15,6 @@ package net.boricj.bft.elf;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -95,9 +94,9 @@ public class ElfHeader implements Writable {
 	protected ElfHeader(ElfFile elf, ElfFile.Parser parser) throws IOException {
 		this.elf = elf;
 
-		FileInputStream fis = parser.getFileInputStream();
+		InputStream inputStream = parser.getSource().openStream(0);
 		byte[] magic = new byte[4];
-		if (fis.read(magic) != magic.length) {
+		if (inputStream.read(magic) != magic.length) {
 			throw new RuntimeException();
 		}
 		if (!Arrays.equals(magic, MAGIC)) {
@@ -105,7 +104,7 @@ public class ElfHeader implements Writable {
 		}
 
 		byte[] ident = new byte[12];
-		if (fis.read(ident) != ident.length) {
+		if (inputStream.read(ident) != ident.length) {
 			throw new RuntimeException();
 		}
 
@@ -115,7 +114,7 @@ public class ElfHeader implements Writable {
 		this.ident_osAbi = ElfOsAbi.valueFrom(ident[3]);
 		this.ident_abiVersion = ident[4];
 
-		DataInput dataInput = wrap(fis);
+		DataInput dataInput = wrap(inputStream);
 		this.e_type = ElfType.valueFrom(dataInput.readShort());
 		this.e_machine = ElfMachine.valueFrom(dataInput.readShort());
 		this.e_version = dataInput.readInt();
@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.elf;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.elf.constants.ElfClass;
+import net.boricj.bft.elf.constants.ElfData;
+import net.boricj.bft.elf.constants.ElfMachine;
+import net.boricj.bft.elf.constants.ElfSectionType;
+import net.boricj.bft.elf.constants.ElfType;
+
+/**
+ * Summary of an ELF file, read from its headers only.
+ * <p>
+ * Probing reads the ELF header and optionally the section header table, without instantiating sections or
+ * touching their contents. Machine and type values are kept raw, so that files for machines unknown to this
+ * library can still be classified.
+ */
+public final class ElfProbe {
+	private static final int SHT_SYMTAB = ElfSectionType.SHT_SYMTAB.getValue();
+
+	private final ElfClass identClass;
+	private final ElfData identData;
+	private final short type;
+	private final short machine;
+	private final long entry;
+	private final int sectionCount;
+	private final long symbolCount;
+
+	private ElfProbe(
+			ElfClass identClass,
+			ElfData identData,
+			short type,
+			short machine,
+			long entry,
+			int sectionCount,
+			long symbolCount) {
+		this.identClass = identClass;
+		this.identData = identData;
+		this.type = type;
+		this.machine = machine;
+		this.entry = entry;
+		this.sectionCount = sectionCount;
+		this.symbolCount = symbolCount;
+	}
+
+	/**
+	 * Probes an ELF file, including its section header table.
+	 *
+	 * @param source the source holding an ELF file at offset 0
+	 * @return the summary of the file
+	 * @throws IllegalArgumentException if the source doesn't hold an ELF file
+	 * @throws IndexOutOfBoundsException if the headers lie outside of the source
+	 */
+	public static ElfProbe probe(ByteSource source) {
+		return probe(source, true);
+	}
+
+	/**
+	 * Probes an ELF file.
+	 *
+	 * @param source the source holding an ELF file at offset 0
+	 * @param readSectionHeaders true to also read the section header table, which is needed to count symbols
+	 * @return the summary of the file
+	 * @throws IllegalArgumentException if the source doesn't hold an ELF file
+	 * @throws IndexOutOfBoundsException if the headers lie outside of the source
+	 */
+	public static ElfProbe probe(ByteSource source, boolean readSectionHeaders) {
+		Objects.requireNonNull(source);
+
+		ElfRawHeaders headers = ElfRawHeaders.read(source);
+		int sectionCount = headers.getSectionCount();
+
+		long symbolCount = -1;
+		if (readSectionHeaders) {
+			symbolCount = 0;
+			for (int index = 0; index < sectionCount; index++) {
+				if (headers.getSectionType(index) != SHT_SYMTAB) {
+					continue;
+				}
+
+				long entsize = headers.getSectionEntSize(index);
+				if (entsize > 0) {
+					symbolCount += Long.divideUnsigned(headers.getSectionSize(index), entsize);
+				}
+			}
+		}
+
+		return new ElfProbe(
+				headers.getIdentClass(),
+				headers.getIdentData(),
+				headers.getType(),
+				headers.getMachine(),
+				headers.getEntry(),
+				sectionCount,
+				symbolCount);
+	}
+
+	/**
+	 * Checks whether a source starts with the ELF magic bytes.
+	 *
+	 * @param source the source to check
+	 * @return true if the source starts like an ELF file
+	 */
+	public static boolean isElf(ByteSource source) {
+		Objects.requireNonNull(source);
+
+		if (source.length() < 16) {
+			return false;
+		}
+
+		ByteBuffer magic = source.slice(0, ElfHeader.MAGIC.length);
+		return magic.equals(ByteBuffer.wrap(ElfHeader.MAGIC));
+	}
+
+	/**
+	 * Returns the ELF file class (32-bit or 64-bit).
+	 *
+	 * @return the ELF class
+	 */
+	public ElfClass getIdentClass() {
+		return identClass;
+	}
+
+	/**
+	 * Returns the data encoding (endianness).
+	 *
+	 * @return the data encoding
+	 */
+	public ElfData getIdentData() {
+		return identData;
+	}
+
+	/**
+	 * Returns the raw object file type.
+	 *
+	 * @return the e_type value
+	 */
+	public short getTypeValue() {
+		return type;
+	}
+
+	/**
+	 * Returns the object file type.
+	 *
+	 * @return the ELF type
+	 * @throws IllegalArgumentException if the type is unknown
+	 */
+	public ElfType getType() {
+		return ElfType.valueFrom(type);
+	}
+
+	/**
+	 * Returns the raw target machine.
+	 *
+	 * @return the e_machine value
+	 */
+	public short getMachineValue() {
+		return machine;
+	}
+
+	/**
+	 * Returns the target machine.
+	 *
+	 * @return the machine type
+	 * @throws IllegalArgumentException if the machine is unknown
+	 */
+	public ElfMachine getMachine() {
+		return ElfMachine.valueFrom(machine);
+	}
+
+	/**
+	 * Returns the entry point address.
+	 *
+	 * @return the entry point, or 0 if none
+	 */
+	public long getEntry() {
+		return entry;
+	}
+
+	/**
+	 * Returns the number of sections, null section included.
+	 * <p>
+	 * With extended section numbering, the count is read from the null section header.
+	 *
+	 * @return the section count
+	 */
+	public int getSectionCount() {
+		return sectionCount;
+	}
+
+	/**
+	 * Returns the number of entries in the symbol tables ({@code SHT_SYMTAB}), null symbols included.
+	 *
+	 * @return the symbol count, or -1 if the section header table wasn't read
+	 */
+	public long getSymbolCount() {
+		return symbolCount;
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.elf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.elf.constants.ElfClass;
+import net.boricj.bft.elf.constants.ElfData;
+
+/**
+ * ELF header and section header table, decoded straight from a source.
+ * <p>
+ * This is shared by {@link ElfProbe} and {@link ElfSymbolScanner}, which read ELF files without parsing them. The
+ * section header table is only sliced on first access.
+ */
+final class ElfRawHeaders {
+	private final ByteSource source;
+	private final ElfClass identClass;
+	private final ElfData identData;
+	private final ByteOrder order;
+	private final boolean is64;
+	private final ByteBuffer header;
+	private final long shoff;
+	private final int shentsize;
+	private final int shnum;
+
+	private ByteBuffer sectionHeaders;
+
+	private ElfRawHeaders(
+			ByteSource source,
+			ElfClass identClass,
+			ElfData identData,
+			ByteOrder order,
+			ByteBuffer header,
+			long shoff,
+			int shentsize,
+			int shnum) {
+		this.source = source;
+		this.identClass = identClass;
+		this.identData = identData;
+		this.order = order;
+		this.is64 = identClass == ElfClass.ELFCLASS64;
+		this.header = header;
+		this.shoff = shoff;
+		this.shentsize = shentsize;
+		this.shnum = shnum;
+	}
+
+	/**
+	 * Decodes the ELF header of a source, along with the section count.
+	 *
+	 * @param source the source holding an ELF file at offset 0
+	 * @return the decoded headers
+	 * @throws IllegalArgumentException if the source doesn't hold an ELF file
+	 * @throws IndexOutOfBoundsException if the headers lie outside of the source
+	 */
+	static ElfRawHeaders read(ByteSource source) {
+		if (!ElfProbe.isElf(source)) {
+			throw new IllegalArgumentException("not an ELF file");
+		}
+
+		ByteBuffer ident = source.slice(0, 16);
+		ElfClass identClass = ElfClass.valueFrom(ident.get(4));
+		ElfData identData = ElfData.valueFrom(ident.get(5));
+		ByteOrder order;
+		switch (identData) {
+			case ELFDATA2LSB:
+				order = ByteOrder.LITTLE_ENDIAN;
+				break;
+
+			case ELFDATA2MSB:
+				order = ByteOrder.BIG_ENDIAN;
+				break;
+
+			default:
+				throw new IllegalArgumentException(identData.name());
+		}
+
+		boolean is64 = identClass == ElfClass.ELFCLASS64;
+		ByteBuffer header = source.slice(0, is64 ? 64 : 52).order(order);
+		long shoff = is64 ? header.getLong(40) : Integer.toUnsignedLong(header.getInt(32));
+		int shentsize = Short.toUnsignedInt(header.getShort(is64 ? 58 : 46));
+		int shnum = Short.toUnsignedInt(header.getShort(is64 ? 60 : 48));
+		if (shnum == 0 && shoff != 0) {
+			// Extended section numbering, the section count is held by sh_size of the null section.
+			ByteBuffer nullSection = source.slice(shoff, shentsize).order(order);
+			long size = is64 ? nullSection.getLong(32) : Integer.toUnsignedLong(nullSection.getInt(20));
+			if (size > Integer.MAX_VALUE) {
+				throw new IndexOutOfBoundsException("section count out of range: " + size);
+			}
+			shnum = (int) size;
+		}
+
+		return new ElfRawHeaders(source, identClass, identData, order, header, shoff, shentsize, shnum);
+	}
+
+	ElfClass getIdentClass() {
+		return identClass;
+	}
+
+	ElfData getIdentData() {
+		return identData;
+	}
+
+	ByteOrder getOrder() {
+		return order;
+	}
+
+	boolean is64() {
+		return is64;
+	}
+
+	short getType() {
+		return header.getShort(16);
+	}
+
+	short getMachine() {
+		return header.getShort(18);
+	}
+
+	long getEntry() {
+		return is64 ? header.getLong(24) : Integer.toUnsignedLong(header.getInt(24));
+	}
+
+	int getSectionCount() {
+		return shnum;
+	}
+
+	int getSectionType(int index) {
+		return sectionHeaders().getInt(index * shentsize + 4);
+	}
+
+	long getSectionOffset(int index) {
+		int offset = index * shentsize;
+		return is64
+				? sectionHeaders().getLong(offset + 24)
+				: Integer.toUnsignedLong(sectionHeaders().getInt(offset + 16));
+	}
+
+	long getSectionSize(int index) {
+		int offset = index * shentsize;
+		return is64
+				? sectionHeaders().getLong(offset + 32)
+				: Integer.toUnsignedLong(sectionHeaders().getInt(offset + 20));
+	}
+
+	int getSectionLink(int index) {
+		return sectionHeaders().getInt(index * shentsize + (is64 ? 40 : 24));
+	}
+
+	long getSectionEntSize(int index) {
+		int offset = index * shentsize;
+		return is64
+				? sectionHeaders().getLong(offset + 56)
+				: Integer.toUnsignedLong(sectionHeaders().getInt(offset + 36));
+	}
+
+	private ByteBuffer sectionHeaders() {
+		if (sectionHeaders == null) {
+			sectionHeaders = source.slice(shoff, (long) shentsize * shnum).order(order);
+		}
+
+		return sectionHeaders;
+	}
+}
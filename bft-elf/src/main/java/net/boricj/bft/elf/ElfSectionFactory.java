@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.elf;
+
+import java.io.IOException;
+
+/**
+ * Factory parsing a section from its section header.
+ * <p>
+ * Each {@link net.boricj.bft.elf.constants.ElfSectionType} carries the factory for its section class. Custom
+ * factories may be registered on an {@link ElfFile.Parser} to parse section types unknown to this library.
+ */
+@FunctionalInterface
+public interface ElfSectionFactory {
+	/**
+	 * Parses a section.
+	 *
+	 * @param elf the parent ELF file
+	 * @param parser the ELF parser
+	 * @param flags the section flags
+	 * @param addr the virtual address
+	 * @param offset the file offset
+	 * @param size the section size
+	 * @param link the link index
+	 * @param info additional information
+	 * @param addralign the address alignment
+	 * @param entsize the entry size for fixed-size elements
+	 * @return the parsed section
+	 * @throws IOException if parsing fails
+	 */
+	ElfSection create(
+			ElfFile elf,
+			ElfFile.Parser parser,
+			ElfSectionFlags flags,
+			long addr,
+			long offset,
+			long size,
+			int link,
+			int info,
+			long addralign,
+			long entsize)
+			throws IOException;
+}
@@ -15,29 +15,37 @@ package net.boricj.bft.elf;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
 import net.boricj.bft.IndirectList;
 import net.boricj.bft.Writable;
 import net.boricj.bft.elf.constants.ElfClass;
 import net.boricj.bft.elf.constants.ElfMachine;
-import net.boricj.bft.elf.constants.ElfSectionType;
 import net.boricj.bft.elf.sections.ElfNullSection;
 import net.boricj.bft.elf.sections.ElfStringTable;
 
 import static net.boricj.bft.elf.ElfSection.SHN_LORESERVE;
+import static net.boricj.bft.elf.constants.ElfSectionType.SHT_GROUP;
+import static net.boricj.bft.elf.constants.ElfSectionType.SHT_REL;
+import static net.boricj.bft.elf.constants.ElfSectionType.SHT_RELA;
 
 /**
  * ELF section table containing all sections in the file.
@@ -47,6 +55,27 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 	private final ElfFile elf;
 	private final List<ElfSection> table = new ArrayList<>();
 	private final Map<ElfSection, Integer> reverseLookup = new IdentityHashMap<>();
+	private final ElfFile.Parser lazyParser;
+
+	// Guards section instantiation, which reads from the parser source. A lock rather than a monitor, so that
+	// virtual threads decoding sections in parallel aren't pinned while waiting on it.
+	private final ReentrantLock lock = new ReentrantLock();
+	// Errors of sections that failed to parse while errors are ignored, rethrown instead of reading them again.
+	private final Map<Integer, Exception> failures = new HashMap<>();
+	// Sections decoded so far by a parallel parse, published to table once it completes.
+	private AtomicReferenceArray<ElfSection> decoded;
+
+	private final List<ElfSection> elements = new AbstractList<>() {
+		@Override
+		public ElfSection get(int index) {
+			return ElfSectionTable.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return table.size();
+		}
+	};
 
 	/**
 	 * Creates an empty section table.
@@ -55,6 +84,7 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 	 */
 	protected ElfSectionTable(ElfFile elf) {
 		this.elf = elf;
+		this.lazyParser = null;
 	}
 
 	/**
@@ -66,6 +96,7 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 	 */
 	public ElfSectionTable(ElfFile elf, ElfFile.Parser parser) throws IOException {
 		this.elf = elf;
+		this.lazyParser = parser.lazy ? parser : null;
 		this.table.addAll(
 				Stream.generate(() -> (ElfSection) null).limit(parser.e_shnum).toList());
 		parser.sh_names.addAll(Stream.generate(() -> 0).limit(parser.e_shnum).toList());
@@ -94,7 +125,7 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 		ElfClass ident_class = header.getIdentClass();
 		switch (ident_class) {
 			case ELFCLASS32:
-				for (ElfSection section : table) {
+				for (ElfSection section : this) {
 					int sh_name = 0;
 					if (shstr != null) {
 						sh_name = shstr.find(section.getName());
@@ -114,7 +145,7 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 				break;
 
 			case ELFCLASS64:
-				for (ElfSection section : table) {
+				for (ElfSection section : this) {
 					int sh_name = 0;
 					if (shstr != null) {
 						sh_name = shstr.find(section.getName());
@@ -140,6 +171,8 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 
 	/**
 	 * Gets a section by index, parsing it from the file if not already loaded.
+	 * <p>
+	 * When the parser is lazy, the section is also named from the section header string table.
 	 *
 	 * @param index section index
 	 * @param parser ELF file parser
@@ -147,74 +180,255 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public ElfSection get(int index, ElfFile.Parser parser) throws IOException {
-		ElfSection section = get(index);
+		lock.lock();
+		try {
+			ElfSection section = table.get(index);
+			if (section == null && decoded != null) {
+				section = decoded.get(index);
+			}
 
-		if (section == null) {
-			FileInputStream fis = parser.getFileInputStream();
-			ElfHeader header = elf.getHeader();
-			long e_shoff = header.getShoff();
-			long e_shentsize = header.getShentsize();
+			if (section == null) {
+				rethrowFailure(index);
 
-			fis.getChannel().position(e_shoff + e_shentsize * index);
-			DataInput dataInput = elf.wrap(fis);
+				try {
+					SectionHeader sectionHeader = readSectionHeader(index, parser);
+					parser.sh_names.set(index, sectionHeader.sh_name());
+					section = instanciateSection(parser, sectionHeader);
+				} catch (IOException | RuntimeException ex) {
+					if (parser.ignoreSectionErrors) {
+						failures.put(index, ex);
+					}
+					throw ex;
+				}
+
+				reverseLookup.put(section, index);
+				table.set(index, section);
+
+				ElfStringTable shstr = elf.getHeader().getShstr();
+				if (parser.lazy && shstr != null) {
+					section.setName(shstr.get(parser.sh_names.get(index)));
+				}
+			}
+
+			return section;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Parses all sections concurrently.
+	 * <p>
+	 * Section headers are read first to build the dependency graph between sections: symbol tables depend on
+	 * their string table, relocation tables on their symbol table and target section, and section groups on all
+	 * other sections. Each section is then decoded on its own virtual thread once its dependencies are, using
+	 * positional reads from the parser source.
+	 *
+	 * @param parser ELF file parser
+	 * @throws IOException if an I/O error occurs
+	 * @throws IllegalStateException if sections depend on each other circularly
+	 */
+	void parseParallel(ElfFile.Parser parser) throws IOException {
+		int count = table.size();
+		SectionHeader[] sectionHeaders = new SectionHeader[count];
+		for (int index = 0; index < count; index++) {
+			sectionHeaders[index] = readSectionHeader(index, parser);
+			parser.sh_names.set(index, sectionHeaders[index].sh_name());
+		}
+
+		List<List<Integer>> dependencies = new ArrayList<>(count);
+		for (int index = 0; index < count; index++) {
+			dependencies.add(getDependencies(index, sectionHeaders));
+		}
+
+		decoded = new AtomicReferenceArray<>(count);
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			boolean[] visiting = new boolean[count];
+			for (int index = 0; index < count; index++) {
+				schedule(index, sectionHeaders, dependencies, futures, visiting, executor, parser);
+			}
 
-			ElfClass ident_class = header.getIdentClass();
-			switch (ident_class) {
-				case ELFCLASS32:
-					section = instanciateSection32bits(index, dataInput, parser);
-					break;
+			// Dependent sections are only submitted once their dependencies are done.
+			CompletableFuture.allOf(futures).handle((result, ex) -> null).join();
+		}
 
-				case ELFCLASS64:
-					section = instanciateSection64bits(index, dataInput, parser);
-					break;
+		for (int index = 0; index < count; index++) {
+			try {
+				futures[index].join();
+			} catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof UncheckedIOException ioException) {
+					throw ioException.getCause();
+				} else if (cause instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				} else if (cause instanceof Error error) {
+					throw error;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
 
-				default:
-					throw new RuntimeException(ident_class.name());
+		// All decoding threads are done, publish their sections.
+		lock.lock();
+		try {
+			for (int index = 0; index < count; index++) {
+				ElfSection section = decoded.get(index);
+				if (section != null) {
+					table.set(index, section);
+					reverseLookup.put(section, index);
+				}
 			}
+			decoded = null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private CompletableFuture<?> schedule(
+			int index,
+			SectionHeader[] sectionHeaders,
+			List<List<Integer>> dependencies,
+			CompletableFuture<?>[] futures,
+			boolean[] visiting,
+			ExecutorService executor,
+			ElfFile.Parser parser) {
+		if (futures[index] != null) {
+			return futures[index];
+		}
+		if (visiting[index]) {
+			throw new IllegalStateException("circular dependency involving section " + index);
+		}
 
-			reverseLookup.put(section, index);
-			table.set(index, section);
+		visiting[index] = true;
+		List<Integer> sectionDependencies = dependencies.get(index);
+		CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[sectionDependencies.size()];
+		for (int i = 0; i < dependencyFutures.length; i++) {
+			dependencyFutures[i] = schedule(
+					sectionDependencies.get(i), sectionHeaders, dependencies, futures, visiting, executor, parser);
 		}
+		visiting[index] = false;
 
-		return section;
+		futures[index] = CompletableFuture.allOf(dependencyFutures)
+				.thenRunAsync(() -> decode(index, sectionHeaders[index], parser), executor);
+		return futures[index];
 	}
 
-	private ElfSection instanciateSection32bits(int index, DataInput dataInput, ElfFile.Parser parser)
-			throws IOException {
-		int sh_name = dataInput.readInt();
-		int sh_type = dataInput.readInt();
-		int sh_flags = dataInput.readInt();
-		int sh_addr = dataInput.readInt();
-		int sh_offset = dataInput.readInt();
-		int sh_size = dataInput.readInt();
-		int sh_link = dataInput.readInt();
-		int sh_info = dataInput.readInt();
-		int sh_addralign = dataInput.readInt();
-		int sh_entsize = dataInput.readInt();
-
-		parser.sh_names.set(index, sh_name);
+	private List<Integer> getDependencies(int index, SectionHeader[] sectionHeaders) {
+		SectionHeader sectionHeader = sectionHeaders[index];
+		int sh_type = sectionHeader.sh_type();
 
-		return instanciateSection(
-				parser, sh_type, sh_flags, sh_addr, sh_offset, sh_size, sh_link, sh_info, sh_addralign, sh_entsize);
+		List<Integer> dependencies = new ArrayList<>();
+		if (sh_type == SHT_GROUP.getValue()) {
+			// Group members are only known once the group is decoded.
+			for (int other = 1; other < sectionHeaders.length; other++) {
+				if (sectionHeaders[other].sh_type() != SHT_GROUP.getValue()) {
+					dependencies.add(other);
+				}
+			}
+			return dependencies;
+		}
+
+		if (isSectionIndex(sectionHeader.sh_link(), index)) {
+			dependencies.add(sectionHeader.sh_link());
+		}
+		if ((sh_type == SHT_REL.getValue() || sh_type == SHT_RELA.getValue())
+				&& isSectionIndex(sectionHeader.sh_info(), index)) {
+			dependencies.add(sectionHeader.sh_info());
+		}
+		return dependencies;
 	}
 
-	private ElfSection instanciateSection64bits(int index, DataInput dataInput, ElfFile.Parser parser)
-			throws IOException {
-		int sh_name = dataInput.readInt();
-		int sh_type = dataInput.readInt();
-		long sh_flags = dataInput.readLong();
-		long sh_addr = dataInput.readLong();
-		long sh_offset = dataInput.readLong();
-		long sh_size = dataInput.readLong();
-		int sh_link = dataInput.readInt();
-		int sh_info = dataInput.readInt();
-		long sh_addralign = dataInput.readLong();
-		long sh_entsize = dataInput.readLong();
-
-		parser.sh_names.set(index, sh_name);
+	private boolean isSectionIndex(int value, int index) {
+		return value > 0 && value < table.size() && value != index;
+	}
+
+	private void decode(int index, SectionHeader sectionHeader, ElfFile.Parser parser) {
+		try {
+			decoded.set(index, instanciateSection(parser, sectionHeader));
+		} catch (IOException ex) {
+			if (!parser.ignoreSectionErrors) {
+				throw new UncheckedIOException(ex);
+			}
+			recordFailure(index, ex);
+		} catch (RuntimeException ex) {
+			if (!parser.ignoreSectionErrors) {
+				throw ex;
+			}
+			recordFailure(index, ex);
+		}
+	}
 
+	private void recordFailure(int index, Exception ex) {
+		lock.lock();
+		try {
+			failures.put(index, ex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void rethrowFailure(int index) throws IOException {
+		Exception failure = failures.get(index);
+		if (failure instanceof IOException ioException) {
+			throw ioException;
+		} else if (failure instanceof RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+	}
+
+	private SectionHeader readSectionHeader(int index, ElfFile.Parser parser) throws IOException {
+		ElfHeader header = elf.getHeader();
+		long e_shoff = header.getShoff();
+		long e_shentsize = header.getShentsize();
+
+		DataInput dataInput = elf.wrap(parser.getSource().openStream(e_shoff + e_shentsize * index, e_shentsize));
+
+		ElfClass ident_class = header.getIdentClass();
+		switch (ident_class) {
+			case ELFCLASS32:
+				return new SectionHeader(
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readInt());
+
+			case ELFCLASS64:
+				return new SectionHeader(
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readLong(),
+						dataInput.readLong(),
+						dataInput.readLong(),
+						dataInput.readLong(),
+						dataInput.readInt(),
+						dataInput.readInt(),
+						dataInput.readLong(),
+						dataInput.readLong());
+
+			default:
+				throw new RuntimeException(ident_class.name());
+		}
+	}
+
+	private ElfSection instanciateSection(ElfFile.Parser parser, SectionHeader sectionHeader) throws IOException {
 		return instanciateSection(
-				parser, sh_type, sh_flags, sh_addr, sh_offset, sh_size, sh_link, sh_info, sh_addralign, sh_entsize);
+				parser,
+				sectionHeader.sh_type(),
+				sectionHeader.sh_flags(),
+				sectionHeader.sh_addr(),
+				sectionHeader.sh_offset(),
+				sectionHeader.sh_size(),
+				sectionHeader.sh_link(),
+				sectionHeader.sh_info(),
+				sectionHeader.sh_addralign(),
+				sectionHeader.sh_entsize());
 	}
 
 	private ElfSection instanciateSection(
@@ -230,47 +444,11 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 			long sh_entsize)
 			throws IOException {
 		ElfMachine machine = elf.getHeader().getMachine();
-		ElfSectionType type = ElfSectionType.valueFrom(sh_type, machine);
-		ElfSectionFlags flags;
-
-		try {
-			Constructor<? extends ElfSectionFlags> constructor;
-			constructor = machine.getSectionFlagsClass().getConstructor(Long.TYPE);
-			flags = constructor.newInstance(sh_flags);
-		} catch (NoSuchMethodException
-				| SecurityException
-				| InstantiationException
-				| IllegalAccessException
-				| IllegalArgumentException
-				| InvocationTargetException ex) {
-			throw new RuntimeException(ex);
-		}
+		ElfSectionFactory factory = parser.getSectionFactory(sh_type, machine);
+		ElfSectionFlags flags = machine.getSectionFlagsDecoder().apply(sh_flags);
 
-		try {
-			Constructor<? extends ElfSection> constructor;
-			constructor = type.getSectionClass()
-					.getConstructor(
-							ElfFile.class,
-							ElfFile.Parser.class,
-							ElfSectionFlags.class,
-							Long.TYPE,
-							Long.TYPE,
-							Long.TYPE,
-							Integer.TYPE,
-							Integer.TYPE,
-							Long.TYPE,
-							Long.TYPE);
-			return constructor.newInstance(
-					elf, parser, flags, sh_addr, sh_offset, sh_size, sh_link, sh_info, sh_addralign, sh_entsize);
-		} catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException ex) {
-			throw new RuntimeException(ex);
-		} catch (InstantiationException | InvocationTargetException ex) {
-			Throwable cause = ex.getCause();
-			if (cause instanceof RuntimeException) {
-				throw (RuntimeException) cause;
-			}
-			throw new RuntimeException(cause);
-		}
+		return factory.create(
+				elf, parser, flags, sh_addr, sh_offset, sh_size, sh_link, sh_info, sh_addralign, sh_entsize);
 	}
 
 	@Override
@@ -294,9 +472,31 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 		return table.add(section);
 	}
 
+	/**
+	 * Gets a section by index.
+	 * <p>
+	 * Sections of a lazily parsed ELF file are parsed on first access.
+	 *
+	 * @param index section index
+	 * @return the section at the given index
+	 * @throws UncheckedIOException if the section could not be read
+	 */
 	@Override
 	public ElfSection get(int index) {
-		return table.get(index);
+		if (lazyParser == null) {
+			return table.get(index);
+		}
+
+		try {
+			return get(index, lazyParser);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (RuntimeException ex) {
+			if (!lazyParser.ignoreSectionErrors) {
+				throw ex;
+			}
+			return null;
+		}
 	}
 
 	@Override
@@ -311,6 +511,10 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 
 	@Override
 	public List<ElfSection> getElements() {
+		if (lazyParser != null) {
+			return elements;
+		}
+
 		return Collections.unmodifiableList(table);
 	}
 
@@ -318,4 +522,16 @@ public class ElfSectionTable implements IndirectList<ElfSection>, Writable {
 	public String toString() {
 		return getClass().getSimpleName();
 	}
+
+	private record SectionHeader(
+			int sh_name,
+			int sh_type,
+			long sh_flags,
+			long sh_addr,
+			long sh_offset,
+			long sh_size,
+			int sh_link,
+			int sh_info,
+			long sh_addralign,
+			long sh_entsize) {}
 }
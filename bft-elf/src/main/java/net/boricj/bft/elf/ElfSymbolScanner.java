@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.elf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.StringPool;
+import net.boricj.bft.elf.constants.ElfSectionType;
+import net.boricj.bft.elf.sections.ElfStringTable;
+
+/**
+ * Streams the symbol tables of an ELF file to an {@link ElfSymbolVisitor}, without parsing the file.
+ * <p>
+ * Only the headers and the symbol table entries are read, straight from the source. No symbol or section objects
+ * are created, so memory use doesn't grow with the number of symbols. The string table of a symbol table is only
+ * loaded once a name is requested through {@link #getName(int)} while its entries are visited.
+ * <p>
+ * Scanners aren't thread-safe.
+ */
+public final class ElfSymbolScanner {
+	private static final int SHT_SYMTAB = ElfSectionType.SHT_SYMTAB.getValue();
+
+	private final ByteSource source;
+	private final Charset charset;
+	private final ElfRawHeaders headers;
+
+	private int stringTableIndex = -1;
+	private StringPool names;
+
+	/**
+	 * Creates a scanner over an ELF file, decoding names with the default charset.
+	 *
+	 * @param source the source holding an ELF file at offset 0
+	 * @throws IllegalArgumentException if the source doesn't hold an ELF file
+	 */
+	public ElfSymbolScanner(ByteSource source) {
+		this(source, ElfStringTable.DEFAULT_CHARSET);
+	}
+
+	/**
+	 * Creates a scanner over an ELF file.
+	 *
+	 * @param source the source holding an ELF file at offset 0
+	 * @param charset the charset of the symbol names
+	 * @throws IllegalArgumentException if the source doesn't hold an ELF file
+	 */
+	public ElfSymbolScanner(ByteSource source, Charset charset) {
+		Objects.requireNonNull(source);
+		Objects.requireNonNull(charset);
+
+		this.source = source;
+		this.charset = charset;
+		this.headers = ElfRawHeaders.read(source);
+	}
+
+	/**
+	 * Visits the entries of every symbol table of the file, in file order.
+	 *
+	 * @param visitor the visitor receiving the entries
+	 * @throws IndexOutOfBoundsException if a symbol table lies outside of the source
+	 */
+	public void scan(ElfSymbolVisitor visitor) {
+		Objects.requireNonNull(visitor);
+
+		boolean is64 = headers.is64();
+		int sectionCount = headers.getSectionCount();
+		for (int sectionIndex = 0; sectionIndex < sectionCount; sectionIndex++) {
+			if (headers.getSectionType(sectionIndex) != SHT_SYMTAB) {
+				continue;
+			}
+
+			long offset = headers.getSectionOffset(sectionIndex);
+			long size = headers.getSectionSize(sectionIndex);
+			int link = headers.getSectionLink(sectionIndex);
+			long entsize = headers.getSectionEntSize(sectionIndex);
+			if (entsize <= 0) {
+				continue;
+			}
+
+			int count = (int) (size / entsize);
+			if (!visitor.visitSymbolTable(sectionIndex, count)) {
+				continue;
+			}
+
+			if (link != stringTableIndex) {
+				stringTableIndex = link;
+				names = null;
+			}
+
+			ByteBuffer entries = source.slice(offset, size).order(headers.getOrder());
+			for (int index = 0; index < count; index++) {
+				int entry = (int) (index * entsize);
+				if (is64) {
+					visitor.visitSymbol(
+							index,
+							entries.getInt(entry),
+							entries.getLong(entry + 8),
+							entries.getLong(entry + 16),
+							entries.get(entry + 4),
+							entries.get(entry + 5),
+							entries.getShort(entry + 6));
+				} else {
+					// Same widening as ElfSymbolTable, for values that match parsed symbols.
+					visitor.visitSymbol(
+							index,
+							entries.getInt(entry),
+							entries.getInt(entry + 4),
+							entries.getInt(entry + 8),
+							entries.get(entry + 12),
+							entries.get(entry + 13),
+							entries.getShort(entry + 14));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes a symbol name from the string table of the symbol table last visited.
+	 * <p>
+	 * The string table is loaded on first use and decoded names are cached, like in {@link ElfStringTable}.
+	 *
+	 * @param st_name offset of the symbol name within the string table
+	 * @return the symbol name
+	 * @throws IllegalStateException if no symbol table was visited yet
+	 * @throws IndexOutOfBoundsException if the offset lies outside of the string table
+	 */
+	public String getName(int st_name) {
+		if (stringTableIndex < 0) {
+			throw new IllegalStateException("no symbol table visited");
+		}
+
+		if (names == null) {
+			long offset = headers.getSectionOffset(stringTableIndex);
+			long size = headers.getSectionSize(stringTableIndex);
+
+			StringPool pool = new StringPool(charset, 0);
+			pool.load(source.read(offset, (int) size));
+			names = pool;
+		}
+
+		return names.get(st_name);
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.elf;
+
+/**
+ * Receiver of the raw symbol table entries streamed by an {@link ElfSymbolScanner}.
+ * <p>
+ * Entries are handed over as primitive fields, exactly as stored in the file. Names are decoded on demand with
+ * {@link ElfSymbolScanner#getName(int)}.
+ */
+@FunctionalInterface
+public interface ElfSymbolVisitor {
+	/**
+	 * Called before the entries of a symbol table are visited.
+	 *
+	 * @param sectionIndex index of the symbol table section
+	 * @param count number of entries, null symbol included
+	 * @return true to visit the entries of this symbol table, false to skip it
+	 */
+	default boolean visitSymbolTable(int sectionIndex, int count) {
+		return true;
+	}
+
+	/**
+	 * Called for each symbol table entry, in file order.
+	 *
+	 * @param index index of the entry within its symbol table
+	 * @param st_name offset of the symbol name within the associated string table
+	 * @param st_value symbol value
+	 * @param st_size symbol size
+	 * @param st_info symbol type and binding
+	 * @param st_other symbol visibility
+	 * @param st_shndx index of the section the symbol is defined in
+	 */
+	void visitSymbol(int index, int st_name, long st_value, long st_size, byte st_info, byte st_other, short st_shndx);
+}
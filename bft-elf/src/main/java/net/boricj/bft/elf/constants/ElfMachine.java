@@ -13,6 +13,9 @@
  */
 package net.boricj.bft.elf.constants;
 
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+
 import net.boricj.bft.elf.ElfSectionFlags;
 import net.boricj.bft.elf.machines.amd64.ElfRelocationType_amd64;
 import net.boricj.bft.elf.machines.i386.ElfRelocationType_i386;
@@ -24,29 +27,53 @@ import net.boricj.bft.elf.machines.mips.ElfSectionFlags_Mips;
  */
 public enum ElfMachine {
 	/** No machine. */
-	EM_NONE((short) 0, "None", ElfSectionFlags.class, null),
+	EM_NONE((short) 0, "None", ElfSectionFlags.class, ElfSectionFlags::new, null, null),
 	/** Intel 80386. */
-	EM_386((short) 3, "Intel 80386", ElfSectionFlags.class, ElfRelocationType_i386.class),
+	EM_386(
+			(short) 3,
+			"Intel 80386",
+			ElfSectionFlags.class,
+			ElfSectionFlags::new,
+			ElfRelocationType_i386.class,
+			ElfRelocationType_i386::valueFrom),
 	/** MIPS R3000. */
-	EM_MIPS((short) 8, "MIPS R3000", ElfSectionFlags_Mips.class, ElfRelocationType_Mips.class),
+	EM_MIPS(
+			(short) 8,
+			"MIPS R3000",
+			ElfSectionFlags_Mips.class,
+			ElfSectionFlags_Mips::new,
+			ElfRelocationType_Mips.class,
+			ElfRelocationType_Mips::valueFrom),
 	/** AMD x86-64. */
-	EM_X86_64((short) 62, "Advanced Micro Devices X86-64", ElfSectionFlags.class, ElfRelocationType_amd64.class),
+	EM_X86_64(
+			(short) 62,
+			"Advanced Micro Devices X86-64",
+			ElfSectionFlags.class,
+			ElfSectionFlags::new,
+			ElfRelocationType_amd64.class,
+			ElfRelocationType_amd64::valueFrom),
 	;
 
 	private final short value;
 	private final String name;
 	private final Class<? extends ElfSectionFlags> sectionFlags;
+	private final LongFunction<? extends ElfSectionFlags> sectionFlagsDecoder;
 	private final Class<? extends ElfRelocationType> relocationType;
+	private final IntFunction<? extends ElfRelocationType> relocationTypeDecoder;
 
 	ElfMachine(
 			short value,
 			String name,
 			Class<? extends ElfSectionFlags> sectionFlags,
-			Class<? extends ElfRelocationType> relocationType) {
+			LongFunction<? extends ElfSectionFlags> sectionFlagsDecoder,
+			Class<? extends ElfRelocationType> relocationType,
+			IntFunction<? extends ElfRelocationType> relocationTypeDecoder) {
 		this.value = value;
 		this.name = name;
 		this.sectionFlags = sectionFlags;
+		this.sectionFlagsDecoder = sectionFlagsDecoder;
 		this.relocationType = relocationType;
+		this.relocationTypeDecoder = relocationTypeDecoder;
 	}
 
 	/**
@@ -76,6 +103,15 @@ public enum ElfMachine {
 		return sectionFlags;
 	}
 
+	/**
+	 * Returns the section flags decoder for this machine type.
+	 *
+	 * @return the section flags decoder
+	 */
+	public LongFunction<? extends ElfSectionFlags> getSectionFlagsDecoder() {
+		return sectionFlagsDecoder;
+	}
+
 	/**
 	 * Returns the relocation type class for this machine type.
 	 *
@@ -85,6 +121,23 @@ public enum ElfMachine {
 		return relocationType;
 	}
 
+	/**
+	 * Returns the relocation type decoder for this machine type.
+	 * <p>
+	 * The decoder resolves a relocation type value through a lookup table and throws
+	 * {@link IllegalArgumentException} for unknown values.
+	 *
+	 * @return the relocation type decoder
+	 * @throws IllegalStateException if relocations are not supported for this machine type
+	 */
+	public IntFunction<? extends ElfRelocationType> getRelocationTypeDecoder() {
+		if (relocationTypeDecoder == null) {
+			throw new IllegalStateException("relocations not supported for " + name());
+		}
+
+		return relocationTypeDecoder;
+	}
+
 	/**
 	 * Returns the machine type constant for the given short value.
 	 *
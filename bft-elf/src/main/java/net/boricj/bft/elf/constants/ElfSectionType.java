@@ -14,6 +14,7 @@
 package net.boricj.bft.elf.constants;
 
 import net.boricj.bft.elf.ElfSection;
+import net.boricj.bft.elf.ElfSectionFactory;
 import net.boricj.bft.elf.machines.mips.ElfAbiFlags_Mips;
 import net.boricj.bft.elf.machines.mips.ElfRegInfo_Mips;
 import net.boricj.bft.elf.sections.ElfGroup;
@@ -30,36 +31,39 @@ import net.boricj.bft.elf.sections.ElfSymbolTable;
  */
 public enum ElfSectionType {
 	/** Inactive section with no associated content. */
-	SHT_NULL(0, null, ElfNullSection.class),
+	SHT_NULL(0, null, ElfNullSection.class, ElfNullSection::new),
 	/** Section holding program-defined information. */
-	SHT_PROGBITS(1, null, ElfProgBits.class),
+	SHT_PROGBITS(1, null, ElfProgBits.class, ElfProgBits::new),
 	/** Symbol table. */
-	SHT_SYMTAB(2, null, ElfSymbolTable.class),
+	SHT_SYMTAB(2, null, ElfSymbolTable.class, ElfSymbolTable::new),
 	/** String table. */
-	SHT_STRTAB(3, null, ElfStringTable.class),
+	SHT_STRTAB(3, null, ElfStringTable.class, ElfStringTable::new),
 	/** Relocation entries with explicit addends. */
-	SHT_RELA(4, null, ElfRelaTable.class),
+	SHT_RELA(4, null, ElfRelaTable.class, ElfRelaTable::new),
 	/** Section occupying no space in the file. */
-	SHT_NOBITS(8, null, ElfNoBits.class),
+	SHT_NOBITS(8, null, ElfNoBits.class, ElfNoBits::new),
 	/** Relocation entries without explicit addends. */
-	SHT_REL(9, null, ElfRelTable.class),
+	SHT_REL(9, null, ElfRelTable.class, ElfRelTable::new),
 	/** Section group. */
-	SHT_GROUP(17, null, ElfGroup.class),
+	SHT_GROUP(17, null, ElfGroup.class, ElfGroup::new),
 
 	/** MIPS register information. */
-	SHT_MIPS_REGINFO(0x70000006, ElfMachine.EM_MIPS, ElfRegInfo_Mips.class),
+	SHT_MIPS_REGINFO(0x70000006, ElfMachine.EM_MIPS, ElfRegInfo_Mips.class, ElfRegInfo_Mips::new),
 	/** MIPS ABI flags. */
-	SHT_MIPS_ABIFLAGS(0x7000002a, ElfMachine.EM_MIPS, ElfAbiFlags_Mips.class),
+	SHT_MIPS_ABIFLAGS(0x7000002a, ElfMachine.EM_MIPS, ElfAbiFlags_Mips.class, ElfAbiFlags_Mips::new),
 	;
 
 	private final int value;
 	private final ElfMachine machine;
 	private final Class<? extends ElfSection> clazz;
+	private final ElfSectionFactory factory;
 
-	private ElfSectionType(int value, ElfMachine machine, Class<? extends ElfSection> clazz) {
+	private ElfSectionType(
+			int value, ElfMachine machine, Class<? extends ElfSection> clazz, ElfSectionFactory factory) {
 		this.value = value;
 		this.machine = machine;
 		this.clazz = clazz;
+		this.factory = factory;
 	}
 
 	/**
@@ -89,6 +93,15 @@ public enum ElfSectionType {
 		return clazz;
 	}
 
+	/**
+	 * Returns the factory parsing sections of this type.
+	 *
+	 * @return the section factory
+	 */
+	public ElfSectionFactory getSectionFactory() {
+		return factory;
+	}
+
 	/**
 	 * Returns the section type constant for the given value and machine type.
 	 *
@@ -117,6 +117,20 @@ public enum ElfRelocationType_amd64 implements ElfRelocationType {
 	R_X86_64_CODE_6_GOTPC32_TLSDESC(51),
 	;
 
+	private static final ElfRelocationType_amd64[] TYPES;
+
+	static {
+		int length = 0;
+		for (ElfRelocationType_amd64 type : values()) {
+			length = Math.max(length, type.value + 1);
+		}
+
+		TYPES = new ElfRelocationType_amd64[length];
+		for (ElfRelocationType_amd64 type : values()) {
+			TYPES[type.value] = type;
+		}
+	}
+
 	private final int value;
 
 	private ElfRelocationType_amd64(int value) {
@@ -139,12 +153,10 @@ public enum ElfRelocationType_amd64 implements ElfRelocationType {
 	 * @throws IllegalArgumentException if the value is not recognized
 	 */
 	public static ElfRelocationType_amd64 valueFrom(int value) {
-		for (ElfRelocationType_amd64 type : values()) {
-			if (type.getValue() == value) {
-				return type;
-			}
+		if (value < 0 || value >= TYPES.length || TYPES[value] == null) {
+			throw new IllegalArgumentException();
 		}
 
-		throw new IllegalArgumentException();
+		return TYPES[value];
 	}
 }
@@ -107,6 +107,20 @@ public enum ElfRelocationType_i386 implements ElfRelocationType {
 	R_386_GOT32X(43),
 	;
 
+	private static final ElfRelocationType_i386[] TYPES;
+
+	static {
+		int length = 0;
+		for (ElfRelocationType_i386 type : values()) {
+			length = Math.max(length, type.value + 1);
+		}
+
+		TYPES = new ElfRelocationType_i386[length];
+		for (ElfRelocationType_i386 type : values()) {
+			TYPES[type.value] = type;
+		}
+	}
+
 	private final int value;
 
 	private ElfRelocationType_i386(int value) {
@@ -129,12 +143,10 @@ public enum ElfRelocationType_i386 implements ElfRelocationType {
 	 * @throws IllegalArgumentException if the value is not recognized
 	 */
 	public static ElfRelocationType_i386 valueFrom(int value) {
-		for (ElfRelocationType_i386 type : values()) {
-			if (type.getValue() == value) {
-				return type;
-			}
+		if (value < 0 || value >= TYPES.length || TYPES[value] == null) {
+			throw new IllegalArgumentException();
 		}
 
-		throw new IllegalArgumentException();
+		return TYPES[value];
 	}
 }
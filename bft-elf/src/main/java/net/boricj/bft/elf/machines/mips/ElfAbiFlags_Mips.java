@@ -15,7 +15,6 @@ package net.boricj.bft.elf.machines.mips;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -114,10 +113,7 @@ public class ElfAbiFlags_Mips extends ElfSection {
 			throws IOException {
 		super(elf, "", flags, addr, offset, addralign, entsize);
 
-		FileInputStream fis = parser.getFileInputStream();
-
-		fis.getChannel().position(offset);
-		DataInput dataInput = elf.wrap(fis);
+		DataInput dataInput = elf.wrap(parser.getSource().openStream(offset, size));
 
 		setVersion(dataInput.readShort());
 		setIsaLevel(dataInput.readByte());
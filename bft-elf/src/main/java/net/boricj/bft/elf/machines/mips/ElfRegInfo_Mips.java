@@ -15,7 +15,6 @@ package net.boricj.bft.elf.machines.mips;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -106,10 +105,7 @@ public class ElfRegInfo_Mips extends ElfSection {
 			throws IOException {
 		super(elf, "", flags, addr, offset, addralign, entsize);
 
-		FileInputStream fis = parser.getFileInputStream();
-
-		fis.getChannel().position(offset);
-		DataInput dataInput = elf.wrap(fis);
+		DataInput dataInput = elf.wrap(parser.getSource().openStream(offset, size));
 
 		setGprMask(dataInput.readInt());
 		setCprMask(0, dataInput.readInt());
@@ -99,6 +99,20 @@ public enum ElfRelocationType_Mips implements ElfRelocationType {
 	R_MIPS_JALR(37),
 	;
 
+	private static final ElfRelocationType_Mips[] TYPES;
+
+	static {
+		int length = 0;
+		for (ElfRelocationType_Mips type : values()) {
+			length = Math.max(length, type.value + 1);
+		}
+
+		TYPES = new ElfRelocationType_Mips[length];
+		for (ElfRelocationType_Mips type : values()) {
+			TYPES[type.value] = type;
+		}
+	}
+
 	private final int value;
 
 	private ElfRelocationType_Mips(int value) {
@@ -121,12 +135,10 @@ public enum ElfRelocationType_Mips implements ElfRelocationType {
 	 * @throws IllegalArgumentException if the value is not recognized
 	 */
 	public static ElfRelocationType_Mips valueFrom(int value) {
-		for (ElfRelocationType_Mips type : values()) {
-			if (type.getValue() == value) {
-				return type;
-			}
+		if (value < 0 || value >= TYPES.length || TYPES[value] == null) {
+			throw new IllegalArgumentException();
 		}
 
-		throw new IllegalArgumentException();
+		return TYPES[value];
 	}
 }
@@ -15,7 +15,6 @@ package net.boricj.bft.elf.sections;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -70,18 +69,13 @@ public class ElfGroup extends ElfSection implements IndirectList<ElfSection> {
 		super(elf, "", flags, addr, offset, addralign, entsize);
 
 		ElfSectionTable sectionTable = elf.getSections();
-		FileInputStream fis = parser.getFileInputStream();
-
-		DataInput dataInput = elf.wrap(fis);
-
 		this.symbolTable = (ElfSymbolTable) sectionTable.get(link, parser);
 		this.signature = this.symbolTable.get(info);
 
-		fis.getChannel().position(offset);
+		DataInput dataInput = elf.wrap(parser.getSource().openStream(offset, size));
 		this.flags = dataInput.readInt();
 
 		for (int i = 0; i < (size - 4) / entsize; i++) {
-			fis.getChannel().position(offset + 4 * i + 4);
 			int shndx = dataInput.readInt();
 
 			sections.add(sectionTable.get(shndx, parser));
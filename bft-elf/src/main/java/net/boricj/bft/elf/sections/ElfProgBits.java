@@ -13,11 +13,13 @@
  */
 package net.boricj.bft.elf.sections;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
+import net.boricj.bft.ByteContent;
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.elf.ElfFile;
 import net.boricj.bft.elf.ElfSection;
 import net.boricj.bft.elf.ElfSectionFlags;
@@ -28,7 +30,7 @@ import net.boricj.bft.elf.constants.ElfSectionType;
  * Represents sections with initialized data such as code (.text) or data (.data) segments.
  */
 public class ElfProgBits extends ElfSection {
-	private final byte[] bytes;
+	private final ByteContent content;
 
 	/**
 	 * Creates a PROGBITS section with the specified properties.
@@ -81,7 +83,7 @@ public class ElfProgBits extends ElfSection {
 		super(elf, name, flags, addr, offset, addralign, entsize);
 		Objects.requireNonNull(bytes);
 
-		this.bytes = bytes;
+		this.content = ByteContent.of(bytes);
 	}
 
 	/**
@@ -113,21 +115,32 @@ public class ElfProgBits extends ElfSection {
 			throws IOException {
 		super(elf, "", flags, addr, offset, addralign, entsize);
 
-		FileInputStream fis = parser.getFileInputStream();
-
-		this.bytes = new byte[(int) size];
-
-		fis.getChannel().position(offset);
-		fis.readNBytes(bytes, 0, (int) size);
+		ByteSource source = parser.getSource();
+		if (parser.isZeroCopy()) {
+			this.content = ByteContent.view(source.slice(offset, size));
+		} else {
+			this.content = ByteContent.of(source.read(offset, (int) size));
+		}
 	}
 
 	/**
 	 * Returns the raw byte content of this section.
+	 * <p>
+	 * Zero-copy contents are copied onto the heap on the first call.
 	 *
 	 * @return the section bytes
 	 */
 	public byte[] getBytes() {
-		return bytes;
+		return content.getBytes();
+	}
+
+	/**
+	 * Returns a read-only view over the content of this section, without copying it onto the heap.
+	 *
+	 * @return the section content
+	 */
+	public ByteBuffer getBuffer() {
+		return content.getBuffer();
 	}
 
 	@Override
@@ -137,11 +150,11 @@ public class ElfProgBits extends ElfSection {
 
 	@Override
 	public long getLength() {
-		return bytes.length;
+		return content.getLength();
 	}
 
 	@Override
 	public void write(OutputStream outputStream) throws IOException {
-		outputStream.write(bytes);
+		content.write(outputStream);
 	}
 }
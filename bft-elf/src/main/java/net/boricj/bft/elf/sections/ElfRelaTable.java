@@ -15,16 +15,16 @@ package net.boricj.bft.elf.sections;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.IntFunction;
 
 import net.boricj.bft.IndirectList;
+import net.boricj.bft.OffsetIndex;
 import net.boricj.bft.elf.ElfFile;
 import net.boricj.bft.elf.ElfHeader;
 import net.boricj.bft.elf.ElfSection;
@@ -82,6 +82,20 @@ public class ElfRelaTable extends ElfSection implements IndirectList<ElfRela> {
 		 * @throws IOException if parsing fails
 		 */
 		protected ElfRela(DataInput dataInput, ElfClass ident_class, ElfMachine machine) throws IOException {
+			this(dataInput, ident_class, machine.getRelocationTypeDecoder());
+		}
+
+		/**
+		 * Parses a relocation entry from binary data.
+		 *
+		 * @param dataInput the input to read from
+		 * @param ident_class the ELF class (32-bit or 64-bit)
+		 * @param relocationTypes relocation type decoder for the ELF machine type
+		 * @throws IOException if parsing fails
+		 */
+		protected ElfRela(
+				DataInput dataInput, ElfClass ident_class, IntFunction<? extends ElfRelocationType> relocationTypes)
+				throws IOException {
 			long r_info;
 			int symidx;
 			int typeval;
@@ -109,16 +123,7 @@ public class ElfRelaTable extends ElfSection implements IndirectList<ElfRela> {
 
 			this.symbol = symbolTable.get(symidx);
 
-			Class<? extends ElfRelocationType> clazz = machine.getRelocationTypeClass();
-			try {
-				this.type = (ElfRelocationType)
-						clazz.getMethod("valueFrom", Integer.TYPE).invoke(null, typeval);
-			} catch (IllegalAccessException
-					| InvocationTargetException
-					| NoSuchMethodException
-					| SecurityException ex) {
-				throw new RuntimeException(ex);
-			}
+			this.type = relocationTypes.apply(typeval);
 		}
 
 		/**
@@ -188,6 +193,7 @@ public class ElfRelaTable extends ElfSection implements IndirectList<ElfRela> {
 	}
 
 	private final List<ElfRela> relocations = new ArrayList<>();
+	private OffsetIndex<ElfRela> offsetIndex;
 	private final ElfSymbolTable symbolTable;
 	private final ElfSection section;
 
@@ -283,16 +289,19 @@ public class ElfRelaTable extends ElfSection implements IndirectList<ElfRela> {
 		this.symbolTable = (ElfSymbolTable) elf.getSections().get(link, parser);
 		this.section = elf.getSections().get(info, parser);
 
-		FileInputStream fis = parser.getFileInputStream();
 		ElfHeader header = elf.getHeader();
 		ElfClass ident_class = header.getIdentClass();
 		ElfMachine machine = header.getMachine();
 
-		fis.getChannel().position(offset);
-		DataInput dataInput = elf.wrap(fis);
+		DataInput dataInput = elf.wrap(parser.getSource().openStream(offset, size));
 
-		for (int i = 0; i < size / entsize; i++) {
-			relocations.add(new ElfRela(dataInput, ident_class, machine));
+		// Machines without relocation support may still carry empty relocation tables.
+		long count = size / entsize;
+		if (count > 0) {
+			IntFunction<? extends ElfRelocationType> relocationTypes = machine.getRelocationTypeDecoder();
+			for (int i = 0; i < count; i++) {
+				relocations.add(new ElfRela(dataInput, ident_class, relocationTypes));
+			}
 		}
 	}
 
@@ -313,6 +322,21 @@ public class ElfRelaTable extends ElfSection implements IndirectList<ElfRela> {
 		return size() * getEntSize();
 	}
 
+	/**
+	 * Returns an index of the relocations of this table sorted by offset, for range queries.
+	 * <p>
+	 * The index is built on first use and cached until relocations are added to this table.
+	 *
+	 * @return the relocation offset index
+	 */
+	public synchronized OffsetIndex<ElfRela> getOffsetIndex() {
+		if (offsetIndex == null || offsetIndex.size() != relocations.size()) {
+			offsetIndex = OffsetIndex.of(relocations, ElfRela::getOffset);
+		}
+
+		return offsetIndex;
+	}
+
 	@Override
 	public List<ElfRela> getElements() {
 		return Collections.unmodifiableList(relocations);
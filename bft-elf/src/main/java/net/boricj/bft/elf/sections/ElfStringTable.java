@@ -13,21 +13,15 @@
  */
 package net.boricj.bft.elf.sections;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.TreeMap;
 
-import net.boricj.bft.ByteInputStream;
+import net.boricj.bft.StringPool;
 import net.boricj.bft.elf.ElfFile;
 import net.boricj.bft.elf.ElfSection;
 import net.boricj.bft.elf.ElfSectionFlags;
@@ -36,14 +30,14 @@ import net.boricj.bft.elf.constants.ElfSectionType;
 /**
  * ELF string table section for storing symbol names and section names.
  * Strings are stored as null-terminated sequences and referenced by offset.
+ * <p>
+ * The table is kept as a single contiguous buffer. Strings are decoded on first lookup by offset and cached.
  */
 public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 	/** Default character encoding for string tables. */
 	public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
-	private final TreeMap<Integer, byte[]> strings = new TreeMap<>();
-	private final Map<String, Integer> lookup = new HashMap<>();
-	private final Charset charset;
+	private final StringPool strings;
 
 	/**
 	 * Creates a new string table with default settings.
@@ -91,9 +85,7 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 			Charset charset) {
 		super(elf, name, flags, addr, offset, addralign, entsize);
 
-		Objects.requireNonNull(charset);
-
-		this.charset = charset;
+		this.strings = new StringPool(charset, 0);
 	}
 
 	/**
@@ -125,24 +117,17 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 			throws IOException {
 		this(elf, "", flags, addr, offset, addralign, entsize, parser.getCharset());
 
-		FileInputStream fis = parser.getFileInputStream();
-		fis.getChannel().position(offset);
-
-		byte[] bytes = new byte[(int) size];
-		fis.readNBytes(bytes, 0, bytes.length);
-
-		ByteInputStream bis = ByteInputStream.asLittleEndian(bytes);
-		while (bis.available() > 0) {
-			add(bis.readNullTerminatedString(charset));
+		byte[] bytes = parser.getSource().read(offset, (int) size);
+		if (bytes.length > 0 && bytes[0] != 0x00) {
+			throw new IllegalStateException("string table must start with an empty string");
 		}
+
+		strings.load(bytes);
 	}
 
 	@Override
 	public void write(OutputStream outputStream) throws IOException {
-		for (Entry<Integer, byte[]> entry : strings.entrySet()) {
-			outputStream.write(entry.getValue());
-			outputStream.write(0x00);
-		}
+		strings.write(outputStream);
 	}
 
 	/**
@@ -158,20 +143,7 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 			throw new IllegalStateException("string table must start with an empty string");
 		}
 
-		// Check that the string doesn't contain a null byte, since that would break the string table format.
-		byte[] bytes = string.getBytes(charset);
-		for (byte b : bytes) {
-			if (b == 0x00) {
-				String fmt = "string %s encoded using charset %s produced a null byte";
-				String msg = String.format(fmt, string, charset.name());
-				throw new IllegalArgumentException(msg);
-			}
-		}
-
-		int nextKey = (int) getLength();
-		strings.put(nextKey, bytes);
-		lookup.put(string, nextKey);
-		return nextKey;
+		return strings.add(string);
 	}
 
 	/**
@@ -186,17 +158,7 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 		Objects.requireNonNull(alias);
 		Objects.requireNonNull(target);
 
-		if (!target.endsWith(alias)) {
-			throw new IllegalArgumentException("alias string doesn't end with target string");
-		}
-
-		Integer targetValue = lookup.get(target);
-		if (targetValue == null) {
-			throw new IllegalArgumentException("target string isn't part of the string table");
-		}
-		int nextKey = targetValue + target.getBytes(charset).length - alias.getBytes(charset).length;
-		lookup.put(alias, nextKey);
-		return nextKey;
+		return strings.add(alias, target);
 	}
 
 	/**
@@ -206,19 +168,7 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 	 * @return the string at the given offset
 	 */
 	public String get(int index) {
-		Entry<Integer, byte[]> entry = strings.floorEntry(index);
-		if (entry == null || index < 0) {
-			throw new IndexOutOfBoundsException(index);
-		}
-
-		byte[] bytes = entry.getValue();
-		int offset = index - entry.getKey();
-		String string = charset.decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset))
-				.toString();
-		if (!lookup.containsKey(string)) {
-			lookup.put(string, index);
-		}
-		return string;
+		return strings.get(index);
 	}
 
 	/**
@@ -229,16 +179,35 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 	 * @throws NoSuchElementException if the string is not in the table
 	 */
 	public int find(String string) {
-		Integer index = lookup.get(string);
-		if (index == null) {
-			throw new NoSuchElementException();
-		}
-		return index;
+		return strings.find(string);
+	}
+
+	/**
+	 * Returns whether strings share common suffixes when the table is serialized.
+	 *
+	 * @return true if suffix merging is enabled
+	 */
+	public boolean isSuffixMerging() {
+		return strings.isSuffixMerging();
+	}
+
+	/**
+	 * Enables or disables suffix merging.
+	 * <p>
+	 * When enabled, the table is laid out anew when serialized: strings are sorted by their reversed bytes and
+	 * each string that ends another one shares its storage, the way linkers optimize string tables. Offsets
+	 * returned by {@link #find(String)} then point into the merged table, while {@link #get(int)} keeps decoding
+	 * the table as it was parsed and built.
+	 *
+	 * @param suffixMerging true to share common suffixes between strings
+	 */
+	public void setSuffixMerging(boolean suffixMerging) {
+		strings.setSuffixMerging(suffixMerging);
 	}
 
 	@Override
 	public Iterator<Integer> iterator() {
-		return strings.keySet().iterator();
+		return strings.iterator();
 	}
 
 	@Override
@@ -248,11 +217,6 @@ public class ElfStringTable extends ElfSection implements Iterable<Integer> {
 
 	@Override
 	public long getLength() {
-		if (strings.isEmpty()) {
-			return 0;
-		}
-
-		Entry<Integer, byte[]> lastEntry = strings.lastEntry();
-		return lastEntry.getKey() + lastEntry.getValue().length + 1;
+		return strings.getSize();
 	}
 }
@@ -0,0 +1,248 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.elf.sections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import net.boricj.bft.elf.ElfSection;
+import net.boricj.bft.elf.sections.ElfSymbolTable.ElfSymbol;
+
+import static net.boricj.bft.elf.ElfSection.SHN_COMMON;
+import static net.boricj.bft.elf.ElfSection.SHN_UNDEF;
+import static net.boricj.bft.elf.constants.ElfSymbolBinding.STB_LOCAL;
+import static net.boricj.bft.elf.constants.ElfSymbolType.STT_FILE;
+import static net.boricj.bft.elf.constants.ElfSymbolType.STT_SECTION;
+
+/**
+ * Index over the symbols of a symbol table, for lookups by name and by address.
+ * <p>
+ * Names are looked up through a hash table. Addresses are looked up through the symbols defined in each section,
+ * sorted by value: a symbol covers the addresses from its value up to its value plus its size, and a symbol
+ * without a size only covers its own address. Section, file, undefined and common symbols aren't indexed by
+ * address. Values are compared as unsigned numbers.
+ * <p>
+ * A lookup is immutable and may be queried concurrently. It reflects the symbol table as it was when the lookup
+ * was built, see {@link ElfSymbolTable#getLookup()}.
+ */
+public final class ElfSymbolLookup {
+	private final ElfSymbolTable symbolTable;
+	private final int modificationCount;
+	private final ElfSymbol[] symbols;
+	private final Map<String, int[]> names = new HashMap<>();
+	private final Map<Short, Ranges> ranges = new HashMap<>();
+
+	ElfSymbolLookup(ElfSymbolTable symbolTable, int modificationCount) {
+		this.symbolTable = symbolTable;
+		this.modificationCount = modificationCount;
+		this.symbols = symbolTable.getElements().toArray(new ElfSymbol[0]);
+
+		Map<String, List<Integer>> byName = new HashMap<>();
+		Map<Short, List<Integer>> sections = new HashMap<>();
+		for (int i = 0; i < symbols.length; i++) {
+			ElfSymbol symbol = symbols[i];
+			byName.computeIfAbsent(symbol.getName(), k -> new ArrayList<>(1)).add(i);
+
+			short st_shndx = symbol.getIndex();
+			if (symbol.getType() != STT_SECTION
+					&& symbol.getType() != STT_FILE
+					&& st_shndx != SHN_UNDEF
+					&& st_shndx != (short) SHN_COMMON) {
+				sections.computeIfAbsent(st_shndx, k -> new ArrayList<>()).add(i);
+			}
+		}
+
+		for (Map.Entry<String, List<Integer>> entry : byName.entrySet()) {
+			names.put(
+					entry.getKey(),
+					entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+		}
+		for (Map.Entry<Short, List<Integer>> entry : sections.entrySet()) {
+			ranges.put(entry.getKey(), new Ranges(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Returns the symbol table this lookup indexes.
+	 *
+	 * @return the symbol table
+	 */
+	public ElfSymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+
+	/**
+	 * Finds a symbol by name.
+	 * <p>
+	 * When several symbols share the name, the first non-local one in table order is returned, otherwise the
+	 * first one.
+	 *
+	 * @param name symbol name
+	 * @return the symbol
+	 * @throws NoSuchElementException if no symbol has this name
+	 */
+	public ElfSymbol find(String name) {
+		Objects.requireNonNull(name);
+
+		int[] indexes = names.get(name);
+		if (indexes == null) {
+			throw new NoSuchElementException(name);
+		}
+
+		for (int index : indexes) {
+			if (symbols[index].getBinding() != STB_LOCAL) {
+				return symbols[index];
+			}
+		}
+
+		return symbols[indexes[0]];
+	}
+
+	/**
+	 * Finds all symbols with a name, such as local symbols of the same name from different source files.
+	 *
+	 * @param name symbol name
+	 * @return the symbols in table order, empty if no symbol has this name
+	 */
+	public List<ElfSymbol> findAll(String name) {
+		Objects.requireNonNull(name);
+
+		int[] indexes = names.get(name);
+		if (indexes == null) {
+			return Collections.emptyList();
+		}
+
+		List<ElfSymbol> matches = new ArrayList<>(indexes.length);
+		for (int index : indexes) {
+			matches.add(symbols[index]);
+		}
+
+		return Collections.unmodifiableList(matches);
+	}
+
+	/**
+	 * Finds the symbol covering an address within a section.
+	 *
+	 * @param section section containing the address
+	 * @param address address, as a symbol value
+	 * @return the covering symbol, or null if there is none
+	 */
+	public ElfSymbol findCovering(ElfSection section, long address) {
+		Objects.requireNonNull(section);
+
+		int index = section.getElfFile().getSections().indexOf(section);
+		if (index == -1) {
+			return null;
+		}
+
+		return findCovering((short) index, address);
+	}
+
+	/**
+	 * Finds the symbol covering an address within a section.
+	 * <p>
+	 * When several symbols cover the address, the one with the greatest value is returned and among those,
+	 * non-local symbols are preferred.
+	 *
+	 * @param st_shndx section index
+	 * @param address address, as a symbol value
+	 * @return the covering symbol, or null if there is none
+	 */
+	public ElfSymbol findCovering(short st_shndx, long address) {
+		Ranges sectionRanges = ranges.get(st_shndx);
+		if (sectionRanges == null) {
+			return null;
+		}
+
+		return sectionRanges.findCovering(address);
+	}
+
+	int getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Address ranges of the symbols of a section, sorted by start.
+	 * <p>
+	 * Along with each range is the highest end of all ranges up to it, which bounds the backward scan for ranges
+	 * starting before an address but still covering it.
+	 */
+	private final class Ranges {
+		private final long[] starts;
+		private final long[] ends;
+		private final long[] maxEnds;
+		private final int[] indexes;
+
+		private Ranges(List<Integer> sectionIndexes) {
+			Integer[] sorted = sectionIndexes.toArray(new Integer[0]);
+			Arrays.sort(sorted, (a, b) -> {
+				int result = Long.compareUnsigned(symbols[a].getValue(), symbols[b].getValue());
+				if (result == 0) {
+					result =
+							Boolean.compare(symbols[a].getBinding() != STB_LOCAL, symbols[b].getBinding() != STB_LOCAL);
+				}
+				if (result == 0) {
+					result = Integer.compare(a, b);
+				}
+				return result;
+			});
+
+			starts = new long[sorted.length];
+			ends = new long[sorted.length];
+			maxEnds = new long[sorted.length];
+			indexes = new int[sorted.length];
+			for (int i = 0; i < sorted.length; i++) {
+				ElfSymbol symbol = symbols[sorted[i]];
+				long start = symbol.getValue();
+				long end = start + Math.max(symbol.getSize(), 1);
+				if (Long.compareUnsigned(end, start) < 0) {
+					end = -1;
+				}
+
+				starts[i] = start;
+				ends[i] = end;
+				maxEnds[i] = i > 0 && Long.compareUnsigned(maxEnds[i - 1], end) > 0 ? maxEnds[i - 1] : end;
+				indexes[i] = sorted[i];
+			}
+		}
+
+		private ElfSymbol findCovering(long address) {
+			// Last range starting at or before the address.
+			int low = 0;
+			int high = starts.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (Long.compareUnsigned(starts[middle], address) <= 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+
+			for (int i = low - 1; i >= 0 && Long.compareUnsigned(maxEnds[i], address) > 0; i--) {
+				if (Long.compareUnsigned(ends[i], address) > 0) {
+					return symbols[indexes[i]];
+				}
+			}
+
+			return null;
+		}
+	}
+}
@@ -15,10 +15,11 @@ package net.boricj.bft.elf.sections;
 
 import java.io.DataInput;
 import java.io.DataOutput;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.IdentityHashMap;
@@ -49,6 +50,10 @@ import static net.boricj.bft.elf.constants.ElfSymbolVisibility.STV_DEFAULT;
 /**
  * ELF symbol table section containing symbol entries.
  * Symbols represent functions, variables, sections, and other named entities.
+ * <p>
+ * Symbol tables parsed with {@link ElfFile.Parser#setColumnarSymbols(boolean)} enabled keep their entries in
+ * parallel primitive arrays. Their symbols are views over a row of these arrays, created on access: views of the
+ * same row are equal to each other and stay attached to their row when the table is sorted.
  */
 public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol> {
 	/**
@@ -63,6 +68,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		private final ElfSymbolVisibility visibility;
 		private final ElfSymbolBinding binding;
 		private final short st_shndx;
+		private final int row;
 
 		/**
 		 * Creates a new symbol entry.
@@ -95,6 +101,18 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 			this.visibility = visibility;
 			this.binding = binding;
 			this.st_shndx = st_shndx;
+			this.row = -1;
+		}
+
+		private ElfSymbol(int row) {
+			this.name = null;
+			this.st_value = 0;
+			this.st_size = 0;
+			this.type = null;
+			this.visibility = null;
+			this.binding = null;
+			this.st_shndx = 0;
+			this.row = row;
 		}
 
 		/**
@@ -105,32 +123,15 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @throws IOException if an I/O error occurs
 		 */
 		protected void write(DataOutput dataOutput, ElfClass ident_class) throws IOException {
-			int st_name = stringTable.find(name);
+			if (row >= 0) {
+				writeRow(dataOutput, ident_class, row);
+				return;
+			}
+
 			byte info = (byte) (type.getValue() | (binding.getValue() << 4));
 			byte other = visibility.getValue();
 
-			switch (ident_class) {
-				case ELFCLASS32:
-					dataOutput.writeInt(st_name);
-					dataOutput.writeInt((int) st_value);
-					dataOutput.writeInt((int) st_size);
-					dataOutput.writeByte(info);
-					dataOutput.writeByte(other);
-					dataOutput.writeShort(st_shndx);
-					break;
-
-				case ELFCLASS64:
-					dataOutput.writeInt(st_name);
-					dataOutput.writeByte(info);
-					dataOutput.writeByte(other);
-					dataOutput.writeShort(st_shndx);
-					dataOutput.writeLong(st_value);
-					dataOutput.writeLong(st_size);
-					break;
-
-				default:
-					throw new RuntimeException(ident_class.name());
-			}
+			writeEntry(dataOutput, ident_class, stringTable.find(name), st_value, st_size, info, other, st_shndx);
 		}
 
 		/**
@@ -139,7 +140,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the symbol name
 		 */
 		public String getName() {
-			return name;
+			return row < 0 ? name : columns.getName(row);
 		}
 
 		/**
@@ -148,7 +149,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the symbol value
 		 */
 		public long getValue() {
-			return st_value;
+			return row < 0 ? st_value : columns.st_values[row];
 		}
 
 		/**
@@ -157,7 +158,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the symbol size
 		 */
 		public long getSize() {
-			return st_size;
+			return row < 0 ? st_size : columns.st_sizes[row];
 		}
 
 		/**
@@ -166,7 +167,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the symbol type
 		 */
 		public ElfSymbolType getType() {
-			return type;
+			return row < 0 ? type : ElfSymbolType.valueFrom((byte) (columns.st_infos[row] & 0x0F));
 		}
 
 		/**
@@ -175,7 +176,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the symbol visibility
 		 */
 		public ElfSymbolVisibility getVisibility() {
-			return visibility;
+			return row < 0 ? visibility : ElfSymbolVisibility.valueFrom(columns.st_others[row]);
 		}
 
 		/**
@@ -184,7 +185,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the symbol binding
 		 */
 		public ElfSymbolBinding getBinding() {
-			return binding;
+			return row < 0 ? binding : ElfSymbolBinding.valueFrom((byte) (columns.st_infos[row] >> 4));
 		}
 
 		/**
@@ -193,7 +194,7 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return the section index
 		 */
 		public short getIndex() {
-			return st_shndx;
+			return row < 0 ? st_shndx : columns.st_shndxs[row];
 		}
 
 		/**
@@ -202,7 +203,36 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		 * @return true if this is a null symbol
 		 */
 		public boolean isNull() {
-			return name == "" && st_value == 0 && st_size == 0 && type == STT_NOTYPE && binding == STB_LOCAL;
+			return getName() == ""
+					&& getValue() == 0
+					&& getSize() == 0
+					&& getType() == STT_NOTYPE
+					&& getBinding() == STB_LOCAL;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			return row >= 0
+					&& object instanceof ElfSymbol symbol
+					&& symbol.row == row
+					&& symbol.getSymbolTable() == getSymbolTable();
+		}
+
+		@Override
+		public int hashCode() {
+			if (row < 0) {
+				return System.identityHashCode(this);
+			}
+
+			return 31 * System.identityHashCode(getSymbolTable()) + row;
+		}
+
+		private ElfSymbolTable getSymbolTable() {
+			return ElfSymbolTable.this;
 		}
 
 		@Override
@@ -214,47 +244,51 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 				return 1;
 			}
 			// Local symbols first.
-			else if (binding == STB_LOCAL && o.binding != STB_LOCAL) {
+			else if (getBinding() == STB_LOCAL && o.getBinding() != STB_LOCAL) {
 				return -1;
-			} else if (binding != STB_LOCAL && o.binding == STB_LOCAL) {
+			} else if (getBinding() != STB_LOCAL && o.getBinding() == STB_LOCAL) {
 				return 1;
 			}
 			// File symbols next.
-			else if (type == STT_FILE && o.type != STT_FILE) {
+			else if (getType() == STT_FILE && o.getType() != STT_FILE) {
 				return -1;
-			} else if (type != STT_FILE && o.type == STT_FILE) {
+			} else if (getType() != STT_FILE && o.getType() == STT_FILE) {
 				return 1;
 			}
 			// Section symbols next.
-			else if (type == STT_SECTION && o.type != STT_SECTION) {
+			else if (getType() == STT_SECTION && o.getType() != STT_SECTION) {
 				return -1;
-			} else if (type != STT_SECTION && o.type == STT_SECTION) {
+			} else if (getType() != STT_SECTION && o.getType() == STT_SECTION) {
 				return 1;
 			}
 			// Put undefined sections last.
-			else if (st_shndx != SHN_UNDEF && o.st_shndx == SHN_UNDEF) {
+			else if (getIndex() != SHN_UNDEF && o.getIndex() == SHN_UNDEF) {
 				return -1;
-			} else if (st_shndx == SHN_UNDEF && o.st_shndx != SHN_UNDEF) {
+			} else if (getIndex() == SHN_UNDEF && o.getIndex() != SHN_UNDEF) {
 				return 1;
 			}
 			// Compare by section index.
-			else if (st_shndx != o.st_shndx) {
-				return Integer.compare(Short.toUnsignedInt(st_shndx), Short.toUnsignedInt(o.st_shndx));
+			else if (getIndex() != o.getIndex()) {
+				return Integer.compare(Short.toUnsignedInt(getIndex()), Short.toUnsignedInt(o.getIndex()));
 			}
 			// Compare by value.
-			else if (st_value != o.st_value) {
-				return Long.compare(st_value, o.st_value);
+			else if (getValue() != o.getValue()) {
+				return Long.compare(getValue(), o.getValue());
 			}
 			// Compare by name.
 			else {
-				return name.compareTo(o.name);
+				return getName().compareTo(o.getName());
 			}
 		}
 	}
 
 	private final List<ElfSymbol> symbols = new ArrayList<>();
 	private final Map<ElfSymbol, Integer> reverseLookup = new IdentityHashMap<>();
+	private final Columns columns;
+	private final List<ElfSymbol> columnsView;
 	private final ElfStringTable stringTable;
+	private int modificationCount = 0;
+	private ElfSymbolLookup lookup;
 
 	/**
 	 * Creates a new symbol table with default settings.
@@ -297,6 +331,8 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		}
 
 		this.stringTable = stringTable;
+		this.columns = null;
+		this.columnsView = null;
 	}
 
 	/**
@@ -331,12 +367,18 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		ElfSectionTable sectionTable = elf.getSections();
 		this.stringTable = (ElfStringTable) sectionTable.get(link, parser);
 
-		FileInputStream fis = parser.getFileInputStream();
+		if (parser.isColumnarSymbols()) {
+			this.columns = new Columns((int) (size / entsize));
+			this.columnsView = new ColumnsView();
+		} else {
+			this.columns = null;
+			this.columnsView = null;
+		}
+
 		ElfHeader header = elf.getHeader();
 		ElfClass ident_class = header.getIdentClass();
 
-		fis.getChannel().position(offset);
-		DataInput dataInput = elf.wrap(fis);
+		DataInput dataInput = elf.wrap(parser.getSource().openStream(offset, size));
 
 		for (int i = 0; i < size / entsize; i++) {
 			int st_name;
@@ -372,12 +414,16 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 			byte st_type = (byte) (st_info & 0x0F);
 			byte st_binding = (byte) (st_info >> 4);
 
-			String name = stringTable.get(st_name);
 			ElfSymbolType type = ElfSymbolType.valueFrom(st_type);
 			ElfSymbolBinding binding = ElfSymbolBinding.valueFrom(st_binding);
 			ElfSymbolVisibility visibility = ElfSymbolVisibility.valueFrom(st_other);
 
-			add(name, st_value, st_size, type, visibility, binding, st_shndx);
+			if (columns != null) {
+				columns.add(st_name, null, st_value, st_size, st_info, st_other, st_shndx);
+			} else {
+				String name = stringTable.get(st_name);
+				add(name, st_value, st_size, type, visibility, binding, st_shndx);
+			}
 		}
 	}
 
@@ -391,14 +437,20 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		DataOutput dataOutput = getElfFile().wrap(outputStream);
 		ElfClass ident_class = getElfFile().getHeader().getIdentClass();
 
-		for (ElfSymbol symbol : symbols) {
-			symbol.write(dataOutput, ident_class);
+		if (columns != null) {
+			for (int i = 0; i < columns.count; i++) {
+				writeRow(dataOutput, ident_class, columns.rowAt(i));
+			}
+		} else {
+			for (ElfSymbol symbol : symbols) {
+				symbol.write(dataOutput, ident_class);
+			}
 		}
 	}
 
 	@Override
 	public long getLength() {
-		return symbols.size() * getEntSize();
+		return size() * getEntSize();
 	}
 
 	@Override
@@ -406,10 +458,27 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 		return getElfFile().getSections().indexOf(stringTable);
 	}
 
+	/**
+	 * Returns the string table holding the symbol names.
+	 *
+	 * @return the associated string table
+	 */
+	public ElfStringTable getStringTable() {
+		return stringTable;
+	}
+
 	@Override
 	public int getInfo() {
 		int info = 0;
 
+		if (columns != null) {
+			while (info < columns.count && (columns.st_infos[columns.rowAt(info)] >> 4) == STB_LOCAL.getValue()) {
+				info++;
+			}
+
+			return info;
+		}
+
 		for (ElfSymbol symbol : symbols) {
 			if (symbol.getBinding() != STB_LOCAL) {
 				break;
@@ -520,14 +589,53 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 			ElfSymbolVisibility visibility,
 			ElfSymbolBinding binding,
 			short st_shndx) {
+		if (columns != null) {
+			Objects.requireNonNull(st_name);
+			byte st_info = (byte) (type.getValue() | (binding.getValue() << 4));
+			byte st_other = visibility.getValue();
+
+			modificationCount++;
+			return new ElfSymbol(columns.add(-1, st_name, st_value, st_size, st_info, st_other, st_shndx));
+		}
+
 		ElfSymbol symbol = new ElfSymbol(st_name, st_value, st_size, type, visibility, binding, st_shndx);
 		reverseLookup.put(symbol, symbols.size());
 		symbols.add(symbol);
+		modificationCount++;
 		return symbol;
 	}
 
+	/**
+	 * Returns an index over the symbols of this table, for lookups by name and by address.
+	 * <p>
+	 * The index is built on first use and cached until symbols are added to or sorted within this table.
+	 *
+	 * @return the symbol lookup
+	 */
+	public synchronized ElfSymbolLookup getLookup() {
+		if (lookup == null || lookup.getModificationCount() != modificationCount) {
+			lookup = new ElfSymbolLookup(this, modificationCount);
+		}
+
+		return lookup;
+	}
+
 	@Override
 	public void sort(Comparator<? super ElfSymbol> comparator) {
+		modificationCount++;
+
+		if (columns != null) {
+			List<ElfSymbol> sorted = new ArrayList<>(columnsView);
+			sorted.sort(comparator);
+
+			int[] rows = new int[sorted.size()];
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = sorted.get(i).row;
+			}
+			columns.reorder(rows);
+			return;
+		}
+
 		symbols.sort(comparator);
 		reverseLookup.clear();
 		for (int i = 0; i < symbols.size(); i++) {
@@ -542,19 +650,207 @@ public class ElfSymbolTable extends ElfSection implements IndirectList<ElfSymbol
 
 	@Override
 	public boolean contains(Object object) {
-		return reverseLookup.containsKey(object);
+		return indexOf(object) != -1;
 	}
 
 	@Override
 	public int indexOf(Object object) {
+		if (columns != null) {
+			if (object instanceof ElfSymbol symbol && symbol.row >= 0 && symbol.getSymbolTable() == this) {
+				return columns.positionOf(symbol.row);
+			}
+
+			return -1;
+		}
+
 		return reverseLookup.getOrDefault(object, -1);
 	}
 
 	@Override
 	public List<ElfSymbol> getElements() {
+		if (columns != null) {
+			return columnsView;
+		}
+
 		return Collections.unmodifiableList(symbols);
 	}
 
+	private void writeRow(DataOutput dataOutput, ElfClass ident_class, int row) throws IOException {
+		writeEntry(
+				dataOutput,
+				ident_class,
+				columns.findName(row),
+				columns.st_values[row],
+				columns.st_sizes[row],
+				columns.st_infos[row],
+				columns.st_others[row],
+				columns.st_shndxs[row]);
+	}
+
+	private static void writeEntry(
+			DataOutput dataOutput,
+			ElfClass ident_class,
+			int st_name,
+			long st_value,
+			long st_size,
+			byte st_info,
+			byte st_other,
+			short st_shndx)
+			throws IOException {
+		switch (ident_class) {
+			case ELFCLASS32:
+				dataOutput.writeInt(st_name);
+				dataOutput.writeInt((int) st_value);
+				dataOutput.writeInt((int) st_size);
+				dataOutput.writeByte(st_info);
+				dataOutput.writeByte(st_other);
+				dataOutput.writeShort(st_shndx);
+				break;
+
+			case ELFCLASS64:
+				dataOutput.writeInt(st_name);
+				dataOutput.writeByte(st_info);
+				dataOutput.writeByte(st_other);
+				dataOutput.writeShort(st_shndx);
+				dataOutput.writeLong(st_value);
+				dataOutput.writeLong(st_size);
+				break;
+
+			default:
+				throw new RuntimeException(ident_class.name());
+		}
+	}
+
+	/**
+	 * Symbol entries stored as parallel arrays, indexed by row.
+	 * <p>
+	 * Rows never move once added, so that symbol views stay valid. The order of the symbol table is kept as a
+	 * separate permutation, which is only allocated once the table is sorted.
+	 */
+	private final class Columns {
+		private int count = 0;
+		private int[] st_names;
+		private long[] st_values;
+		private long[] st_sizes;
+		private byte[] st_infos;
+		private byte[] st_others;
+		private short[] st_shndxs;
+		// Names of symbols added after parsing, null for symbols named through st_name.
+		private String[] names;
+		// Row at each position and position of each row, null while rows are in table order.
+		private int[] rows;
+		private int[] positions;
+
+		private Columns(int capacity) {
+			st_names = new int[capacity];
+			st_values = new long[capacity];
+			st_sizes = new long[capacity];
+			st_infos = new byte[capacity];
+			st_others = new byte[capacity];
+			st_shndxs = new short[capacity];
+		}
+
+		private int add(
+				int st_name, String name, long st_value, long st_size, byte st_info, byte st_other, short st_shndx) {
+			if (count == st_names.length) {
+				grow(Math.max(16, count * 2));
+			}
+
+			int row = count++;
+			st_names[row] = st_name;
+			st_values[row] = st_value;
+			st_sizes[row] = st_size;
+			st_infos[row] = st_info;
+			st_others[row] = st_other;
+			st_shndxs[row] = st_shndx;
+
+			if (name != null) {
+				if (names == null) {
+					names = new String[st_names.length];
+				}
+				names[row] = name;
+			}
+			if (rows != null) {
+				rows[row] = row;
+				positions[row] = row;
+			}
+
+			return row;
+		}
+
+		private void grow(int capacity) {
+			st_names = Arrays.copyOf(st_names, capacity);
+			st_values = Arrays.copyOf(st_values, capacity);
+			st_sizes = Arrays.copyOf(st_sizes, capacity);
+			st_infos = Arrays.copyOf(st_infos, capacity);
+			st_others = Arrays.copyOf(st_others, capacity);
+			st_shndxs = Arrays.copyOf(st_shndxs, capacity);
+			if (names != null) {
+				names = Arrays.copyOf(names, capacity);
+			}
+			if (rows != null) {
+				rows = Arrays.copyOf(rows, capacity);
+				positions = Arrays.copyOf(positions, capacity);
+			}
+		}
+
+		private String getName(int row) {
+			if (names != null && names[row] != null) {
+				return names[row];
+			}
+
+			return stringTable.get(st_names[row]);
+		}
+
+		private int findName(int row) {
+			if ((names != null && names[row] != null) || stringTable.isSuffixMerging()) {
+				return stringTable.find(getName(row));
+			}
+
+			return st_names[row];
+		}
+
+		private int rowAt(int position) {
+			return rows != null ? rows[position] : position;
+		}
+
+		private int positionOf(int row) {
+			return positions != null ? positions[row] : row;
+		}
+
+		private void reorder(int[] order) {
+			rows = Arrays.copyOf(order, st_names.length);
+			positions = new int[st_names.length];
+			for (int i = 0; i < count; i++) {
+				positions[rows[i]] = i;
+			}
+		}
+	}
+
+	private final class ColumnsView extends AbstractList<ElfSymbol> {
+		@Override
+		public ElfSymbol get(int index) {
+			Objects.checkIndex(index, columns.count);
+
+			return new ElfSymbol(columns.rowAt(index));
+		}
+
+		@Override
+		public int size() {
+			return columns.count;
+		}
+
+		@Override
+		public int indexOf(Object object) {
+			return ElfSymbolTable.this.indexOf(object);
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return ElfSymbolTable.this.indexOf(object) != -1;
+		}
+	}
+
 	private static long computeAddrAlign(ElfFile file) {
 		ElfClass ident_class = file.getHeader().getIdentClass();
 		switch (ident_class) {
@@ -17,6 +17,11 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -24,11 +29,26 @@ import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.OffsetIndex;
 import net.boricj.bft.TestUtils;
 import net.boricj.bft.Writable;
 import net.boricj.bft.elf.ElfFile;
 import net.boricj.bft.elf.ElfHeader;
+import net.boricj.bft.elf.ElfSection;
 import net.boricj.bft.elf.ElfSectionTable;
+import net.boricj.bft.elf.sections.ElfProgBits;
+import net.boricj.bft.elf.sections.ElfRelaTable;
+import net.boricj.bft.elf.sections.ElfRelaTable.ElfRela;
+import net.boricj.bft.elf.sections.ElfSymbolTable;
+
+import static net.boricj.bft.elf.constants.ElfSectionType.SHT_PROGBITS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestParser {
 	@Test
@@ -41,10 +61,139 @@ public class TestParser {
 		compareObjectFiles("hello-world_x86_64-linux-gnu.o");
 	}
 
+	@Test
+	public void test_hello_world_x86_64_linux_gnu_mapped() throws IOException, URISyntaxException {
+		String name = "hello-world_x86_64-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(ByteSource.map(path)).parse();
+
+		compareObjectFiles(name, elf);
+	}
+
+	@Test
+	public void test_hello_world_x86_64_linux_gnu_zero_copy() throws IOException, URISyntaxException {
+		String name = "hello-world_x86_64-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(ByteSource.map(path)).setZeroCopy(true).parse();
+
+		compareObjectFiles(name, elf);
+	}
+
+	@Test
+	public void test_hello_world_x86_64_linux_gnu_section_factory() throws IOException, URISyntaxException {
+		String name = "hello-world_x86_64-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		List<ElfSection> created = new ArrayList<>();
+		ElfFile elf = new ElfFile.Parser(ByteSource.map(path))
+				.setSectionFactory(
+						SHT_PROGBITS.getValue(),
+						(file, parser, flags, addr, offset, size, link, info, addralign, entsize) -> {
+							ElfSection section = new ElfProgBits(
+									file, parser, flags, addr, offset, size, link, info, addralign, entsize);
+							created.add(section);
+							return section;
+						})
+				.parse();
+
+		List<ElfSection> progBits =
+				elf.getSections().stream().filter(ElfProgBits.class::isInstance).toList();
+		assertEquals(progBits, created);
+		compareObjectFiles(name, elf);
+	}
+
+	@Test
+	public void test_hello_world_x86_64_linux_gnu_relocation_offset_index() throws IOException, URISyntaxException {
+		String name = "hello-world_x86_64-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(ByteSource.map(path)).parse();
+
+		ElfSection text = elf.getSections().stream()
+				.filter(section -> section.getName().equals(".text"))
+				.findFirst()
+				.orElseThrow();
+		ElfRelaTable relocations = elf.getSections().stream()
+				.filter(ElfRelaTable.class::isInstance)
+				.map(ElfRelaTable.class::cast)
+				.filter(table -> table.getInfo() == elf.getSections().indexOf(text))
+				.findFirst()
+				.orElseThrow();
+		OffsetIndex<ElfRela> index = relocations.getOffsetIndex();
+		assertSame(index, relocations.getOffsetIndex());
+		assertEquals(relocations.size(), index.find(0, text.getLength()).size());
+
+		for (ElfRela relocation : relocations) {
+			long offset = relocation.getOffset();
+			assertTrue(index.find(offset, offset + 1).contains(relocation));
+			assertTrue(index.findOverlapping(offset + 3, offset + 4, 4).contains(relocation));
+			assertFalse(index.findOverlapping(offset + 4, offset + 5, 4).contains(relocation));
+		}
+	}
+
+	@Test
+	public void test_hello_world_x86_64_linux_gnu_lazy() throws IOException, URISyntaxException {
+		String name = "hello-world_x86_64-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ElfFile eager = new ElfFile.Parser(ByteSource.map(path)).parse();
+		ElfFile lazy = new ElfFile.Parser(ByteSource.map(path)).setLazy(true).parse();
+
+		ElfSectionTable eagerSections = eager.getSections();
+		ElfSectionTable lazySections = lazy.getSections();
+		assertEquals(eagerSections.size(), lazySections.size());
+		for (int index = lazySections.size() - 1; index >= 0; index--) {
+			assertEquals(
+					eagerSections.get(index).getName(), lazySections.get(index).getName());
+		}
+
+		compareObjectFiles(name, lazy);
+	}
+
+	@Test
+	public void test_hello_world_x86_64_linux_gnu_ignored_section_error_recorded_once()
+			throws IOException, URISyntaxException {
+		String name = "hello-world_x86_64-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ElfFile eager = new ElfFile.Parser(ByteSource.map(path)).parse();
+		int symtab = eager.getSections()
+				.indexOf(eager.getSections().stream()
+						.filter(ElfSymbolTable.class::isInstance)
+						.findFirst()
+						.orElseThrow());
+		int text = eager.getSections()
+				.indexOf(eager.getSections().stream()
+						.filter(section -> section.getName().equals(".text"))
+						.findFirst()
+						.orElseThrow());
+
+		// Link the symbol table to .text instead of its string table.
+		byte[] bytes = Files.readAllBytes(path);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int shoff = (int) buffer.getLong(0x28);
+		buffer.putInt(shoff + symtab * 64 + 40, text);
+
+		ElfFile.Parser parser =
+				new ElfFile.Parser(ByteSource.wrap(bytes)).setLazy(true).setIgnoreSectionErrors(true);
+		ElfSectionTable sections = parser.parse().getSections();
+		RuntimeException first = assertThrows(RuntimeException.class, () -> sections.get(symtab, parser));
+		RuntimeException second = assertThrows(RuntimeException.class, () -> sections.get(symtab, parser));
+		assertSame(first, second);
+		assertNull(sections.get(symtab));
+
+		ElfFile parallel = new ElfFile.Parser(ByteSource.wrap(bytes))
+				.setParallel(true)
+				.setIgnoreSectionErrors(true)
+				.parse();
+		assertNull(parallel.getSections().get(symtab));
+		assertSame(ElfProgBits.class, parallel.getSections().get(text).getClass());
+	}
+
 	private void compareObjectFiles(String name) throws IOException, URISyntaxException {
 		File file = new File(getClass().getResource(name).toURI());
 		ElfFile elf = new ElfFile.Parser(new FileInputStream(file)).parse();
 
+		compareObjectFiles(name, elf);
+	}
+
+	private void compareObjectFiles(String name, ElfFile elf) throws IOException {
 		ElfHeader header = elf.getHeader();
 		ElfSectionTable sectionTable = elf.getSections();
 		Collection<Writable> writables = Stream.concat(List.of(header, sectionTable).stream(), sectionTable.stream())
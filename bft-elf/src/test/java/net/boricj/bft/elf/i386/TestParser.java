@@ -13,22 +13,55 @@
  */
 package net.boricj.bft.elf.i386;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.FileFormat;
+import net.boricj.bft.LayoutWriter;
 import net.boricj.bft.TestUtils;
 import net.boricj.bft.Writable;
 import net.boricj.bft.elf.ElfFile;
 import net.boricj.bft.elf.ElfHeader;
+import net.boricj.bft.elf.ElfProbe;
+import net.boricj.bft.elf.ElfSection;
 import net.boricj.bft.elf.ElfSectionTable;
+import net.boricj.bft.elf.ElfSymbolScanner;
+import net.boricj.bft.elf.ElfSymbolVisitor;
+import net.boricj.bft.elf.constants.ElfMachine;
+import net.boricj.bft.elf.sections.ElfRelTable;
+import net.boricj.bft.elf.sections.ElfStringTable;
+import net.boricj.bft.elf.sections.ElfSymbolLookup;
+import net.boricj.bft.elf.sections.ElfSymbolTable;
+import net.boricj.bft.elf.sections.ElfSymbolTable.ElfSymbol;
+
+import static net.boricj.bft.elf.constants.ElfSymbolType.STT_FUNC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestParser {
 	@Test
@@ -41,10 +74,269 @@ public class TestParser {
 		compareObjectFiles("hello-world_i686-linux-gnu.o");
 	}
 
+	@Test
+	public void test_hello_world_i686_linux_gnu_columnar_symbols() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		File file = new File(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(new FileInputStream(file)).parse();
+		ElfFile columnar = new ElfFile.Parser(new FileInputStream(file))
+				.setColumnarSymbols(true)
+				.parse();
+
+		ElfSymbolTable symbols = findSymbolTable(elf);
+		ElfSymbolTable columnarSymbols = findSymbolTable(columnar);
+		assertEquals(symbols.size(), columnarSymbols.size());
+		for (int index = 0; index < symbols.size(); index++) {
+			ElfSymbol symbol = symbols.get(index);
+			ElfSymbol columnarSymbol = columnarSymbols.get(index);
+
+			assertEquals(symbol.getName(), columnarSymbol.getName());
+			assertEquals(symbol.getValue(), columnarSymbol.getValue());
+			assertEquals(symbol.getSize(), columnarSymbol.getSize());
+			assertEquals(symbol.getType(), columnarSymbol.getType());
+			assertEquals(symbol.getBinding(), columnarSymbol.getBinding());
+			assertEquals(symbol.getVisibility(), columnarSymbol.getVisibility());
+			assertEquals(symbol.getIndex(), columnarSymbol.getIndex());
+			assertEquals(columnarSymbol, columnarSymbols.get(index));
+			assertEquals(index, columnarSymbols.indexOf(columnarSymbol));
+		}
+		assertEquals(symbols.getInfo(), columnarSymbols.getInfo());
+
+		compareObjectFiles(name, columnar);
+
+		ElfSymbol last = columnarSymbols.getLast();
+		symbols.sort(Comparator.reverseOrder());
+		columnarSymbols.sort(Comparator.reverseOrder());
+		for (int index = 0; index < symbols.size(); index++) {
+			assertEquals(
+					symbols.get(index).getName(), columnarSymbols.get(index).getName());
+		}
+		assertEquals(0, columnarSymbols.indexOf(last));
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_symbol_lookup() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		File file = new File(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(new FileInputStream(file))
+				.setColumnarSymbols(true)
+				.parse();
+
+		ElfSymbolTable symbols = findSymbolTable(elf);
+		ElfSymbolLookup lookup = symbols.getLookup();
+		assertSame(lookup, symbols.getLookup());
+
+		for (ElfSymbol symbol : symbols) {
+			assertTrue(lookup.findAll(symbol.getName()).contains(symbol));
+			if (symbol.getType() == STT_FUNC) {
+				assertEquals(symbol, lookup.find(symbol.getName()));
+				assertEquals(symbol, lookup.findCovering(symbol.getIndex(), symbol.getValue()));
+
+				long end = symbol.getValue() + Math.max(symbol.getSize(), 1);
+				assertEquals(symbol, lookup.findCovering(symbol.getIndex(), end - 1));
+				assertNotEquals(symbol, lookup.findCovering(symbol.getIndex(), end));
+			}
+		}
+		assertEquals(List.of(), lookup.findAll("no_such_symbol"));
+		assertThrows(NoSuchElementException.class, () -> lookup.find("no_such_symbol"));
+
+		ElfSymbol main = lookup.find("main");
+		ElfSection text = elf.getSections().get(main.getIndex());
+		assertEquals(main, lookup.findCovering(text, main.getValue() + 1));
+		assertNull(lookup.findCovering(text, -1));
+
+		symbols.addUndefined("added");
+		assertNotSame(lookup, symbols.getLookup());
+		assertEquals("added", symbols.getLookup().find("added").getName());
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_probe() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ByteSource source = ByteSource.map(path);
+		ElfFile elf = new ElfFile.Parser(source).parse();
+		ElfHeader header = elf.getHeader();
+
+		assertEquals(FileFormat.ELF, FileFormat.detect(source));
+
+		ElfProbe probe = ElfProbe.probe(source);
+		assertEquals(header.getIdentClass(), probe.getIdentClass());
+		assertEquals(header.getIdentData(), probe.getIdentData());
+		assertEquals(header.getType(), probe.getType());
+		assertEquals(header.getMachine(), probe.getMachine());
+		assertEquals(header.getEntry(), probe.getEntry());
+		assertEquals(elf.getSections().size(), probe.getSectionCount());
+		assertEquals(findSymbolTable(elf).size(), probe.getSymbolCount());
+
+		assertEquals(-1, ElfProbe.probe(source, false).getSymbolCount());
+		assertThrows(IllegalArgumentException.class, () -> ElfProbe.probe(ByteSource.wrap(new byte[64]), false));
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_probe_extended_section_numbering()
+			throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		byte[] bytes = Files.readAllBytes(Path.of(getClass().getResource(name).toURI()));
+		ElfProbe expected = ElfProbe.probe(ByteSource.wrap(bytes));
+
+		// Move the section count into sh_size of the null section.
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int shoff = buffer.getInt(32);
+		buffer.putInt(shoff + 20, buffer.getShort(48));
+		buffer.putShort(48, (short) 0);
+
+		ElfProbe probe = ElfProbe.probe(ByteSource.wrap(bytes));
+		assertEquals(expected.getSectionCount(), probe.getSectionCount());
+		assertEquals(expected.getSymbolCount(), probe.getSymbolCount());
+
+		// The symbol scanner shares the section count decoding.
+		long[] scanned = {0};
+		new ElfSymbolScanner(ByteSource.wrap(bytes))
+				.scan((index, st_name, st_value, st_size, st_info, st_other, st_shndx) -> scanned[0]++);
+		assertEquals(expected.getSymbolCount(), scanned[0]);
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_empty_relocations_unsupported_machine()
+			throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		byte[] bytes = Files.readAllBytes(Path.of(getClass().getResource(name).toURI()));
+
+		// Switch to EM_NONE, which has no relocation types, and empty every SHT_REL section.
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putShort(18, (short) 0);
+		int shoff = buffer.getInt(32);
+		int shentsize = buffer.getShort(46);
+		int relocationTables = 0;
+		for (int i = 0; i < buffer.getShort(48); i++) {
+			if (buffer.getInt(shoff + i * shentsize + 4) == 9) {
+				buffer.putInt(shoff + i * shentsize + 20, 0);
+				relocationTables++;
+			}
+		}
+		assertTrue(relocationTables > 0);
+
+		ElfFile elf = new ElfFile.Parser(ByteSource.wrap(bytes)).parse();
+		assertEquals(ElfMachine.EM_NONE, elf.getHeader().getMachine());
+		assertEquals(
+				relocationTables,
+				elf.getSections().stream()
+						.filter(ElfRelTable.class::isInstance)
+						.map(ElfRelTable.class::cast)
+						.filter(ElfRelTable::isEmpty)
+						.count());
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_symbol_scanner() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		Path path = Path.of(getClass().getResource(name).toURI());
+		ByteSource source = ByteSource.map(path);
+		ElfSymbolTable symbols = findSymbolTable(new ElfFile.Parser(source).parse());
+
+		ElfSymbolScanner scanner = new ElfSymbolScanner(source);
+		List<String> names = new ArrayList<>();
+		scanner.scan((index, st_name, st_value, st_size, st_info, st_other, st_shndx) -> {
+			ElfSymbol symbol = symbols.get(index);
+			assertEquals(symbol.getValue(), st_value);
+			assertEquals(symbol.getSize(), st_size);
+			assertEquals(symbol.getIndex(), st_shndx);
+			names.add(scanner.getName(st_name));
+		});
+		assertEquals(symbols.stream().map(ElfSymbol::getName).toList(), names);
+
+		int[] visited = {0};
+		scanner.scan(new ElfSymbolVisitor() {
+			@Override
+			public boolean visitSymbolTable(int sectionIndex, int count) {
+				assertEquals(symbols.size(), count);
+				return false;
+			}
+
+			@Override
+			public void visitSymbol(
+					int index, int st_name, long st_value, long st_size, byte st_info, byte st_other, short st_shndx) {
+				visited[0]++;
+			}
+		});
+		assertEquals(0, visited[0]);
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_suffix_merging() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		File file = new File(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(new FileInputStream(file)).parse();
+
+		ElfSymbolTable symbols = findSymbolTable(elf);
+		ElfStringTable strtab = symbols.getStringTable();
+		long length = strtab.getLength();
+		strtab.setSuffixMerging(true);
+		assertTrue(strtab.getLength() <= length);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		strtab.write(outputStream);
+		byte[] bytes = outputStream.toByteArray();
+		assertEquals(strtab.getLength(), bytes.length);
+		assertEquals(0, bytes[0]);
+
+		for (ElfSymbol symbol : symbols) {
+			int offset = strtab.find(symbol.getName());
+			int end = offset;
+			while (bytes[end] != 0) {
+				end++;
+			}
+			assertEquals(symbol.getName(), new String(bytes, offset, end - offset, StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_parallel_parse() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		File file = new File(getClass().getResource(name).toURI());
+		ElfFile elf =
+				new ElfFile.Parser(new FileInputStream(file)).setParallel(true).parse();
+
+		compareObjectFiles(name, elf);
+	}
+
+	@Test
+	public void test_hello_world_i686_linux_gnu_parallel_write() throws IOException, URISyntaxException {
+		String name = "hello-world_i686-linux-gnu.o";
+		File file = new File(getClass().getResource(name).toURI());
+		ElfFile elf = new ElfFile.Parser(new FileInputStream(file)).parse();
+
+		ElfSectionTable sectionTable = elf.getSections();
+		Collection<Writable> writables = Stream.concat(
+						List.of(elf.getHeader(), sectionTable).stream(), sectionTable.stream())
+				.collect(Collectors.toList());
+
+		File output = File.createTempFile("output", ".bin");
+		output.deleteOnExit();
+		try (FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.WRITE)) {
+			new LayoutWriter(writables).setParallel(true).write(channel);
+		}
+
+		TestUtils.assertArrayEquals(Files.readAllBytes(file.toPath()), Files.readAllBytes(output.toPath()));
+	}
+
+	private static ElfSymbolTable findSymbolTable(ElfFile elf) {
+		return elf.getSections().stream()
+				.filter(ElfSymbolTable.class::isInstance)
+				.map(ElfSymbolTable.class::cast)
+				.findFirst()
+				.orElseThrow();
+	}
+
 	private void compareObjectFiles(String name) throws IOException, URISyntaxException {
 		File file = new File(getClass().getResource(name).toURI());
 		ElfFile elf = new ElfFile.Parser(new FileInputStream(file)).parse();
 
+		compareObjectFiles(name, elf);
+	}
+
+	private void compareObjectFiles(String name, ElfFile elf) throws IOException {
 		ElfHeader header = elf.getHeader();
 		ElfSectionTable sectionTable = elf.getSections();
 		Collection<Writable> writables = Stream.concat(List.of(header, sectionTable).stream(), sectionTable.stream())
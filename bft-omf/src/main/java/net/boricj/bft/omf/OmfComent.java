@@ -14,10 +14,12 @@
 package net.boricj.bft.omf;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Objects;
 
 import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
+import net.boricj.bft.MeteredOutputStream;
 import net.boricj.bft.omf.coments.OmfComentCompiler;
 import net.boricj.bft.omf.coments.OmfComentLibrarySearch;
 import net.boricj.bft.omf.coments.OmfComentTranslator;
@@ -59,6 +61,23 @@ public abstract class OmfComent {
 	 */
 	public abstract void write(ByteOutputStream bos) throws IOException;
 
+	/**
+	 * Returns the length in bytes of the comment data (excluding the attribute byte and class byte).
+	 * <p>
+	 * Subclasses should compute their length arithmetically. The default implementation measures it by
+	 * serializing the comment data.
+	 *
+	 * @return the comment data length in bytes
+	 */
+	public long getLength() {
+		try (MeteredOutputStream outputStream = new MeteredOutputStream(OutputStream.nullOutputStream())) {
+			write(ByteOutputStream.asLittleEndian(outputStream));
+			return outputStream.getCount();
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to measure OMF comment length", e);
+		}
+	}
+
 	/**
 	 * Parse comment data and create appropriate subclass instance.
 	 *
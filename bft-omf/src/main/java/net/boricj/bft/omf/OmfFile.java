@@ -16,16 +16,22 @@ package net.boricj.bft.omf;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import net.boricj.bft.ByteInputStream;
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.IndirectList;
 import net.boricj.bft.StreamWritable;
+import net.boricj.bft.omf.constants.OmfRecordType;
 import net.boricj.bft.omf.records.OmfRecordFixupp;
 import net.boricj.bft.omf.records.OmfRecordGrpdef;
 import net.boricj.bft.omf.records.OmfRecordLedata;
@@ -41,7 +47,17 @@ import net.boricj.bft.omf.records.OmfRecordSegdef;
  */
 public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	private final List<OmfRecord> records;
+	private int modificationCount = 0;
 	private final Charset charset;
+
+	// Index tables, maintained as records are appended.
+	private final List<String> lnames = new ArrayList<>();
+	private final Map<String, List<Integer>> lnameIndexes = new HashMap<>();
+	private final Map<OmfRecord, Integer> lnamesDefinedThrough = new IdentityHashMap<>();
+	private final List<OmfRecordSegdef> segments = new ArrayList<>();
+	private final Map<OmfRecordSegdef, Integer> segmentIndexes = new IdentityHashMap<>();
+	private final List<OmfRecordGrpdef> groups = new ArrayList<>();
+	private final Map<OmfRecordGrpdef, Integer> groupIndexes = new IdentityHashMap<>();
 	private final OmfChunkingPolicy chunkingPolicy;
 
 	/**
@@ -115,7 +131,10 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 */
 	public static class Parser {
 		private final FileInputStream fis;
+		private ByteSource source;
 		private Charset charset = StandardCharsets.UTF_8;
+		private boolean zeroCopy = false;
+		private final OmfRecordFactory[] recordFactories = new OmfRecordFactory[256];
 
 		/**
 		 * Creates a new OMF file parser.
@@ -128,15 +147,46 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 			this.fis = fis;
 		}
 
+		/**
+		 * Creates a new OMF file parser for a random-access source.
+		 *
+		 * @param source the source holding an OMF module at offset 0
+		 */
+		public Parser(ByteSource source) {
+			Objects.requireNonNull(source);
+
+			this.fis = null;
+			this.source = source;
+		}
+
 		/**
 		 * Returns the file input stream being parsed.
 		 *
-		 * @return the file input stream
+		 * @return the file input stream, or null when parsing from a source
 		 */
 		public FileInputStream getFileInputStream() {
 			return fis;
 		}
 
+		/**
+		 * Returns the random-access source being parsed.
+		 *
+		 * <p>When the parser was created from a file input stream, the file is mapped into memory on first use,
+		 * starting from the current position of the stream.
+		 *
+		 * @return the source
+		 * @throws IOException if the input file cannot be mapped
+		 */
+		public ByteSource getSource() throws IOException {
+			if (source == null) {
+				FileChannel channel = fis.getChannel();
+				long position = channel.position();
+				source = ByteSource.map(channel, position, channel.size() - position);
+			}
+
+			return source;
+		}
+
 		/**
 		 * Returns the charset used for string decoding.
 		 *
@@ -160,6 +210,49 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 			return this;
 		}
 
+		/**
+		 * Enables or disables zero-copy record data.
+		 *
+		 * <p>When enabled, LEDATA payloads are exposed as read-only views over the parser source and are only
+		 * copied onto the heap when their bytes are requested as an array.
+		 *
+		 * @param zeroCopy true to keep record data as views over the source
+		 * @return this parser
+		 */
+		public Parser setZeroCopy(boolean zeroCopy) {
+			this.zeroCopy = zeroCopy;
+
+			return this;
+		}
+
+		/**
+		 * Returns whether record data is kept as views over the parser source.
+		 *
+		 * @return true if zero-copy record data is enabled
+		 */
+		public boolean isZeroCopy() {
+			return zeroCopy;
+		}
+
+		/**
+		 * Registers a custom factory for a record type.
+		 *
+		 * <p>The factory takes precedence over the one of the matching
+		 * {@link net.boricj.bft.omf.constants.OmfRecordType}, and may also handle record type bytes unknown to
+		 * this library.
+		 *
+		 * @param typeValue the record type byte, including the 16-bit or 32-bit variant bit
+		 * @param recordFactory the factory parsing records of this type
+		 * @return this parser
+		 */
+		public Parser setRecordFactory(byte typeValue, OmfRecordFactory recordFactory) {
+			Objects.requireNonNull(recordFactory);
+
+			recordFactories[typeValue & 0xFF] = recordFactory;
+
+			return this;
+		}
+
 		/**
 		 * Parses the OMF file from the input stream.
 		 *
@@ -193,15 +286,17 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 		this.charset = parser.charset;
 		this.chunkingPolicy = OmfChunkingPolicy.borland1024();
 
-		ByteInputStream bis = ByteInputStream.asLittleEndian(parser.fis);
+		ByteSource source = parser.getSource();
+		ByteInputStream bis = ByteInputStream.asLittleEndian(source.openStream(0));
 
 		// Parse records until end of file
 		while (bis.available() > 0) {
-			OmfRecord record = OmfRecord.parse(this, bis);
-			records.add(record);
+			OmfRecord record =
+					OmfRecord.parse(this, bis, parser.zeroCopy ? source : null, bis.getCount(), parser.recordFactories);
+			append(record);
 
 			// Stop if we encounter MODEND (end of module record)
-			if (record.getType().getValue() == 0x8A || record.getType().getValue() == 0x8B) {
+			if (record.getType() == OmfRecordType.MODEND) {
 				break;
 			}
 		}
@@ -233,23 +328,11 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 * @throws IndexOutOfBoundsException if the index is invalid
 	 */
 	public String getLnameByIndex(int index) {
-		if (index <= 0) {
+		if (index <= 0 || index > lnames.size()) {
 			throw new IndexOutOfBoundsException(index);
 		}
 
-		int current = 1;
-		for (OmfRecord record : records) {
-			if (record instanceof OmfRecordLnames lnames) {
-				for (String name : lnames.getNames()) {
-					if (current == index) {
-						return name;
-					}
-					current++;
-				}
-			}
-		}
-
-		throw new IndexOutOfBoundsException(index);
+		return lnames.get(index - 1);
 	}
 
 	/**
@@ -260,53 +343,40 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 * @throws IllegalStateException if the name is not defined
 	 */
 	public int indexOfLname(String name) {
-		int current = 1;
-		for (OmfRecord record : records) {
-			if (record instanceof OmfRecordLnames lnames) {
-				for (String candidate : lnames.getNames()) {
-					if (candidate.equals(name)) {
-						return current;
-					}
-					current++;
-				}
-			}
+		List<Integer> indexes = lnameIndexes.get(name);
+		if (indexes == null) {
+			throw new IllegalStateException("Name is not defined in LNAMES: " + name);
 		}
 
-		throw new IllegalStateException("Name is not defined in LNAMES: " + name);
+		return indexes.get(0);
 	}
 
 	/**
 	 * Gets the 1-based index of a name that appears before a specified record.
 	 *
+	 * <p>Names defined by the context record itself are included. If the name is defined several times, the last
+	 * definition wins. If the context record is not part of this file, all names are considered.
+	 *
 	 * @param name the name to find
 	 * @param record the context record
 	 * @return the 1-based index
 	 * @throws IllegalStateException if the name is not defined before the record
 	 */
 	public int indexOfLnameBefore(String name, OmfRecord record) {
-		int current = 1;
-		int match = -1;
-
-		for (OmfRecord rec : records) {
-			if (rec instanceof OmfRecordLnames lnames) {
-				for (String candidate : lnames.getNames()) {
-					if (candidate.equals(name)) {
-						match = current;
-					}
-					current++;
-				}
-			}
+		List<Integer> indexes = lnameIndexes.get(name);
+		int limit = lnamesDefinedThrough.getOrDefault(record, lnames.size());
 
-			if (rec == record) {
-				break;
-			}
+		if (indexes == null || indexes.get(0) > limit) {
+			throw new IllegalStateException("Name is not defined in LNAMES before context record: " + name);
 		}
 
-		if (match < 0) {
-			throw new IllegalStateException("Name is not defined in LNAMES before context record: " + name);
+		// Names are usually defined once, so this is typically a single step.
+		int position = indexes.size() - 1;
+		while (indexes.get(position) > limit) {
+			position--;
 		}
 
-		return match;
+		return indexes.get(position);
 	}
 
 	/**
@@ -317,21 +387,11 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 * @throws IndexOutOfBoundsException if the index is invalid
 	 */
 	public OmfRecordSegdef getSegmentByIndex(int index) {
-		if (index <= 0) {
+		if (index <= 0 || index > segments.size()) {
 			throw new IndexOutOfBoundsException(index);
 		}
 
-		int current = 1;
-		for (OmfRecord record : records) {
-			if (record instanceof OmfRecordSegdef segdef) {
-				if (current == index) {
-					return segdef;
-				}
-				current++;
-			}
-		}
-
-		throw new IndexOutOfBoundsException(index);
+		return segments.get(index - 1);
 	}
 
 	/**
@@ -342,17 +402,12 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 * @throws IllegalStateException if the segment is not defined
 	 */
 	public int indexOfSegment(OmfRecordSegdef segment) {
-		int current = 1;
-		for (OmfRecord record : records) {
-			if (record instanceof OmfRecordSegdef segdef) {
-				if (segdef == segment) {
-					return current;
-				}
-				current++;
-			}
+		Integer index = segmentIndexes.get(segment);
+		if (index == null) {
+			throw new IllegalStateException("Segment is not defined in this OMF file");
 		}
 
-		throw new IllegalStateException("Segment is not defined in this OMF file");
+		return index;
 	}
 
 	/**
@@ -363,21 +418,11 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 * @throws IndexOutOfBoundsException if the index is invalid
 	 */
 	public OmfRecordGrpdef getGroupByIndex(int index) {
-		if (index <= 0) {
+		if (index <= 0 || index > groups.size()) {
 			throw new IndexOutOfBoundsException(index);
 		}
 
-		int current = 1;
-		for (OmfRecord record : records) {
-			if (record instanceof OmfRecordGrpdef grpdef) {
-				if (current == index) {
-					return grpdef;
-				}
-				current++;
-			}
-		}
-
-		throw new IndexOutOfBoundsException(index);
+		return groups.get(index - 1);
 	}
 
 	/**
@@ -388,17 +433,12 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 	 * @throws IllegalStateException if the group is not defined
 	 */
 	public int indexOfGroup(OmfRecordGrpdef group) {
-		int current = 1;
-		for (OmfRecord record : records) {
-			if (record instanceof OmfRecordGrpdef grpdef) {
-				if (grpdef == group) {
-					return current;
-				}
-				current++;
-			}
+		Integer index = groupIndexes.get(group);
+		if (index == null) {
+			throw new IllegalStateException("Group is not defined in this OMF file");
 		}
 
-		throw new IllegalStateException("Group is not defined in this OMF file");
+		return index;
 	}
 
 	@Override
@@ -418,9 +458,46 @@ public class OmfFile implements IndirectList<OmfRecord>, StreamWritable {
 								+ lastRecord.getClass().getSimpleName());
 			}
 		}
+		return append(record);
+	}
+
+	private boolean append(OmfRecord record) {
+		if (record instanceof OmfRecordLnames lnamesRecord) {
+			for (String name : lnamesRecord.getNames()) {
+				lnames.add(name);
+				lnameIndexes.computeIfAbsent(name, k -> new ArrayList<>(1)).add(lnames.size());
+			}
+		} else if (record instanceof OmfRecordSegdef segdef) {
+			segments.add(segdef);
+			segmentIndexes.putIfAbsent(segdef, segments.size());
+		} else if (record instanceof OmfRecordGrpdef grpdef) {
+			groups.add(grpdef);
+			groupIndexes.putIfAbsent(grpdef, groups.size());
+		}
+		lnamesDefinedThrough.putIfAbsent(record, lnames.size());
+
+		modificationCount++;
 		return records.add(record);
 	}
 
+	/**
+	 * Returns a counter incremented whenever records are added to this file.
+	 *
+	 * @return the modification count
+	 */
+	int getModificationCount() {
+		return modificationCount;
+	}
+
+	@Override
+	public long getLength() {
+		long length = 0;
+		for (OmfRecord record : records) {
+			length += record.getLength();
+		}
+		return length;
+	}
+
 	@Override
 	public void write(OutputStream outputStream) throws IOException {
 		StreamWritable.write(records, outputStream);
@@ -0,0 +1,628 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import net.boricj.bft.ByteSource;
+
+/**
+ * OMF library, a collection of object modules indexed by a dictionary of public symbols.
+ *
+ * <p>A library starts with a LIBHDR record whose length sets the page size. Each module starts on a page
+ * boundary and is referenced by its page number. The modules are followed by a LIBEND record padding the file
+ * up to the dictionary, made of 512-byte blocks of hashed buckets mapping symbol names to module pages. An
+ * optional extended dictionary with the dependencies between modules follows the dictionary.
+ *
+ * <p>The library is read lazily from its source: symbol lookups only probe the dictionary blocks along the hash
+ * sequence of the name, and modules are only parsed when requested.
+ */
+public final class OmfLibrary {
+	/** Size in bytes of a dictionary block. */
+	public static final int DICTIONARY_BLOCK_SIZE = 512;
+
+	/** Library header record type. */
+	static final int LIBHDR = 0xF0;
+	/** Library end record type. */
+	static final int LIBEND = 0xF1;
+	/** Extended dictionary record type. */
+	static final int EXTDICT = 0xF2;
+	/** Library header flag for case-sensitive dictionaries. */
+	static final int FLAG_CASE_SENSITIVE = 0x01;
+
+	// Offset within a dictionary block of the byte holding its free space pointer.
+	static final int FREE_SPACE_OFFSET = OmfLibraryHash.BUCKET_COUNT;
+	// Free space pointer of a block that couldn't fit more entries.
+	static final int BLOCK_FULL = 0xFF;
+
+	private final ByteSource source;
+	private final Charset charset;
+	private final boolean zeroCopy;
+	private final int pageSize;
+	private final long dictionaryOffset;
+	private final int dictionaryBlockCount;
+	private final int flags;
+
+	private final Map<Integer, Module> modules = new HashMap<>();
+	private List<Module> moduleList;
+	private Map<Module, List<Module>> dependencies;
+
+	/**
+	 * Parser for reading OMF libraries from random-access sources.
+	 */
+	public static class Parser {
+		private final ByteSource source;
+		private Charset charset = StandardCharsets.UTF_8;
+		private boolean zeroCopy = false;
+
+		/**
+		 * Creates a new OMF library parser.
+		 *
+		 * @param source the source holding an OMF library at offset 0
+		 */
+		public Parser(ByteSource source) {
+			Objects.requireNonNull(source);
+
+			this.source = source;
+		}
+
+		/**
+		 * Returns the random-access source being parsed.
+		 *
+		 * @return the source
+		 */
+		public ByteSource getSource() {
+			return source;
+		}
+
+		/**
+		 * Returns the charset used for string decoding.
+		 *
+		 * @return the charset
+		 */
+		public Charset getCharset() {
+			return charset;
+		}
+
+		/**
+		 * Sets the charset used for string decoding, in the dictionary and in the modules.
+		 *
+		 * @param charset the charset to use
+		 * @return this parser
+		 */
+		public Parser setCharset(Charset charset) {
+			Objects.requireNonNull(charset);
+
+			this.charset = charset;
+
+			return this;
+		}
+
+		/**
+		 * Enables or disables zero-copy record data when parsing modules.
+		 *
+		 * @param zeroCopy true to keep record data as views over the source
+		 * @return this parser
+		 * @see OmfFile.Parser#setZeroCopy(boolean)
+		 */
+		public Parser setZeroCopy(boolean zeroCopy) {
+			this.zeroCopy = zeroCopy;
+
+			return this;
+		}
+
+		/**
+		 * Returns whether record data of parsed modules is kept as views over the source.
+		 *
+		 * @return true if zero-copy record data is enabled
+		 */
+		public boolean isZeroCopy() {
+			return zeroCopy;
+		}
+
+		/**
+		 * Parses the library header.
+		 *
+		 * <p>Only the LIBHDR record is read, the modules and the dictionary are accessed on demand.
+		 *
+		 * @return the library
+		 * @throws IllegalStateException if the source doesn't hold a valid OMF library header
+		 */
+		public OmfLibrary parse() {
+			return new OmfLibrary(this);
+		}
+	}
+
+	/**
+	 * Object module stored within a library.
+	 */
+	public final class Module {
+		private final int page;
+		private String name;
+
+		private Module(int page) {
+			this.page = page;
+		}
+
+		/**
+		 * Returns the library owning this module.
+		 *
+		 * @return the library
+		 */
+		public OmfLibrary getLibrary() {
+			return OmfLibrary.this;
+		}
+
+		/**
+		 * Returns the page number of this module.
+		 *
+		 * @return the page number
+		 */
+		public int getPage() {
+			return page;
+		}
+
+		/**
+		 * Returns the offset of this module within the library.
+		 *
+		 * @return the module offset
+		 */
+		public long getOffset() {
+			return (long) page * pageSize;
+		}
+
+		/**
+		 * Returns the module name, read from its THEADR record.
+		 *
+		 * @return the module name
+		 * @throws IllegalStateException if the module doesn't start with a THEADR record
+		 */
+		public synchronized String getName() {
+			if (name == null) {
+				ByteSource module = getSource();
+				if (!OmfProbe.isOmf(module)) {
+					throw new IllegalStateException(String.format("Malformed OMF library: no module at page %d", page));
+				}
+				name = OmfProbe.probe(module, false, charset).getName();
+			}
+
+			return name;
+		}
+
+		/**
+		 * Returns the source of this module, from its THEADR record up to the end of the module area.
+		 *
+		 * @return the module source
+		 */
+		public ByteSource getSource() {
+			long offset = getOffset();
+			return ByteSource.wrap(source.slice(offset, dictionaryOffset - offset));
+		}
+
+		/**
+		 * Parses this module, up to its MODEND record.
+		 *
+		 * @return the parsed module
+		 * @throws IOException if parsing fails due to invalid data
+		 */
+		public OmfFile parse() throws IOException {
+			return new OmfFile.Parser(getSource())
+					.setCharset(charset)
+					.setZeroCopy(zeroCopy)
+					.parse();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Module[page=%d]", page);
+		}
+	}
+
+	private OmfLibrary(Parser parser) {
+		this.source = parser.source;
+		this.charset = parser.charset;
+		this.zeroCopy = parser.zeroCopy;
+
+		if (!isLibrary(source)) {
+			throw new IllegalStateException("Malformed OMF library: missing LIBHDR record");
+		}
+
+		ByteBuffer header = source.slice(0, 10).order(ByteOrder.LITTLE_ENDIAN);
+		this.pageSize = Short.toUnsignedInt(header.getShort(1)) + 3;
+		this.dictionaryOffset = Integer.toUnsignedLong(header.getInt(3));
+		this.dictionaryBlockCount = Short.toUnsignedInt(header.getShort(7));
+		this.flags = Byte.toUnsignedInt(header.get(9));
+
+		long dictionaryEnd = dictionaryOffset + (long) dictionaryBlockCount * DICTIONARY_BLOCK_SIZE;
+		if (dictionaryOffset < pageSize || dictionaryEnd > source.length()) {
+			throw new IllegalStateException(String.format(
+					"Malformed OMF library: dictionary [0x%x, 0x%x) out of bounds (length 0x%x)",
+					dictionaryOffset, dictionaryEnd, source.length()));
+		}
+	}
+
+	/**
+	 * Checks whether a source starts with a plausible LIBHDR record.
+	 *
+	 * @param source the source to check
+	 * @return true if the source starts like an OMF library
+	 */
+	public static boolean isLibrary(ByteSource source) {
+		Objects.requireNonNull(source);
+
+		if (source.length() < 10) {
+			return false;
+		}
+
+		ByteBuffer header = source.slice(0, 3).order(ByteOrder.LITTLE_ENDIAN);
+		int pageSize = Short.toUnsignedInt(header.getShort(1)) + 3;
+		return Byte.toUnsignedInt(header.get(0)) == LIBHDR
+				&& pageSize >= 16
+				&& Integer.bitCount(pageSize) == 1
+				&& pageSize <= source.length();
+	}
+
+	/**
+	 * Returns the charset used for string decoding.
+	 *
+	 * @return the charset
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Returns the page size, to which modules are aligned.
+	 *
+	 * @return the page size in bytes
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Returns the offset of the dictionary within the library.
+	 *
+	 * @return the dictionary offset
+	 */
+	public long getDictionaryOffset() {
+		return dictionaryOffset;
+	}
+
+	/**
+	 * Returns the number of 512-byte dictionary blocks.
+	 *
+	 * @return the dictionary block count
+	 */
+	public int getDictionaryBlockCount() {
+		return dictionaryBlockCount;
+	}
+
+	/**
+	 * Returns whether dictionary lookups are case-sensitive.
+	 *
+	 * @return true if symbol names are compared case-sensitively
+	 */
+	public boolean isCaseSensitive() {
+		return (flags & FLAG_CASE_SENSITIVE) != 0;
+	}
+
+	/**
+	 * Finds the module defining a public symbol through the dictionary.
+	 *
+	 * <p>Only the dictionary blocks along the hash sequence of the name are read, no module is parsed.
+	 *
+	 * @param symbol the symbol name
+	 * @return the module defining the symbol
+	 * @throws NoSuchElementException if the symbol is not in the dictionary
+	 * @throws IllegalStateException if the dictionary entry references a page outside of the module area
+	 */
+	public Module findModule(String symbol) {
+		Objects.requireNonNull(symbol);
+
+		byte[] name = symbol.getBytes(charset);
+		if (name.length == 0 || name.length > 0xFF || dictionaryBlockCount == 0) {
+			throw new NoSuchElementException(symbol);
+		}
+
+		OmfLibraryHash hash = OmfLibraryHash.of(name, dictionaryBlockCount);
+		int block = hash.blockIndex();
+		for (int blocks = 0; blocks < dictionaryBlockCount; blocks++) {
+			ByteBuffer buffer = readBlock(block);
+
+			int bucket = hash.bucketIndex();
+			for (int buckets = 0; buckets < OmfLibraryHash.BUCKET_COUNT; buckets++) {
+				int entry = Byte.toUnsignedInt(buffer.get(bucket)) * 2;
+				if (entry == 0) {
+					// Entries overflow into the next block only once a block runs out of space.
+					if (Byte.toUnsignedInt(buffer.get(FREE_SPACE_OFFSET)) != BLOCK_FULL) {
+						throw new NoSuchElementException(symbol);
+					}
+					break;
+				}
+
+				if (matches(buffer, entry, name)) {
+					int page = Short.toUnsignedInt(buffer.getShort(entry + 1 + name.length));
+					return getReferencedModule(page, "dictionary entry " + symbol);
+				}
+				bucket = (bucket + hash.bucketDelta()) % OmfLibraryHash.BUCKET_COUNT;
+			}
+
+			block = (block + hash.blockDelta()) % dictionaryBlockCount;
+		}
+
+		throw new NoSuchElementException(symbol);
+	}
+
+	/**
+	 * Finds the modules defining a set of public symbols through the dictionary.
+	 *
+	 * <p>Symbols missing from the dictionary are left out of the result.
+	 *
+	 * @param symbols the symbol names
+	 * @return the modules defining the symbols, keyed by symbol name in iteration order
+	 */
+	public Map<String, Module> findModules(Iterable<String> symbols) {
+		Objects.requireNonNull(symbols);
+
+		Map<String, Module> result = new LinkedHashMap<>();
+		for (String symbol : symbols) {
+			try {
+				result.put(symbol, findModule(symbol));
+			} catch (NoSuchElementException e) {
+				// Unresolved symbol.
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns all the entries of the dictionary, in block and bucket order.
+	 *
+	 * @return the modules referenced by the dictionary, keyed by symbol name
+	 * @throws IllegalStateException if a dictionary entry is malformed
+	 */
+	public Map<String, Module> getDictionary() {
+		Map<String, Module> entries = new LinkedHashMap<>();
+		for (int block = 0; block < dictionaryBlockCount; block++) {
+			ByteBuffer buffer = readBlock(block);
+
+			for (int bucket = 0; bucket < OmfLibraryHash.BUCKET_COUNT; bucket++) {
+				int entry = Byte.toUnsignedInt(buffer.get(bucket)) * 2;
+				if (entry == 0) {
+					continue;
+				}
+
+				int length = entry < DICTIONARY_BLOCK_SIZE ? Byte.toUnsignedInt(buffer.get(entry)) : -1;
+				if (length < 0 || entry + 1 + length + 2 > DICTIONARY_BLOCK_SIZE) {
+					throw new IllegalStateException(String.format(
+							"Malformed OMF library: dictionary entry at block %d bucket %d out of bounds",
+							block, bucket));
+				}
+
+				byte[] name = new byte[length];
+				buffer.get(entry + 1, name);
+				int page = Short.toUnsignedInt(buffer.getShort(entry + 1 + length));
+				String symbol = new String(name, charset);
+				entries.put(symbol, getReferencedModule(page, "dictionary entry " + symbol));
+			}
+		}
+
+		return Collections.unmodifiableMap(entries);
+	}
+
+	/**
+	 * Returns the modules of the library, in file order.
+	 *
+	 * <p>The modules are found by walking the record headers from the first page, skipping the padding after
+	 * each MODEND record, up to the LIBEND record.
+	 *
+	 * @return the modules
+	 * @throws IllegalStateException if a record lies outside of the module area
+	 */
+	public synchronized List<Module> getModules() {
+		if (moduleList == null) {
+			List<Module> list = new ArrayList<>();
+
+			long offset = pageSize;
+			long moduleStart = offset;
+			while (offset < dictionaryOffset) {
+				if (offset + 3 > dictionaryOffset) {
+					throw new IllegalStateException(
+							String.format("Malformed OMF library: truncated record at 0x%x", offset));
+				}
+
+				ByteBuffer header = source.slice(offset, 3).order(ByteOrder.LITTLE_ENDIAN);
+				int type = Byte.toUnsignedInt(header.get(0));
+				if (type == LIBEND) {
+					break;
+				}
+				if (offset == moduleStart) {
+					list.add(getModule((int) (offset / pageSize)));
+				}
+
+				offset += 3 + Short.toUnsignedInt(header.getShort(1));
+				if (offset > dictionaryOffset) {
+					throw new IllegalStateException(String.format(
+							"Malformed OMF library: record at 0x%x extends past the module area", moduleStart));
+				}
+				if ((type & 0xFE) == 0x8A) {
+					offset = alignUp(offset, pageSize);
+					moduleStart = offset;
+				}
+			}
+
+			moduleList = Collections.unmodifiableList(list);
+		}
+
+		return moduleList;
+	}
+
+	/**
+	 * Returns the module starting at a page.
+	 *
+	 * @param page the page number of the module
+	 * @return the module
+	 * @throws IndexOutOfBoundsException if the page lies outside of the module area
+	 */
+	public synchronized Module getModule(int page) {
+		if (page <= 0 || (long) page * pageSize >= dictionaryOffset) {
+			throw new IndexOutOfBoundsException(String.format("page %d out of module area", page));
+		}
+
+		return modules.computeIfAbsent(page, Module::new);
+	}
+
+	/**
+	 * Returns whether the library has an extended dictionary.
+	 *
+	 * @return true if an extended dictionary follows the dictionary
+	 */
+	public boolean hasExtendedDictionary() {
+		long offset = dictionaryOffset + (long) dictionaryBlockCount * DICTIONARY_BLOCK_SIZE;
+		return offset + 5 <= source.length()
+				&& Byte.toUnsignedInt(source.slice(offset, 1).get(0)) == EXTDICT;
+	}
+
+	/**
+	 * Returns the modules a module depends on, according to the extended dictionary.
+	 *
+	 * <p>The extended dictionary is an F2 record holding the module count, a table of module page numbers and
+	 * dependency list offsets terminated by an extra entry, then the dependency lists. Each list enumerates
+	 * 1-based module numbers and is terminated by 0. Offsets are counted from the module count field.
+	 *
+	 * @param module the module
+	 * @return the modules it depends on
+	 * @throws NoSuchElementException if the library has no extended dictionary or the module isn't listed in it
+	 * @throws IllegalStateException if the extended dictionary is malformed
+	 */
+	public List<Module> getDependencies(Module module) {
+		Objects.requireNonNull(module);
+
+		List<Module> result = readExtendedDictionary().get(module);
+		if (result == null) {
+			throw new NoSuchElementException(module.toString());
+		}
+
+		return result;
+	}
+
+	private synchronized Map<Module, List<Module>> readExtendedDictionary() {
+		if (dependencies != null) {
+			return dependencies;
+		}
+		if (!hasExtendedDictionary()) {
+			throw new NoSuchElementException("no extended dictionary");
+		}
+
+		long offset = dictionaryOffset + (long) dictionaryBlockCount * DICTIONARY_BLOCK_SIZE;
+		int length = Short.toUnsignedInt(
+				source.slice(offset + 1, 2).order(ByteOrder.LITTLE_ENDIAN).getShort());
+		if (length < 2 || offset + 3 + length > source.length()) {
+			throw new IllegalStateException("Malformed OMF library: extended dictionary out of bounds");
+		}
+
+		ByteBuffer buffer = source.slice(offset + 3, length).order(ByteOrder.LITTLE_ENDIAN);
+		int count = Short.toUnsignedInt(buffer.getShort(0));
+		if (2 + (count + 1) * 4 > length) {
+			throw new IllegalStateException("Malformed OMF library: truncated extended dictionary module table");
+		}
+
+		List<Module> table = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int page = Short.toUnsignedInt(buffer.getShort(2 + i * 4));
+			table.add(getReferencedModule(page, "extended dictionary module " + (i + 1)));
+		}
+
+		Map<Module, List<Module>> result = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			int listOffset = Short.toUnsignedInt(buffer.getShort(2 + i * 4 + 2));
+
+			List<Module> list = new ArrayList<>();
+			while (true) {
+				if (listOffset + 2 > length) {
+					throw new IllegalStateException(
+							"Malformed OMF library: truncated extended dictionary dependency list");
+				}
+				int number = Short.toUnsignedInt(buffer.getShort(listOffset));
+				if (number == 0) {
+					break;
+				}
+				if (number > count) {
+					throw new IllegalStateException(
+							"Malformed OMF library: extended dictionary module number out of range: " + number);
+				}
+				list.add(table.get(number - 1));
+				listOffset += 2;
+			}
+
+			result.put(table.get(i), Collections.unmodifiableList(list));
+		}
+
+		dependencies = result;
+		return dependencies;
+	}
+
+	private Module getReferencedModule(int page, String reference) {
+		if (page <= 0 || (long) page * pageSize >= dictionaryOffset) {
+			throw new IllegalStateException(String.format(
+					"Malformed OMF library: %s references page %d outside of the module area", reference, page));
+		}
+
+		return getModule(page);
+	}
+
+	private ByteBuffer readBlock(int block) {
+		return source.slice(dictionaryOffset + (long) block * DICTIONARY_BLOCK_SIZE, DICTIONARY_BLOCK_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private boolean matches(ByteBuffer block, int entry, byte[] name) {
+		if (entry + 1 + name.length + 2 > DICTIONARY_BLOCK_SIZE
+				|| Byte.toUnsignedInt(block.get(entry)) != name.length) {
+			return false;
+		}
+
+		boolean caseSensitive = isCaseSensitive();
+		for (int i = 0; i < name.length; i++) {
+			byte actual = block.get(entry + 1 + i);
+			if (actual != name[i] && (caseSensitive || toLowerAscii(actual) != toLowerAscii(name[i]))) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static byte toLowerAscii(byte value) {
+		return value >= 'A' && value <= 'Z' ? (byte) (value | 0x20) : value;
+	}
+
+	static long alignUp(long offset, int alignment) {
+		return (offset + alignment - 1) / alignment * alignment;
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+/**
+ * Hash of a symbol name within an OMF library dictionary.
+ *
+ * <p>The dictionary is made of 512-byte blocks holding 37 buckets each. A name is looked up starting from its
+ * block and bucket indexes, moving by the block and bucket deltas until found. The four values are computed as
+ * described by the OMF specification, seeded with the name length and scanning the name from both ends with
+ * ASCII letters folded to lower case.
+ *
+ * @param blockIndex index of the first block to probe
+ * @param blockDelta distance between probed blocks
+ * @param bucketIndex index of the first bucket to probe within a block
+ * @param bucketDelta distance between probed buckets
+ */
+record OmfLibraryHash(int blockIndex, int blockDelta, int bucketIndex, int bucketDelta) {
+	/** Number of buckets in a dictionary block. */
+	static final int BUCKET_COUNT = 37;
+
+	/**
+	 * Hashes a symbol name.
+	 *
+	 * @param name the encoded name, without its length byte
+	 * @param blockCount the number of dictionary blocks
+	 * @return the hash of the name
+	 * @throws IllegalArgumentException if the name is empty or longer than 255 bytes
+	 */
+	static OmfLibraryHash of(byte[] name, int blockCount) {
+		if (name.length == 0 || name.length > 0xFF) {
+			throw new IllegalArgumentException("Invalid dictionary name length: " + name.length);
+		}
+		if (blockCount <= 0) {
+			throw new IllegalArgumentException("blockCount must be positive: " + blockCount);
+		}
+
+		// The backward scan covers every character, the forward scan all but the last one.
+		int length = name.length;
+		int front = 0;
+		int back = length;
+		int blockX = length | 0x20;
+		int bucketD = blockX;
+		int blockD = 0;
+		int bucketX = 0;
+		while (true) {
+			int cback = (name[back - 1] & 0xFF) | 0x20;
+			back--;
+			bucketX = rotateRight(bucketX, 2) ^ cback;
+			blockD = rotateLeft(blockD, 2) ^ cback;
+			if (--length == 0) {
+				break;
+			}
+
+			int cfront = (name[front] & 0xFF) | 0x20;
+			front++;
+			blockX = rotateLeft(blockX, 2) ^ cfront;
+			bucketD = rotateRight(bucketD, 2) ^ cfront;
+		}
+
+		int blockDelta = blockD % blockCount;
+		int bucketDelta = bucketD % BUCKET_COUNT;
+		return new OmfLibraryHash(
+				blockX % blockCount,
+				blockDelta == 0 ? 1 : blockDelta,
+				bucketX % BUCKET_COUNT,
+				bucketDelta == 0 ? 1 : bucketDelta);
+	}
+
+	private static int rotateLeft(int value, int distance) {
+		return ((value << distance) | (value >>> (16 - distance))) & 0xFFFF;
+	}
+
+	private static int rotateRight(int value, int distance) {
+		return ((value >>> distance) | (value << (16 - distance))) & 0xFFFF;
+	}
+}
@@ -0,0 +1,486 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.boricj.bft.omf.constants.OmfRecordType;
+import net.boricj.bft.omf.records.OmfRecordExtdef;
+import net.boricj.bft.omf.records.OmfRecordPubdef;
+import net.boricj.bft.omf.records.OmfSubrecordExtdef;
+
+import static net.boricj.bft.omf.OmfLibrary.BLOCK_FULL;
+import static net.boricj.bft.omf.OmfLibrary.DICTIONARY_BLOCK_SIZE;
+import static net.boricj.bft.omf.OmfLibrary.FREE_SPACE_OFFSET;
+
+/**
+ * Writes OMF object modules into an OMF library, along with its dictionary of public symbols.
+ *
+ * <p>Modules are laid out in order on page boundaries after the LIBHDR record. The dictionary maps the names of
+ * the PUBDEF symbols of every module to the page of that module. Its block count is the smallest prime that
+ * holds all entries, grown to the next prime whenever an entry overflows every block along its hash sequence.
+ * The extended dictionary, when enabled, lists for each module the modules defining its EXTDEF symbols.
+ *
+ * <p>Modules can be serialized and scanned for symbols concurrently. Dictionary entries are inserted in module
+ * and record order either way, so the output is identical for the same modules and settings.
+ */
+public final class OmfLibraryWriter {
+	/** Default page size, the smallest one allowed. */
+	public static final int DEFAULT_PAGE_SIZE = 16;
+
+	// Bytes of a dictionary block available for entries, after the buckets and the free space pointer.
+	private static final int BLOCK_CAPACITY = DICTIONARY_BLOCK_SIZE - FREE_SPACE_OFFSET - 1;
+
+	private final List<OmfFile> modules;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+	private boolean caseSensitive = false;
+	private boolean extendedDictionary = false;
+	private boolean parallel = false;
+
+	// Serialized module with the names it defines and references, encoded with the module charset.
+	private record ModuleImage(byte[] bytes, List<byte[]> publics, List<byte[]> externs) {}
+
+	// Dictionary entry pointing to the page of the defining module.
+	private record Entry(byte[] name, int page) {}
+
+	/**
+	 * Creates a library writer.
+	 *
+	 * @param modules the object modules, in library order
+	 */
+	public OmfLibraryWriter(Collection<OmfFile> modules) {
+		Objects.requireNonNull(modules);
+
+		this.modules = List.copyOf(modules);
+	}
+
+	/**
+	 * Returns the page size, to which modules are aligned.
+	 *
+	 * @return the page size in bytes
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Sets the page size, to which modules are aligned.
+	 *
+	 * <p>Modules are referenced by 16-bit page numbers, so larger libraries need larger pages.
+	 *
+	 * @param pageSize the page size in bytes, a power of two between 16 and 32768
+	 * @return this library writer
+	 * @throws IllegalArgumentException if the page size is invalid
+	 */
+	public OmfLibraryWriter setPageSize(int pageSize) {
+		if (pageSize < 16 || pageSize > 0x8000 || Integer.bitCount(pageSize) != 1) {
+			throw new IllegalArgumentException("Invalid library page size: " + pageSize);
+		}
+
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	/**
+	 * Returns whether the dictionary is case-sensitive.
+	 *
+	 * @return true if symbol names are compared case-sensitively
+	 */
+	public boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
+	/**
+	 * Sets whether the dictionary is case-sensitive.
+	 *
+	 * <p>Public symbols must be unique under the selected comparison.
+	 *
+	 * @param caseSensitive true to compare symbol names case-sensitively
+	 * @return this library writer
+	 */
+	public OmfLibraryWriter setCaseSensitive(boolean caseSensitive) {
+		this.caseSensitive = caseSensitive;
+		return this;
+	}
+
+	/**
+	 * Returns whether an extended dictionary is written after the dictionary.
+	 *
+	 * @return true if the extended dictionary is enabled
+	 */
+	public boolean isExtendedDictionary() {
+		return extendedDictionary;
+	}
+
+	/**
+	 * Enables or disables the extended dictionary with the dependencies between modules.
+	 *
+	 * @param extendedDictionary true to write the extended dictionary
+	 * @return this library writer
+	 * @see OmfLibrary#getDependencies(OmfLibrary.Module)
+	 */
+	public OmfLibraryWriter setExtendedDictionary(boolean extendedDictionary) {
+		this.extendedDictionary = extendedDictionary;
+		return this;
+	}
+
+	/**
+	 * Returns whether modules are serialized concurrently.
+	 *
+	 * @return true if parallel serialization is enabled
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Enables or disables parallel serialization of the modules.
+	 *
+	 * <p>Each module is then serialized and scanned for symbols on its own virtual thread. Modules must not be
+	 * modified while the library is written.
+	 *
+	 * @param parallel true to serialize modules concurrently
+	 * @return this library writer
+	 */
+	public OmfLibraryWriter setParallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * Writes the library to an output stream.
+	 *
+	 * @param outputStream stream to write to
+	 * @throws IOException if serializing a module or writing fails
+	 * @throws IllegalArgumentException if a module doesn't end with MODEND or if public symbols are duplicated
+	 * @throws IllegalStateException if the library doesn't fit the page size or the dictionary
+	 */
+	public void write(OutputStream outputStream) throws IOException {
+		Objects.requireNonNull(outputStream);
+
+		List<ModuleImage> images = parallel ? scanParallel() : scan();
+
+		// Lay out the modules on page boundaries.
+		int[] pages = new int[images.size()];
+		long offset = pageSize;
+		for (int i = 0; i < images.size(); i++) {
+			long page = offset / pageSize;
+			if (page > 0xFFFF) {
+				throw new IllegalStateException(String.format(
+						"Library too large for page size %d: module %d starts at page %d", pageSize, i, page));
+			}
+			pages[i] = (int) page;
+			offset = OmfLibrary.alignUp(offset + images.get(i).bytes().length, pageSize);
+		}
+
+		// LIBEND pads the module area up to the dictionary, which starts on a block boundary.
+		long dictionaryOffset = OmfLibrary.alignUp(offset + 3, DICTIONARY_BLOCK_SIZE);
+		if (dictionaryOffset > 0xFFFFFFFFL) {
+			throw new IllegalStateException("Library too large: dictionary offset " + dictionaryOffset);
+		}
+
+		List<Entry> entries = new ArrayList<>();
+		Map<String, Integer> definitions = new HashMap<>();
+		for (int i = 0; i < images.size(); i++) {
+			for (byte[] name : images.get(i).publics()) {
+				Integer previous = definitions.putIfAbsent(key(name), i);
+				if (previous != null) {
+					throw new IllegalArgumentException(String.format(
+							"Duplicate public symbol %s in modules %d and %d",
+							new String(name, modules.get(i).getCharset()), previous, i));
+				}
+				entries.add(new Entry(name, pages[i]));
+			}
+		}
+		byte[] dictionary = buildDictionary(entries);
+
+		ByteBuffer header = ByteBuffer.allocate(pageSize).order(ByteOrder.LITTLE_ENDIAN);
+		header.put((byte) OmfLibrary.LIBHDR);
+		header.putShort((short) (pageSize - 3));
+		header.putInt((int) dictionaryOffset);
+		header.putShort((short) (dictionary.length / DICTIONARY_BLOCK_SIZE));
+		header.put((byte) (caseSensitive ? OmfLibrary.FLAG_CASE_SENSITIVE : 0));
+		outputStream.write(header.array());
+
+		long position = pageSize;
+		for (int i = 0; i < images.size(); i++) {
+			byte[] bytes = images.get(i).bytes();
+			outputStream.write(bytes);
+			position += bytes.length;
+
+			long padding = OmfLibrary.alignUp(position, pageSize) - position;
+			outputStream.write(new byte[(int) padding]);
+			position += padding;
+		}
+
+		int libendLength = (int) (dictionaryOffset - position - 3);
+		outputStream.write(OmfLibrary.LIBEND);
+		outputStream.write(libendLength & 0xFF);
+		outputStream.write(libendLength >> 8);
+		outputStream.write(new byte[libendLength]);
+
+		outputStream.write(dictionary);
+
+		if (extendedDictionary) {
+			outputStream.write(buildExtendedDictionary(images, pages, definitions));
+		}
+	}
+
+	private List<ModuleImage> scan() throws IOException {
+		List<ModuleImage> images = new ArrayList<>(modules.size());
+		for (int i = 0; i < modules.size(); i++) {
+			images.add(scan(modules.get(i), i));
+		}
+
+		return images;
+	}
+
+	private List<ModuleImage> scanParallel() throws IOException {
+		List<Future<ModuleImage>> futures = new ArrayList<>(modules.size());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < modules.size(); i++) {
+				OmfFile module = modules.get(i);
+				int index = i;
+				futures.add(executor.submit(() -> scan(module, index)));
+			}
+		}
+
+		List<ModuleImage> images = new ArrayList<>(modules.size());
+		for (Future<ModuleImage> future : futures) {
+			try {
+				images.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("interrupted while writing", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException ioException) {
+					throw ioException;
+				} else if (cause instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				} else if (cause instanceof Error error) {
+					throw error;
+				}
+				throw new IOException(cause);
+			}
+		}
+
+		return images;
+	}
+
+	private static ModuleImage scan(OmfFile module, int index) throws IOException {
+		List<OmfRecord> records = module.getElements();
+		if (records.isEmpty() || records.get(records.size() - 1).getType() != OmfRecordType.MODEND) {
+			throw new IllegalArgumentException("Module " + index + " doesn't end with a MODEND record");
+		}
+
+		List<byte[]> publics = new ArrayList<>();
+		List<byte[]> externs = new ArrayList<>();
+		for (OmfRecord record : records) {
+			if (record instanceof OmfRecordPubdef pubdef) {
+				for (OmfRecordPubdef.PublicSymbol symbol : pubdef.getSymbols()) {
+					publics.add(encodeName(module, symbol.name()));
+				}
+			} else if (record instanceof OmfRecordExtdef extdef) {
+				for (OmfSubrecordExtdef entry : extdef.getElements()) {
+					externs.add(encodeName(module, entry.name()));
+				}
+			}
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) module.getLength());
+		module.write(bytes);
+		return new ModuleImage(bytes.toByteArray(), publics, externs);
+	}
+
+	private static byte[] encodeName(OmfFile module, String name) {
+		byte[] encoded = name.getBytes(module.getCharset());
+		if (encoded.length == 0 || encoded.length > 0xFF) {
+			throw new IllegalArgumentException("Invalid dictionary name length: " + encoded.length);
+		}
+
+		return encoded;
+	}
+
+	private byte[] buildDictionary(List<Entry> entries) {
+		long count = entries.size();
+		long size = 0;
+		for (Entry entry : entries) {
+			size += entrySize(entry);
+		}
+
+		int blockCount = nextPrime((int) Math.max(
+				(count + OmfLibraryHash.BUCKET_COUNT - 1) / OmfLibraryHash.BUCKET_COUNT,
+				(size + BLOCK_CAPACITY - 1) / BLOCK_CAPACITY));
+		while (blockCount <= 0xFFFF) {
+			byte[] dictionary = tryBuildDictionary(entries, blockCount);
+			if (dictionary != null) {
+				return dictionary;
+			}
+
+			blockCount = nextPrime(blockCount + 1);
+		}
+
+		throw new IllegalStateException("Library dictionary overflow: " + count + " entries");
+	}
+
+	// Inserts the entries along their hash sequences, returns null if one of them doesn't fit.
+	private static byte[] tryBuildDictionary(List<Entry> entries, int blockCount) {
+		ByteBuffer dictionary =
+				ByteBuffer.allocate(blockCount * DICTIONARY_BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		for (int block = 0; block < blockCount; block++) {
+			dictionary.put(block * DICTIONARY_BLOCK_SIZE + FREE_SPACE_OFFSET, (byte) ((FREE_SPACE_OFFSET + 1) / 2));
+		}
+
+		for (Entry entry : entries) {
+			if (!insert(dictionary, blockCount, entry)) {
+				return null;
+			}
+		}
+
+		return dictionary.array();
+	}
+
+	private static boolean insert(ByteBuffer dictionary, int blockCount, Entry entry) {
+		OmfLibraryHash hash = OmfLibraryHash.of(entry.name(), blockCount);
+		int size = entrySize(entry);
+
+		int block = hash.blockIndex();
+		for (int blocks = 0; blocks < blockCount; blocks++) {
+			int base = block * DICTIONARY_BLOCK_SIZE;
+			int free = Byte.toUnsignedInt(dictionary.get(base + FREE_SPACE_OFFSET));
+			if (free != BLOCK_FULL && free * 2 + size > DICTIONARY_BLOCK_SIZE) {
+				// Lookups only move on to the next block past an empty bucket once this one is marked full.
+				dictionary.put(base + FREE_SPACE_OFFSET, (byte) BLOCK_FULL);
+			} else if (free != BLOCK_FULL) {
+				int bucket = hash.bucketIndex();
+				for (int buckets = 0; buckets < OmfLibraryHash.BUCKET_COUNT; buckets++) {
+					if (dictionary.get(base + bucket) == 0) {
+						int position = base + free * 2;
+						dictionary.put(base + bucket, (byte) free);
+						dictionary.put(position, (byte) entry.name().length);
+						dictionary.put(position + 1, entry.name());
+						dictionary.putShort(position + 1 + entry.name().length, (short) entry.page());
+
+						int next = free + size / 2;
+						dictionary.put(base + FREE_SPACE_OFFSET, (byte)
+								(next * 2 >= DICTIONARY_BLOCK_SIZE ? BLOCK_FULL : next));
+						return true;
+					}
+					bucket = (bucket + hash.bucketDelta()) % OmfLibraryHash.BUCKET_COUNT;
+				}
+			}
+
+			block = (block + hash.blockDelta()) % blockCount;
+		}
+
+		return false;
+	}
+
+	// Entries are a length-prefixed name followed by a page number, aligned on 16-bit words.
+	private static int entrySize(Entry entry) {
+		return (1 + entry.name().length + 2 + 1) & ~1;
+	}
+
+	private byte[] buildExtendedDictionary(List<ModuleImage> images, int[] pages, Map<String, Integer> definitions) {
+		ByteArrayOutputStream lists = new ByteArrayOutputStream();
+		int tableSize = 2 + (images.size() + 1) * 4;
+		ByteBuffer table = ByteBuffer.allocate(tableSize).order(ByteOrder.LITTLE_ENDIAN);
+		table.putShort((short) images.size());
+
+		for (int i = 0; i < images.size(); i++) {
+			TreeSet<Integer> dependencies = new TreeSet<>();
+			for (byte[] name : images.get(i).externs()) {
+				Integer module = definitions.get(key(name));
+				if (module != null && module != i) {
+					dependencies.add(module + 1);
+				}
+			}
+
+			table.putShort((short) pages[i]);
+			table.putShort((short) checkExtendedDictionarySize(tableSize + lists.size()));
+			for (int number : dependencies) {
+				lists.write(number & 0xFF);
+				lists.write(number >> 8);
+			}
+			lists.write(0);
+			lists.write(0);
+		}
+		table.putShort((short) 0);
+		table.putShort((short) checkExtendedDictionarySize(tableSize + lists.size()));
+
+		int length = checkExtendedDictionarySize(tableSize + lists.size());
+		ByteArrayOutputStream out = new ByteArrayOutputStream(3 + length);
+		out.write(OmfLibrary.EXTDICT);
+		out.write(length & 0xFF);
+		out.write(length >> 8);
+		out.writeBytes(table.array());
+		out.writeBytes(lists.toByteArray());
+		return out.toByteArray();
+	}
+
+	private static int checkExtendedDictionarySize(int size) {
+		if (size > 0xFFFF) {
+			throw new IllegalStateException("Library extended dictionary overflow: " + size + " bytes");
+		}
+
+		return size;
+	}
+
+	// Names collide in the dictionary according to its case sensitivity.
+	private String key(byte[] name) {
+		byte[] key = name;
+		if (!caseSensitive) {
+			key = name.clone();
+			for (int i = 0; i < key.length; i++) {
+				if (key[i] >= 'A' && key[i] <= 'Z') {
+					key[i] |= 0x20;
+				}
+			}
+		}
+
+		return new String(key, StandardCharsets.ISO_8859_1);
+	}
+
+	private static int nextPrime(int value) {
+		for (int candidate = Math.max(value, 2); ; candidate++) {
+			boolean prime = true;
+			for (int divisor = 2; divisor * divisor <= candidate; divisor++) {
+				if (candidate % divisor == 0) {
+					prime = false;
+					break;
+				}
+			}
+			if (prime) {
+				return candidate;
+			}
+		}
+	}
+}
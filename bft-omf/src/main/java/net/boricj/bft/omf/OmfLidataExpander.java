@@ -0,0 +1,298 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import net.boricj.bft.omf.records.OmfRecordLidata;
+
+/**
+ * Expander for the iterated data of LIDATA records.
+ *
+ * <p>The block structure of the iterated data is decoded once, without expanding it: the expanded length is known
+ * up front, and expanded bytes are produced on demand straight into caller-supplied arrays or streams. Any range
+ * of the expanded data can be read without expanding what precedes it, so that small records with large repeat
+ * counts never need to be expanded in full.
+ */
+public final class OmfLidataExpander {
+	private static final byte LIDATA_32_RECORD_TYPE = (byte) 0xA3;
+	private static final int MAX_NESTING_DEPTH = 256;
+	private static final int STREAM_BUFFER_LENGTH = 8192;
+
+	// A repeat block, expanding to repeatCount copies of either a payload or the expansion of nested blocks.
+	private record Block(long repeatCount, long unitLength, int payloadOffset, List<Block> blocks) {
+		private long length() {
+			return repeatCount * unitLength;
+		}
+	}
+
+	private final byte[] encoded;
+	private final int repeatWidthBytes;
+	private final List<Block> blocks;
+	private final long length;
+	private int position;
+
+	/**
+	 * Decodes the block structure of iterated data.
+	 *
+	 * @param encoded the encoded iterated data
+	 * @param is32Bit true if repeat counts are 32-bit wide, as in the 32-bit LIDATA variant
+	 * @throws IllegalStateException if the iterated data is malformed
+	 */
+	public OmfLidataExpander(byte[] encoded, boolean is32Bit) {
+		Objects.requireNonNull(encoded);
+
+		this.encoded = encoded;
+		this.repeatWidthBytes = is32Bit ? 4 : 2;
+		this.position = 0;
+
+		List<Block> parsedBlocks = new ArrayList<>();
+		long parsedLength = 0;
+		while (position < encoded.length) {
+			Block block = readBlock(0);
+			parsedBlocks.add(block);
+			parsedLength = addLength(parsedLength, block.length());
+		}
+		this.blocks = Collections.unmodifiableList(parsedBlocks);
+		this.length = parsedLength;
+	}
+
+	/**
+	 * Decodes the block structure of the iterated data of a LIDATA record.
+	 *
+	 * @param lidata the LIDATA record
+	 * @return the expander for its iterated data
+	 * @throws IllegalStateException if the iterated data is malformed
+	 */
+	public static OmfLidataExpander of(OmfRecordLidata lidata) {
+		Objects.requireNonNull(lidata);
+
+		return new OmfLidataExpander(lidata.getEncodedData(), lidata.getSpecificTypeValue() == LIDATA_32_RECORD_TYPE);
+	}
+
+	/**
+	 * Returns the length of the expanded data.
+	 *
+	 * @return the expanded length in bytes
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	/**
+	 * Reads a range of the expanded data.
+	 *
+	 * @param offset offset within the expanded data
+	 * @param buffer destination array
+	 * @param bufferOffset offset within the destination array
+	 * @param count maximum number of bytes to read
+	 * @return the number of bytes read, less than requested only at the end of the expanded data
+	 * @throws IndexOutOfBoundsException if the offset or the destination range is invalid
+	 */
+	public int read(long offset, byte[] buffer, int bufferOffset, int count) {
+		Objects.checkFromIndexSize(bufferOffset, count, buffer.length);
+		if (offset < 0 || offset > length) {
+			throw new IndexOutOfBoundsException("offset out of range: " + offset);
+		}
+
+		int available = (int) Math.min(count, length - offset);
+		return readBlocks(blocks, offset, buffer, bufferOffset, available);
+	}
+
+	/**
+	 * Expands the whole data into an array.
+	 *
+	 * @param buffer destination array
+	 * @param bufferOffset offset within the destination array
+	 * @throws IndexOutOfBoundsException if the expanded data doesn't fit in the destination array
+	 */
+	public void expandInto(byte[] buffer, int bufferOffset) {
+		Objects.checkFromIndexSize(bufferOffset, length, buffer.length);
+
+		expandBlocks(blocks, buffer, bufferOffset);
+	}
+
+	/**
+	 * Expands the whole data into an output stream, through a bounded buffer.
+	 *
+	 * @param outputStream the output stream to write to
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void expandTo(OutputStream outputStream) throws IOException {
+		Objects.requireNonNull(outputStream);
+
+		byte[] buffer = new byte[(int) Math.min(length, STREAM_BUFFER_LENGTH)];
+		for (long offset = 0; offset < length; ) {
+			int count = read(offset, buffer, 0, buffer.length);
+			outputStream.write(buffer, 0, count);
+			offset += count;
+		}
+	}
+
+	private Block readBlock(int depth) {
+		if (depth >= MAX_NESTING_DEPTH) {
+			throw new IllegalStateException("Malformed LIDATA: blocks nested too deeply");
+		}
+
+		long repeatCount = readUnsigned(repeatWidthBytes);
+		int blockCount = readU16();
+
+		if (blockCount == 0) {
+			int payloadLength = readU8();
+			if (position + payloadLength > encoded.length) {
+				throw new IllegalStateException("Malformed LIDATA: truncated payload bytes");
+			}
+			int payloadOffset = position;
+			position += payloadLength;
+			return checkLength(new Block(repeatCount, payloadLength, payloadOffset, List.of()));
+		}
+
+		List<Block> nested = new ArrayList<>(blockCount);
+		long unitLength = 0;
+		for (int i = 0; i < blockCount; i++) {
+			Block block = readBlock(depth + 1);
+			nested.add(block);
+			unitLength = addLength(unitLength, block.length());
+		}
+		return checkLength(new Block(repeatCount, unitLength, -1, nested));
+	}
+
+	private static Block checkLength(Block block) {
+		if (block.unitLength() > 0 && block.repeatCount() > Long.MAX_VALUE / block.unitLength()) {
+			throw new IllegalStateException("Malformed LIDATA: expanded length overflow");
+		}
+
+		return block;
+	}
+
+	private static long addLength(long a, long b) {
+		if (a > Long.MAX_VALUE - b) {
+			throw new IllegalStateException("Malformed LIDATA: expanded length overflow");
+		}
+
+		return a + b;
+	}
+
+	// Copies count bytes of the expansion of a block sequence, starting at an offset within it.
+	private int readBlocks(List<Block> sequence, long offset, byte[] buffer, int bufferOffset, int count) {
+		int copied = 0;
+		long blockStart = 0;
+		for (Block block : sequence) {
+			if (copied == count) {
+				break;
+			}
+
+			long blockLength = block.length();
+			if (offset >= blockStart + blockLength) {
+				blockStart += blockLength;
+				continue;
+			}
+
+			long inBlock = offset - blockStart;
+			while (copied < count && inBlock < blockLength) {
+				long inUnit = inBlock % block.unitLength();
+				int chunk = (int) Math.min(count - copied, block.unitLength() - inUnit);
+				int destination = bufferOffset + copied;
+				readUnit(block, inUnit, buffer, destination, chunk);
+				copied += chunk;
+				inBlock += chunk;
+
+				// Once a whole unit was copied, replicate it for the following repeats.
+				if (inUnit == 0 && chunk == block.unitLength()) {
+					long repeats = Math.min((blockLength - inBlock) / chunk, (count - copied) / chunk);
+					int replicated = replicate(buffer, destination, chunk, (int) (repeats * chunk));
+					copied += replicated;
+					inBlock += replicated;
+				}
+			}
+
+			offset = blockStart + blockLength;
+			blockStart += blockLength;
+		}
+
+		return copied;
+	}
+
+	private void readUnit(Block block, long inUnit, byte[] buffer, int bufferOffset, int count) {
+		if (block.payloadOffset() >= 0) {
+			System.arraycopy(encoded, block.payloadOffset() + (int) inUnit, buffer, bufferOffset, count);
+		} else {
+			readBlocks(block.blocks(), inUnit, buffer, bufferOffset, count);
+		}
+	}
+
+	private void expandBlocks(List<Block> sequence, byte[] buffer, int bufferOffset) {
+		for (Block block : sequence) {
+			if (block.length() == 0) {
+				continue;
+			}
+
+			int unitLength = (int) block.unitLength();
+			if (block.payloadOffset() >= 0) {
+				System.arraycopy(encoded, block.payloadOffset(), buffer, bufferOffset, unitLength);
+			} else {
+				expandBlocks(block.blocks(), buffer, bufferOffset);
+			}
+
+			replicate(buffer, bufferOffset, unitLength, (int) (block.length() - unitLength));
+			bufferOffset += (int) block.length();
+		}
+	}
+
+	// Appends length bytes of copies of the unit at start, doubling the copied range each step.
+	private static int replicate(byte[] buffer, int start, int unitLength, int length) {
+		int filled = unitLength;
+		int end = start + unitLength + length;
+		while (start + filled < end) {
+			int chunk = Math.min(filled, end - start - filled);
+			System.arraycopy(buffer, start, buffer, start + filled, chunk);
+			filled += chunk;
+		}
+
+		return length;
+	}
+
+	private long readUnsigned(int widthBytes) {
+		if (position + widthBytes > encoded.length) {
+			throw new IllegalStateException("Malformed LIDATA: truncated repeat count");
+		}
+
+		long value = 0;
+		for (int i = 0; i < widthBytes; i++) {
+			value |= ((long) encoded[position++] & 0xFFL) << (8 * i);
+		}
+		return value;
+	}
+
+	private int readU16() {
+		if (position + 2 > encoded.length) {
+			throw new IllegalStateException("Malformed LIDATA: truncated block count");
+		}
+		int value = (encoded[position] & 0xFF) | ((encoded[position + 1] & 0xFF) << 8);
+		position += 2;
+		return value;
+	}
+
+	private int readU8() {
+		if (position >= encoded.length) {
+			throw new IllegalStateException("Malformed LIDATA: truncated payload length");
+		}
+		return encoded[position++] & 0xFF;
+	}
+}
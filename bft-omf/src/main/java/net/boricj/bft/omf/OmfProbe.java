@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import net.boricj.bft.ByteSource;
+
+/**
+ * Summary of an OMF object module, read from its record headers only.
+ *
+ * <p>Probing decodes the THEADR record for the module name and optionally walks the record headers up to MODEND
+ * to count records and segments, without instantiating records or touching their bodies.
+ */
+public final class OmfProbe {
+	private static final int THEADR = 0x80;
+
+	private final String name;
+	private final int recordCount;
+	private final int segmentCount;
+	private final boolean uses32Bit;
+	private final long length;
+
+	private OmfProbe(String name, int recordCount, int segmentCount, boolean uses32Bit, long length) {
+		this.name = name;
+		this.recordCount = recordCount;
+		this.segmentCount = segmentCount;
+		this.uses32Bit = uses32Bit;
+		this.length = length;
+	}
+
+	/**
+	 * Probes an OMF object module, including its record headers.
+	 *
+	 * @param source the source holding an OMF object module at offset 0
+	 * @return the summary of the module
+	 * @throws IllegalArgumentException if the source doesn't start with a THEADR record
+	 * @throws IndexOutOfBoundsException if a record lies outside of the source
+	 */
+	public static OmfProbe probe(ByteSource source) {
+		return probe(source, true, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Probes an OMF object module.
+	 *
+	 * @param source the source holding an OMF object module at offset 0
+	 * @param readRecordHeaders true to also walk the record headers up to MODEND
+	 * @param charset the charset of the module name
+	 * @return the summary of the module
+	 * @throws IllegalArgumentException if the source doesn't start with a THEADR record
+	 * @throws IndexOutOfBoundsException if a record lies outside of the source
+	 */
+	public static OmfProbe probe(ByteSource source, boolean readRecordHeaders, Charset charset) {
+		Objects.requireNonNull(source);
+		Objects.requireNonNull(charset);
+
+		if (!isOmf(source)) {
+			throw new IllegalArgumentException("not an OMF object module");
+		}
+
+		ByteBuffer theadr = source.slice(0, 4);
+		int nameLength = Byte.toUnsignedInt(theadr.get(3));
+		String name = new String(source.read(4, nameLength), charset);
+
+		int recordCount = -1;
+		int segmentCount = -1;
+		boolean uses32Bit = false;
+		long length = -1;
+		if (readRecordHeaders) {
+			recordCount = 0;
+			segmentCount = 0;
+
+			long offset = 0;
+			while (offset < source.length()) {
+				ByteBuffer header = source.slice(offset, 3).order(ByteOrder.LITTLE_ENDIAN);
+				int type = Byte.toUnsignedInt(header.get(0));
+				int recordLength = Short.toUnsignedInt(header.getShort(1));
+				if (offset + 3 + recordLength > source.length()) {
+					throw new IndexOutOfBoundsException(
+							String.format("record at 0x%x extends past end of source", offset));
+				}
+				offset += 3 + recordLength;
+
+				recordCount++;
+				// Records with a 32-bit variant use odd type values.
+				uses32Bit |= type >= 0x8A && (type & 0x01) != 0;
+				if ((type & 0xFE) == 0x98) {
+					segmentCount++;
+				}
+				if ((type & 0xFE) == 0x8A) {
+					break;
+				}
+			}
+
+			length = offset;
+		}
+
+		return new OmfProbe(name, recordCount, segmentCount, uses32Bit, length);
+	}
+
+	/**
+	 * Checks whether a source starts with a plausible THEADR record.
+	 *
+	 * @param source the source to check
+	 * @return true if the source starts like an OMF object module
+	 */
+	public static boolean isOmf(ByteSource source) {
+		Objects.requireNonNull(source);
+
+		if (source.length() < 5) {
+			return false;
+		}
+
+		ByteBuffer header = source.slice(0, 4).order(ByteOrder.LITTLE_ENDIAN);
+		int recordLength = Short.toUnsignedInt(header.getShort(1));
+		int nameLength = Byte.toUnsignedInt(header.get(3));
+		return Byte.toUnsignedInt(header.get(0)) == THEADR
+				&& recordLength == nameLength + 2
+				&& 3 + recordLength <= source.length();
+	}
+
+	/**
+	 * Returns the module name from the THEADR record.
+	 *
+	 * @return the module name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of records up to and including MODEND.
+	 *
+	 * @return the record count, or -1 if the record headers weren't read
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Returns the number of SEGDEF records.
+	 *
+	 * @return the segment count, or -1 if the record headers weren't read
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * Returns whether the module contains 32-bit record variants.
+	 *
+	 * @return true if a 32-bit record was found, false otherwise or if the record headers weren't read
+	 */
+	public boolean uses32Bit() {
+		return uses32Bit;
+	}
+
+	/**
+	 * Returns the length of the module, from THEADR up to the end of MODEND.
+	 *
+	 * @return the module length, or -1 if the record headers weren't read
+	 */
+	public long getLength() {
+		return length;
+	}
+}
@@ -16,12 +16,12 @@ package net.boricj.bft.omf;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.MeteredOutputStream;
 import net.boricj.bft.StreamWritable;
 import net.boricj.bft.omf.constants.OmfRecordType;
@@ -35,7 +35,8 @@ import net.boricj.bft.omf.constants.OmfRecordType;
 public abstract class OmfRecord implements StreamWritable {
 	private final OmfFile file;
 	private final OmfRecordType type;
-	private static final ThreadLocal<Byte> parsingTypeValue = new ThreadLocal<>();
+	private long dataLength = -1;
+	private int dataLengthModificationCount;
 
 	/**
 	 * Creates a new OMF record.
@@ -51,17 +52,6 @@ public abstract class OmfRecord implements StreamWritable {
 		this.type = type;
 	}
 
-	/**
-	 * Returns the specific record type value being parsed in the current thread.
-	 * This allows subclasses to determine whether they are parsing a 16-bit or 32-bit variant.
-	 *
-	 * @return the record type byte value, or 0 if not currently parsing
-	 */
-	protected static byte getParsingTypeValue() {
-		Byte value = parsingTypeValue.get();
-		return value != null ? value : 0;
-	}
-
 	/**
 	 * Returns the parent OMF file.
 	 *
@@ -106,9 +96,31 @@ public abstract class OmfRecord implements StreamWritable {
 	 * Returns the length in bytes of this record's payload data (excluding
 	 * type, length, and checksum).
 	 *
+	 * <p>The length is computed by {@link #computeDataLength()} and memoized until records are added to the
+	 * parent file, since index encodings depend on the file contents.
+	 *
 	 * @return payload length in bytes
 	 */
 	protected long getDataLength() {
+		int modificationCount = file.getModificationCount();
+		if (dataLength < 0 || dataLengthModificationCount != modificationCount) {
+			dataLength = computeDataLength();
+			dataLengthModificationCount = modificationCount;
+		}
+
+		return dataLength;
+	}
+
+	/**
+	 * Computes the length in bytes of this record's payload data (excluding
+	 * type, length, and checksum).
+	 *
+	 * <p>Records should compute their length arithmetically from their fields. The default implementation
+	 * measures it by serializing the payload.
+	 *
+	 * @return payload length in bytes
+	 */
+	protected long computeDataLength() {
 		try (MeteredOutputStream outputStream = new MeteredOutputStream(OutputStream.nullOutputStream())) {
 			write(ByteOutputStream.asLittleEndian(outputStream));
 			return outputStream.getCount();
@@ -141,7 +153,8 @@ public abstract class OmfRecord implements StreamWritable {
 	public void write(OutputStream outputStream) throws IOException {
 		ByteOutputStream bos = ByteOutputStream.asLittleEndian(outputStream);
 
-		ByteArrayOutputStream recordBaos = new ByteArrayOutputStream();
+		ByteArrayOutputStream recordBaos =
+				new ByteArrayOutputStream((int) Math.min(getDataLength(), OmfUtils.MAX_RECORD_CONTENT_LENGTH));
 		write(ByteOutputStream.asLittleEndian(recordBaos));
 		byte[] recordData = recordBaos.toByteArray();
 		int dataLength = recordData.length;
@@ -186,6 +199,23 @@ public abstract class OmfRecord implements StreamWritable {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public static OmfRecord parse(OmfFile file, ByteInputStream bis) throws IOException {
+		return parse(file, bis, null, 0, null);
+	}
+
+	/**
+	 * Parse an OMF record from the input stream, optionally exposing its data as a view over a source.
+	 *
+	 * @param file the parent OmfFile
+	 * @param bis the input stream to read from
+	 * @param source the source the input stream reads from, or null
+	 * @param offset the offset of the record within the source
+	 * @param recordFactories custom record factories indexed by record type byte, or null
+	 * @return the parsed OmfRecord
+	 * @throws IOException if an I/O error occurs
+	 */
+	static OmfRecord parse(
+			OmfFile file, ByteInputStream bis, ByteSource source, long offset, OmfRecordFactory[] recordFactories)
+			throws IOException {
 		// Read record type (1 byte)
 		byte recordTypeTag = bis.readByte();
 
@@ -193,34 +223,31 @@ public abstract class OmfRecord implements StreamWritable {
 		// The length includes data + checksum (1 byte)
 		int recordLength = bis.readUnsignedShort();
 
-		// Look up the record type
-		OmfRecordType recordType = OmfRecordType.valueFrom(recordTypeTag);
+		// Look up the record factory, custom ones first
+		OmfRecordFactory recordFactory = recordFactories != null ? recordFactories[recordTypeTag & 0xFF] : null;
+		if (recordFactory == null) {
+			recordFactory = OmfRecordType.valueFrom(recordTypeTag).getRecordFactory();
+		}
+
 		// Create a sliced stream containing only the record data (excluding checksum)
-		ByteInputStream recordBis = bis.slice(recordLength - 1);
+		ByteBuffer body = null;
+		ByteInputStream recordBis;
+		if (source != null) {
+			body = source.slice(offset + 3, recordLength - 1);
+			recordBis = ByteInputStream.asLittleEndian(ByteSource.wrap(body).openStream(0));
+			bis.skipBytes(recordLength - 1);
+		} else {
+			recordBis = bis.slice(recordLength - 1);
+		}
 
 		// Read and discard the checksum byte
 		bis.readByte();
 
-		// Get the record class
-		Class<? extends OmfRecord> recordClass = recordType.getRecordClass();
-
 		try {
-			// Store the original type value in ThreadLocal for subclasses to use
-			parsingTypeValue.set(recordTypeTag);
-			try {
-				// Create an instance using the constructor that takes (OmfFile, ByteInputStream)
-				Constructor<? extends OmfRecord> constructor =
-						recordClass.getConstructor(OmfFile.class, ByteInputStream.class);
-				return constructor.newInstance(file, recordBis);
-			} finally {
-				// Clear the ThreadLocal to avoid memory leaks
-				parsingTypeValue.remove();
-			}
-		} catch (NoSuchMethodException
-				| InstantiationException
-				| IllegalAccessException
-				| InvocationTargetException e) {
-			throw new IOException("Failed to instantiate record type: " + recordType, e);
+			return recordFactory.parse(file, recordBis, recordTypeTag, body);
+		} catch (RuntimeException e) {
+			String msg = String.format("Failed to instantiate record type: 0x%02X", recordTypeTag & 0xFF);
+			throw new IOException(msg, e);
 		}
 	}
 }
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import net.boricj.bft.ByteInputStream;
+
+/**
+ * Factory parsing the data of an OMF record into a record instance.
+ *
+ * <p>Each {@link net.boricj.bft.omf.constants.OmfRecordType} carries the factory for its record class. Custom
+ * factories may be registered on an {@link OmfFile.Parser} to override how a record type is parsed.
+ */
+@FunctionalInterface
+public interface OmfRecordFactory {
+	/**
+	 * Parses a record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream over the record data (excluding type, length and checksum)
+	 * @param typeValue the record type byte read from the file
+	 * @param body read-only view over the record data when parsing from a zero-copy source, or null
+	 * @return the parsed record
+	 * @throws IOException if an I/O error occurs
+	 */
+	OmfRecord parse(OmfFile file, ByteInputStream bis, byte typeValue, ByteBuffer body) throws IOException;
+}
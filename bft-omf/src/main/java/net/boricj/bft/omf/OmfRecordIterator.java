@@ -0,0 +1,285 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import net.boricj.bft.ByteInputStream;
+import net.boricj.bft.omf.constants.OmfRecordType;
+import net.boricj.bft.omf.records.OmfRecordGrpdef;
+import net.boricj.bft.omf.records.OmfRecordLnames;
+import net.boricj.bft.omf.records.OmfRecordSegdef;
+import net.boricj.bft.omf.records.OmfRecordTheadr;
+
+/**
+ * Pull-based iterator over the records of a channel holding OMF object modules.
+ *
+ * <p>Records are read one at a time into a single reused buffer, instead of parsing the whole module into an
+ * {@link OmfFile}. Iteration continues past MODEND, so that channels holding several concatenated modules are
+ * read through to the end. Channels holding an {@link OmfLibrary} are also supported: a leading LIBHDR record
+ * sets the page size that modules are padded to after MODEND, and iteration stops at the LIBEND record. Without a
+ * LIBHDR record, as when reading from the source of a single library module, the zero padding after MODEND is
+ * skipped instead.
+ *
+ * <p>Records belong to a per-module {@link OmfFile}, started anew by each THEADR record. It only holds the LNAMES,
+ * SEGDEF and GRPDEF records needed to resolve the indexes of later records, which are always parsed even when
+ * filtered out. Other records aren't added to it, so memory use doesn't grow with the size of the modules.
+ * Records filtered out are skipped without being parsed, by moving the position of seekable channels forward.
+ * Records of types unknown to {@link OmfRecordType}, which can't be requested by the filter, are skipped as well.
+ *
+ * <p>I/O and parsing errors are reported as {@link UncheckedIOException}. The channel isn't closed by the iterator.
+ */
+public final class OmfRecordIterator implements Iterator<OmfRecord> {
+	private static final int HEADER_LENGTH = 3;
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+	private final byte[] body = new byte[0xFFFF];
+	private Charset charset = StandardCharsets.UTF_8;
+	private Predicate<OmfRecordType> filter = type -> true;
+
+	private OmfFile module;
+	private OmfRecord next;
+	private boolean ended = false;
+
+	private long position = 0;
+	private int pageSize = 0;
+	private boolean padding = false;
+
+	/**
+	 * Creates an iterator over the records of a channel, starting at its current position.
+	 *
+	 * @param channel the channel to read from
+	 */
+	public OmfRecordIterator(ReadableByteChannel channel) {
+		Objects.requireNonNull(channel);
+
+		this.channel = channel;
+	}
+
+	/**
+	 * Sets the charset used for string decoding.
+	 *
+	 * @param charset the charset to use
+	 * @return this iterator
+	 */
+	public OmfRecordIterator setCharset(Charset charset) {
+		Objects.requireNonNull(charset);
+
+		this.charset = charset;
+
+		return this;
+	}
+
+	/**
+	 * Sets which record types are returned, both 16-bit and 32-bit variants included.
+	 *
+	 * @param filter the predicate accepting the record types to return
+	 * @return this iterator
+	 */
+	public OmfRecordIterator setRecordTypeFilter(Predicate<OmfRecordType> filter) {
+		Objects.requireNonNull(filter);
+
+		this.filter = filter;
+
+		return this;
+	}
+
+	/**
+	 * Returns the module the last returned record belongs to.
+	 *
+	 * @return the current module, or null if no record was read yet
+	 */
+	public OmfFile getModule() {
+		return module;
+	}
+
+	/**
+	 * Returns a sequential stream over the remaining records.
+	 *
+	 * @return a stream of records
+	 */
+	public Stream<OmfRecord> stream() {
+		return StreamSupport.stream(
+				Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !ended) {
+			try {
+				next = readNext();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			ended = next == null;
+		}
+
+		return next != null;
+	}
+
+	@Override
+	public OmfRecord next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		OmfRecord record = next;
+		next = null;
+		return record;
+	}
+
+	private OmfRecord readNext() throws IOException {
+		while (true) {
+			header.clear();
+			if (!readFully(header, true)) {
+				return null;
+			}
+
+			// Zero padding after MODEND is skipped one byte at a time, since its length is unknown.
+			while (padding && header.get(0) == 0) {
+				header.position(1).compact();
+				if (!readFully(header, true)) {
+					return null;
+				}
+			}
+			padding = false;
+
+			byte typeValue = header.get(0);
+			int recordLength = Short.toUnsignedInt(header.getShort(1));
+			if (recordLength == 0) {
+				throw new IOException(String.format("Invalid record length for record type: 0x%02X", typeValue));
+			}
+
+			if (Byte.toUnsignedInt(typeValue) == OmfLibrary.LIBHDR && position == HEADER_LENGTH) {
+				pageSize = recordLength + HEADER_LENGTH;
+				if (pageSize < 16 || Integer.bitCount(pageSize) != 1) {
+					throw new IOException(String.format("Malformed OMF library: invalid page size %d", pageSize));
+				}
+				skip(recordLength);
+				continue;
+			} else if (Byte.toUnsignedInt(typeValue) == OmfLibrary.LIBEND) {
+				return null;
+			}
+
+			OmfRecordType type;
+			try {
+				type = OmfRecordType.valueFrom(typeValue);
+			} catch (IllegalArgumentException e) {
+				skip(recordLength);
+				continue;
+			}
+
+			boolean definition =
+					type == OmfRecordType.LNAMES || type == OmfRecordType.SEGDEF || type == OmfRecordType.GRPDEF;
+			boolean wanted = filter.test(type);
+			if (!wanted && !definition && type != OmfRecordType.THEADR) {
+				skip(recordLength);
+				if (type == OmfRecordType.MODEND) {
+					endModule();
+				}
+				continue;
+			}
+
+			// The checksum byte is read along with the record data and ignored.
+			ByteBuffer buffer = ByteBuffer.wrap(body, 0, recordLength);
+			readFully(buffer, false);
+
+			if (type == OmfRecordType.THEADR || module == null) {
+				module = new OmfFile.Builder().setCharset(charset).build();
+			}
+
+			ByteInputStream bis = ByteInputStream.asLittleEndian(new ByteArrayInputStream(body, 0, recordLength - 1));
+			OmfRecord record;
+			try {
+				record = type.getRecordFactory().parse(module, bis, typeValue, null);
+			} catch (RuntimeException e) {
+				String msg = String.format("Failed to instantiate record type: 0x%02X", typeValue & 0xFF);
+				throw new IOException(msg, e);
+			}
+
+			if (record instanceof OmfRecordTheadr
+					|| record instanceof OmfRecordLnames
+					|| record instanceof OmfRecordSegdef
+					|| record instanceof OmfRecordGrpdef) {
+				module.add(record);
+			}
+			if (type == OmfRecordType.MODEND) {
+				endModule();
+			}
+
+			if (wanted) {
+				return record;
+			}
+		}
+	}
+
+	// Modules within a library are padded up to the next page.
+	private void endModule() throws IOException {
+		if (pageSize != 0) {
+			skip((int) (OmfLibrary.alignUp(position, pageSize) - position));
+		} else {
+			padding = true;
+		}
+	}
+
+	private void skip(int length) throws IOException {
+		if (channel instanceof SeekableByteChannel seekable) {
+			long target = seekable.position() + length;
+			if (target > seekable.size()) {
+				throw new EOFException("Truncated record");
+			}
+			seekable.position(target);
+			position += length;
+		} else {
+			while (length > 0) {
+				int chunk = Math.min(length, body.length);
+				readFully(ByteBuffer.wrap(body, 0, chunk), false);
+				length -= chunk;
+			}
+		}
+	}
+
+	private boolean readFully(ByteBuffer buffer, boolean eofAllowed) throws IOException {
+		while (buffer.hasRemaining()) {
+			int count = channel.read(buffer);
+			if (count < 0) {
+				if (eofAllowed && (buffer.position() == 0 || padding)) {
+					return false;
+				}
+				throw new EOFException("Truncated record");
+			}
+			position += count;
+		}
+
+		return true;
+	}
+}
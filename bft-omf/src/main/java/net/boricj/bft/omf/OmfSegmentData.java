@@ -13,14 +13,17 @@
  */
 package net.boricj.bft.omf;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import net.boricj.bft.omf.records.OmfRecordFixupp;
@@ -36,89 +39,116 @@ import net.boricj.bft.omf.records.OmfRecordSegdef;
  * emit those logical contents back into chunked LEDATA/FIXUPP records under a chunking policy.
  */
 public final class OmfSegmentData {
-	private static final byte LIDATA_32_RECORD_TYPE = (byte) 0xA3;
+	private static final class LidataEncoder {
+		// Longest pattern searched for, which bounds the size of a block.
+		private static final int MAX_PERIOD = 64;
+		// Shortest expanded length worth a repeated block, and its minimum savings over literal bytes.
+		private static final int MIN_REPEAT_LENGTH = 16;
+		private static final int MIN_REPEAT_SAVINGS = 8;
+		private static final int MAX_PAYLOAD_LENGTH = 0xFF;
+		// Largest block header: 32-bit repeat count, block count and payload length.
+		private static final int MAX_BLOCK_HEADER_LENGTH = 4 + 2 + 1;
+
+		private record Repeat(int period, long count) {
+			private long length() {
+				return period * count;
+			}
+		}
 
-	private static final class LidataDecoder {
-		private final byte[] encoded;
+		private final byte[] bytes;
 		private final int repeatWidthBytes;
-		private int position;
+		private final long maxRepeatCount;
+		private int repeatBlocks = 0;
 
-		private LidataDecoder(byte[] encoded, boolean is32Bit) {
-			this.encoded = encoded;
+		private LidataEncoder(byte[] bytes, boolean is32Bit) {
+			this.bytes = bytes;
 			this.repeatWidthBytes = is32Bit ? 4 : 2;
-			this.position = 0;
+			// The decoder expands into arrays, so repeat counts stay within int range.
+			this.maxRepeatCount = is32Bit ? Integer.MAX_VALUE : 0xFFFF;
 		}
 
-		private byte[] decodeAll() {
-			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			while (position < encoded.length) {
-				decodeBlockInto(out);
-			}
-			return out.toByteArray();
-		}
-
-		private void decodeBlockInto(ByteArrayOutputStream out) {
-			long repeatCount = readUnsigned(repeatWidthBytes);
-			int blockCount = readU16();
-
-			if (repeatCount < 0 || repeatCount > Integer.MAX_VALUE) {
-				throw new IllegalStateException("Unsupported LIDATA repeat count: " + repeatCount);
-			}
+		// Finds the pattern of at most maxPeriod bytes covering the most bytes from a position, if worthwhile.
+		private Repeat findRepeat(int position, int limit, int maxPeriod) {
+			Repeat best = null;
+			for (int period = 1; period <= maxPeriod && 2 * period <= limit - position; period++) {
+				int end = position + period;
+				while (end < limit && bytes[end] == bytes[end - period]) {
+					end++;
+				}
 
-			if (blockCount == 0) {
-				int payloadLength = readU8();
-				byte[] payload = readBytes(payloadLength);
-				for (int i = 0; i < repeatCount; i++) {
-					out.writeBytes(payload);
+				long count = Math.min((end - position) / period, maxRepeatCount);
+				long length = period * count;
+				if (count < 2
+						|| length < MIN_REPEAT_LENGTH
+						|| length - period < MIN_REPEAT_SAVINGS + MAX_BLOCK_HEADER_LENGTH) {
+					continue;
+				}
+				if (best == null || length > best.length()) {
+					best = new Repeat(period, count);
 				}
-				return;
 			}
 
-			ByteArrayOutputStream nested = new ByteArrayOutputStream();
-			for (int i = 0; i < blockCount; i++) {
-				decodeBlockInto(nested);
-			}
-			byte[] expandedNested = nested.toByteArray();
-			for (int i = 0; i < repeatCount; i++) {
-				out.writeBytes(expandedNested);
-			}
+			return best;
 		}
 
-		private long readUnsigned(int widthBytes) {
-			if (position + widthBytes > encoded.length) {
-				throw new IllegalStateException("Malformed LIDATA: truncated repeat count");
-			}
+		private void encodeBlock(ByteArrayOutputStream out, int position, Repeat repeat) {
+			writeUnsigned(out, repeat.count(), repeatWidthBytes);
+			repeatBlocks++;
 
-			long value = 0;
-			for (int i = 0; i < widthBytes; i++) {
-				value |= ((long) encoded[position++] & 0xFFL) << (8 * i);
+			// Look for runs within the pattern, which become nested blocks.
+			ByteArrayOutputStream nested = new ByteArrayOutputStream();
+			int nestedRepeatBlocks = repeatBlocks;
+			int blockCount = encodeBlocks(nested, position, position + repeat.period(), repeat.period() / 2);
+			if (repeatBlocks == nestedRepeatBlocks && repeat.period() <= MAX_PAYLOAD_LENGTH) {
+				writeUnsigned(out, 0, 2);
+				out.write(repeat.period());
+				out.write(bytes, position, repeat.period());
+			} else {
+				writeUnsigned(out, blockCount, 2);
+				out.writeBytes(nested.toByteArray());
 			}
-			return value;
 		}
 
-		private int readU16() {
-			if (position + 2 > encoded.length) {
-				throw new IllegalStateException("Malformed LIDATA: truncated block count");
+		// Encodes bytes [from, to) as a sequence of blocks, returning the number of blocks.
+		private int encodeBlocks(ByteArrayOutputStream out, int from, int to, int maxPeriod) {
+			int blockCount = 0;
+			int literalStart = from;
+			int position = from;
+			while (position < to) {
+				Repeat repeat = maxPeriod > 0 ? findRepeat(position, to, maxPeriod) : null;
+				if (repeat == null) {
+					position++;
+					continue;
+				}
+
+				blockCount += encodeLiterals(out, literalStart, position);
+				encodeBlock(out, position, repeat);
+				blockCount++;
+				position += (int) repeat.length();
+				literalStart = position;
 			}
-			int value = (encoded[position] & 0xFF) | ((encoded[position + 1] & 0xFF) << 8);
-			position += 2;
-			return value;
+
+			return blockCount + encodeLiterals(out, literalStart, to);
 		}
 
-		private int readU8() {
-			if (position >= encoded.length) {
-				throw new IllegalStateException("Malformed LIDATA: truncated payload length");
+		private int encodeLiterals(ByteArrayOutputStream out, int from, int to) {
+			int blockCount = 0;
+			for (int position = from; position < to; position += MAX_PAYLOAD_LENGTH) {
+				int length = Math.min(MAX_PAYLOAD_LENGTH, to - position);
+				writeUnsigned(out, 1, repeatWidthBytes);
+				writeUnsigned(out, 0, 2);
+				out.write(length);
+				out.write(bytes, position, length);
+				blockCount++;
 			}
-			return encoded[position++] & 0xFF;
+
+			return blockCount;
 		}
 
-		private byte[] readBytes(int length) {
-			if (position + length > encoded.length) {
-				throw new IllegalStateException("Malformed LIDATA: truncated payload bytes");
+		private static void writeUnsigned(ByteArrayOutputStream out, long value, int widthBytes) {
+			for (int i = 0; i < widthBytes; i++) {
+				out.write((int) (value >>> (8 * i)));
 			}
-			byte[] result = Arrays.copyOfRange(encoded, position, position + length);
-			position += length;
-			return result;
 		}
 	}
 
@@ -140,6 +170,55 @@ public final class OmfSegmentData {
 		}
 	}
 
+	// Segment contents being reconstructed, sized from the SEGDEF length once the first chunk shows up.
+	private static final class SegmentImage {
+		private final OmfRecordSegdef segment;
+		private byte[] bytes = new byte[0];
+		private int expectedOffset = 0;
+		private final List<FixupAtOffset> fixups = new ArrayList<>();
+
+		private SegmentImage(OmfRecordSegdef segment) {
+			this.segment = segment;
+		}
+
+		private void append(int chunkStart, ByteBuffer chunk) {
+			int length = chunk.remaining();
+			reserve(chunkStart, length, "LEDATA");
+			chunk.get(chunk.position(), bytes, chunkStart, length);
+		}
+
+		private void append(int chunkStart, OmfLidataExpander chunk) {
+			reserve(chunkStart, chunk.getLength(), "LIDATA");
+			chunk.expandInto(bytes, chunkStart);
+		}
+
+		private void reserve(int chunkStart, long length, String recordKind) {
+			if (chunkStart != expectedOffset) {
+				throw new IllegalStateException(recordKind + " chunks must be contiguous from offset 0 for segment "
+						+ segment.getSegmentName() + ": expectedStart=" + expectedOffset + ", actualStart="
+						+ chunkStart + ", chunkLength=" + length);
+			}
+
+			// Checked before growing, since iterated data may expand to much more than the segment holds.
+			long end = chunkStart + length;
+			if (end > segment.getSegmentLength()) {
+				throw new IllegalArgumentException(
+						"Segment bytes exceed SEGDEF length: " + end + " > " + segment.getSegmentLength());
+			}
+
+			if (end > bytes.length) {
+				long capacity = Math.min(Math.max(segment.getSegmentLength(), 2L * bytes.length), Integer.MAX_VALUE);
+				bytes = Arrays.copyOf(bytes, (int) Math.max(Math.toIntExact(end), capacity));
+			}
+			expectedOffset = (int) end;
+		}
+
+		private OmfSegmentData toSegmentData() {
+			byte[] data = expectedOffset == bytes.length ? bytes : Arrays.copyOf(bytes, expectedOffset);
+			return new OmfSegmentData(segment, data, fixups, false);
+		}
+	}
+
 	private final OmfRecordSegdef segment;
 	private final byte[] bytes;
 	private final List<FixupAtOffset> fixups;
@@ -152,6 +231,10 @@ public final class OmfSegmentData {
 	 * @param fixups absolute segment-offset fixups
 	 */
 	public OmfSegmentData(OmfRecordSegdef segment, byte[] bytes, List<FixupAtOffset> fixups) {
+		this(segment, bytes, fixups, true);
+	}
+
+	private OmfSegmentData(OmfRecordSegdef segment, byte[] bytes, List<FixupAtOffset> fixups, boolean copyBytes) {
 		Objects.requireNonNull(segment);
 		Objects.requireNonNull(bytes);
 		Objects.requireNonNull(fixups);
@@ -161,7 +244,7 @@ public final class OmfSegmentData {
 		}
 
 		this.segment = segment;
-		this.bytes = bytes.clone();
+		this.bytes = copyBytes ? bytes.clone() : bytes;
 		this.fixups = fixups.stream()
 				.sorted(Comparator.comparingInt(FixupAtOffset::segmentOffset))
 				.toList();
@@ -207,16 +290,50 @@ public final class OmfSegmentData {
 		Objects.requireNonNull(file);
 		Objects.requireNonNull(segment);
 
-		ByteArrayOutputStream data = new ByteArrayOutputStream();
-		List<FixupAtOffset> fixups = new ArrayList<>();
-		int expectedOffset = 0;
+		Map<OmfRecordSegdef, SegmentImage> images = new IdentityHashMap<>();
+		images.put(segment, new SegmentImage(segment));
+		reconstruct(file, images);
+
+		return images.get(segment).toSegmentData();
+	}
+
+	/**
+	 * Parses the logical contents of all segments of an OMF file in a single pass over its records.
+	 *
+	 * <p>The same strict reconstruction rules as {@link #parseStrict(OmfFile, OmfRecordSegdef)} apply to each
+	 * segment. Segments without any LEDATA/LIDATA record get empty contents.
+	 *
+	 * @param file OMF file to inspect
+	 * @return logical segment data representations, keyed by segment in SEGDEF order
+	 */
+	public static Map<OmfRecordSegdef, OmfSegmentData> parseAll(OmfFile file) {
+		Objects.requireNonNull(file);
+
+		Map<OmfRecordSegdef, SegmentImage> images = new IdentityHashMap<>();
+		List<OmfRecordSegdef> segments = new ArrayList<>();
+		for (OmfRecord record : file.getElements()) {
+			if (record instanceof OmfRecordSegdef segment) {
+				images.put(segment, new SegmentImage(segment));
+				segments.add(segment);
+			}
+		}
+		reconstruct(file, images);
+
+		Map<OmfRecordSegdef, OmfSegmentData> result = new LinkedHashMap<>();
+		for (OmfRecordSegdef segment : segments) {
+			result.put(segment, images.get(segment).toSegmentData());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private static void reconstruct(OmfFile file, Map<OmfRecordSegdef, SegmentImage> images) {
+		SegmentImage activeImage = null;
 		int activeChunkStart = -1;
 		int activeChunkLength = 0;
-		boolean activeChunkBelongsToTarget = false;
 
 		for (OmfRecord record : file.getElements()) {
 			if (record instanceof OmfRecordFixupp fixupp) {
-				if (!activeChunkBelongsToTarget) {
+				if (activeImage == null) {
 					continue;
 				}
 				for (FixupEntry entry : fixupp.getFixupEntries()) {
@@ -224,40 +341,47 @@ public final class OmfSegmentData {
 					int displacementWidth = entry.getDisplacementType().getByteCount();
 					int lastTargetByteOffsetExclusive = relativeOffset + displacementWidth;
 					if (relativeOffset < 0 || lastTargetByteOffsetExclusive > activeChunkLength) {
-						throw new IllegalStateException(
-								"FIXUPP offset out of data chunk bounds for segment " + segment.getSegmentName()
-										+ ": chunkStart=" + activeChunkStart + ", chunkLength=" + activeChunkLength
-										+ ", relativeOffset=" + relativeOffset + ", width=" + displacementWidth
-										+ ", validRange=[0, " + activeChunkLength + ")");
+						throw new IllegalStateException("FIXUPP offset out of data chunk bounds for segment "
+								+ activeImage.segment.getSegmentName() + ": chunkStart=" + activeChunkStart
+								+ ", chunkLength=" + activeChunkLength + ", relativeOffset=" + relativeOffset
+								+ ", width=" + displacementWidth + ", validRange=[0, " + activeChunkLength + ")");
 					}
-					fixups.add(new FixupAtOffset(activeChunkStart + relativeOffset, entry));
+					activeImage.fixups.add(new FixupAtOffset(activeChunkStart + relativeOffset, entry));
 				}
 				continue;
 			}
 
-			activeChunkBelongsToTarget = false;
+			activeImage = null;
+
+			if (record instanceof OmfRecordLedata ledata) {
+				SegmentImage image = images.get(ledata.getSegment());
+				if (image == null) {
+					continue;
+				}
 
-			if (record instanceof OmfRecordLedata ledata && ledata.getSegment() == segment) {
 				int chunkStart = Math.toIntExact(ledata.getDataOffset());
-				expectedOffset =
-						appendChunkBytes(segment, data, expectedOffset, chunkStart, ledata.getData(), "LEDATA");
+				ByteBuffer chunk = ledata.getDataBuffer();
+				image.append(chunkStart, chunk);
+				activeImage = image;
 				activeChunkStart = chunkStart;
-				activeChunkLength = ledata.getData().length;
-				activeChunkBelongsToTarget = true;
+				activeChunkLength = chunk.remaining();
 				continue;
 			}
 
-			if (record instanceof OmfRecordLidata lidata && lidata.getSegment() == segment) {
+			if (record instanceof OmfRecordLidata lidata) {
+				SegmentImage image = images.get(lidata.getSegment());
+				if (image == null) {
+					continue;
+				}
+
 				int chunkStart = Math.toIntExact(lidata.getDataOffset());
-				byte[] decoded = decodeLidataChunk(segment, lidata);
-				expectedOffset = appendChunkBytes(segment, data, expectedOffset, chunkStart, decoded, "LIDATA");
+				OmfLidataExpander expander = expandLidataChunk(image.segment, lidata);
+				image.append(chunkStart, expander);
+				activeImage = image;
 				activeChunkStart = chunkStart;
-				activeChunkLength = decoded.length;
-				activeChunkBelongsToTarget = true;
+				activeChunkLength = (int) expander.getLength();
 			}
 		}
-
-		return new OmfSegmentData(segment, data.toByteArray(), fixups);
 	}
 
 	/**
@@ -267,16 +391,83 @@ public final class OmfSegmentData {
 	 * @param policy chunking policy
 	 */
 	public void emit(OmfFile file, OmfChunkingPolicy policy) {
+		emit(file, policy, false);
+	}
+
+	/**
+	 * Emits this logical segment as chunked data/FIXUPP records to the provided target segment.
+	 *
+	 * <p>In iterated mode, runs and repeated byte patterns are emitted as LIDATA records, with nested blocks for
+	 * patterns that contain runs themselves. Bytes targeted by a fixup are never part of an iterated block, they
+	 * are emitted as LEDATA along with the rest of the bytes.
+	 *
+	 * @param file destination OMF file
+	 * @param policy chunking policy
+	 * @param iterated true to emit repeated data as LIDATA records
+	 */
+	public void emit(OmfFile file, OmfChunkingPolicy policy, boolean iterated) {
 		Objects.requireNonNull(file);
 		Objects.requireNonNull(policy);
 
-		ByteArrayInputStream data = new ByteArrayInputStream(bytes);
-		Iterator<FixupAtOffset> fixupIterator = fixups.iterator();
+		if (!iterated) {
+			emitEnumerated(file, policy, 0, bytes.length);
+			return;
+		}
+
+		// The repeat count width depends on the record variant, which depends on the data offset.
+		LidataEncoder encoder16 = new LidataEncoder(bytes, false);
+		LidataEncoder encoder32 = new LidataEncoder(bytes, true);
+
+		int literalStart = 0;
+		int position = 0;
+		int fixupIndex = 0;
+		while (position < bytes.length) {
+			// Skip over bytes targeted by fixups.
+			while (fixupIndex < fixups.size() && fixupEnd(fixups.get(fixupIndex)) <= position) {
+				fixupIndex++;
+			}
+			int limit = bytes.length;
+			if (fixupIndex < fixups.size()) {
+				FixupAtOffset fixup = fixups.get(fixupIndex);
+				if (fixup.segmentOffset() <= position) {
+					position = fixupEnd(fixup);
+					continue;
+				}
+				limit = fixup.segmentOffset();
+			}
+
+			LidataEncoder encoder = position > 0xFFFF ? encoder32 : encoder16;
+			LidataEncoder.Repeat repeat = encoder.findRepeat(position, limit, LidataEncoder.MAX_PERIOD);
+			OmfRecordLidata lidata = null;
+			if (repeat != null) {
+				ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+				encoder.encodeBlock(encoded, position, repeat);
+				lidata = new OmfRecordLidata(file, segment, position, encoded.toByteArray());
+			}
+			if (lidata == null || lidata.getLength() > policy.maxRecordSize()) {
+				position++;
+				continue;
+			}
+
+			emitEnumerated(file, policy, literalStart, position);
+			file.add(lidata);
+
+			position += (int) repeat.length();
+			literalStart = position;
+		}
+
+		emitEnumerated(file, policy, literalStart, bytes.length);
+	}
+
+	// Emits bytes [from, to) as LEDATA/FIXUPP records, with the fixups anchored within that range.
+	private void emitEnumerated(OmfFile file, OmfChunkingPolicy policy, int from, int to) {
+		Iterator<FixupAtOffset> fixupIterator =
+				fixups.subList(firstFixupAt(from), firstFixupAt(to)).iterator();
 		FixupAtOffset nextFixup = null;
 
-		while (data.available() > 0) {
-			int chunkStart = bytes.length - data.available();
-			int maxChunkDataSize = bytes.length - chunkStart;
+		int chunkStart = from;
+		while (chunkStart < to) {
+			int maxChunkDataSize = to - chunkStart;
 
 			List<FixupAtOffset> chunkFixups = new ArrayList<>();
 			int fixuppLength = (int) new OmfRecordFixupp(file, List.of()).getLength();
@@ -317,18 +508,37 @@ public final class OmfSegmentData {
 			}
 
 			// Emit data record.
-			try {
-				file.add(new OmfRecordLedata(file, segment, chunkStart, data.readNBytes(maxChunkDataSize)));
-			} catch (IOException e) {
-				// Shouldn't happen.
-				throw new RuntimeException(e);
-			}
+			byte[] chunk = Arrays.copyOfRange(bytes, chunkStart, chunkStart + maxChunkDataSize);
+			file.add(new OmfRecordLedata(file, segment, chunkStart, chunk));
 
 			// Emit fixups.
 			if (!chunkFixups.isEmpty()) {
 				file.add(new OmfRecordFixupp(file, toChunkRelativeFixupEntries(chunkFixups, chunkStart)));
 			}
+
+			chunkStart += maxChunkDataSize;
+		}
+	}
+
+	// Fixups are sorted by offset, find the first one anchored at or after an offset.
+	private int firstFixupAt(int offset) {
+		int low = 0;
+		int high = fixups.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (fixups.get(middle).segmentOffset() < offset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
 		}
+
+		return low;
+	}
+
+	private static int fixupEnd(FixupAtOffset fixup) {
+		return fixup.segmentOffset()
+				+ Math.max(1, fixup.entry().getDisplacementType().getByteCount());
 	}
 
 	/**
@@ -358,32 +568,9 @@ public final class OmfSegmentData {
 		return fixups;
 	}
 
-	private static int appendChunkBytes(
-			OmfRecordSegdef segment,
-			ByteArrayOutputStream data,
-			int expectedOffset,
-			int chunkStart,
-			byte[] chunkBytes,
-			String recordKind) {
-		if (chunkStart != expectedOffset) {
-			throw new IllegalStateException(recordKind + " chunks must be contiguous from offset 0 for segment "
-					+ segment.getSegmentName() + ": expectedStart=" + expectedOffset + ", actualStart=" + chunkStart
-					+ ", chunkLength=" + chunkBytes.length);
-		}
-
-		data.writeBytes(chunkBytes);
-		return chunkStart + chunkBytes.length;
-	}
-
-	private static byte[] decodeLidataChunk(OmfRecordSegdef segment, OmfRecordLidata lidata) {
-		byte[] encoded = lidata.getEncodedData();
-		if (encoded.length == 0) {
-			return new byte[0];
-		}
-
-		LidataDecoder decoder = new LidataDecoder(encoded, lidata.getSpecificTypeValue() == LIDATA_32_RECORD_TYPE);
+	private static OmfLidataExpander expandLidataChunk(OmfRecordSegdef segment, OmfRecordLidata lidata) {
 		try {
-			return decoder.decodeAll();
+			return OmfLidataExpander.of(lidata);
 		} catch (IllegalStateException ex) {
 			throw new IllegalStateException(
 					"Malformed LIDATA for segment " + segment.getSegmentName() + " at dataOffset="
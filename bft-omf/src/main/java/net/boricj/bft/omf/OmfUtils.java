@@ -14,6 +14,8 @@
 package net.boricj.bft.omf;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -148,10 +150,48 @@ public final class OmfUtils {
 		return index < 0x80 ? 1 : 2;
 	}
 
+	/**
+	 * Returns the encoded length of a byte-length prefixed string, including its length byte.
+	 *
+	 * @param value the string
+	 * @param charset the charset used to encode the string
+	 * @return the encoded length in bytes
+	 * @throws IllegalArgumentException if the encoded string is longer than 255 bytes
+	 */
+	public static int encodedStringLength(String value, Charset charset) {
+		int length = -1;
+		if (charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1)) {
+			// Single-byte charsets encode each character to one byte, unless it is part of a surrogate pair.
+			length = value.length();
+			for (int i = 0; i < value.length(); i++) {
+				if (Character.isSurrogate(value.charAt(i))) {
+					length = -1;
+					break;
+				}
+			}
+		}
+		if (length < 0) {
+			length = value.getBytes(charset).length;
+		}
+
+		if (length > 0xFF) {
+			throw new IllegalArgumentException("Byte-length string too long: " + length);
+		}
+		return 1 + length;
+	}
+
 	/**
 	 * Emits a chunked sequence of plain records where each output record must fit under the provided
 	 * maximum size.
 	 *
+	 * <p>Records are packed greedily: each record holds as many items as fit, in order. The size of a candidate
+	 * chunk is tracked incrementally from the encoded size of each item on its own, so that records are only
+	 * built once per emitted chunk instead of once per item. This assumes that record lengths grow with every
+	 * item added and that an item never takes less room within a chunk than on its own, which holds for name,
+	 * index and offset encodings (a PUBDEF chunk may only widen from 16-bit to 32-bit offsets).
+	 *
+	 * <p>The record factory is also applied to an empty chunk, to measure the record header.
+	 *
 	 * @param file destination OMF file
 	 * @param items ordered items to chunk
 	 * @param maxRecordSize maximum full record size in bytes
@@ -176,31 +216,49 @@ public final class OmfUtils {
 			return;
 		}
 
-		List<T> current = new ArrayList<>();
-		for (T item : items) {
-			current.add(item);
-			long measured = recordFactory.apply(List.copyOf(current)).getLength();
+		long headerLength = recordFactory.apply(List.of()).getLength();
+		long[] itemLengths = new long[items.size()];
+		for (int i = 0; i < itemLengths.length; i++) {
+			long measured = recordFactory.apply(List.of(items.get(i))).getLength();
 			if (measured > maxRecordSize) {
-				if (current.size() == 1) {
-					throw new IllegalArgumentException(
-							itemKind + " entry exceeds chunk limit: " + measured + " > " + maxRecordSize);
-				}
+				throw new IllegalArgumentException(
+						itemKind + " entry exceeds chunk limit: " + measured + " > " + maxRecordSize);
+			}
+			itemLengths[i] = measured - headerLength;
+		}
 
-				T overflow = current.remove(current.size() - 1);
-				file.add(recordFactory.apply(List.copyOf(current)));
+		int from = 0;
+		while (from < itemLengths.length) {
+			// Extend the chunk while its estimated length, a lower bound of the actual one, fits.
+			long estimate = headerLength + itemLengths[from];
+			int to = from + 1;
+			while (to < itemLengths.length && estimate + itemLengths[to] <= maxRecordSize) {
+				estimate += itemLengths[to++];
+			}
 
-				current = new ArrayList<>();
-				current.add(overflow);
-				long singleMeasured = recordFactory.apply(List.copyOf(current)).getLength();
-				if (singleMeasured > maxRecordSize) {
-					throw new IllegalArgumentException(
-							itemKind + " entry exceeds chunk limit: " + singleMeasured + " > " + maxRecordSize);
+			OmfRecord record = recordFactory.apply(List.copyOf(items.subList(from, to)));
+			if (record.getLength() > maxRecordSize) {
+				// The chunk grew beyond its estimate, find the longest prefix that still fits.
+				int fits = from + 1;
+				int overflows = to;
+				while (overflows - fits > 1) {
+					int middle = (fits + overflows) >>> 1;
+					if (recordFactory
+									.apply(List.copyOf(items.subList(from, middle)))
+									.getLength()
+							<= maxRecordSize) {
+						fits = middle;
+					} else {
+						overflows = middle;
+					}
 				}
+
+				to = fits;
+				record = recordFactory.apply(List.copyOf(items.subList(from, to)));
 			}
-		}
 
-		if (!current.isEmpty()) {
-			file.add(recordFactory.apply(List.copyOf(current)));
+			file.add(record);
+			from = to;
 		}
 	}
 
@@ -19,6 +19,7 @@ import java.nio.charset.StandardCharsets;
 import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
 import net.boricj.bft.omf.OmfComent;
+import net.boricj.bft.omf.OmfUtils;
 import net.boricj.bft.omf.constants.OmfComentClass;
 
 /**
@@ -103,6 +104,14 @@ public class OmfComentCompiler extends OmfComent {
 		return filename;
 	}
 
+	@Override
+	public long getLength() {
+		if (timestamp == null) {
+			return 0;
+		}
+		return 4 + OmfUtils.encodedStringLength(filename, StandardCharsets.US_ASCII);
+	}
+
 	@Override
 	public void write(ByteOutputStream bos) throws IOException {
 		if (timestamp != null) {
@@ -86,6 +86,11 @@ public class OmfComentLibrarySearch extends OmfComent {
 		return additionalData.clone();
 	}
 
+	@Override
+	public long getLength() {
+		return 4 + additionalData.length;
+	}
+
 	@Override
 	public void write(ByteOutputStream bos) throws IOException {
 		bos.writeInt((int) timestamp);
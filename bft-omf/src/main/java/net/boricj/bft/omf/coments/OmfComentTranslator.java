@@ -80,6 +80,11 @@ public class OmfComentTranslator extends OmfComent {
 		return translatorString;
 	}
 
+	@Override
+	public long getLength() {
+		return 1 + translatorString.getBytes(StandardCharsets.US_ASCII).length;
+	}
+
 	@Override
 	public void write(ByteOutputStream bos) throws IOException {
 		bos.writeByte(subtype);
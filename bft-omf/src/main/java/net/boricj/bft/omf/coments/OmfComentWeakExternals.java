@@ -105,6 +105,16 @@ public class OmfComentWeakExternals extends OmfComent {
 		return pairs;
 	}
 
+	@Override
+	public long getLength() {
+		long length = 0;
+		for (WeakExternalPair pair : pairs) {
+			length += OmfUtils.encodedIndexLength(pair.weakExternalIndex());
+			length += OmfUtils.encodedIndexLength(pair.defaultResolutionIndex());
+		}
+		return length;
+	}
+
 	@Override
 	public void write(ByteOutputStream bos) throws IOException {
 		for (WeakExternalPair pair : pairs) {
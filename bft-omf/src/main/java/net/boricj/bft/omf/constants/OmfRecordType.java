@@ -14,45 +14,93 @@
 package net.boricj.bft.omf.constants;
 
 import net.boricj.bft.omf.OmfRecord;
+import net.boricj.bft.omf.OmfRecordFactory;
+import net.boricj.bft.omf.records.OmfRecordComent;
+import net.boricj.bft.omf.records.OmfRecordExtdef;
+import net.boricj.bft.omf.records.OmfRecordFixupp;
+import net.boricj.bft.omf.records.OmfRecordGrpdef;
+import net.boricj.bft.omf.records.OmfRecordLedata;
+import net.boricj.bft.omf.records.OmfRecordLidata;
+import net.boricj.bft.omf.records.OmfRecordLinnum;
+import net.boricj.bft.omf.records.OmfRecordLnames;
+import net.boricj.bft.omf.records.OmfRecordModend;
+import net.boricj.bft.omf.records.OmfRecordPubdef;
+import net.boricj.bft.omf.records.OmfRecordSegdef;
+import net.boricj.bft.omf.records.OmfRecordTheadr;
 
 /**
  * Enumeration of OMF record types.
  *
  * <p>Each enum value corresponds to a specific OMF record format and includes
- * the record type byte value and the implementing class.
+ * the record type byte value, the implementing class and the factory parsing it.
  */
 public enum OmfRecordType {
 	/** Translator Header Record - module name. */
-	THEADR(Integer.valueOf(0x80).byteValue(), net.boricj.bft.omf.records.OmfRecordTheadr.class),
+	THEADR(
+			Integer.valueOf(0x80).byteValue(),
+			OmfRecordTheadr.class,
+			(file, bis, typeValue, body) -> new OmfRecordTheadr(file, bis)),
 	/** Comment Record - tool directives and metadata. */
-	COMENT(Integer.valueOf(0x88).byteValue(), net.boricj.bft.omf.records.OmfRecordComent.class),
+	COMENT(
+			Integer.valueOf(0x88).byteValue(),
+			OmfRecordComent.class,
+			(file, bis, typeValue, body) -> new OmfRecordComent(file, bis)),
 	/** Module End Record - marks end of module. */
-	MODEND(Integer.valueOf(0x8B).byteValue(), net.boricj.bft.omf.records.OmfRecordModend.class),
+	MODEND(
+			Integer.valueOf(0x8B).byteValue(),
+			OmfRecordModend.class,
+			(file, bis, typeValue, body) -> new OmfRecordModend(file, bis, typeValue)),
 	/** External Names Definition Record - external symbol references. */
-	EXTDEF(Integer.valueOf(0x8C).byteValue(), net.boricj.bft.omf.records.OmfRecordExtdef.class),
+	EXTDEF(
+			Integer.valueOf(0x8C).byteValue(),
+			OmfRecordExtdef.class,
+			(file, bis, typeValue, body) -> new OmfRecordExtdef(file, bis)),
 	/** Public Names Definition Record - exported symbols. */
-	PUBDEF(Integer.valueOf(0x91).byteValue(), net.boricj.bft.omf.records.OmfRecordPubdef.class),
+	PUBDEF(
+			Integer.valueOf(0x91).byteValue(),
+			OmfRecordPubdef.class,
+			(file, bis, typeValue, body) -> new OmfRecordPubdef(file, bis, typeValue)),
 	/** Line Numbers Record - source line to address mapping. */
-	LINNUM(Integer.valueOf(0x95).byteValue(), net.boricj.bft.omf.records.OmfRecordLinnum.class),
+	LINNUM(
+			Integer.valueOf(0x95).byteValue(),
+			OmfRecordLinnum.class,
+			(file, bis, typeValue, body) -> new OmfRecordLinnum(file, bis, typeValue)),
 	/** List of Names Record - string table. */
-	LNAMES(Integer.valueOf(0x96).byteValue(), net.boricj.bft.omf.records.OmfRecordLnames.class),
+	LNAMES(
+			Integer.valueOf(0x96).byteValue(),
+			OmfRecordLnames.class,
+			(file, bis, typeValue, body) -> new OmfRecordLnames(file, bis)),
 	/** Segment Definition Record - segment attributes and size. */
-	SEGDEF(Integer.valueOf(0x99).byteValue(), net.boricj.bft.omf.records.OmfRecordSegdef.class),
+	SEGDEF(
+			Integer.valueOf(0x99).byteValue(),
+			OmfRecordSegdef.class,
+			(file, bis, typeValue, body) -> new OmfRecordSegdef(file, bis, typeValue)),
 	/** Group Definition Record - segment grouping. */
-	GRPDEF(Integer.valueOf(0x9A).byteValue(), net.boricj.bft.omf.records.OmfRecordGrpdef.class),
+	GRPDEF(
+			Integer.valueOf(0x9A).byteValue(),
+			OmfRecordGrpdef.class,
+			(file, bis, typeValue, body) -> new OmfRecordGrpdef(file, bis)),
 	/** Fixup Record - relocation information. */
-	FIXUPP(Integer.valueOf(0x9D).byteValue(), net.boricj.bft.omf.records.OmfRecordFixupp.class),
+	FIXUPP(
+			Integer.valueOf(0x9D).byteValue(),
+			OmfRecordFixupp.class,
+			(file, bis, typeValue, body) -> new OmfRecordFixupp(file, bis, typeValue)),
 	/** Logical Enumerated Data Record - segment data. */
-	LEDATA(Integer.valueOf(0xA1).byteValue(), net.boricj.bft.omf.records.OmfRecordLedata.class),
+	LEDATA(Integer.valueOf(0xA1).byteValue(), OmfRecordLedata.class, OmfRecordLedata::new),
 	/** Logical Iterated Data Record - repeated data patterns. */
-	LIDATA(Integer.valueOf(0xA3).byteValue(), net.boricj.bft.omf.records.OmfRecordLidata.class);
+	LIDATA(
+			Integer.valueOf(0xA3).byteValue(),
+			OmfRecordLidata.class,
+			(file, bis, typeValue, body) -> new OmfRecordLidata(file, bis, typeValue));
 
 	private final byte value;
 	private final Class<? extends OmfRecord> recordClass;
+	private final OmfRecordFactory recordFactory;
 
-	OmfRecordType(byte value, Class<? extends OmfRecord> recordClass) {
+	OmfRecordType(byte value, Class<? extends OmfRecord> recordClass, OmfRecordFactory recordFactory) {
 		this.value = value;
 		this.recordClass = recordClass;
+		this.recordFactory = recordFactory;
 	}
 
 	/**
@@ -73,6 +121,15 @@ public enum OmfRecordType {
 		return recordClass;
 	}
 
+	/**
+	 * Returns the factory parsing records of this type.
+	 *
+	 * @return the record factory
+	 */
+	public OmfRecordFactory getRecordFactory() {
+		return recordFactory;
+	}
+
 	/**
 	 * Looks up an OMF record type by its byte value.
 	 *
@@ -104,6 +104,11 @@ public class OmfRecordComent extends OmfRecord {
 		return comment.getCommentClass();
 	}
 
+	@Override
+	protected long computeDataLength() {
+		return 2 + comment.getLength();
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		byte attributeByte = 0;
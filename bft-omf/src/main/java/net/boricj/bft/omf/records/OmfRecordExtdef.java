@@ -72,6 +72,16 @@ public class OmfRecordExtdef extends OmfRecord implements IndirectList<OmfSubrec
 		return elements;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		long length = 0;
+		for (OmfSubrecordExtdef entry : elements) {
+			length += OmfUtils.encodedStringLength(entry.name(), StandardCharsets.US_ASCII);
+			length += OmfUtils.encodedIndexLength(entry.typeIndex());
+		}
+		return length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		for (OmfSubrecordExtdef entry : elements) {
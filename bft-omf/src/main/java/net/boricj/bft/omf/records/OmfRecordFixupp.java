@@ -324,6 +324,17 @@ public class OmfRecordFixupp extends OmfRecord {
 			return datum;
 		}
 
+		@Override
+		public long getLength() {
+			if (!usesDatum(method.getValue())) {
+				return 1;
+			}
+			if (datum == null) {
+				throw new IllegalStateException("THREAD subrecord requires datum for method " + method.getValue());
+			}
+			return 1 + OmfUtils.encodedIndexLength(datum);
+		}
+
 		@Override
 		public void write(ByteOutputStream bos) throws IOException {
 			int threadByte = ((targetThread ? 1 : 0) << 6) | ((method.getValue() & 0x07) << 2) | (threadNumber & 0x03);
@@ -697,6 +708,33 @@ public class OmfRecordFixupp extends OmfRecord {
 			return displacementType;
 		}
 
+		@Override
+		public long getLength() {
+			long length = 3;
+
+			if (!frameFromThread && usesDatum(frameMethod.getValue())) {
+				if (frameDatum == null) {
+					throw new IllegalStateException(
+							"FIXUP frame datum is required for method " + frameMethod.getValue());
+				}
+				length += OmfUtils.encodedIndexLength(frameDatum);
+			}
+
+			if (!targetFromThread && usesDatum(targetMethod.getValue())) {
+				if (targetDatum == null) {
+					throw new IllegalStateException(
+							"FIXUP target datum is required for method " + targetMethod.getValue());
+				}
+				length += OmfUtils.encodedIndexLength(targetDatum);
+			}
+
+			if (targetDisplacement != null && displacementType != null) {
+				length += displacementType.getByteCount();
+			}
+
+			return length;
+		}
+
 		@Override
 		public void write(ByteOutputStream bos) throws IOException {
 			int firstByte = 0x80;
@@ -790,9 +828,22 @@ public class OmfRecordFixupp extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordFixupp(OmfFile file, ByteInputStream bis) throws IOException {
+		this(file, bis, (byte) 0);
+	}
+
+	/**
+	 * Parses a FIXUPP record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordFixupp(OmfFile file, ByteInputStream bis, byte parsedType) throws IOException {
 		super(file, OmfRecordType.FIXUPP);
 
-		byte parsedType = getParsingTypeValue();
 		byte assumedType = (parsedType != 0) ? parsedType : (byte) 0x9C;
 		byte[] encodedData = bis.readAllBytes();
 		ByteInputStream entryBis = ByteInputStream.asLittleEndian(encodedData);
@@ -948,6 +999,15 @@ public class OmfRecordFixupp extends OmfRecord {
 		return threadEntries;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		long length = 0;
+		for (Subrecord subrecord : subrecords) {
+			length += subrecord.getLength();
+		}
+		return length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		validateFixupEntryDisplacementTypes(fixupEntries, specificTypeValue);
@@ -92,6 +92,15 @@ public class OmfRecordGrpdef extends OmfRecord {
 		return segments;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		long length = OmfUtils.encodedIndexLength(getFile().indexOfLnameBefore(groupName, this));
+		for (OmfRecordSegdef segment : segments) {
+			length += 1 + OmfUtils.encodedIndexLength(getFile().indexOfSegment(segment));
+		}
+		return length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		OmfUtils.writeIndex(bos, getFile().indexOfLnameBefore(groupName, this));
@@ -14,9 +14,10 @@
 package net.boricj.bft.omf.records;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
+import net.boricj.bft.ByteContent;
 import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
 import net.boricj.bft.omf.OmfFile;
@@ -31,7 +32,7 @@ import net.boricj.bft.omf.constants.OmfRecordType;
 public class OmfRecordLedata extends OmfRecord {
 	private final OmfRecordSegdef segment;
 	private final long dataOffset;
-	private final byte[] data;
+	private final ByteContent content;
 	private final byte specificTypeValue;
 
 	/**
@@ -42,21 +43,34 @@ public class OmfRecordLedata extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordLedata(OmfFile file, ByteInputStream bis) throws IOException {
-		super(file, OmfRecordType.LEDATA);
+		this(file, bis, (byte) 0, null);
+	}
 
-		byte parsedType = getParsingTypeValue();
-		byte[] rawData = bis.readAllBytes();
-		int[] offset = {0};
+	/**
+	 * Parses an LEDATA record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @param body read-only view over the record data when parsing from a zero-copy source, or null
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordLedata(OmfFile file, ByteInputStream bis, byte parsedType, ByteBuffer body) throws IOException {
+		super(file, OmfRecordType.LEDATA);
 
-		this.segment = file.getSegmentByIndex(OmfUtils.readIndex(rawData, offset));
+		this.segment = file.getSegmentByIndex(OmfUtils.readIndex(bis));
 		if (parsedType == (byte) 0xA1) {
-			this.dataOffset = OmfUtils.u32le(rawData, offset[0]);
-			offset[0] += 4;
+			this.dataOffset = Integer.toUnsignedLong(bis.readInt());
 		} else {
-			this.dataOffset = OmfUtils.u16le(rawData, offset[0]);
-			offset[0] += 2;
+			this.dataOffset = bis.readUnsignedShort();
+		}
+		if (body != null) {
+			this.content = ByteContent.view(body.slice(bis.getCount(), body.limit() - bis.getCount()));
+		} else {
+			this.content = ByteContent.of(bis.readAllBytes());
 		}
-		this.data = Arrays.copyOfRange(rawData, offset[0], rawData.length);
 		// Store the original type from parsing, or default to 16-bit variant
 		this.specificTypeValue = (parsedType != 0) ? parsedType : (byte) 0xA0;
 	}
@@ -79,7 +93,7 @@ public class OmfRecordLedata extends OmfRecord {
 
 		this.segment = segment;
 		this.dataOffset = dataOffset;
-		this.data = data.clone();
+		this.content = ByteContent.of(data.clone());
 		this.specificTypeValue = (dataOffset > 0xFFFF) ? (byte) 0xA1 : (byte) 0xA0;
 		validateDataLength("LEDATA");
 	}
@@ -110,10 +124,27 @@ public class OmfRecordLedata extends OmfRecord {
 	/**
 	 * Returns the data bytes.
 	 *
+	 * <p>Zero-copy data is copied onto the heap on the first call.
+	 *
 	 * @return the data bytes
 	 */
 	public byte[] getData() {
-		return data;
+		return content.getBytes();
+	}
+
+	/**
+	 * Returns a read-only view over the data bytes, without copying them onto the heap.
+	 *
+	 * @return the data bytes
+	 */
+	public ByteBuffer getDataBuffer() {
+		return content.getBuffer();
+	}
+
+	@Override
+	protected long computeDataLength() {
+		int offsetLength = specificTypeValue == (byte) 0xA1 ? 4 : 2;
+		return OmfUtils.encodedIndexLength(getFile().indexOfSegment(segment)) + offsetLength + content.getLength();
 	}
 
 	@Override
@@ -124,6 +155,6 @@ public class OmfRecordLedata extends OmfRecord {
 		} else {
 			bos.writeShort((int) dataOffset);
 		}
-		bos.write(data);
+		content.write(bos);
 	}
 }
@@ -42,9 +42,22 @@ public class OmfRecordLidata extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordLidata(OmfFile file, ByteInputStream bis) throws IOException {
+		this(file, bis, (byte) 0);
+	}
+
+	/**
+	 * Parses an LIDATA record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordLidata(OmfFile file, ByteInputStream bis, byte parsedType) throws IOException {
 		super(file, OmfRecordType.LIDATA);
 
-		byte parsedType = getParsingTypeValue();
 		byte[] rawData = bis.readAllBytes();
 		int[] offset = {0};
 
@@ -116,6 +129,12 @@ public class OmfRecordLidata extends OmfRecord {
 		return encodedData;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		int offsetLength = specificTypeValue == (byte) 0xA3 ? 4 : 2;
+		return OmfUtils.encodedIndexLength(getFile().indexOfSegment(segment)) + offsetLength + encodedData.length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		OmfUtils.writeIndex(bos, getFile().indexOfSegment(segment));
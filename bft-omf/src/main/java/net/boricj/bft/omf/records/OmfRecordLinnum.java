@@ -43,9 +43,22 @@ public class OmfRecordLinnum extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordLinnum(OmfFile file, ByteInputStream bis) throws IOException {
+		this(file, bis, (byte) 0);
+	}
+
+	/**
+	 * Parses a LINNUM record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordLinnum(OmfFile file, ByteInputStream bis, byte parsedType) throws IOException {
 		super(file, OmfRecordType.LINNUM);
 
-		byte parsedType = getParsingTypeValue();
 		boolean use32BitOffsets = parsedType == (byte) 0x95;
 
 		byte[] data = bis.readAllBytes();
@@ -141,6 +154,14 @@ public class OmfRecordLinnum extends OmfRecord {
 		return lineNumbers;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		int offsetLength = specificTypeValue == (byte) 0x95 ? 4 : 2;
+		return OmfUtils.encodedIndexLength(group == null ? 0 : getFile().indexOfGroup(group))
+				+ OmfUtils.encodedIndexLength(segment == null ? 0 : getFile().indexOfSegment(segment))
+				+ (long) lineNumbers.size() * (2 + offsetLength);
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		OmfUtils.writeIndex(bos, group == null ? 0 : getFile().indexOfGroup(group));
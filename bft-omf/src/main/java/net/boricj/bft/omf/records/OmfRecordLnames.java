@@ -23,6 +23,7 @@ import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
 import net.boricj.bft.omf.OmfFile;
 import net.boricj.bft.omf.OmfRecord;
+import net.boricj.bft.omf.OmfUtils;
 import net.boricj.bft.omf.constants.OmfRecordType;
 
 /**
@@ -74,6 +75,15 @@ public class OmfRecordLnames extends OmfRecord {
 		return names;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		long length = 0;
+		for (String name : names) {
+			length += OmfUtils.encodedStringLength(name, StandardCharsets.US_ASCII);
+		}
+		return length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		for (String name : names) {
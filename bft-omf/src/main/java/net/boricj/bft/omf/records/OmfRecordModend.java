@@ -64,6 +64,20 @@ public class OmfRecordModend extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordModend(OmfFile file, ByteInputStream bis) throws IOException {
+		this(file, bis, (byte) 0);
+	}
+
+	/**
+	 * Parses a MODEND record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordModend(OmfFile file, ByteInputStream bis, byte parsedType) throws IOException {
 		super(file, OmfRecordType.MODEND);
 
 		// Read module type flags
@@ -75,7 +89,6 @@ public class OmfRecordModend extends OmfRecord {
 		this.startAddressFixup = bis.readAllBytes();
 
 		// Store the original type from parsing, or default to 16-bit variant
-		byte parsedType = getParsingTypeValue();
 		this.specificTypeValue = (parsedType != 0) ? parsedType : (byte) 0x8A;
 	}
 
@@ -145,6 +158,11 @@ public class OmfRecordModend extends OmfRecord {
 		return startAddressFixup.clone();
 	}
 
+	@Override
+	protected long computeDataLength() {
+		return 1 + startAddressFixup.length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		byte flags = 0;
@@ -45,6 +45,20 @@ public class OmfRecordPubdef extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordPubdef(OmfFile file, ByteInputStream bis) throws IOException {
+		this(file, bis, (byte) 0);
+	}
+
+	/**
+	 * Parses a PUBDEF record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordPubdef(OmfFile file, ByteInputStream bis, byte parsedType) throws IOException {
 		super(file, OmfRecordType.PUBDEF);
 
 		int groupIndex = OmfUtils.readIndex(bis);
@@ -58,7 +72,6 @@ public class OmfRecordPubdef extends OmfRecord {
 			this.baseFrame = 0;
 		}
 
-		byte parsedType = getParsingTypeValue();
 		boolean isKnown32Bit = parsedType == (byte) 0x91;
 		boolean isKnown16Bit = parsedType == (byte) 0x90;
 
@@ -181,6 +194,22 @@ public class OmfRecordPubdef extends OmfRecord {
 		return symbols;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		long length = OmfUtils.encodedIndexLength(group == null ? 0 : getFile().indexOfGroup(group))
+				+ OmfUtils.encodedIndexLength(segment == null ? 0 : getFile().indexOfSegment(segment));
+		if (segment == null) {
+			length += 2;
+		}
+
+		int offsetLength = specificTypeValue == (byte) 0x91 ? 4 : 2;
+		for (PublicSymbol symbol : symbols) {
+			length += OmfUtils.encodedStringLength(symbol.name(), StandardCharsets.US_ASCII);
+			length += offsetLength + OmfUtils.encodedIndexLength(symbol.typeIndex());
+		}
+		return length;
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		OmfUtils.writeIndex(bos, group == null ? 0 : getFile().indexOfGroup(group));
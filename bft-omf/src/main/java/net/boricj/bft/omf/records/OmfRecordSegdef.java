@@ -235,6 +235,20 @@ public class OmfRecordSegdef extends OmfRecord {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public OmfRecordSegdef(OmfFile file, ByteInputStream bis) throws IOException {
+		this(file, bis, (byte) 0);
+	}
+
+	/**
+	 * Parses a SEGDEF record from the input stream.
+	 *
+	 * <p>The record type byte selects between the 16-bit and 32-bit variants of the record.
+	 *
+	 * @param file the parent OMF file
+	 * @param bis the input stream
+	 * @param parsedType the record type byte read from the file, or 0 if unknown
+	 * @throws IOException if an I/O error occurs
+	 */
+	public OmfRecordSegdef(OmfFile file, ByteInputStream bis, byte parsedType) throws IOException {
 		super(file, OmfRecordType.SEGDEF);
 
 		byte[] data = bis.readAllBytes();
@@ -261,7 +275,6 @@ public class OmfRecordSegdef extends OmfRecord {
 		this.overlayName = result.overlayNameIndex() > 0 ? file.getLnameByIndex(result.overlayNameIndex()) : "";
 
 		// Store the original type from parsing, or the variant we detected
-		byte parsedType = getParsingTypeValue();
 		this.specificTypeValue = (parsedType != 0) ? parsedType : (parsed32Bit ? (byte) 0x99 : (byte) 0x98);
 	}
 
@@ -406,6 +419,16 @@ public class OmfRecordSegdef extends OmfRecord {
 		return overlayName;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		int lengthFieldSize = specificTypeValue == (byte) 0x99 ? 4 : 2;
+		return 1
+				+ lengthFieldSize
+				+ OmfUtils.encodedIndexLength(getFile().indexOfLnameBefore(segmentName, this))
+				+ OmfUtils.encodedIndexLength(getFile().indexOfLnameBefore(className, this))
+				+ OmfUtils.encodedIndexLength(getFile().indexOfLnameBefore(overlayName, this));
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		bos.writeByte(attributes);
@@ -20,6 +20,7 @@ import net.boricj.bft.ByteInputStream;
 import net.boricj.bft.ByteOutputStream;
 import net.boricj.bft.omf.OmfFile;
 import net.boricj.bft.omf.OmfRecord;
+import net.boricj.bft.omf.OmfUtils;
 import net.boricj.bft.omf.constants.OmfRecordType;
 
 /**
@@ -65,6 +66,11 @@ public class OmfRecordTheadr extends OmfRecord {
 		return moduleName;
 	}
 
+	@Override
+	protected long computeDataLength() {
+		return OmfUtils.encodedStringLength(moduleName, getFile().getCharset());
+	}
+
 	@Override
 	protected void write(ByteOutputStream bos) throws IOException {
 		// Write module name as length-prefixed string
@@ -13,8 +13,11 @@
  */
 package net.boricj.bft.omf;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.Test;
 
@@ -24,7 +27,9 @@ import net.boricj.bft.omf.records.OmfRecordPubdef;
 import net.boricj.bft.omf.records.OmfRecordSegdef;
 import net.boricj.bft.omf.records.OmfSubrecordExtdef;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestChunking {
@@ -121,4 +126,81 @@ public class TestChunking {
 		assertTrue(pubdefRecordCount > 1, "Expected multiple PUBDEF records for small max size");
 		assertEquals(symbols, flattened);
 	}
+
+	@Test
+	public void test_emit_chunked_records_matches_greedy_packing() throws IOException {
+		List<OmfRecordPubdef.PublicSymbol> symbols = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			// Offsets past 0xFFFF widen the whole chunk to 32-bit offsets.
+			long offset = i % 7 == 3 ? 0x10000L + i : i * 4L;
+			symbols.add(
+					new OmfRecordPubdef.PublicSymbol("_sym_" + "x".repeat(i % 13) + i, offset, i % 3 == 0 ? 0x90 : 0));
+		}
+
+		for (int maxRecordSize : new int[] {40, 64, 100, 1024}) {
+			OmfFile expected = newPubdefFile();
+			OmfRecordSegdef expectedSegment =
+					(OmfRecordSegdef) expected.getElements().get(0);
+			emitGreedy(
+					expected,
+					symbols,
+					maxRecordSize,
+					chunk -> new OmfRecordPubdef(expected, null, expectedSegment, 0, chunk));
+
+			OmfFile actual = newPubdefFile();
+			OmfRecordSegdef actualSegment =
+					(OmfRecordSegdef) actual.getElements().get(0);
+			OmfUtils.emitChunkedRecords(
+					actual,
+					symbols,
+					maxRecordSize,
+					"PUBDEF",
+					chunk -> new OmfRecordPubdef(actual, null, actualSegment, 0, chunk));
+
+			assertEquals(expected.getElements().size(), actual.getElements().size());
+			assertArrayEquals(serialize(expected), serialize(actual));
+		}
+	}
+
+	@Test
+	public void test_emit_chunked_records_rejects_oversized_entry() {
+		OmfFile omf = new OmfFile.Builder().build();
+		List<String> names = List.of("a", "b", "name_too_long_for_limit");
+
+		IllegalArgumentException exception = assertThrows(
+				IllegalArgumentException.class,
+				() -> OmfUtils.emitChunkedRecords(omf, names, 16, "LNAMES", chunk -> new OmfRecordLnames(omf, chunk)));
+		assertEquals("LNAMES entry exceeds chunk limit: 28 > 16", exception.getMessage());
+	}
+
+	private static OmfFile newPubdefFile() {
+		OmfFile omf = new OmfFile.Builder().build();
+		omf.add(new OmfRecordSegdef(omf, OmfRecordSegdef.Attributes.ofRaw(0xA9), 0x20000L, "_DATA", "DATA", ""));
+		return omf;
+	}
+
+	// Reference implementation measuring every candidate chunk from scratch.
+	private static <T> void emitGreedy(
+			OmfFile file, List<T> items, int maxRecordSize, Function<List<T>, OmfRecord> recordFactory) {
+		List<T> current = new ArrayList<>();
+		for (T item : items) {
+			current.add(item);
+			if (recordFactory.apply(List.copyOf(current)).getLength() > maxRecordSize) {
+				T overflow = current.remove(current.size() - 1);
+				file.add(recordFactory.apply(List.copyOf(current)));
+				current = new ArrayList<>(List.of(overflow));
+			}
+		}
+		file.add(recordFactory.apply(List.copyOf(current)));
+	}
+
+	private static byte[] serialize(OmfFile omf) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (OmfRecord record : omf.getElements()) {
+			if (record instanceof OmfRecordPubdef) {
+				record.write(out);
+			}
+		}
+		return out.toByteArray();
+	}
 }
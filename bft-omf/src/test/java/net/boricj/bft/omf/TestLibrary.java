@@ -0,0 +1,575 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.omf.constants.OmfRecordType;
+import net.boricj.bft.omf.records.OmfRecordExtdef;
+import net.boricj.bft.omf.records.OmfRecordModend;
+import net.boricj.bft.omf.records.OmfRecordPubdef;
+import net.boricj.bft.omf.records.OmfRecordTheadr;
+import net.boricj.bft.omf.records.OmfSubrecordExtdef;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+public class TestLibrary {
+	@Test
+	public void test_library_hash_known_answers() {
+		// Worked by hand from the reference hashing loop of the OMF library format.
+		assertEquals(new OmfLibraryHash(0, 1, 23, 33), hash("A", 3));
+		assertEquals(new OmfLibraryHash(1, 1, 7, 10), hash("_main", 2));
+		assertEquals(new OmfLibraryHash(0, 4, 1, 22), hash("_puts", 7));
+		assertEquals(new OmfLibraryHash(9, 4, 14, 8), hash("printf", 37));
+		assertEquals(new OmfLibraryHash(161, 195, 21, 2), hash("__setargv__", 251));
+
+		// Hashing folds case.
+		assertEquals(hash("printf", 37), hash("PRINTF", 37));
+	}
+
+	@Test
+	public void test_library_lookup_seeks_to_owning_module() throws Exception {
+		Map<String, Integer> symbols = new LinkedHashMap<>();
+		symbols.put("_main", 1);
+		symbols.put("_print_number", 2);
+		symbols.put("_COLUMNS", 2);
+		ByteSource source = ByteSource.wrap(buildLibrary(16, 1, 0, symbols, List.of()));
+
+		OmfLibrary library = new OmfLibrary.Parser(source).parse();
+		assertEquals(16, library.getPageSize());
+		assertEquals(1, library.getDictionaryBlockCount());
+		assertFalse(library.isCaseSensitive());
+		assertFalse(library.hasExtendedDictionary());
+
+		OmfLibrary.Module module = library.findModule("_print_number");
+		assertEquals(library.getModules().get(1), module);
+		assertEquals(".\\ascii-table.c", module.getName());
+		assertSame(module, library.findModule("_columns"));
+
+		OmfFile omf = module.parse();
+		assertEquals(".\\ascii-table.c", ((OmfRecordTheadr) omf.getElements().get(0)).getModuleName());
+		assertTrue(omf.stream()
+				.filter(OmfRecordPubdef.class::isInstance)
+				.map(OmfRecordPubdef.class::cast)
+				.anyMatch(pubdef -> pubdef.getSymbols().stream()
+						.anyMatch(symbol -> symbol.name().equals("_print_number"))));
+
+		assertThrows(NoSuchElementException.class, () -> library.findModule("_puts"));
+		assertEquals(Map.of("_main", library.getModules().get(0)), library.findModules(List.of("_main", "_puts")));
+		assertEquals(symbols.keySet(), library.getDictionary().keySet());
+	}
+
+	@Test
+	public void test_library_modules_are_page_aligned() throws Exception {
+		ByteSource source = ByteSource.wrap(buildLibrary(32, 1, 0, Map.of(), List.of()));
+
+		OmfLibrary library = new OmfLibrary.Parser(source).parse();
+		List<OmfLibrary.Module> modules = library.getModules();
+		assertEquals(2, modules.size());
+		assertEquals(32, modules.get(0).getOffset());
+		assertEquals(0, modules.get(1).getOffset() % 32);
+		assertEquals(".\\hello-world.c", modules.get(0).getName());
+		assertEquals(".\\ascii-table.c", modules.get(1).getName());
+		assertEquals(0, library.getDictionaryOffset() % OmfLibrary.DICTIONARY_BLOCK_SIZE);
+	}
+
+	@Test
+	public void test_library_lookup_follows_overflowing_blocks() throws Exception {
+		Map<String, Integer> symbols = new LinkedHashMap<>();
+		for (int i = 0; i < 200; i++) {
+			symbols.put("_symbol_" + i, 1 + i % 2);
+		}
+		ByteSource source = ByteSource.wrap(buildLibrary(16, 11, 0, symbols, List.of()));
+
+		OmfLibrary library = new OmfLibrary.Parser(source).parse();
+		for (Map.Entry<String, Integer> entry : symbols.entrySet()) {
+			assertEquals(
+					library.getModules().get(entry.getValue() - 1), library.findModule(entry.getKey()), entry.getKey());
+		}
+		assertThrows(NoSuchElementException.class, () -> library.findModule("_symbol_200"));
+		assertEquals(symbols.size(), library.getDictionary().size());
+	}
+
+	@Test
+	public void test_library_case_sensitive_lookup() throws Exception {
+		ByteSource source =
+				ByteSource.wrap(buildLibrary(16, 1, OmfLibrary.FLAG_CASE_SENSITIVE, Map.of("_main", 1), List.of()));
+
+		OmfLibrary library = new OmfLibrary.Parser(source).parse();
+		assertTrue(library.isCaseSensitive());
+		assertEquals(".\\hello-world.c", library.findModule("_main").getName());
+		assertThrows(NoSuchElementException.class, () -> library.findModule("_MAIN"));
+	}
+
+	@Test
+	public void test_library_extended_dictionary() throws Exception {
+		ByteSource source = ByteSource.wrap(buildLibrary(16, 1, 0, Map.of(), List.of(List.of(), List.of(1))));
+
+		OmfLibrary library = new OmfLibrary.Parser(source).parse();
+		assertTrue(library.hasExtendedDictionary());
+		List<OmfLibrary.Module> modules = library.getModules();
+		assertEquals(List.of(), library.getDependencies(modules.get(0)));
+		assertEquals(List.of(modules.get(0)), library.getDependencies(modules.get(1)));
+	}
+
+	@Test
+	public void test_library_extended_dictionary_rejects_bad_page() throws Exception {
+		byte[] bytes = buildLibrary(16, 1, 0, Map.of(), List.of(List.of(), List.of(1)));
+
+		// Point the first module table entry past the module area.
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int extendedDictionary = buffer.getInt(3) + OmfLibrary.DICTIONARY_BLOCK_SIZE;
+		buffer.putShort(extendedDictionary + 5, (short) 0xFFFF);
+
+		OmfLibrary library = new OmfLibrary.Parser(ByteSource.wrap(bytes)).parse();
+		OmfLibrary.Module module = library.getModules().get(0);
+		assertThrows(IllegalStateException.class, () -> library.getDependencies(module));
+	}
+
+	@Test
+	public void test_library_rejects_object_module() throws Exception {
+		ByteSource source = ByteSource.wrap(readResource("hello-world_i386-pc-windows-omf.obj"));
+
+		assertFalse(OmfLibrary.isLibrary(source));
+		assertThrows(IllegalStateException.class, () -> new OmfLibrary.Parser(source).parse());
+	}
+
+	@Test
+	public void test_librarian_fixtures() throws Exception {
+		List<Path> fixtures = librarianFixtures();
+		assumeFalse(fixtures.isEmpty(), "No librarian-produced .lib fixture");
+
+		for (Path fixture : fixtures) {
+			OmfLibrary library = new OmfLibrary.Parser(ByteSource.map(fixture)).parse();
+			List<OmfLibrary.Module> modules = library.getModules();
+			assertFalse(modules.isEmpty(), fixture.toString());
+
+			// Every public symbol is found along its hash sequence, pointing back to its module.
+			Map<String, OmfLibrary.Module> dictionary = library.getDictionary();
+			for (OmfLibrary.Module module : modules) {
+				assertFalse(module.getName().isEmpty());
+				for (String name : publicNames(module.parse())) {
+					assertSame(module, library.findModule(name), fixture + ": " + name);
+					assertTrue(
+							dictionary.keySet().stream()
+									.anyMatch(key ->
+											library.isCaseSensitive() ? key.equals(name) : key.equalsIgnoreCase(name)),
+							fixture + ": " + name);
+				}
+			}
+			assertTrue(modules.containsAll(dictionary.values()), fixture.toString());
+			for (String name : dictionary.keySet()) {
+				assertSame(dictionary.get(name), library.findModule(name), fixture + ": " + name);
+			}
+
+			if (library.hasExtendedDictionary()) {
+				for (OmfLibrary.Module module : modules) {
+					assertTrue(modules.containsAll(library.getDependencies(module)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test_library_writer_matches_librarian_fixtures() throws Exception {
+		List<Path> fixtures = librarianFixtures();
+		assumeFalse(fixtures.isEmpty(), "No librarian-produced .lib fixture");
+
+		for (Path fixture : fixtures) {
+			OmfLibrary expected = new OmfLibrary.Parser(ByteSource.map(fixture)).parse();
+			List<OmfLibrary.Module> expectedModules = expected.getModules();
+			List<OmfFile> modules = new ArrayList<>();
+			for (OmfLibrary.Module module : expectedModules) {
+				modules.add(module.parse());
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			new OmfLibraryWriter(modules)
+					.setPageSize(expected.getPageSize())
+					.setCaseSensitive(expected.isCaseSensitive())
+					.setExtendedDictionary(expected.hasExtendedDictionary())
+					.write(out);
+			OmfLibrary actual = new OmfLibrary.Parser(ByteSource.wrap(out.toByteArray())).parse();
+			List<OmfLibrary.Module> actualModules = actual.getModules();
+			assertEquals(expectedModules.size(), actualModules.size(), fixture.toString());
+
+			// Public symbols resolve to the same modules in both dictionaries.
+			for (int i = 0; i < modules.size(); i++) {
+				for (String name : publicNames(modules.get(i))) {
+					assertEquals(
+							expectedModules.indexOf(expected.findModule(name)),
+							actualModules.indexOf(actual.findModule(name)),
+							fixture + ": " + name);
+				}
+			}
+
+			// Both extended dictionaries list the same dependencies.
+			if (expected.hasExtendedDictionary()) {
+				for (int i = 0; i < modules.size(); i++) {
+					assertEquals(
+							expected.getDependencies(expectedModules.get(i)).stream()
+									.map(expectedModules::indexOf)
+									.sorted()
+									.toList(),
+							actual.getDependencies(actualModules.get(i)).stream()
+									.map(actualModules::indexOf)
+									.sorted()
+									.toList(),
+							fixture + ": " + expectedModules.get(i).getName());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test_library_writer_roundtrip() throws Exception {
+		OmfFile helloWorld;
+		try (FileInputStream fis = new FileInputStream(Path.of(getClass()
+						.getResource("hello-world_i386-pc-windows-omf.obj")
+						.toURI())
+				.toFile())) {
+			helloWorld = new OmfFile.Parser(fis).parse();
+		}
+		List<OmfFile> modules = List.of(
+				newModule("alpha.c", List.of("_alpha", "_Beta"), List.of()),
+				newModule("gamma.c", List.of("_gamma"), List.of("_alpha", "_missing")),
+				helloWorld,
+				newModule("puts.c", List.of("_puts"), List.of("_gamma", "_puts")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new OmfLibraryWriter(modules).setExtendedDictionary(true).write(out);
+
+		OmfLibrary library = new OmfLibrary.Parser(ByteSource.wrap(out.toByteArray())).parse();
+		assertEquals(OmfLibraryWriter.DEFAULT_PAGE_SIZE, library.getPageSize());
+		assertFalse(library.isCaseSensitive());
+		assertEquals(0, library.getDictionaryOffset() % OmfLibrary.DICTIONARY_BLOCK_SIZE);
+
+		List<OmfLibrary.Module> libraryModules = library.getModules();
+		assertEquals(
+				List.of("alpha.c", "gamma.c", ".\\hello-world.c", "puts.c"),
+				libraryModules.stream().map(OmfLibrary.Module::getName).toList());
+		for (int i = 0; i < modules.size(); i++) {
+			assertEquals(0, libraryModules.get(i).getOffset() % library.getPageSize());
+			assertEquals(
+					modules.get(i).getLength(), libraryModules.get(i).parse().getLength());
+		}
+
+		assertSame(libraryModules.get(0), library.findModule("_beta"));
+		assertSame(libraryModules.get(1), library.findModule("_gamma"));
+		assertSame(libraryModules.get(2), library.findModule("_main"));
+		assertSame(libraryModules.get(3), library.findModule("_puts"));
+		assertThrows(NoSuchElementException.class, () -> library.findModule("_missing"));
+		assertEquals(5, library.getDictionary().size());
+
+		assertEquals(List.of(), library.getDependencies(libraryModules.get(0)));
+		assertEquals(List.of(libraryModules.get(0)), library.getDependencies(libraryModules.get(1)));
+		assertEquals(List.of(libraryModules.get(3)), library.getDependencies(libraryModules.get(2)));
+		assertEquals(List.of(libraryModules.get(1)), library.getDependencies(libraryModules.get(3)));
+	}
+
+	@Test
+	public void test_library_record_iterator() throws Exception {
+		OmfFile helloWorld;
+		try (FileInputStream fis = new FileInputStream(Path.of(getClass()
+						.getResource("hello-world_i386-pc-windows-omf.obj")
+						.toURI())
+				.toFile())) {
+			helloWorld = new OmfFile.Parser(fis).parse();
+		}
+		List<OmfFile> modules = List.of(
+				newModule("alpha.c", List.of("_alpha", "_Beta"), List.of()),
+				helloWorld,
+				newModule("gamma.c", List.of("_gamma"), List.of("_alpha", "_missing")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new OmfLibraryWriter(modules).setExtendedDictionary(true).write(out);
+		byte[] bytes = out.toByteArray();
+		OmfLibrary library = new OmfLibrary.Parser(ByteSource.wrap(bytes)).parse();
+
+		// Turn the first COMENT record of the hello world module into a COMDEF record, unknown to this library.
+		int offset = (int) library.getModules().get(1).getOffset();
+		while (bytes[offset] != OmfRecordType.COMENT.getValue()) {
+			offset += 3
+					+ Short.toUnsignedInt(ByteBuffer.wrap(bytes, offset + 1, 2)
+							.order(ByteOrder.LITTLE_ENDIAN)
+							.getShort());
+		}
+		bytes[offset] = (byte) 0xB0;
+
+		Predicate<OmfRecordType> filter = EnumSet.of(OmfRecordType.PUBDEF, OmfRecordType.EXTDEF)::contains;
+		List<OmfRecord> expected = modules.stream()
+				.flatMap(OmfFile::stream)
+				.filter(record -> filter.test(record.getType()))
+				.toList();
+
+		Path path = Files.createTempFile("omf-library", ".lib");
+		try {
+			Files.write(path, bytes);
+			try (FileChannel channel = FileChannel.open(path)) {
+				assertRecords(expected, new OmfRecordIterator(channel).setRecordTypeFilter(filter));
+			}
+		} finally {
+			Files.delete(path);
+		}
+		assertRecords(
+				expected,
+				new OmfRecordIterator(Channels.newChannel(new ByteArrayInputStream(bytes)))
+						.setRecordTypeFilter(filter));
+
+		// A module source has no LIBHDR record, but still runs up to the LIBEND record.
+		OmfLibrary.Module module = new OmfLibrary.Parser(ByteSource.wrap(bytes))
+				.parse()
+				.getModules()
+				.get(1);
+		List<OmfRecordType> types = new OmfRecordIterator(
+						Channels.newChannel(module.getSource().openStream(0)))
+				.setRecordTypeFilter(type -> type == OmfRecordType.THEADR || type == OmfRecordType.MODEND).stream()
+						.map(OmfRecord::getType)
+						.toList();
+		assertEquals(
+				List.of(OmfRecordType.THEADR, OmfRecordType.MODEND, OmfRecordType.THEADR, OmfRecordType.MODEND), types);
+	}
+
+	@Test
+	public void test_library_writer_grows_dictionary_and_is_deterministic() throws Exception {
+		List<OmfFile> modules = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			List<String> publics = new ArrayList<>();
+			for (int j = 0; j < 10; j++) {
+				publics.add(String.format("_module_%d_symbol_%d", i, j));
+			}
+			modules.add(newModule("module" + i + ".c", publics, List.of()));
+		}
+
+		ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+		new OmfLibraryWriter(modules).setPageSize(32).write(sequential);
+		ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+		new OmfLibraryWriter(modules).setPageSize(32).setParallel(true).write(parallel);
+		assertEquals(sequential.size(), parallel.size());
+		assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+
+		OmfLibrary library = new OmfLibrary.Parser(ByteSource.wrap(sequential.toByteArray())).parse();
+		assertTrue(library.getDictionaryBlockCount() > 1);
+		assertEquals(3000, library.getDictionary().size());
+		List<OmfLibrary.Module> libraryModules = library.getModules();
+		assertEquals(300, libraryModules.size());
+		for (int i = 0; i < 300; i += 7) {
+			for (int j = 0; j < 10; j++) {
+				assertSame(libraryModules.get(i), library.findModule(String.format("_module_%d_symbol_%d", i, j)));
+			}
+		}
+	}
+
+	@Test
+	public void test_library_writer_rejects_duplicate_publics() {
+		List<OmfFile> modules =
+				List.of(newModule("a.c", List.of("_main"), List.of()), newModule("b.c", List.of("_MAIN"), List.of()));
+
+		assertThrows(IllegalArgumentException.class, () -> new OmfLibraryWriter(modules)
+				.write(OutputStream.nullOutputStream()));
+		assertDoesNotThrow(
+				() -> new OmfLibraryWriter(modules).setCaseSensitive(true).write(OutputStream.nullOutputStream()));
+	}
+
+	// Libraries produced by real librarians (TLIB, LIB, wlib) from the OMF fixtures, placed next to them.
+	private List<Path> librarianFixtures() throws IOException, URISyntaxException {
+		Path directory =
+				Path.of(getClass().getResource("hello-world.c").toURI()).getParent();
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileName()
+							.toString()
+							.toLowerCase(Locale.ROOT)
+							.endsWith(".lib"))
+					.sorted()
+					.toList();
+		}
+	}
+
+	private static List<String> publicNames(OmfFile module) {
+		return module.stream()
+				.filter(OmfRecordPubdef.class::isInstance)
+				.map(OmfRecordPubdef.class::cast)
+				.flatMap(pubdef -> pubdef.getSymbols().stream())
+				.map(OmfRecordPubdef.PublicSymbol::name)
+				.toList();
+	}
+
+	private static void assertRecords(List<OmfRecord> expected, OmfRecordIterator iterator) {
+		List<OmfRecord> records = iterator.stream().toList();
+		assertEquals(expected.size(), records.size());
+		for (int i = 0; i < records.size(); i++) {
+			assertEquals(expected.get(i).getType(), records.get(i).getType());
+			assertEquals(expected.get(i).getLength(), records.get(i).getLength());
+		}
+	}
+
+	private static OmfFile newModule(String name, List<String> publics, List<String> externs) {
+		OmfFile omf = new OmfFile.Builder().build();
+		omf.add(new OmfRecordTheadr(omf, name));
+		if (!externs.isEmpty()) {
+			omf.add(new OmfRecordExtdef(
+					omf,
+					externs.stream()
+							.map(extern -> new OmfSubrecordExtdef(extern, 0))
+							.toList()));
+		}
+		List<OmfRecordPubdef.PublicSymbol> symbols = new ArrayList<>();
+		for (int i = 0; i < publics.size(); i++) {
+			symbols.add(new OmfRecordPubdef.PublicSymbol(publics.get(i), i * 4L, 0));
+		}
+		omf.add(new OmfRecordPubdef(omf, null, null, 0, symbols));
+		omf.add(new OmfRecordModend(omf, false, false, null));
+		return omf;
+	}
+
+	private static OmfLibraryHash hash(String name, int blockCount) {
+		return OmfLibraryHash.of(name.getBytes(StandardCharsets.US_ASCII), blockCount);
+	}
+
+	private byte[] readResource(String name) throws IOException, URISyntaxException {
+		return Files.readAllBytes(Path.of(getClass().getResource(name).toURI()));
+	}
+
+	// Lays out the hello-world and ascii-table modules into a library, inserting dictionary entries along their
+	// hash sequence. Symbols map to 1-based module numbers, as do dependency lists.
+	private byte[] buildLibrary(
+			int pageSize, int blockCount, int flags, Map<String, Integer> symbols, List<List<Integer>> dependencies)
+			throws IOException, URISyntaxException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[pageSize]);
+		List<Integer> pages = new ArrayList<>();
+		for (String name : List.of("hello-world_i386-pc-windows-omf.obj", "ascii-table_i386-pc-windows-omf.obj")) {
+			pages.add(out.size() / pageSize);
+			out.write(readResource(name));
+			out.write(new byte[(int) (OmfLibrary.alignUp(out.size(), pageSize) - out.size())]);
+		}
+
+		long libendEnd = OmfLibrary.alignUp(out.size() + 3, OmfLibrary.DICTIONARY_BLOCK_SIZE);
+		int libendLength = (int) (libendEnd - out.size() - 3);
+		out.write(OmfLibrary.LIBEND);
+		out.write(libendLength & 0xFF);
+		out.write(libendLength >> 8);
+		out.write(new byte[libendLength]);
+
+		long dictionaryOffset = out.size();
+		ByteBuffer dictionary = ByteBuffer.allocate(blockCount * OmfLibrary.DICTIONARY_BLOCK_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		for (int block = 0; block < blockCount; block++) {
+			dictionary.put(block * OmfLibrary.DICTIONARY_BLOCK_SIZE + OmfLibrary.FREE_SPACE_OFFSET, (byte) 19);
+		}
+		for (Map.Entry<String, Integer> entry : symbols.entrySet()) {
+			insert(
+					dictionary,
+					blockCount,
+					entry.getKey().getBytes(StandardCharsets.US_ASCII),
+					pages.get(entry.getValue() - 1));
+		}
+		out.write(dictionary.array());
+
+		if (!dependencies.isEmpty()) {
+			ByteBuffer extended = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+			extended.putShort((short) dependencies.size());
+			int listOffset = 2 + (dependencies.size() + 1) * 4;
+			for (int i = 0; i <= dependencies.size(); i++) {
+				extended.putShort((short) (i < dependencies.size() ? (int) pages.get(i) : 0));
+				extended.putShort((short) listOffset);
+				if (i < dependencies.size()) {
+					listOffset += (dependencies.get(i).size() + 1) * 2;
+				}
+			}
+			for (List<Integer> list : dependencies) {
+				list.forEach(number -> extended.putShort((short) (int) number));
+				extended.putShort((short) 0);
+			}
+
+			out.write(OmfLibrary.EXTDICT);
+			out.write(extended.position() & 0xFF);
+			out.write(extended.position() >> 8);
+			out.write(extended.array(), 0, extended.position());
+		}
+
+		byte[] bytes = out.toByteArray();
+		ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(0, (byte) OmfLibrary.LIBHDR);
+		header.putShort(1, (short) (pageSize - 3));
+		header.putInt(3, (int) dictionaryOffset);
+		header.putShort(7, (short) blockCount);
+		header.put(9, (byte) flags);
+		return bytes;
+	}
+
+	private static void insert(ByteBuffer dictionary, int blockCount, byte[] name, int page) {
+		OmfLibraryHash hash = OmfLibraryHash.of(name, blockCount);
+		int entrySize = (1 + name.length + 2 + 1) & ~1;
+
+		int block = hash.blockIndex();
+		for (int blocks = 0; blocks < blockCount; blocks++) {
+			int base = block * OmfLibrary.DICTIONARY_BLOCK_SIZE;
+			int free = Byte.toUnsignedInt(dictionary.get(base + OmfLibrary.FREE_SPACE_OFFSET));
+			if (free != OmfLibrary.BLOCK_FULL) {
+				if (free * 2 + entrySize > OmfLibrary.DICTIONARY_BLOCK_SIZE) {
+					dictionary.put(base + OmfLibrary.FREE_SPACE_OFFSET, (byte) OmfLibrary.BLOCK_FULL);
+				} else {
+					int bucket = hash.bucketIndex();
+					for (int buckets = 0; buckets < OmfLibraryHash.BUCKET_COUNT; buckets++) {
+						if (dictionary.get(base + bucket) == 0) {
+							dictionary.put(base + bucket, (byte) free);
+							dictionary.put(base + free * 2, (byte) name.length);
+							dictionary.put(base + free * 2 + 1, name);
+							dictionary.putShort(base + free * 2 + 1 + name.length, (short) page);
+							dictionary.put(base + OmfLibrary.FREE_SPACE_OFFSET, (byte) (free + entrySize / 2));
+							return;
+						}
+						bucket = (bucket + hash.bucketDelta()) % OmfLibraryHash.BUCKET_COUNT;
+					}
+				}
+			}
+
+			block = (block + hash.blockDelta()) % blockCount;
+		}
+
+		throw new IllegalStateException("dictionary full");
+	}
+}
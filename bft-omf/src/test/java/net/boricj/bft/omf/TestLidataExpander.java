@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.boricj.bft.omf;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import net.boricj.bft.omf.records.OmfRecordLidata;
+import net.boricj.bft.omf.records.OmfRecordSegdef;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestLidataExpander {
+	// repeat 3 of { repeat 2 of "ab", repeat 1 of "c" }
+	private static final byte[] NESTED = {
+		0x03, 0x00, 0x02, 0x00, 0x02, 0x00, 0x00, 0x00, 0x02, 'a', 'b', 0x01, 0x00, 0x00, 0x00, 0x01, 'c'
+	};
+
+	@Test
+	public void test_expands_nested_blocks() throws Exception {
+		OmfLidataExpander expander = new OmfLidataExpander(NESTED, false);
+		byte[] expected = "ababcababcababc".getBytes(StandardCharsets.US_ASCII);
+		assertEquals(expected.length, expander.getLength());
+
+		byte[] expanded = new byte[expected.length + 2];
+		expander.expandInto(expanded, 1);
+		assertArrayEquals(expected, Arrays.copyOfRange(expanded, 1, expected.length + 1));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		expander.expandTo(outputStream);
+		assertArrayEquals(expected, outputStream.toByteArray());
+
+		for (int offset = 0; offset <= expected.length; offset++) {
+			for (int count = 0; count <= expected.length - offset; count++) {
+				byte[] buffer = new byte[count];
+				assertEquals(count, expander.read(offset, buffer, 0, count));
+				assertArrayEquals(Arrays.copyOfRange(expected, offset, offset + count), buffer);
+			}
+		}
+		assertEquals(3, expander.read(12, new byte[8], 0, 8));
+	}
+
+	@Test
+	public void test_reads_large_expansion_without_materializing() {
+		// 32-bit repeat count of 0x7FFFFFFF, of the 4-byte payload "abcd"
+		byte[] encoded = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F, 0x00, 0x00, 0x04, 'a', 'b', 'c', 'd'};
+		OmfLidataExpander expander = new OmfLidataExpander(encoded, true);
+		assertEquals(4L * 0x7FFFFFFF, expander.getLength());
+
+		byte[] buffer = new byte[8];
+		assertEquals(6, expander.read(expander.getLength() - 6, buffer, 0, buffer.length));
+		assertArrayEquals("cdabcd".getBytes(StandardCharsets.US_ASCII), Arrays.copyOf(buffer, 6));
+	}
+
+	@Test
+	public void test_rejects_lidata_expanding_past_segment_length() {
+		OmfFile omf = new OmfFile.Builder().build();
+		OmfRecordSegdef segment = new OmfRecordSegdef(omf, 0x69, 16, "_DATA", "DATA", "");
+		omf.add(segment);
+
+		// 16-bit repeat count of 0xFFFF, of a 255-byte payload
+		byte[] encoded = new byte[5 + 255];
+		encoded[0] = (byte) 0xFF;
+		encoded[1] = (byte) 0xFF;
+		encoded[4] = (byte) 0xFF;
+		OmfRecordLidata lidata = new OmfRecordLidata(omf, segment, 0, encoded);
+		omf.add(lidata);
+
+		assertEquals(0xFFFFL * 255, OmfLidataExpander.of(lidata).getLength());
+		assertThrows(IllegalArgumentException.class, () -> OmfSegmentData.parseStrict(omf, segment));
+	}
+
+	@Test
+	public void test_rejects_malformed_iterated_data() {
+		IllegalStateException ex =
+				assertThrows(IllegalStateException.class, () -> new OmfLidataExpander(new byte[] {0x01}, false));
+		assertEquals("Malformed LIDATA: truncated repeat count", ex.getMessage());
+
+		assertThrows(IllegalStateException.class, () -> new OmfLidataExpander(Arrays.copyOf(NESTED, 10), false));
+	}
+}
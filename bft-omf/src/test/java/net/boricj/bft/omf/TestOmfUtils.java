@@ -29,6 +29,7 @@ import net.boricj.bft.omf.records.OmfRecordFixupp.FixupEntry;
 import net.boricj.bft.omf.records.OmfRecordFixupp.FrameMethod;
 import net.boricj.bft.omf.records.OmfRecordFixupp.TargetMethod;
 import net.boricj.bft.omf.records.OmfRecordGrpdef;
+import net.boricj.bft.omf.records.OmfRecordLnames;
 import net.boricj.bft.omf.records.OmfRecordModend;
 import net.boricj.bft.omf.records.OmfRecordPubdef;
 import net.boricj.bft.omf.records.OmfRecordSegdef;
@@ -100,6 +101,35 @@ public class TestOmfUtils {
 		assertEquals("DGROUP", OmfUtils.getGroupByIndex(omf, 1).getGroupName());
 	}
 
+	@Test
+	public void test_index_lookups_follow_record_order() {
+		OmfFile omf = new OmfFile.Builder().build();
+		omf.add(new OmfRecordLnames(omf, List.of("", "_TEXT", "CODE")));
+		OmfRecordSegdef text =
+				new OmfRecordSegdef(omf, OmfRecordSegdef.Attributes.ofRaw(0xA9), 0x1000L, "_TEXT", "CODE", "");
+		omf.add(text);
+		OmfRecordLnames redefinition = new OmfRecordLnames(omf, List.of("_TEXT", "DGROUP"));
+		omf.add(redefinition);
+		OmfRecordGrpdef group = new OmfRecordGrpdef(omf, "DGROUP", List.of(text));
+		omf.add(group);
+
+		assertEquals("CODE", omf.getLnameByIndex(3));
+		assertEquals("_TEXT", omf.getLnameByIndex(4));
+		assertThrows(IndexOutOfBoundsException.class, () -> omf.getLnameByIndex(6));
+		assertEquals(2, omf.indexOfLname("_TEXT"));
+		assertEquals(2, omf.indexOfLnameBefore("_TEXT", text));
+		assertEquals(4, omf.indexOfLnameBefore("_TEXT", redefinition));
+		assertEquals(4, omf.indexOfLnameBefore("_TEXT", group));
+		assertThrows(IllegalStateException.class, () -> omf.indexOfLnameBefore("DGROUP", text));
+
+		assertEquals(text, omf.getSegmentByIndex(1));
+		assertEquals(1, omf.indexOfSegment(text));
+		assertEquals(group, omf.getGroupByIndex(1));
+		assertEquals(1, omf.indexOfGroup(group));
+		assertThrows(
+				IllegalStateException.class, () -> omf.indexOfGroup(new OmfRecordGrpdef(omf, "DGROUP", List.of())));
+	}
+
 	@Test
 	public void test_find_segment_by_name_throws_for_missing_segment() {
 		OmfFile omf = buildTestFile();
@@ -13,16 +13,26 @@
  */
 package net.boricj.bft.omf;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HexFormat;
 import java.util.Iterator;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
+import net.boricj.bft.FileFormat;
 import net.boricj.bft.omf.coments.OmfComentCompiler;
 import net.boricj.bft.omf.coments.OmfComentLibrarySearch;
 import net.boricj.bft.omf.coments.OmfComentTranslator;
@@ -72,6 +82,23 @@ public class TestParser {
 		assertEquals(131072, totalFixups, "Unexpected total number of fixups");
 	}
 
+	@Test
+	public void test_parse_stops_at_modend() throws Exception {
+		byte[] bytes = Files.readAllBytes(Path.of(
+				getClass().getResource("hello-world_i386-pc-windows-omf.obj").toURI()));
+		OmfFile expected = new OmfFile.Parser(ByteSource.wrap(bytes)).parse();
+
+		// Trailing bytes after MODEND, such as the page padding of a library, aren't records.
+		byte[] padded = Arrays.copyOf(bytes, bytes.length + 64);
+		OmfFile omf = new OmfFile.Parser(ByteSource.wrap(padded)).parse();
+
+		assertEquals(expected.getElements().size(), omf.getElements().size());
+		assertEquals(
+				OmfRecordType.MODEND,
+				omf.getElements().get(omf.getElements().size() - 1).getType());
+		assertEquals(bytes.length, omf.getLength());
+	}
+
 	@Test
 	public void test_hello_world_i386_pc_windows_omf() throws Exception {
 		File file = new File(
@@ -501,4 +528,99 @@ public class TestParser {
 
 		assertFalse(recordsIt.hasNext());
 	}
+
+	@Test
+	public void test_probe_i386_pc_windows_omf() throws Exception {
+		Path path = Path.of(
+				getClass().getResource("hello-world_i386-pc-windows-omf.obj").toURI());
+		ByteSource source = ByteSource.map(path);
+		OmfFile omf = new OmfFile.Parser(source).parse();
+
+		assertEquals(FileFormat.OMF, FileFormat.detect(source));
+
+		OmfProbe probe = OmfProbe.probe(source);
+		assertEquals(((OmfRecordTheadr) omf.get(0)).getModuleName(), probe.getName());
+		assertEquals(omf.size(), probe.getRecordCount());
+		assertEquals(omf.stream().filter(OmfRecordSegdef.class::isInstance).count(), probe.getSegmentCount());
+		assertEquals(omf.getLength(), probe.getLength());
+
+		OmfProbe headerOnly = OmfProbe.probe(source, false, StandardCharsets.UTF_8);
+		assertEquals(probe.getName(), headerOnly.getName());
+		assertEquals(-1, headerOnly.getRecordCount());
+	}
+
+	@Test
+	public void test_record_iterator_i386_pc_windows_omf() throws Exception {
+		Path path = Path.of(
+				getClass().getResource("hello-world_i386-pc-windows-omf.obj").toURI());
+		OmfFile omf = new OmfFile.Parser(ByteSource.map(path)).parse();
+
+		List<OmfRecordType> types;
+		try (FileChannel channel = FileChannel.open(path)) {
+			types = new OmfRecordIterator(channel)
+					.stream().map(OmfRecord::getType).toList();
+		}
+		assertEquals(omf.stream().map(OmfRecord::getType).toList(), types);
+
+		List<OmfRecord> expected = omf.stream()
+				.filter(record -> record instanceof OmfRecordPubdef || record instanceof OmfRecordExtdef)
+				.toList();
+		try (FileChannel channel = FileChannel.open(path)) {
+			OmfRecordIterator iterator = new OmfRecordIterator(channel)
+					.setRecordTypeFilter(EnumSet.of(OmfRecordType.PUBDEF, OmfRecordType.EXTDEF)::contains);
+			List<OmfRecord> records = iterator.stream().toList();
+
+			assertEquals(expected.size(), records.size());
+			for (int i = 0; i < records.size(); i++) {
+				assertEquals(expected.get(i).getType(), records.get(i).getType());
+				assertEquals(expected.get(i).getLength(), records.get(i).getLength());
+			}
+		}
+
+		// Concatenated modules, read from a channel that cannot seek.
+		byte[] bytes = Files.readAllBytes(path);
+		ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+		concatenated.write(bytes);
+		concatenated.write(bytes);
+
+		OmfRecordIterator iterator = new OmfRecordIterator(
+						Channels.newChannel(new ByteArrayInputStream(concatenated.toByteArray())))
+				.setRecordTypeFilter(type -> type == OmfRecordType.THEADR || type == OmfRecordType.MODEND);
+		List<OmfFile> modules = new ArrayList<>();
+		int count = 0;
+		while (iterator.hasNext()) {
+			OmfRecord record = iterator.next();
+			assertEquals(count % 2 == 0 ? OmfRecordType.THEADR : OmfRecordType.MODEND, record.getType());
+			assertEquals(iterator.getModule(), record.getFile());
+			if (!modules.contains(iterator.getModule())) {
+				modules.add(iterator.getModule());
+			}
+			count++;
+		}
+		assertEquals(4, count);
+		assertEquals(2, modules.size());
+	}
+
+	@Test
+	public void test_record_factory_i386_pc_windows_omf() throws Exception {
+		File file = new File(
+				getClass().getResource("hello-world_i386-pc-windows-omf.obj").toURI());
+
+		List<OmfRecord> created = new ArrayList<>();
+		OmfFile omf;
+		try (FileInputStream fis = new FileInputStream(file)) {
+			omf = new OmfFile.Parser(fis)
+					.setRecordFactory((byte) 0x8A, (f, bis, typeValue, body) -> {
+						OmfRecord record =
+								OmfRecordType.MODEND.getRecordFactory().parse(f, bis, typeValue, body);
+						created.add(record);
+						return record;
+					})
+					.parse();
+		}
+
+		OmfRecord modend = omf.get(omf.size() - 1);
+		assertEquals(List.of(modend), created);
+		assertEquals((byte) 0x8A, modend.getSpecificTypeValue());
+	}
 }
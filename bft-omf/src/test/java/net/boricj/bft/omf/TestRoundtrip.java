@@ -18,11 +18,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.TestUtils;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class TestRoundtrip {
 	@Test
 	public void test_hello_world_i386_pc_windows_omf() throws IOException, URISyntaxException {
@@ -49,6 +54,34 @@ public class TestRoundtrip {
 		TestUtils.assertArrayEquals(expectedBytes, actualBytes);
 	}
 
+	@Test
+	public void test_lengths_hello_world_i386_pc_windows_omf() throws IOException, URISyntaxException {
+		assertLengths("hello-world_i386-pc-windows-omf.obj");
+	}
+
+	@Test
+	public void test_lengths_ascii_table_i386_pc_windows_omf() throws IOException, URISyntaxException {
+		assertLengths("ascii-table_i386-pc-windows-omf.obj");
+	}
+
+	private void assertLengths(String name) throws IOException, URISyntaxException {
+		File file = new File(getClass().getResource(name).toURI());
+
+		OmfFile omf;
+		try (FileInputStream fis = new FileInputStream(file)) {
+			omf = new OmfFile.Parser(fis).parse();
+		}
+
+		// Computed lengths must match serialized lengths, record by record
+		for (OmfRecord record : omf) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			record.write(baos);
+			assertEquals(baos.size(), record.getLength(), record.toString());
+		}
+
+		assertEquals(file.length(), omf.getLength());
+	}
+
 	@Test
 	public void test_ascii_table_i386_pc_windows_omf() throws IOException, URISyntaxException {
 		File file = new File(
@@ -73,4 +106,18 @@ public class TestRoundtrip {
 		// Compare the bytes
 		TestUtils.assertArrayEquals(expectedBytes, actualBytes);
 	}
+
+	@Test
+	public void test_ascii_table_i386_pc_windows_omf_zero_copy() throws IOException, URISyntaxException {
+		Path path = Path.of(
+				getClass().getResource("ascii-table_i386-pc-windows-omf.obj").toURI());
+
+		OmfFile omf = new OmfFile.Parser(ByteSource.map(path)).setZeroCopy(true).parse();
+
+		// Write the OMF file to a byte array
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		omf.write(baos);
+
+		TestUtils.assertArrayEquals(Files.readAllBytes(path), baos.toByteArray());
+	}
 }
@@ -13,18 +13,22 @@
  */
 package net.boricj.bft.omf;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
+import net.boricj.bft.ByteSource;
 import net.boricj.bft.omf.OmfSegmentData.FixupAtOffset;
 import net.boricj.bft.omf.records.OmfRecordFixupp;
 import net.boricj.bft.omf.records.OmfRecordFixupp.FixupEntry;
 import net.boricj.bft.omf.records.OmfRecordLedata;
 import net.boricj.bft.omf.records.OmfRecordLidata;
+import net.boricj.bft.omf.records.OmfRecordLnames;
 import net.boricj.bft.omf.records.OmfRecordSegdef;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
@@ -152,6 +156,118 @@ public class TestSegmentData {
 		assertEquals(List.of(1, 10, 16), reparsedOffsets);
 	}
 
+	@Test
+	public void test_emit_iterated_compresses_runs_and_patterns() throws Exception {
+		OmfFile destination = new OmfFile.Builder().build();
+		OmfRecordLnames names = new OmfRecordLnames(destination, List.of("", "_DATA", "DATA"));
+		destination.add(names);
+		OmfRecordSegdef destinationSegment = new OmfRecordSegdef(destination, 0x69, 0x20000, "_DATA", "DATA", "");
+		destination.add(destinationSegment);
+
+		// Zero fill, tables of 8-byte and 64-byte entries, then zero fill past the 16-bit offset range.
+		byte[] bytes = new byte[0x20000];
+		for (int i = 0x1000; i < 0x3000; i += 8) {
+			bytes[i] = (byte) 0xAA;
+			bytes[i + 1] = (byte) 0x55;
+		}
+		for (int i = 0x4000; i < 0x6000; i += 64) {
+			bytes[i] = 0x01;
+			bytes[i + 1] = 0x02;
+		}
+		for (int i = 0x3000; i < 0x3010; i++) {
+			bytes[i] = (byte) i;
+		}
+		FixupEntry entry = new FixupEntry(
+				0,
+				0x9,
+				true,
+				OmfRecordFixupp.FrameMethod.GRPDEF_INDEX,
+				OmfRecordFixupp.TargetMethod.SEGDEF_INDEX,
+				1,
+				1,
+				OmfRecordFixupp.DisplacementType.D32);
+		List<FixupAtOffset> fixups = List.of(new FixupAtOffset(0x800, entry), new FixupAtOffset(0x18000, entry));
+		OmfSegmentData data = new OmfSegmentData(destinationSegment, bytes, fixups);
+
+		OmfChunkingPolicy policy = OmfChunkingPolicy.borland1024();
+		data.emit(destination, policy, true);
+
+		List<OmfRecordLidata> lidatas = destination.stream()
+				.filter(OmfRecordLidata.class::isInstance)
+				.map(OmfRecordLidata.class::cast)
+				.toList();
+		assertTrue(lidatas.stream().anyMatch(lidata -> lidata.getSpecificTypeValue() == (byte) 0xA2));
+		assertTrue(lidatas.stream().anyMatch(lidata -> lidata.getSpecificTypeValue() == (byte) 0xA3));
+		// The 64-byte entries hold a run of zeroes, encoded as a nested block.
+		assertTrue(lidatas.stream()
+				.anyMatch(lidata -> lidata.getDataOffset() == 0x4000
+						&& (lidata.getEncodedData()[2] != 0 || lidata.getEncodedData()[3] != 0)));
+		long length = 0;
+		for (OmfRecord record : destination.getElements()) {
+			if (record != names && record != destinationSegment) {
+				assertTrue(record.getLength() <= policy.maxRecordSize());
+				length += record.getLength();
+			}
+		}
+		assertTrue(length < 1024, "Expected iterated data to shrink the segment");
+
+		// Fixups are only ever emitted after enumerated data.
+		List<OmfRecord> records = destination.getElements();
+		for (int i = 1; i < records.size(); i++) {
+			if (records.get(i) instanceof OmfRecordFixupp) {
+				assertTrue(records.get(i - 1) instanceof OmfRecordLedata);
+			}
+		}
+
+		// Round trip through the serialized records.
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		destination.write(out);
+		OmfFile parsed = new OmfFile.Parser(ByteSource.wrap(out.toByteArray())).parse();
+		OmfRecordSegdef parsedSegment = parsed.stream()
+				.filter(OmfRecordSegdef.class::isInstance)
+				.map(OmfRecordSegdef.class::cast)
+				.findFirst()
+				.orElseThrow();
+
+		OmfSegmentData reparsed = OmfSegmentData.parse(parsed, parsedSegment);
+		assertArrayEquals(bytes, reparsed.getBytes());
+		assertEquals(fixups.size(), reparsed.getFixups().size());
+		for (int i = 0; i < fixups.size(); i++) {
+			FixupAtOffset expected = fixups.get(i);
+			FixupAtOffset actual = reparsed.getFixups().get(i);
+			assertEquals(expected.segmentOffset(), actual.segmentOffset());
+			assertEquals(expected.entry().getLocationType(), actual.entry().getLocationType());
+			assertEquals(expected.entry().isSegmentRelative(), actual.entry().isSegmentRelative());
+			assertEquals(expected.entry().getFrameMethodEnum(), actual.entry().getFrameMethodEnum());
+			assertEquals(expected.entry().getFrameDatum(), actual.entry().getFrameDatum());
+			assertEquals(expected.entry().getTargetMethodEnum(), actual.entry().getTargetMethodEnum());
+			assertEquals(expected.entry().getTargetDatum(), actual.entry().getTargetDatum());
+			assertEquals(expected.entry().getDisplacementType(), actual.entry().getDisplacementType());
+		}
+	}
+
+	@Test
+	public void test_emit_iterated_keeps_enumerated_data_as_is() {
+		OmfFile enumerated = new OmfFile.Builder().build();
+		OmfRecordSegdef enumeratedSegment = new OmfRecordSegdef(enumerated, 0x69, 0x100, "_DATA", "DATA", "");
+		enumerated.add(enumeratedSegment);
+		OmfFile iterated = new OmfFile.Builder().build();
+		OmfRecordSegdef iteratedSegment = new OmfRecordSegdef(iterated, 0x69, 0x100, "_DATA", "DATA", "");
+		iterated.add(iteratedSegment);
+
+		byte[] bytes = new byte[0x100];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (i * 7);
+		}
+
+		new OmfSegmentData(enumeratedSegment, bytes, List.of()).emit(enumerated, OmfChunkingPolicy.borland1024());
+		new OmfSegmentData(iteratedSegment, bytes, List.of()).emit(iterated, OmfChunkingPolicy.borland1024(), true);
+
+		assertEquals(enumerated.size(), iterated.size());
+		assertTrue(iterated.stream().noneMatch(OmfRecordLidata.class::isInstance));
+		assertArrayEquals(bytes, OmfSegmentData.parse(iterated, iteratedSegment).getBytes());
+	}
+
 	@Test
 	public void test_emit_rejects_unemittable_fixup_range_with_no_forward_progress() {
 		OmfFile destination = new OmfFile.Builder().build();
@@ -272,6 +388,68 @@ public class TestSegmentData {
 				parsed.getBytes());
 	}
 
+	@Test
+	public void test_parse_all_matches_parse_strict() throws Exception {
+		File file = new File(
+				getClass().getResource("hello-world_i386-pc-windows-omf.obj").toURI());
+
+		OmfFile omf;
+		try (FileInputStream fis = new FileInputStream(file)) {
+			omf = new OmfFile.Parser(fis).parse();
+		}
+
+		Map<OmfRecordSegdef, OmfSegmentData> all = OmfSegmentData.parseAll(omf);
+		List<OmfRecordSegdef> segments = omf.stream()
+				.filter(OmfRecordSegdef.class::isInstance)
+				.map(OmfRecordSegdef.class::cast)
+				.toList();
+		assertEquals(segments, List.copyOf(all.keySet()));
+
+		for (OmfRecordSegdef segment : segments) {
+			OmfSegmentData expected = OmfSegmentData.parseStrict(omf, segment);
+			OmfSegmentData actual = all.get(segment);
+			assertArrayEquals(expected.getBytes(), actual.getBytes());
+			assertEquals(expected.getFixups(), actual.getFixups());
+		}
+	}
+
+	@Test
+	public void test_parse_all_reconstructs_interleaved_segments() {
+		OmfFile omf = new OmfFile.Builder().build();
+		OmfRecordSegdef code = new OmfRecordSegdef(omf, 0x69, 0x10, "_TEXT", "CODE", "");
+		OmfRecordSegdef data = new OmfRecordSegdef(omf, 0x69, 0x10, "_DATA", "DATA", "");
+		OmfRecordSegdef bss = new OmfRecordSegdef(omf, 0x69, 0x10, "_BSS", "BSS", "");
+		omf.add(code);
+		omf.add(data);
+		omf.add(bss);
+
+		omf.add(new OmfRecordLedata(omf, code, 0, new byte[] {1, 2, 3, 4}));
+		omf.add(new OmfRecordLedata(omf, data, 0, new byte[] {9, 8}));
+		omf.add(new OmfRecordFixupp(
+				omf,
+				List.of(new FixupEntry(
+						0,
+						0x9,
+						true,
+						OmfRecordFixupp.FrameMethod.GRPDEF_INDEX,
+						OmfRecordFixupp.TargetMethod.SEGDEF_INDEX,
+						1,
+						1,
+						OmfRecordFixupp.DisplacementType.D16))));
+		omf.add(new OmfRecordLedata(omf, code, 4, new byte[] {5, 6}));
+
+		Map<OmfRecordSegdef, OmfSegmentData> all = OmfSegmentData.parseAll(omf);
+		assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6}, all.get(code).getBytes());
+		assertEquals(List.of(), all.get(code).getFixups());
+		assertArrayEquals(new byte[] {9, 8}, all.get(data).getBytes());
+		assertEquals(1, all.get(data).getFixups().size());
+		assertArrayEquals(new byte[0], all.get(bss).getBytes());
+
+		omf.add(new OmfRecordLedata(omf, data, 3, new byte[] {10}));
+		IllegalStateException ex = assertThrows(IllegalStateException.class, () -> OmfSegmentData.parseAll(omf));
+		assertTrue(ex.getMessage().contains("_DATA"));
+	}
+
 	@Test
 	public void test_parse_rejects_malformed_lidata_with_segment_context() {
 		OmfFile omf = new OmfFile.Builder().build();